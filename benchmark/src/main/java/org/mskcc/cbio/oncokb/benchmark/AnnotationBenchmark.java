@@ -0,0 +1,66 @@
+package org.mskcc.cbio.oncokb.benchmark;
+
+import org.mskcc.cbio.oncokb.model.*;
+import org.mskcc.cbio.oncokb.util.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the annotation of one query end to end and the stages it goes through, so a change in a stage can be
+ * told apart from a change in the rest of the engine.
+ *
+ * Build with: mvn clean install -P benchmark -DskipTests=true
+ * Run with: java -jar benchmark/target/benchmarks.jar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AnnotationBenchmark {
+
+    @Benchmark
+    public IndicatorQueryResp processQuery(AnnotationState state) {
+        Query query = state.queries.get(state.nextIndex()).copy();
+        return IndicatorUtils.processQuery(query, null, false, null, false);
+    }
+
+    @Benchmark
+    public Alteration annotateAlteration(AnnotationState state) {
+        int index = state.nextIndex();
+        Query query = state.queries.get(index);
+        Alteration alteration = new Alteration();
+        alteration.setGene(state.alterations.get(index).getGene());
+        AlterationUtils.annotateAlteration(alteration, query.getAlteration());
+        return alteration;
+    }
+
+    @Benchmark
+    public void getRelevantAlterations(AnnotationState state, Blackhole blackhole) {
+        int index = state.nextIndex();
+        Query query = state.queries.get(index);
+        blackhole.consume(AlterationUtils.getRelevantAlterations(query.getReferenceGenome(), state.alterations.get(index)));
+    }
+
+    @Benchmark
+    public void getRelevantEvidences(AnnotationState state, Blackhole blackhole) {
+        int index = state.nextIndex();
+        blackhole.consume(EvidenceUtils.getRelevantEvidences(state.queries.get(index), state.matchedAlterations.get(index),
+            null, LevelUtils.getPublicLevels(), state.relevantAlterations.get(index), state.alleles.get(index), false));
+    }
+
+    @Benchmark
+    public void findRelevantTumorTypes(AnnotationState state, Blackhole blackhole) {
+        blackhole.consume(TumorTypeUtils.findRelevantTumorTypes(state.queries.get(state.nextIndex()).getTumorType()));
+    }
+
+    @Benchmark
+    public String variantSummary(AnnotationState state) {
+        int index = state.nextIndex();
+        Query query = state.queries.get(index);
+        Alteration matchedAlteration = state.matchedAlterations.get(index);
+        return SummaryUtils.variantSummary(matchedAlteration.getGene(), matchedAlteration, state.relevantAlterations.get(index), query);
+    }
+}
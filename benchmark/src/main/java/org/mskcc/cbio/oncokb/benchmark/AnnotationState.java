@@ -0,0 +1,88 @@
+package org.mskcc.cbio.oncokb.benchmark;
+
+import org.mskcc.cbio.oncokb.apiModels.StartupReport;
+import org.mskcc.cbio.oncokb.benchmark.fixture.BenchmarkFixture;
+import org.mskcc.cbio.oncokb.model.*;
+import org.mskcc.cbio.oncokb.util.AlterationUtils;
+import org.mskcc.cbio.oncokb.util.CacheUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The queries of one suite, with the intermediate results the stage benchmarks start from. Every invocation of a
+ * benchmark takes the next query of the suite, so one measurement covers the whole mix.
+ */
+@State(Scope.Thread)
+public class AnnotationState {
+    @Param
+    public QuerySuite suite;
+
+    List<Query> queries;
+    List<Alteration> alterations;
+    List<Alteration> matchedAlterations;
+    List<List<Alteration>> relevantAlterations;
+    List<List<Alteration>> alleles;
+
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        loadCache();
+
+        queries = suite.getQueries();
+        alterations = new ArrayList<>();
+        matchedAlterations = new ArrayList<>();
+        relevantAlterations = new ArrayList<>();
+        alleles = new ArrayList<>();
+        for (Query query : queries) {
+            Alteration alteration = AlterationUtils.getAlteration(query.getHugoSymbol(), query.getAlteration(), null,
+                query.getConsequence(), query.getProteinStart(), query.getProteinEnd(), query.getReferenceGenome());
+            Alteration matchedAlteration = AlterationUtils.findExactlyMatchedAlteration(query.getReferenceGenome(), alteration,
+                AlterationUtils.getAllAlterations(query.getReferenceGenome(), alteration.getGene()));
+            if (matchedAlteration == null) {
+                matchedAlteration = alteration;
+            }
+            alterations.add(alteration);
+            matchedAlterations.add(matchedAlteration);
+            relevantAlterations.add(AlterationUtils.getRelevantAlterations(query.getReferenceGenome(), alteration));
+            alleles.add(AlterationUtils.getAlleleAlterations(query.getReferenceGenome(), matchedAlteration));
+        }
+    }
+
+    /**
+     * Load the cache from the fixture. The cache bootstrap only reports the phases which fail, the setup fails
+     * instead of measuring a partly loaded cache.
+     */
+    static void loadCache() {
+        // the fixture has to be in place before CacheUtils loads the genes, alterations and evidences
+        BenchmarkFixture.getInstance();
+        CacheUtils.getAllGenes();
+
+        StartupReport report = CacheUtils.getStartupReport();
+        if (report == null) {
+            throw new IllegalStateException("The cache bootstrap did not finish");
+        }
+        for (StartupReport.Phase phase : report.getPhases()) {
+            if (Boolean.TRUE.equals(phase.getFailed())) {
+                throw new IllegalStateException("The cache bootstrap failed: " + phase);
+            }
+        }
+        if (CacheUtils.getAllGenes().isEmpty()) {
+            throw new IllegalStateException("No gene is cached from the benchmark fixture");
+        }
+        if (CacheUtils.getAllEvidences().isEmpty()) {
+            throw new IllegalStateException("No evidence is cached from the benchmark fixture");
+        }
+    }
+
+    /**
+     * @return the index of the query the invocation runs
+     */
+    int nextIndex() {
+        int index = next;
+        next = (next + 1) % queries.size();
+        return index;
+    }
+}
@@ -0,0 +1,94 @@
+package org.mskcc.cbio.oncokb.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.mskcc.cbio.oncokb.cache.CompactCodec;
+import org.mskcc.cbio.oncokb.model.IndicatorQueryResp;
+import org.mskcc.cbio.oncokb.model.Query;
+import org.mskcc.cbio.oncokb.util.IndicatorUtils;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.SnappyCodecV2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the codecs the annotations can be cached with. The payload size of each codec is printed when the trial
+ * starts, the time to write and read one annotation is measured.
+ *
+ * Build with: mvn clean install -P benchmark -DskipTests=true
+ * Run with: java -jar benchmark/target/benchmarks.jar CodecBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CodecBenchmark {
+
+    @State(Scope.Thread)
+    public static class CodecState {
+        // default is the codec the cache uses unless redis.codec is set, compact is redis.codec=compact
+        @Param({"default", "compact"})
+        public String codecName;
+
+        @Param
+        public QuerySuite suite;
+
+        Codec codec;
+        List<IndicatorQueryResp> responses;
+        List<byte[]> payloads;
+
+        private int next = 0;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            AnnotationState.loadCache();
+
+            codec = "compact".equals(codecName) ? new SnappyCodecV2(new CompactCodec()) : new SnappyCodecV2();
+            responses = new ArrayList<>();
+            payloads = new ArrayList<>();
+            long size = 0;
+            for (Query query : suite.getQueries()) {
+                IndicatorQueryResp resp = IndicatorUtils.processQuery(query.copy(), null, false, null, false);
+                ByteBuf buf = codec.getValueEncoder().encode(resp);
+                byte[] payload = new byte[buf.readableBytes()];
+                buf.readBytes(payload);
+                buf.release();
+                responses.add(resp);
+                payloads.add(payload);
+                size += payload.length;
+            }
+            System.out.println();
+            System.out.println(codecName + " codec, " + suite + ": " + responses.size() + " annotations, "
+                + size + " bytes, " + (size / Math.max(1, responses.size())) + " bytes per annotation");
+        }
+
+        int nextIndex() {
+            int index = next;
+            next = (next + 1) % responses.size();
+            return index;
+        }
+    }
+
+    @Benchmark
+    public int encode(CodecState state) throws IOException {
+        ByteBuf buf = state.codec.getValueEncoder().encode(state.responses.get(state.nextIndex()));
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public Object decode(CodecState state) throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(state.payloads.get(state.nextIndex()));
+        try {
+            return state.codec.getValueDecoder().decode(buf, null);
+        } finally {
+            buf.release();
+        }
+    }
+}
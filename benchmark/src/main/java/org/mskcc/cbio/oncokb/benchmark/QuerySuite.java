@@ -0,0 +1,97 @@
+package org.mskcc.cbio.oncokb.benchmark;
+
+import org.mskcc.cbio.oncokb.model.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mskcc.cbio.oncokb.Constants.DEFAULT_REFERENCE_GENOME;
+
+/**
+ * The query mixes the annotation engine is measured with. Every query is hugo symbol, alteration, consequence and
+ * tumor type. The queries cover curated alterations, positional matches and VUSs of the benchmark fixture, as well as
+ * alterations the fixture does not know.
+ */
+public enum QuerySuite {
+    MISSENSE(new String[][]{
+        {"BRAF", "V600E", "missense_variant", "MEL"},
+        {"BRAF", "V600G", "missense_variant", "MEL"},
+        {"KRAS", "G12D", "missense_variant", "COAD"},
+        {"KRAS", "G12C", "missense_variant", "LUAD"},
+        {"EGFR", "L858R", "missense_variant", "LUAD"},
+        {"EGFR", "T790M", "missense_variant", "NSCLC"},
+        {"PIK3CA", "H1047R", "missense_variant", "IDC"},
+        {"TP53", "R273H", "missense_variant", "BRCA"},
+        {"TP53", "R248W", "missense_variant", "HGSOC"},
+        {"IDH1", "R132H", "missense_variant", "ASTR"},
+        {"ALK", "F1174L", "missense_variant", "NBL"},
+        {"KIT", "D816V", "missense_variant", "GIST"},
+        {"ERBB2", "S310F", "missense_variant", "BLCA"},
+        {"MET", "D1228N", "missense_variant", "LUAD"},
+        {"NRAS", "Q61K", "missense_variant", "SKCM"},
+        {"PTEN", "R130G", "missense_variant", "UEC"},
+        {"TP53", "W91C", "missense_variant", "BRCA"},
+        {"CDKN2A", "P114L", "missense_variant", "PAAD"},
+    }),
+    TRUNCATING(new String[][]{
+        {"TP53", "R196*", "stop_gained", "BRCA"},
+        {"TP53", "P72fs", "frameshift_variant", "HGSOC"},
+        {"PTEN", "R130*", "stop_gained", "UEC"},
+        {"PTEN", "K267Rfs*9", "frameshift_variant", "PRAD"},
+        {"BRCA2", "E1493Vfs*10", "frameshift_variant", "HGSOC"},
+        {"BRCA2", "K3326*", "stop_gained", "BRCA"},
+        {"CDKN2A", "W110*", "stop_gained", "GBM"},
+        {"CDKN2A", "R80*", "stop_gained", "MEL"},
+        {"MET", "X1010_splice", "splice_region_variant", "LUAD"},
+        {"TP53", "X126_splice", "splice_region_variant", "ESCA"},
+    }),
+    FUSION(new String[][]{
+        {"ALK", "EML4-ALK Fusion", "fusion", "LUAD"},
+        {"ABL1", "BCR-ABL1 Fusion", "fusion", "CMLBCRABL1"},
+        {"BRAF", "KIAA1549-BRAF Fusion", "fusion", "ASTR"},
+        {"NTRK1", "TPM3-NTRK1 Fusion", "fusion", "IFS"},
+        {"FGFR2", "FGFR2-BICC1 Fusion", "fusion", "CHOL"},
+        {"ALK", "NPM1-ALK Fusion", "fusion", "ALCL"},
+        {"NTRK1", "LMNA-NTRK1 Fusion", "fusion", "THPA"},
+    }),
+    CNA(new String[][]{
+        {"ERBB2", "Amplification", "", "BRCA"},
+        {"ERBB2", "Amplification", "", "STAD"},
+        {"EGFR", "Amplification", "", "GBM"},
+        {"MET", "Amplification", "", "LUAD"},
+        {"MYC", "Amplification", "", "BRCA"},
+        {"CDKN2A", "Deletion", "", "GBM"},
+        {"PTEN", "Deletion", "", "PRAD"},
+        {"BRCA2", "Deletion", "", "PRAD"},
+    }),
+    TUMOR_TYPE_HEAVY(new String[][]{
+        {"BRAF", "V600E", "missense_variant", "MEL"},
+        {"BRAF", "V600E", "missense_variant", "NSCLC"},
+        {"BRAF", "V600E", "missense_variant", "COADREAD"},
+        {"BRAF", "V600E", "missense_variant", "THAP"},
+        {"BRAF", "V600E", "missense_variant", "HCL"},
+        {"BRAF", "V600E", "missense_variant", "ECD"},
+        {"BRAF", "V600E", "missense_variant", "GBM"},
+        {"BRAF", "V600E", "missense_variant", "Melanoma"},
+        {"BRAF", "V600E", "missense_variant", "All Solid Tumors"},
+        {"BRAF", "V600E", "missense_variant", ""},
+        {"EGFR", "L858R", "missense_variant", "Non-Small Cell Lung Cancer"},
+        {"KRAS", "G12C", "missense_variant", "All Tumors"},
+    });
+
+    private final String[][] queries;
+
+    QuerySuite(String[][] queries) {
+        this.queries = queries;
+    }
+
+    public List<Query> getQueries() {
+        List<Query> result = new ArrayList<>();
+        for (int i = 0; i < queries.length; i++) {
+            String[] query = queries[i];
+            result.add(new Query(name() + "-" + i, DEFAULT_REFERENCE_GENOME, null, query[0], query[1], null, null,
+                query[3].isEmpty() ? null : query[3], query[2].isEmpty() ? null : query[2], null, null, null));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.AlterationDao;
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FixtureAlterationDaoImpl extends FixtureGenericDaoImpl<Alteration> implements AlterationDao {
+    public FixtureAlterationDaoImpl() {
+        super(Alteration::getId);
+    }
+
+    @Override
+    public List<Alteration> findAll() {
+        return new ArrayList<>(getFixture().getAlterations());
+    }
+
+    @Override
+    public List<Alteration> findAlterationsByGene(Gene gene) {
+        return getGeneAlterations(gene, null).collect(Collectors.toList());
+    }
+
+    @Override
+    public Alteration findAlteration(Gene gene, AlterationType alterationType, ReferenceGenome referenceGenome, String alteration) {
+        return getGeneAlterations(gene, referenceGenome)
+            .filter(alt -> alt.getAlteration().equals(alteration))
+            .findFirst().orElse(null);
+    }
+
+    @Override
+    public Alteration findAlteration(Gene gene, AlterationType alterationType, ReferenceGenome referenceGenome, String alteration, String name) {
+        return getGeneAlterations(gene, referenceGenome)
+            .filter(alt -> alt.getAlteration().equals(alteration) && alt.getName().equals(name))
+            .findFirst().orElse(null);
+    }
+
+    @Override
+    public List<Alteration> findMutationsByConsequenceAndPositionOnSamePosition(Gene gene, ReferenceGenome referenceGenome, VariantConsequence consequence, int start, int end) {
+        return getGeneAlterations(gene, referenceGenome)
+            .filter(alt -> consequence.equals(alt.getConsequence())
+                && alt.getProteinStart() != null && alt.getProteinStart() >= start && alt.getProteinStart() <= end
+                && alt.getProteinStart().equals(alt.getProteinEnd()))
+            .collect(Collectors.toList());
+    }
+
+    private Stream<Alteration> getGeneAlterations(Gene gene, ReferenceGenome referenceGenome) {
+        return getFixture().getAlterations().stream()
+            .filter(alteration -> alteration.getGene().equals(gene)
+                && (referenceGenome == null || alteration.getReferenceGenomes().contains(referenceGenome)));
+    }
+}
@@ -0,0 +1,31 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.ArticleDao;
+import org.mskcc.cbio.oncokb.model.Article;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fixture evidences have no references.
+ */
+public class FixtureArticleDaoImpl extends FixtureGenericDaoImpl<Article> implements ArticleDao {
+    public FixtureArticleDaoImpl() {
+        super(Article::getId);
+    }
+
+    @Override
+    public List<Article> findAll() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Article findArticleByPmid(String pmid) {
+        return null;
+    }
+
+    @Override
+    public Article findArticleByAbstract(String abstractContent) {
+        return null;
+    }
+}
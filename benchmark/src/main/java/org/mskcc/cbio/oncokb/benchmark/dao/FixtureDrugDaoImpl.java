@@ -0,0 +1,40 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.DrugDao;
+import org.mskcc.cbio.oncokb.model.Drug;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class FixtureDrugDaoImpl extends FixtureGenericDaoImpl<Drug> implements DrugDao {
+    public FixtureDrugDaoImpl() {
+        super(Drug::getId);
+    }
+
+    @Override
+    public List<Drug> findAll() {
+        return new ArrayList<>(getFixture().getDrugs());
+    }
+
+    @Override
+    public Drug findDrugById(Integer id) {
+        return findById(id);
+    }
+
+    @Override
+    public Drug findDrugByName(String drugName) {
+        return getFixture().getDrugs().stream().filter(drug -> drug.getDrugName().equals(drugName)).findFirst().orElse(null);
+    }
+
+    @Override
+    public List<Drug> findDrugBySynonym(String synonym) {
+        return getFixture().getDrugs().stream().filter(drug -> drug.getSynonyms() != null && drug.getSynonyms().contains(synonym)).collect(Collectors.toList());
+    }
+
+    @Override
+    public Drug findDrugByNcitCode(String ncitCode) {
+        return getFixture().getDrugs().stream().filter(drug -> Objects.equals(drug.getNcitCode(), ncitCode)).findFirst().orElse(null);
+    }
+}
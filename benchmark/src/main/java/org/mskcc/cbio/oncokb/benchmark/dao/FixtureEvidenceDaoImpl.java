@@ -0,0 +1,124 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.EvidenceDao;
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+public class FixtureEvidenceDaoImpl extends FixtureGenericDaoImpl<Evidence> implements EvidenceDao {
+    public FixtureEvidenceDaoImpl() {
+        super(Evidence::getId);
+    }
+
+    @Override
+    public List<Evidence> findAll() {
+        return new ArrayList<>(getFixture().getEvidences());
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlteration(Alteration alteration) {
+        return filter(hasAlteration(alteration));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlterationAndTumorType(Alteration alteration, TumorType tumorType) {
+        return filter(hasAlteration(alteration).and(evidence -> evidence.getCancerTypes().contains(tumorType)));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlterationsAndTumorTypesAndEvidenceTypes(List<Alteration> alterations, List<TumorType> tumorTypes, List<EvidenceType> evidenceTypes) {
+        return filter(evidence -> !Collections.disjoint(evidence.getAlterations(), alterations)
+            && !Collections.disjoint(evidence.getCancerTypes(), tumorTypes)
+            && evidenceTypes.contains(evidence.getEvidenceType()));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlterationsAndTumorTypesAndEvidenceTypesAndLevelOfEvidence(List<Alteration> alterations, List<TumorType> tumorTypes, List<EvidenceType> evidenceTypes, List<LevelOfEvidence> levelOfEvidences) {
+        return findEvidencesByAlterationsAndTumorTypesAndEvidenceTypes(alterations, tumorTypes, evidenceTypes).stream()
+            .filter(evidence -> levelOfEvidences.contains(evidence.getLevelOfEvidence()))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlteration(Alteration alteration, EvidenceType evidenceType) {
+        if (evidenceType == null) return findEvidencesByAlteration(alteration);
+        return filter(hasAlteration(alteration).and(evidence -> evidenceType.equals(evidence.getEvidenceType())));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlterationAndLevels(Alteration alteration, EvidenceType evidenceType, LevelOfEvidence levelOfEvidence) {
+        if (evidenceType == null) return findEvidencesByAlteration(alteration);
+        if (levelOfEvidence == null) return findEvidencesByAlteration(alteration, evidenceType);
+        return filter(hasAlteration(alteration).and(evidence -> evidenceType.equals(evidence.getEvidenceType()) && levelOfEvidence.equals(evidence.getLevelOfEvidence())));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByAlterationAndTumorType(Alteration alteration, EvidenceType evidenceType, TumorType tumorType) {
+        return filter(hasAlteration(alteration).and(evidence -> Objects.equals(evidenceType, evidence.getEvidenceType()) && evidence.getCancerTypes().contains(tumorType)));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByGene(Gene gene) {
+        return filter(evidence -> evidence.getGene().equals(gene));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByGene(Gene gene, EvidenceType evidenceType) {
+        if (evidenceType == null) return findEvidencesByGene(gene);
+        return filter(evidence -> evidence.getGene().equals(gene) && evidenceType.equals(evidence.getEvidenceType()));
+    }
+
+    @Override
+    public List<Evidence> findEvidencesByIds(List<Integer> ids) {
+        if (ids == null) return new ArrayList<>();
+        Set<Integer> idSet = new HashSet<>(ids);
+        return filter(evidence -> idSet.contains(evidence.getId()));
+    }
+
+    @Override
+    public List<Object> findTumorTypesWithEvidencesForAlterations(List<Alteration> alterations) {
+        return getCancerTypesWithEvidencesForAlterations(alterations);
+    }
+
+    @Override
+    public List<Object> findCancerTypesWithEvidencesForAlterations(List<Alteration> alterations) {
+        return getCancerTypesWithEvidencesForAlterations(alterations);
+    }
+
+    @Override
+    public List<Object> findSubtypesWithEvidencesForAlterations(List<Alteration> alterations) {
+        return getCancerTypesWithEvidencesForAlterations(alterations).stream()
+            .filter(cancerType -> ((TumorType) cancerType).getCode() != null)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Evidence> findEvidenceByUUIDs(List<String> uuids) {
+        if (uuids == null) return new ArrayList<>();
+        Set<String> uuidSet = new HashSet<>(uuids);
+        return filter(evidence -> uuidSet.contains(evidence.getUuid()));
+    }
+
+    @Override
+    public List<Evidence> findAllWithAssociations() {
+        return findAll();
+    }
+
+    private List<Object> getCancerTypesWithEvidencesForAlterations(List<Alteration> alterations) {
+        Set<Object> cancerTypes = new LinkedHashSet<>();
+        for (Evidence evidence : filter(evidence -> !Collections.disjoint(evidence.getAlterations(), alterations))) {
+            cancerTypes.addAll(evidence.getCancerTypes());
+        }
+        return new ArrayList<>(cancerTypes);
+    }
+
+    private static Predicate<Evidence> hasAlteration(Alteration alteration) {
+        return evidence -> evidence.getAlterations().contains(alteration);
+    }
+
+    private List<Evidence> filter(Predicate<Evidence> predicate) {
+        return getFixture().getEvidences().stream().filter(predicate).collect(Collectors.toList());
+    }
+}
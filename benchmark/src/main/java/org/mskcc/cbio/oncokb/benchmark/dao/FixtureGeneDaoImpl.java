@@ -0,0 +1,33 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.GeneDao;
+import org.mskcc.cbio.oncokb.model.Gene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FixtureGeneDaoImpl extends FixtureGenericDaoImpl<Gene> implements GeneDao {
+    public FixtureGeneDaoImpl() {
+        super(Gene::getEntrezGeneId);
+    }
+
+    @Override
+    public List<Gene> findAll() {
+        return new ArrayList<>(getFixture().getGenes());
+    }
+
+    @Override
+    public Gene findGeneByHugoSymbol(String symbol) {
+        return getFixture().getGenes().stream().filter(gene -> gene.getHugoSymbol().equalsIgnoreCase(symbol)).findFirst().orElse(null);
+    }
+
+    @Override
+    public Gene findGeneByEntrezGeneId(int entrezGeneId) {
+        return findById(entrezGeneId);
+    }
+
+    @Override
+    public Gene findGeneByAlias(String geneAlias) {
+        return getFixture().getGenes().stream().filter(gene -> gene.getGeneAliases().contains(geneAlias)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,105 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.benchmark.fixture.BenchmarkFixture;
+import org.mskcc.cbio.oncokb.dao.GenericDao;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Read only data access object over the benchmark fixture. The HQL queries and the writes are not supported,
+ * the business objects used by the annotation engine do not need them.
+ *
+ * @param <T>
+ */
+public abstract class FixtureGenericDaoImpl<T> implements GenericDao<T, Integer> {
+    private final Function<T, Integer> idGetter;
+
+    protected FixtureGenericDaoImpl(Function<T, Integer> idGetter) {
+        this.idGetter = idGetter;
+    }
+
+    protected BenchmarkFixture getFixture() {
+        return BenchmarkFixture.getInstance();
+    }
+
+    @Override
+    public T findById(Integer id) {
+        return findAll().stream().filter(t -> Objects.equals(idGetter.apply(t), id)).findFirst().orElse(null);
+    }
+
+    @Override
+    public List<T> find(String queryString) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support HQL queries");
+    }
+
+    @Override
+    public List<T> find(String queryString, Object... values) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support HQL queries");
+    }
+
+    @Override
+    public List<T> findByParamValue(String param, Object value) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support HQL queries");
+    }
+
+    @Override
+    public List<T> findByNamedQuery(String queryName) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support named queries");
+    }
+
+    @Override
+    public List<T> findByNamedQuery(String queryName, Object value) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support named queries");
+    }
+
+    @Override
+    public List<T> findByNamedQuery(String queryName, Object... values) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support named queries");
+    }
+
+    @Override
+    public List<T> findByNamedQueryAndNamedParam(String queryName, String[] params, List[] values) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support named queries");
+    }
+
+    @Override
+    public <C> List<C> findByNamedQueryOfAnyType(String queryName, Object... values) {
+        throw new UnsupportedOperationException("The benchmark fixture does not support named queries");
+    }
+
+    @Override
+    public void save(T t) {
+        throw new UnsupportedOperationException("The benchmark fixture is read only");
+    }
+
+    @Override
+    public void update(T t) {
+        throw new UnsupportedOperationException("The benchmark fixture is read only");
+    }
+
+    @Override
+    public void saveOrUpdate(T t) {
+        throw new UnsupportedOperationException("The benchmark fixture is read only");
+    }
+
+    @Override
+    public int countAll() {
+        return findAll().size();
+    }
+
+    @Override
+    public void delete(T t) {
+        throw new UnsupportedOperationException("The benchmark fixture is read only");
+    }
+
+    @Override
+    public void deleteAll(List<T> ts) {
+        throw new UnsupportedOperationException("The benchmark fixture is read only");
+    }
+
+    @Override
+    public void setCacheQueries(boolean cacheQueries) {
+    }
+}
@@ -0,0 +1,31 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.GenesetDao;
+import org.mskcc.cbio.oncokb.model.Geneset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fixture has no genesets.
+ */
+public class FixtureGenesetDaoImpl extends FixtureGenericDaoImpl<Geneset> implements GenesetDao {
+    public FixtureGenesetDaoImpl() {
+        super(Geneset::getId);
+    }
+
+    @Override
+    public List<Geneset> findAll() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Geneset> findByNamedQuery(String queryName, Object value) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Geneset findByUuid(String uuid) {
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.InfoDao;
+import org.mskcc.cbio.oncokb.model.Info;
+
+import java.util.Collections;
+import java.util.List;
+
+public class FixtureInfoDaoImpl extends FixtureGenericDaoImpl<Info> implements InfoDao {
+    public FixtureInfoDaoImpl() {
+        super(Info::getId);
+    }
+
+    @Override
+    public List<Info> findAll() {
+        return Collections.singletonList(getFixture().getInfo());
+    }
+
+    @Override
+    public Info get() {
+        return getFixture().getInfo();
+    }
+}
@@ -0,0 +1,38 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.apiModels.CancerTypeCount;
+import org.mskcc.cbio.oncokb.dao.PortalAlterationDao;
+import org.mskcc.cbio.oncokb.model.Gene;
+import org.mskcc.cbio.oncokb.model.PortalAlteration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The portal alterations are not part of the annotation, the fixture has none.
+ */
+public class FixturePortalAlterationDaoImpl extends FixtureGenericDaoImpl<PortalAlteration> implements PortalAlterationDao {
+    public FixturePortalAlterationDaoImpl() {
+        super(PortalAlteration::getId);
+    }
+
+    @Override
+    public List<PortalAlteration> findAll() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<CancerTypeCount> findPortalAlterationCountByGene(Gene gene) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<CancerTypeCount> findPortalAlterationCount() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<PortalAlteration> findMutationMapperData(Gene gene) {
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,18 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.TreatmentDao;
+import org.mskcc.cbio.oncokb.model.Treatment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FixtureTreatmentDaoImpl extends FixtureGenericDaoImpl<Treatment> implements TreatmentDao {
+    public FixtureTreatmentDaoImpl() {
+        super(Treatment::getId);
+    }
+
+    @Override
+    public List<Treatment> findAll() {
+        return new ArrayList<>(getFixture().getTreatments());
+    }
+}
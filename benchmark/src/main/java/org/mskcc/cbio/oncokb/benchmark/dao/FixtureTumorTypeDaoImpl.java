@@ -0,0 +1,23 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.TumorTypeDao;
+import org.mskcc.cbio.oncokb.model.TumorType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FixtureTumorTypeDaoImpl extends FixtureGenericDaoImpl<TumorType> implements TumorTypeDao {
+    public FixtureTumorTypeDaoImpl() {
+        super(TumorType::getId);
+    }
+
+    @Override
+    public List<TumorType> findAll() {
+        return new ArrayList<>(getFixture().getTumorTypes());
+    }
+
+    @Override
+    public TumorType findTumorTypeByCode(String code) {
+        return getFixture().getTumorTypes().stream().filter(tumorType -> code != null && code.equalsIgnoreCase(tumorType.getCode())).findFirst().orElse(null);
+    }
+}
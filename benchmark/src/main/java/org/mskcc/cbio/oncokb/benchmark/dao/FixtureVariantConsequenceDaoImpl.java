@@ -0,0 +1,23 @@
+package org.mskcc.cbio.oncokb.benchmark.dao;
+
+import org.mskcc.cbio.oncokb.dao.VariantConsequenceDao;
+import org.mskcc.cbio.oncokb.model.VariantConsequence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FixtureVariantConsequenceDaoImpl extends FixtureGenericDaoImpl<VariantConsequence> implements VariantConsequenceDao {
+    public FixtureVariantConsequenceDaoImpl() {
+        super(variantConsequence -> null);
+    }
+
+    @Override
+    public List<VariantConsequence> findAll() {
+        return new ArrayList<>(getFixture().getVariantConsequences());
+    }
+
+    @Override
+    public VariantConsequence findVariantConsequenceByTerm(String term) {
+        return getFixture().getVariantConsequences().stream().filter(variantConsequence -> variantConsequence.getTerm().equals(term)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,349 @@
+package org.mskcc.cbio.oncokb.benchmark.fixture;
+
+import com.google.gson.GsonBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.mskcc.cbio.oncokb.model.*;
+import org.mskcc.cbio.oncokb.util.AlterationUtils;
+import org.mskcc.cbio.oncokb.util.FileUtils;
+import org.mskcc.cbio.oncokb.util.TumorTypeUtils;
+import org.mskcc.cbio.oncokb.util.VariantConsequenceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory curation data the benchmark runs against, so the annotation engine can be measured without MySQL.
+ *
+ * The genes, drugs, alterations and tumor type specific evidences come from the files under /fixture, the tumor
+ * types and variant consequences from the same files the importers use. Every gene gets generated missense VUSs,
+ * so the alteration and evidence lists the engine scans have a realistic size.
+ *
+ * The ids are assigned in loading order, the data is identical between runs.
+ */
+public class BenchmarkFixture {
+    private static final String FIXTURE_PATH = "/fixture/";
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+    private static final Date LAST_EDIT = new Date(1577836800000L);
+
+    private static BenchmarkFixture instance = null;
+
+    private final List<VariantConsequence> variantConsequences = new ArrayList<>();
+    private final List<TumorType> tumorTypes = new ArrayList<>();
+    private final List<Gene> genes = new ArrayList<>();
+    private final List<Drug> drugs = new ArrayList<>();
+    private final List<Alteration> alterations = new ArrayList<>();
+    private final List<Evidence> evidences = new ArrayList<>();
+    private final List<Treatment> treatments = new ArrayList<>();
+    private final Info info = new Info();
+
+    private final Map<String, TumorType> tumorTypesByCode = new HashMap<>();
+    private final Map<String, TumorType> tumorTypesByMainType = new HashMap<>();
+    private final Map<String, Gene> genesByHugoSymbol = new HashMap<>();
+    private final Map<String, Drug> drugsByName = new HashMap<>();
+    private final Map<String, Alteration> alterationsByKey = new HashMap<>();
+
+    private int evidenceId = 0;
+    private int treatmentId = 0;
+
+    public static synchronized BenchmarkFixture getInstance() {
+        if (instance == null) {
+            try {
+                instance = new BenchmarkFixture();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to load the benchmark fixture", e);
+            }
+        }
+        return instance;
+    }
+
+    private BenchmarkFixture() throws IOException {
+        loadVariantConsequences();
+        loadTumorTypes();
+        loadGenes();
+        loadDrugs();
+        loadAlterations();
+        loadEvidences();
+
+        info.setId(1);
+        info.setDataVersion("v-benchmark");
+        info.setDataVersionDate(LAST_EDIT);
+        info.setOncoTreeVersion("oncotree_2019_12_01");
+    }
+
+    public List<VariantConsequence> getVariantConsequences() {
+        return variantConsequences;
+    }
+
+    public List<TumorType> getTumorTypes() {
+        return tumorTypes;
+    }
+
+    public List<Gene> getGenes() {
+        return genes;
+    }
+
+    public List<Drug> getDrugs() {
+        return drugs;
+    }
+
+    public List<Alteration> getAlterations() {
+        return alterations;
+    }
+
+    public List<Evidence> getEvidences() {
+        return evidences;
+    }
+
+    public List<Treatment> getTreatments() {
+        return treatments;
+    }
+
+    public Info getInfo() {
+        return info;
+    }
+
+    private void loadVariantConsequences() throws IOException {
+        for (String[] parts : readTsv(BenchmarkFixture.class.getResourceAsStream("/data/variant-consequences.txt"))) {
+            variantConsequences.add(new VariantConsequence(parts[0].trim(), parts[2].trim(), parts[1].trim().equalsIgnoreCase("yes")));
+        }
+        variantConsequences.add(new VariantConsequence("NA", "NA", false));
+    }
+
+    /**
+     * Mirrors TumorTypeImporter: the OncoTree subtypes, one level 0 tumor type per main type and the special tumor
+     * types on level -1.
+     */
+    private void loadTumorTypes() throws IOException {
+        org.mskcc.oncotree.model.TumorType[] oncoTreeTumorTypes;
+        try (InputStream is = BenchmarkFixture.class.getResourceAsStream("/data/oncotree/tumortypes-flat.json")) {
+            oncoTreeTumorTypes = new GsonBuilder().create().fromJson(new InputStreamReader(is, StandardCharsets.UTF_8), org.mskcc.oncotree.model.TumorType[].class);
+        }
+
+        Map<String, String> parentCodes = new HashMap<>();
+        for (org.mskcc.oncotree.model.TumorType oncoTreeTumorType : oncoTreeTumorTypes) {
+            TumorType tumorType = new TumorType(oncoTreeTumorType);
+            if (tumorType.getLevel() != null && tumorType.getLevel() == 0) {
+                tumorType.setTumorForm(TumorForm.MIXED);
+            } else {
+                tumorType.setTumorForm(TumorTypeUtils.getTumorForm(tumorType.getTissue()));
+            }
+            addTumorType(tumorType);
+            tumorTypesByCode.put(tumorType.getCode(), tumorType);
+            parentCodes.put(tumorType.getCode(), oncoTreeTumorType.getParent());
+        }
+
+        Map<String, List<TumorType>> subtypesByMainType = tumorTypes.stream()
+            .filter(tumorType -> StringUtils.isNotEmpty(tumorType.getMainType()) && tumorType.getLevel() > 0)
+            .collect(Collectors.groupingBy(TumorType::getMainType, TreeMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<TumorType>> entry : subtypesByMainType.entrySet()) {
+            Set<TumorForm> tumorForms = entry.getValue().stream().map(TumorType::getTumorForm).filter(Objects::nonNull).collect(Collectors.toSet());
+            Set<String> tissues = entry.getValue().stream().map(TumorType::getTissue).filter(Objects::nonNull).collect(Collectors.toSet());
+
+            TumorType mainType = new TumorType();
+            mainType.setMainType(entry.getKey());
+            mainType.setTumorForm(tumorForms.size() == 1 ? tumorForms.iterator().next() : TumorForm.MIXED);
+            mainType.setTissue(tissues.size() == 1 ? tissues.iterator().next() : TumorForm.MIXED.name());
+            mainType.setLevel(0);
+            addTumorType(mainType);
+            tumorTypesByMainType.put(mainType.getMainType().toLowerCase(), mainType);
+        }
+
+        for (SpecialTumorType specialTumorType : SpecialTumorType.values()) {
+            TumorType tumorType = new TumorType();
+            tumorType.setMainType(specialTumorType.getTumorType());
+            tumorType.setTumorForm(TumorTypeUtils.getTumorForm(specialTumorType));
+            tumorType.setLevel(-1);
+            addTumorType(tumorType);
+            tumorTypesByMainType.put(tumorType.getMainType().toLowerCase(), tumorType);
+        }
+
+        for (Map.Entry<String, String> entry : parentCodes.entrySet()) {
+            TumorType tumorType = tumorTypesByCode.get(entry.getKey());
+            TumorType parent = tumorTypesByCode.get(entry.getValue());
+            tumorType.setParent(parent);
+            if (parent != null) {
+                parent.getChildren().add(tumorType);
+            }
+        }
+    }
+
+    private void addTumorType(TumorType tumorType) {
+        tumorType.setId(tumorTypes.size() + 1);
+        if (tumorType.getChildren() == null) {
+            tumorType.setChildren(new HashSet<>());
+        }
+        tumorTypes.add(tumorType);
+    }
+
+    private void loadGenes() throws IOException {
+        for (String[] parts : readFixture("genes.tsv")) {
+            Gene gene = new Gene(Integer.parseInt(parts[0]), parts[1]);
+            gene.setOncogene("yes".equalsIgnoreCase(parts[2]));
+            gene.setTSG("yes".equalsIgnoreCase(parts[3]));
+            genes.add(gene);
+            genesByHugoSymbol.put(gene.getHugoSymbol(), gene);
+
+            addEvidence(gene, Collections.emptySet(), EvidenceType.GENE_SUMMARY, Collections.emptySet(), null, null,
+                gene.getHugoSymbol() + " is a " + (gene.getOncogene() ? "proto-oncogene" : "tumor suppressor gene") + " altered in various cancer types.");
+            addEvidence(gene, Collections.emptySet(), EvidenceType.GENE_BACKGROUND, Collections.emptySet(), null, null,
+                gene.getHugoSymbol() + " encodes a protein involved in the regulation of cell proliferation and survival.");
+        }
+    }
+
+    private void loadDrugs() throws IOException {
+        for (String[] parts : readFixture("drugs.tsv")) {
+            Drug drug = new Drug(parts[1]);
+            drug.setId(drugs.size() + 1);
+            drug.setUuid(UUID.nameUUIDFromBytes(("drug:" + parts[1]).getBytes(StandardCharsets.UTF_8)).toString());
+            drug.setNcitCode(parts[0]);
+            drugs.add(drug);
+            drugsByName.put(drug.getDrugName(), drug);
+        }
+    }
+
+    private void loadAlterations() throws IOException {
+        for (String[] parts : readFixture("alterations.tsv")) {
+            Gene gene = genesByHugoSymbol.get(parts[0]);
+            Alteration alteration = addAlteration(gene, parts[1], parts[2]);
+
+            Set<Alteration> evidenceAlterations = Collections.singleton(alteration);
+            addEvidence(gene, evidenceAlterations, EvidenceType.ONCOGENIC, Collections.emptySet(), null, parts[3],
+                "The " + gene.getHugoSymbol() + " " + parts[1] + " alteration is " + parts[3].toLowerCase() + ".");
+            addEvidence(gene, evidenceAlterations, EvidenceType.MUTATION_EFFECT, Collections.emptySet(), null, parts[4],
+                "The " + gene.getHugoSymbol() + " " + parts[1] + " alteration is " + parts[4].toLowerCase() + ".");
+        }
+
+        for (String[] parts : readFixture("genes.tsv")) {
+            Gene gene = genesByHugoSymbol.get(parts[1]);
+            int numberOfVUS = Integer.parseInt(parts[4]);
+            for (int i = 0, position = 2; i < numberOfVUS; position++) {
+                String ref = String.valueOf(AMINO_ACIDS.charAt(position % AMINO_ACIDS.length()));
+                String var = String.valueOf(AMINO_ACIDS.charAt((position * 7 + 3) % AMINO_ACIDS.length()));
+                String name = ref + position + var;
+                if (ref.equals(var) || alterationsByKey.containsKey(getAlterationKey(gene, name))) {
+                    continue;
+                }
+                Alteration alteration = addAlteration(gene, name, "");
+                addEvidence(gene, Collections.singleton(alteration), EvidenceType.VUS, Collections.emptySet(), null, null, null);
+                i++;
+            }
+        }
+    }
+
+    private Alteration addAlteration(Gene gene, String name, String consequence) {
+        Alteration alteration = new Alteration();
+        alteration.setId(alterations.size() + 1);
+        alteration.setUuid(UUID.nameUUIDFromBytes(("alteration:" + getAlterationKey(gene, name)).getBytes(StandardCharsets.UTF_8)).toString());
+        alteration.setGene(gene);
+        alteration.setAlteration(name);
+        alteration.setName(name);
+        alteration.setAlterationType(AlterationType.MUTATION);
+        alteration.setReferenceGenomes(new HashSet<>(Arrays.asList(ReferenceGenome.values())));
+        if (StringUtils.isNotEmpty(consequence)) {
+            alteration.setConsequence(VariantConsequenceUtils.findVariantConsequenceByTerm(consequence));
+        }
+        AlterationUtils.annotateAlteration(alteration, name);
+
+        alterations.add(alteration);
+        alterationsByKey.put(getAlterationKey(gene, name), alteration);
+        return alteration;
+    }
+
+    private void loadEvidences() throws IOException {
+        for (String[] parts : readFixture("evidences.tsv")) {
+            Gene gene = genesByHugoSymbol.get(parts[0]);
+            Set<Alteration> evidenceAlterations = new HashSet<>();
+            for (String name : parts[1].split(",")) {
+                Alteration alteration = alterationsByKey.get(getAlterationKey(gene, name));
+                if (alteration == null) {
+                    throw new IllegalStateException("The evidence alteration is not in the fixture: " + parts[0] + " " + name);
+                }
+                evidenceAlterations.add(alteration);
+            }
+
+            Set<TumorType> cancerTypes = new HashSet<>();
+            for (String cancerType : parts[3].split(",")) {
+                TumorType tumorType = tumorTypesByCode.containsKey(cancerType) ? tumorTypesByCode.get(cancerType) : tumorTypesByMainType.get(cancerType.toLowerCase());
+                if (tumorType == null) {
+                    throw new IllegalStateException("The evidence cancer type is not in the fixture: " + cancerType);
+                }
+                cancerTypes.add(tumorType);
+            }
+
+            EvidenceType evidenceType = EvidenceType.valueOf(parts[2]);
+            LevelOfEvidence level = StringUtils.isEmpty(parts[4]) ? null : LevelOfEvidence.valueOf(parts[4]);
+            Evidence evidence = addEvidence(gene, evidenceAlterations, evidenceType, cancerTypes, level, null,
+                gene.getHugoSymbol() + " " + parts[1] + " " + evidenceType.name().toLowerCase().replace('_', ' ') + " in " + parts[3] + ".");
+
+            if (parts.length > 5 && StringUtils.isNotEmpty(parts[5])) {
+                List<Treatment> evidenceTreatments = new ArrayList<>();
+                for (String combination : parts[5].split(";")) {
+                    List<Drug> treatmentDrugs = new ArrayList<>();
+                    for (String drugName : combination.split("\\+")) {
+                        Drug drug = drugsByName.get(drugName);
+                        if (drug == null) {
+                            throw new IllegalStateException("The treatment drug is not in the fixture: " + drugName);
+                        }
+                        treatmentDrugs.add(drug);
+                    }
+                    Treatment treatment = new Treatment();
+                    treatment.setId(++treatmentId);
+                    treatment.setUuid(UUID.nameUUIDFromBytes(("treatment:" + treatmentId).getBytes(StandardCharsets.UTF_8)).toString());
+                    treatment.setDrugs(treatmentDrugs);
+                    treatment.setApprovedIndications(new HashSet<>());
+                    treatment.setEvidence(evidence);
+                    evidenceTreatments.add(treatment);
+                    treatments.add(treatment);
+                }
+                evidence.setTreatments(evidenceTreatments);
+            }
+            if (LevelOfEvidence.LEVEL_1.equals(level) || LevelOfEvidence.LEVEL_2.equals(level)) {
+                evidence.setSolidPropagationLevel(LevelOfEvidence.LEVEL_3B);
+                evidence.setLiquidPropagationLevel(LevelOfEvidence.LEVEL_4);
+            }
+        }
+    }
+
+    private Evidence addEvidence(Gene gene, Set<Alteration> evidenceAlterations, EvidenceType evidenceType, Set<TumorType> cancerTypes, LevelOfEvidence level, String knownEffect, String description) {
+        Evidence evidence = new Evidence();
+        evidence.setId(++evidenceId);
+        evidence.setUuid(UUID.nameUUIDFromBytes(("evidence:" + evidenceId).getBytes(StandardCharsets.UTF_8)).toString());
+        evidence.setGene(gene);
+        evidence.setAlterations(new HashSet<>(evidenceAlterations));
+        evidence.setEvidenceType(evidenceType);
+        evidence.setCancerTypes(new HashSet<>(cancerTypes));
+        evidence.setLevelOfEvidence(level);
+        evidence.setKnownEffect(knownEffect);
+        evidence.setDescription(description);
+        evidence.setArticles(new HashSet<>());
+        evidence.setLastEdit(LAST_EDIT);
+        evidences.add(evidence);
+        return evidence;
+    }
+
+    private static String getAlterationKey(Gene gene, String alteration) {
+        return gene.getEntrezGeneId() + "&" + alteration;
+    }
+
+    private static List<String[]> readFixture(String fileName) throws IOException {
+        InputStream is = BenchmarkFixture.class.getResourceAsStream(FIXTURE_PATH + fileName);
+        if (is == null) {
+            throw new IOException("The fixture file is not on the classpath: " + fileName);
+        }
+        return readTsv(is);
+    }
+
+    private static List<String[]> readTsv(InputStream is) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        for (String line : FileUtils.readLinesStream(is, false)) {
+            if (!line.startsWith("#")) {
+                rows.add(line.split("\t", -1));
+            }
+        }
+        return rows;
+    }
+}
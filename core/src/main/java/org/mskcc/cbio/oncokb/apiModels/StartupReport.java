@@ -0,0 +1,110 @@
+package org.mskcc.cbio.oncokb.apiModels;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The phases of the cache bootstrap, in the order they are started. The times are in milliseconds, the start of a
+ * phase is relative to the start of the bootstrap.
+ */
+public class StartupReport {
+    private String dataVersion;
+    private Boolean fromSnapshot = false;
+    private Long duration;
+    private List<Phase> phases = new ArrayList<>();
+
+    public String getDataVersion() {
+        return dataVersion;
+    }
+
+    public void setDataVersion(String dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    public Boolean getFromSnapshot() {
+        return fromSnapshot;
+    }
+
+    public void setFromSnapshot(Boolean fromSnapshot) {
+        this.fromSnapshot = fromSnapshot;
+    }
+
+    public Long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Long duration) {
+        this.duration = duration;
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    public void setPhases(List<Phase> phases) {
+        this.phases = phases;
+    }
+
+    public static class Phase {
+        private String name;
+        private String thread;
+        private Long start;
+        private Long duration;
+        // The number of objects loaded or cached by the phase, if it is relevant
+        private Integer count;
+        private Boolean failed = false;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public void setThread(String thread) {
+            this.thread = thread;
+        }
+
+        public Long getStart() {
+            return start;
+        }
+
+        public void setStart(Long start) {
+            this.start = start;
+        }
+
+        public Long getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Long duration) {
+            this.duration = duration;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public Boolean getFailed() {
+            return failed;
+        }
+
+        public void setFailed(Boolean failed) {
+            this.failed = failed;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + duration + "ms" + (count == null ? "" : " (" + count + ")") + " started at " + start + "ms on " + thread + (failed ? ", failed" : "");
+        }
+    }
+}
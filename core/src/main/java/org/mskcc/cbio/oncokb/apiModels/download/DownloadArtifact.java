@@ -0,0 +1,49 @@
+package org.mskcc.cbio.oncokb.apiModels.download;
+
+/**
+ * A generated download file, kept gzipped so it can be sent as is to the clients accepting gzip.
+ */
+public class DownloadArtifact {
+    private final String name;
+    private final String dataVersion;
+    private final byte[] gzippedContent;
+    private final long contentLength;
+    private final String etag;
+
+    public DownloadArtifact(String name, String dataVersion, byte[] gzippedContent, long contentLength, String etag) {
+        this.name = name;
+        this.dataVersion = dataVersion;
+        this.gzippedContent = gzippedContent;
+        this.contentLength = contentLength;
+        this.etag = etag;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * The returned array is shared, it should not be changed.
+     */
+    public byte[] getGzippedContent() {
+        return gzippedContent;
+    }
+
+    /**
+     * The length of the content before it is gzipped
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * The quoted entity tag of the content
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -128,4 +128,10 @@ public interface EvidenceBo extends GenericBo<Evidence> {
     List<Object> findSubtypesWithEvidencesForAlterations(List<Alteration> alterations);
 
     List<Evidence> findEvidenceByUUIDs(List<String> uuids);
+
+    /**
+     * Find all evidences from the database in a bounded number of queries, used to build the cache.
+     * @return
+     */
+    List<Evidence> findAllWithAssociations();
 }
@@ -1,6 +1,5 @@
 package org.mskcc.cbio.oncokb.bo.impl;
 
-import com.google.common.collect.Sets;
 import org.apache.commons.lang3.StringUtils;
 import org.mskcc.cbio.oncokb.bo.EvidenceBo;
 import org.mskcc.cbio.oncokb.dao.EvidenceDao;
@@ -21,28 +20,13 @@ public class EvidenceBoImpl extends GenericBoImpl<Evidence, EvidenceDao> impleme
 
     @Override
     public List<Evidence> findEvidencesByAlteration(Collection<Alteration> alterations) {
-        Set<Evidence> set = new LinkedHashSet<Evidence>();
-        Set<Alteration> alterationSet = new HashSet<>(alterations);
-        List<Evidence> evidences = EvidenceUtils.getAllEvidencesByAlterationsGenes(alterations);
-        for (int i = 0; i < evidences.size(); i++) {
-            Evidence evidence = evidences.get(i);
-            if (!Collections.disjoint(evidence.getAlterations(), alterationSet)) {
-                set.add(evidence);
-            }
-        }
+        Set<Evidence> set = new LinkedHashSet<Evidence>(EvidenceUtils.getAlterationEvidences(alterations, null));
         return new ArrayList<>(set);
     }
 
     @Override
     public List<Evidence> findEvidencesByAlteration(Collection<Alteration> alterations, Collection<EvidenceType> evidenceTypes) {
-        Set<Evidence> set = new LinkedHashSet<>();
-        List<Evidence> evidences = EvidenceUtils.getAllEvidencesByAlterationsGenes(alterations);
-        for (int i = 0; i < evidences.size(); i++) {
-            Evidence evidence = evidences.get(i);
-            if (evidenceTypes.contains(evidence.getEvidenceType()) && !Collections.disjoint(evidence.getAlterations(), alterations)) {
-                set.add(evidence);
-            }
-        }
+        Set<Evidence> set = new LinkedHashSet<>(EvidenceUtils.getAlterationEvidences(alterations, evidenceTypes));
         return new ArrayList<>(set);
     }
 
@@ -52,12 +36,10 @@ public class EvidenceBoImpl extends GenericBoImpl<Evidence, EvidenceDao> impleme
             return findEvidencesByAlteration(alterations, evidenceTypes);
         }
         Set<Evidence> set = new LinkedHashSet<>();
-        List<Evidence> evidences = EvidenceUtils.getAllEvidencesByAlterationsGenes(alterations);
+        List<Evidence> evidences = EvidenceUtils.getAlterationEvidences(alterations, evidenceTypes);
         for (int i = 0; i < evidences.size(); i++) {
             Evidence evidence = evidences.get(i);
-            if (Sets.intersection(evidence.getAlterations(), new HashSet(alterations)).size() > 0
-                && evidenceTypes.contains(evidence.getEvidenceType())
-                && levelOfEvidences.contains(evidence.getLevelOfEvidence())) {
+            if (levelOfEvidences.contains(evidence.getLevelOfEvidence())) {
                 set.add(evidence);
             }
         }
@@ -159,16 +141,7 @@ public class EvidenceBoImpl extends GenericBoImpl<Evidence, EvidenceDao> impleme
 
     @Override
     public List<Evidence> findEvidencesByIds(List<Integer> ids) {
-        List<Evidence> evidences = new ArrayList<>();
-        for (Evidence evidence : CacheUtils.getAllEvidences()) {
-            if (ids.contains(evidence.getId())) {
-                evidences.add(evidence);
-            }
-            if (evidences.size() == ids.size()) {
-                break;
-            }
-        }
-        return evidences;
+        return new ArrayList<>(CacheUtils.getEvidencesByIds(new HashSet<>(ids)));
     }
 
     @Override
@@ -209,4 +182,9 @@ public class EvidenceBoImpl extends GenericBoImpl<Evidence, EvidenceDao> impleme
     public List<Evidence> findEvidenceByUUIDs(List<String> uuids) {
         return new ArrayList<>(CacheUtils.getEvidencesByUUIDs(new HashSet<>(uuids)));
     }
+
+    @Override
+    public List<Evidence> findAllWithAssociations() {
+        return getDao().findAllWithAssociations();
+    }
 }
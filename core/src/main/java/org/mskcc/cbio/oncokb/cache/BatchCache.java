@@ -0,0 +1,17 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A cache which reads or writes several entries in one round trip, so a batch of queries does not go to the
+ * cache one entry at a time.
+ */
+public interface BatchCache {
+    /**
+     * @return the cached values by key, the keys which are not cached are not in the map
+     */
+    Map<Object, Object> getAll(Collection<?> keys);
+
+    void putAll(Map<?, ?> entries);
+}
@@ -2,6 +2,7 @@ package org.mskcc.cbio.oncokb.cache;
 
 import org.apache.commons.lang3.StringUtils;
 import org.mskcc.cbio.oncokb.cache.keygenerator.ConcatGenerator;
+import org.mskcc.cbio.oncokb.util.GeneObservable;
 import org.mskcc.cbio.oncokb.util.PropertiesUtils;
 import org.mskcc.oncokb.meta.enumeration.RedisType;
 import org.redisson.Redisson;
@@ -26,6 +27,9 @@ import org.springframework.context.annotation.*;
 public class CacheConfiguration {
     
     private final int DEFAULT_TTL = 60;
+    private final int DEFAULT_LOCAL_CACHE_SIZE = 10000;
+    private final int DEFAULT_LOCAL_CACHE_TTL_IN_SECONDS = 60;
+    private final String COMPACT_CODEC = "compact";
 
     @Bean
     public RedissonClient redissonClient()
@@ -79,7 +83,11 @@ public class CacheConfiguration {
 
         // Instead of using GZip to compress data manually, we can configure Redisson to use
         // snappy codec. Redisson will serialize and compress our cache values.
-        config.setCodec(new SnappyCodecV2());
+        if (COMPACT_CODEC.equals(PropertiesUtils.getProperties("redis.codec"))) {
+            config.setCodec(new SnappyCodecV2(new CompactCodec()));
+        } else {
+            config.setCodec(new SnappyCodecV2());
+        }
         return Redisson.create(config);
     }
 
@@ -122,11 +130,24 @@ public class CacheConfiguration {
         CacheErrorHandler cacheErrorHandler
     ) {
         Integer redisExpiration = Integer.parseInt(PropertiesUtils.getProperties("redis.expiration"));
-        CustomRedisCacheManager cm = new CustomRedisCacheManager(redissonClient, redisExpiration == null ? DEFAULT_TTL : redisExpiration, cacheNameResolver, cacheErrorHandler);
+        CustomRedisCacheManager cm = new CustomRedisCacheManager(redissonClient, redisExpiration == null ? DEFAULT_TTL : redisExpiration, cacheNameResolver, cacheErrorHandler, localCacheTier());
         cm.clearAll();
         return cm;
     }
 
+    private LocalCacheTier localCacheTier() {
+        String localCacheSize = PropertiesUtils.getProperties("redis.local_cache.size");
+        String localCacheExpiration = PropertiesUtils.getProperties("redis.local_cache.expiration");
+        int size = StringUtils.isNotEmpty(localCacheSize) ? Integer.parseInt(localCacheSize) : DEFAULT_LOCAL_CACHE_SIZE;
+        int ttl = StringUtils.isNotEmpty(localCacheExpiration) ? Integer.parseInt(localCacheExpiration) : DEFAULT_LOCAL_CACHE_TTL_IN_SECONDS;
+        if (size <= 0 || ttl <= 0) {
+            return null;
+        }
+        LocalCacheTier localCacheTier = new LocalCacheTier(size, ttl);
+        GeneObservable.getInstance().addObserver(localCacheTier);
+        return localCacheTier;
+    }
+
     @Bean
     public CacheResolver generalCacheResolver(
         CacheManager cm
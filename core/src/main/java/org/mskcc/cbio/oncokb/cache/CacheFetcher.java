@@ -15,25 +15,34 @@ import org.oncokb.oncokb_transcript.ApiException;
 import org.oncokb.oncokb_transcript.client.EnsemblGene;
 import org.oncokb.oncokb_transcript.client.TranscriptDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.mskcc.cbio.oncokb.Constants.DEFAULT_REFERENCE_GENOME;
-import static org.mskcc.cbio.oncokb.util.MainUtils.rangesIntersect;
 import static org.mskcc.cbio.oncokb.cache.Constants.REDIS_KEY_SEPARATOR;
 
 @Component
 public class CacheFetcher {
-    private static Map<ReferenceGenome, Map<String, Set<EnsemblGene>>> canonicalEnsemblGenesByChromosomeByReferenceGenome = new HashMap<ReferenceGenome, Map<String, Set<EnsemblGene>>>() {{
-        put(ReferenceGenome.GRCh37, new HashMap<>());
-        put(ReferenceGenome.GRCh38, new HashMap<>());
-    }};
+    // add some buffer on determine which genomic change should be annotated. We use the gene range from oncokb-transcript but that does not include gene regulatory sequence. Before having proper range, we use a buffer range instead.
+    private static final int CANONICAL_ENSEMBL_GENE_BP_BUFFER = 10000;
+    private static Map<ReferenceGenome, GenomicIntervalIndex> canonicalEnsemblGeneIntervalsByReferenceGenome = new ConcurrentHashMap<>();
+
+    private static final Method PROCESS_QUERY_METHOD = ReflectionUtils.findMethod(CacheFetcher.class, "processQuery",
+        ReferenceGenome.class, Integer.class, String.class, String.class, String.class, String.class, String.class,
+        Integer.class, Integer.class, StructuralVariantType.class, String.class, Set.class, Boolean.class, Set.class,
+        Boolean.class);
 
     OncokbTranscriptService oncokbTranscriptService = new OncokbTranscriptService();
     NotationConverter notationConverter = new NotationConverter();
@@ -41,6 +50,11 @@ public class CacheFetcher {
     @Autowired(required = false)
     CacheManager cacheManager;
 
+    // The key generator of the cacheable processQuery, so the batches share its entries
+    @Autowired(required = false)
+    @Qualifier("concatKeyGenerator")
+    KeyGenerator concatKeyGenerator;
+
     @Cacheable(cacheResolver = "generalCacheResolver", key = "'all'")
     public OncoKBInfo getOncoKBInfo() {
         return new OncoKBInfo();
@@ -108,26 +122,35 @@ public class CacheFetcher {
         return oncokbTranscriptService.findTranscriptGenesBySymbols(CacheUtils.getAllGenes().stream().filter(gene -> gene.getEntrezGeneId() > 0).map(gene -> gene.getEntrezGeneId().toString()).collect(Collectors.toList()));
     }
 
-    public Map<String, Set<EnsemblGene>> getCanonicalEnsemblGenesByChromosome(ReferenceGenome referenceGenome) throws ApiException {
+    /**
+     * The buffered ranges of the canonical ensembl genes. The index is empty when the transcript info is not available.
+     */
+    public GenomicIntervalIndex getCanonicalEnsemblGeneIntervals(ReferenceGenome referenceGenome) throws ApiException {
+        if (referenceGenome == null) {
+            referenceGenome = DEFAULT_REFERENCE_GENOME;
+        }
         // Use cached data if available
-        Map<String, Set<EnsemblGene>> chromosomeEnsemblGenesMap = canonicalEnsemblGenesByChromosomeByReferenceGenome.get(referenceGenome);
-        if(!chromosomeEnsemblGenesMap.isEmpty()) {
-            return chromosomeEnsemblGenesMap;
+        GenomicIntervalIndex intervalIndex = canonicalEnsemblGeneIntervalsByReferenceGenome.get(referenceGenome);
+        if (intervalIndex != null) {
+            return intervalIndex;
         }
         // Reach out to transcript service
+        GenomicIntervalIndex.Builder builder = new GenomicIntervalIndex.Builder(CANONICAL_ENSEMBL_GENE_BP_BUFFER);
         Set<org.oncokb.oncokb_transcript.client.Gene> allTranscriptGenes = getAllTranscriptGenes();
         for (org.oncokb.oncokb_transcript.client.Gene gene : allTranscriptGenes) {
             for (EnsemblGene ensemblGene : gene.getEnsemblGenes()) {
                 if (!ensemblGene.getCanonical() || !ensemblGene.getReferenceGenome().equals(referenceGenome.name())) {
                     continue;
                 }
-                String chromosome = ensemblGene.getChromosome();
-                chromosomeEnsemblGenesMap.putIfAbsent(chromosome, new HashSet<>());
-                chromosomeEnsemblGenesMap.get(chromosome).add(ensemblGene);
+                builder.add(ensemblGene.getChromosome(), ensemblGene.getStart(), ensemblGene.getEnd());
             }
         }
-        canonicalEnsemblGenesByChromosomeByReferenceGenome.put(referenceGenome, chromosomeEnsemblGenesMap);
-        return chromosomeEnsemblGenesMap;
+        intervalIndex = builder.build();
+        // keep asking the transcript service until it has the info
+        if (!intervalIndex.isEmpty()) {
+            canonicalEnsemblGeneIntervalsByReferenceGenome.put(referenceGenome, intervalIndex);
+        }
+        return intervalIndex;
     }
 
     private List<CancerGene> getCancerGeneList() throws ApiException, IOException {
@@ -272,6 +295,67 @@ public class CacheFetcher {
         );
     }
 
+    /**
+     * Same as processQuery for each query, without levels, highest level only and gene query only. The result is in
+     * the same order as the queries.
+     *
+     * The cached annotations are fetched in one round trip, only the missing ones are annotated, and they are written
+     * back in one batch.
+     *
+     * @param evidenceTypes the evidence types of each query
+     */
+    public List<IndicatorQueryResp> processQueries(List<Query> queries, List<Set<EvidenceType>> evidenceTypes) {
+        if (queries.size() != evidenceTypes.size()) {
+            throw new IllegalArgumentException("The evidence types should be given for each query");
+        }
+        List<Integer> indexes = IntStream.range(0, queries.size()).boxed().collect(Collectors.toList());
+        Cache cache = cacheManager == null ? null : cacheManager.getCache(CacheCategory.GENERAL.getKey() + REDIS_KEY_SEPARATOR + "processQuery");
+        List<Object[]> arguments = indexes.stream().map(i -> getProcessQueryArguments(queries.get(i), evidenceTypes.get(i))).collect(Collectors.toList());
+        if (!(cache instanceof BatchCache) || concatKeyGenerator == null) {
+            return BatchExecutionUtils.map(arguments, this::processQuery);
+        }
+        BatchCache batchCache = (BatchCache) cache;
+
+        List<Object> keys = arguments.stream().map(args -> concatKeyGenerator.generate(this, PROCESS_QUERY_METHOD, args)).collect(Collectors.toList());
+        Map<Object, Object> cachedResps = batchCache.getAll(new LinkedHashSet<>(keys));
+
+        List<Integer> missingIndexes = indexes.stream().filter(i -> !cachedResps.containsKey(keys.get(i))).collect(Collectors.toList());
+        List<IndicatorQueryResp> missingResps = BatchExecutionUtils.map(missingIndexes, i -> processQuery(arguments.get(i)));
+        Map<Object, Object> newEntries = new HashMap<>();
+        for (int i = 0; i < missingIndexes.size(); i++) {
+            newEntries.put(keys.get(missingIndexes.get(i)), missingResps.get(i));
+        }
+        batchCache.putAll(newEntries);
+
+        // The callers set the id of each annotation, the queries sharing a cached annotation get their own copy
+        Set<Object> usedKeys = new HashSet<>();
+        List<IndicatorQueryResp> result = new ArrayList<>(queries.size());
+        Iterator<IndicatorQueryResp> missingRespIterator = missingResps.iterator();
+        for (int i = 0; i < queries.size(); i++) {
+            Object key = keys.get(i);
+            if (cachedResps.containsKey(key)) {
+                IndicatorQueryResp resp = (IndicatorQueryResp) cachedResps.get(key);
+                result.add(usedKeys.add(key) ? resp : resp.copy());
+            } else {
+                result.add(missingRespIterator.next());
+            }
+        }
+        return result;
+    }
+
+    // The arguments of processQuery, both the key and the annotation of a batch query are made from them
+    private static Object[] getProcessQueryArguments(Query query, Set<EvidenceType> evidenceTypes) {
+        return new Object[]{
+            query.getReferenceGenome(), query.getEntrezGeneId(), query.getHugoSymbol(), query.getAlteration(),
+            query.getAlterationType(), query.getTumorType(), query.getConsequence(), query.getProteinStart(),
+            query.getProteinEnd(), query.getSvType(), query.getHgvs(), null, false, evidenceTypes, false
+        };
+    }
+
+    private IndicatorQueryResp processQuery(Object[] arguments) {
+        return (IndicatorQueryResp) ReflectionUtils.invokeMethod(PROCESS_QUERY_METHOD, this, arguments);
+    }
+
     public void cacheAlterationFromGenomeNexus(GenomeNexusAnnotatedVariantInfo gnAnnotatedVariantInfo) throws IllegalStateException {
         if (cacheManager == null) {
             throw new IllegalStateException("Cannot cache pre-annotated GN variants. Change property redis.enable to True.");
@@ -325,18 +409,54 @@ public class CacheFetcher {
         if (genomicLocation == null) {
             return false;
         }
-        Map<String, Set<EnsemblGene>> chromosomeCanonicalEnsemblGeneMap = getCanonicalEnsemblGenesByChromosome(referenceGenome);
-        // when the transcript info is not available, we should always annotate the genomic location
-        if (chromosomeCanonicalEnsemblGeneMap == null || chromosomeCanonicalEnsemblGeneMap.isEmpty()) {
-            return true;
+        return genomicLocationShouldBeAnnotated(genomicLocation, getCanonicalEnsemblGeneIntervals(referenceGenome));
+    }
+
+    /**
+     * Same as genomicLocationShouldBeAnnotated, the result is in the same order as the genomic locations.
+     */
+    public List<Boolean> genomicLocationsShouldBeAnnotated(List<GenomicLocation> genomicLocations, ReferenceGenome referenceGenome) throws ApiException {
+        List<Boolean> result = new ArrayList<>();
+        if (genomicLocations == null || genomicLocations.isEmpty()) {
+            return result;
         }
-        if (chromosomeCanonicalEnsemblGeneMap.containsKey(genomicLocation.getChromosome())){
-            return chromosomeCanonicalEnsemblGeneMap.get(genomicLocation.getChromosome()).stream().anyMatch(ensemblGene -> withinBuffer(ensemblGene, genomicLocation));
+        GenomicIntervalIndex intervalIndex = getCanonicalEnsemblGeneIntervals(referenceGenome);
+        for (GenomicLocation genomicLocation : genomicLocations) {
+            result.add(genomicLocation != null && genomicLocationShouldBeAnnotated(genomicLocation, intervalIndex));
         }
-        return false;
+        return result;
     }
 
     public boolean hgvsgShouldBeAnnotated(String hgvsg, ReferenceGenome referenceGenome) throws ApiException {
+        if (!isValidHgvsgQuery(hgvsg)) {
+            return false;
+        }
+        return hgvsgShouldBeAnnotated(hgvsg.trim(), getCanonicalEnsemblGeneIntervals(referenceGenome));
+    }
+
+    /**
+     * Same as hgvsgShouldBeAnnotated, the result is in the same order as the HGVSg queries.
+     */
+    public List<Boolean> hgvsgsShouldBeAnnotated(List<String> hgvsgs, ReferenceGenome referenceGenome) throws ApiException {
+        List<Boolean> result = new ArrayList<>();
+        if (hgvsgs == null || hgvsgs.isEmpty()) {
+            return result;
+        }
+        GenomicIntervalIndex intervalIndex = null;
+        for (String hgvsg : hgvsgs) {
+            if (!isValidHgvsgQuery(hgvsg)) {
+                result.add(false);
+                continue;
+            }
+            if (intervalIndex == null) {
+                intervalIndex = getCanonicalEnsemblGeneIntervals(referenceGenome);
+            }
+            result.add(hgvsgShouldBeAnnotated(hgvsg.trim(), intervalIndex));
+        }
+        return result;
+    }
+
+    private boolean isValidHgvsgQuery(String hgvsg) {
         if (StringUtils.isEmpty(hgvsg)) {
             return false;
         }
@@ -344,19 +464,27 @@ public class CacheFetcher {
         if (StringUtils.isEmpty(hgvsg)) {
             return false;
         }
-        if (!AlterationUtils.isValidHgvsg(hgvsg)) {
-            return false;
+        return AlterationUtils.isValidHgvsg(hgvsg);
+    }
+
+    private boolean genomicLocationShouldBeAnnotated(GenomicLocation genomicLocation, GenomicIntervalIndex intervalIndex) {
+        // when the transcript info is not available, we should always annotate the genomic location
+        if (intervalIndex.isEmpty()) {
+            return true;
         }
-        Map<String, Set<EnsemblGene>> chromosomeCanonicalEnsemblGeneMap = getCanonicalEnsemblGenesByChromosome(referenceGenome);
+        return intervalIndex.intersects(genomicLocation.getChromosome(), genomicLocation.getStart(), genomicLocation.getEnd());
+    }
+
+    private boolean hgvsgShouldBeAnnotated(String hgvsg, GenomicIntervalIndex intervalIndex) {
         // when the transcript info is not available, we should always annotate the genomic location
-        if (chromosomeCanonicalEnsemblGeneMap == null || chromosomeCanonicalEnsemblGeneMap.isEmpty()) {
+        if (intervalIndex.isEmpty()) {
             return true;
         }
         GenomicLocation gl = null;
         try {
             hgvsg = notationConverter.hgvsNormalizer(hgvsg);
             // We are only doing a partial HGVSg -> Genomic Location conversion.
-            // The withinBuffer method only requires the chromosome and range, so we do
+            // The interval lookup only requires the chromosome and range, so we do
             // not need to parse the ref/var residues. This is slightly more performanant than using regex.
             gl = MainUtils.parseChromosomeAndRangeFromHGVSg(hgvsg);
             if (gl == null) {
@@ -370,17 +498,6 @@ public class CacheFetcher {
                 return false;
             }
         }
-        GenomicLocation finalGl = gl;
-
-        if (chromosomeCanonicalEnsemblGeneMap.containsKey(finalGl.getChromosome())) {
-            return chromosomeCanonicalEnsemblGeneMap.get(finalGl.getChromosome()).stream().anyMatch(ensemblGene -> withinBuffer(ensemblGene, finalGl));
-        }
-
-        return false;
-    }
-
-    private Boolean withinBuffer(EnsemblGene ensemblGene, GenomicLocation genomicLocation) {
-        int bpBuffer = 10000; // add some buffer on determine which genomic change should be annotated. We use the gene range from oncokb-transcript but that does not include gene regulatory sequence. Before having proper range, we use a buffer range instead.
-        return rangesIntersect(ensemblGene.getStart() > bpBuffer ? (ensemblGene.getStart() - bpBuffer) : 0, ensemblGene.getEnd() + bpBuffer, genomicLocation.getStart(), genomicLocation.getEnd());
+        return intervalIndex.intersects(gl.getChromosome(), gl.getStart(), gl.getEnd());
     }
 }
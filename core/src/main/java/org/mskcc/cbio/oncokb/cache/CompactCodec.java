@@ -0,0 +1,187 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.annotation.SimpleObjectIdResolver;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.introspect.ObjectIdInfo;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import org.mskcc.cbio.oncokb.model.Alteration;
+import org.mskcc.cbio.oncokb.model.Gene;
+import org.mskcc.cbio.oncokb.model.IndicatorQueryResp;
+import org.mskcc.cbio.oncokb.model.Info;
+import org.mskcc.cbio.oncokb.util.CacheUtils;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+import org.redisson.codec.SerializationCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A compact binary codec for the model types which are cached the most. Everything else is written by the fallback
+ * codec, java serialization by default.
+ *
+ * Layout: magic (2 bytes), format version, type id (1 byte each), the data version (modified UTF-8 with its length),
+ * then the fields of the object as Smile, a binary JSON. Like java serialization, every non transient field is written
+ * whatever the API shows of it, and an object referenced more than once is written once. The property names and the
+ * repeated string values are written once per entry and referenced afterwards, and no class descriptor is written
+ * since the type id gives the class.
+ *
+ * An entry of another format version or another data release is read as not cached, so the annotations of the
+ * previous release are never served after a data update. Entries without the magic are read by the fallback codec.
+ */
+public class CompactCodec extends BaseCodec {
+    private static final short MAGIC = 0x4f4b;
+    // Increase when the layout or the JSON of any of the types changes in an incompatible way
+    static final int FORMAT_VERSION = 2;
+
+    // The id of a type is its position in the list plus one, only append to the list
+    private static final List<Class<?>> TYPES = Arrays.asList(
+        IndicatorQueryResp.class,
+        Gene.class,
+        Alteration.class
+    );
+    private static final Map<Class<?>, Integer> TYPE_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TYPES.size(); i++) {
+            TYPE_IDS.put(TYPES.get(i), i + 1);
+        }
+    }
+
+    private final Supplier<String> dataVersion;
+    private final Codec fallbackCodec;
+    private final ObjectMapper mapper;
+
+    private final Encoder encoder = in -> {
+        Integer typeId = TYPE_IDS.get(in.getClass());
+        if (typeId == null) {
+            return fallbackCodec.getValueEncoder().encode(in);
+        }
+        ByteBuf out = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            ByteBufOutputStream stream = new ByteBufOutputStream(out);
+            stream.writeShort(MAGIC);
+            stream.writeByte(FORMAT_VERSION);
+            stream.writeByte(typeId);
+            stream.writeUTF(getDataVersion());
+            mapper.writeValue((OutputStream) stream, in);
+            return out;
+        } catch (IOException | RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    };
+
+    private final Decoder<Object> decoder = (buf, state) -> {
+        if (buf.readableBytes() < 2 || buf.getShort(buf.readerIndex()) != MAGIC) {
+            return fallbackCodec.getValueDecoder().decode(buf, state);
+        }
+        ByteBufInputStream stream = new ByteBufInputStream(buf);
+        stream.readShort();
+        int formatVersion = stream.readUnsignedByte();
+        int typeId = stream.readUnsignedByte();
+        String entryDataVersion = stream.readUTF();
+        if (formatVersion != FORMAT_VERSION || typeId < 1 || typeId > TYPES.size() || !entryDataVersion.equals(getDataVersion())) {
+            buf.skipBytes(buf.readableBytes());
+            return null;
+        }
+        return mapper.readValue((InputStream) stream, TYPES.get(typeId - 1));
+    };
+
+    public CompactCodec() {
+        this(CompactCodec::getCurrentDataVersion, new SerializationCodec());
+    }
+
+    /**
+     * @param dataVersion   the data version the entries are written with, and the only one they are read with
+     * @param fallbackCodec writes the types the codec does not know
+     */
+    public CompactCodec(Supplier<String> dataVersion, Codec fallbackCodec) {
+        this.dataVersion = dataVersion;
+        this.fallbackCodec = fallbackCodec;
+        this.mapper = new ObjectMapper(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build());
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        this.mapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+        // The fields, not the JSON of the API
+        this.mapper.setAnnotationIntrospector(new FieldAnnotationIntrospector());
+        this.mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        this.mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        // The sets are read back in the order they were written
+        this.mapper.registerModule(new SimpleModule().addAbstractTypeMapping(Set.class, LinkedHashSet.class));
+    }
+
+    // Used by redisson to copy the codec with another class loader
+    public CompactCodec(ClassLoader classLoader, CompactCodec codec) throws ReflectiveOperationException {
+        this(codec.dataVersion, copy(classLoader, codec.fallbackCodec));
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return fallbackCodec.getClassLoader();
+    }
+
+    private String getDataVersion() {
+        String version = dataVersion.get();
+        return version == null ? "" : version;
+    }
+
+    // The info is loaded at startup and reloaded by CacheUtils.resetAll, so a data release takes effect on reset
+    private static String getCurrentDataVersion() {
+        Info info = CacheUtils.getInfo();
+        return info == null ? null : info.getDataVersion();
+    }
+
+    /**
+     * Ignores the Jackson annotations of the model, which describe the JSON of the API. Every model object is written
+     * with an id, so the objects referring to each other, like the parent and the children of a tumor type, are
+     * written once and referenced afterwards.
+     */
+    private static class FieldAnnotationIntrospector extends NopAnnotationIntrospector {
+        private static final ObjectIdInfo OBJECT_ID_INFO = new ObjectIdInfo(PropertyName.construct("@id"), Object.class, ObjectIdGenerators.IntSequenceGenerator.class, SimpleObjectIdResolver.class);
+
+        @Override
+        public ObjectIdInfo findObjectIdInfo(Annotated annotated) {
+            if (annotated instanceof AnnotatedClass && annotated.getRawType().getName().startsWith("org.mskcc.cbio.oncokb.")) {
+                return OBJECT_ID_INFO;
+            }
+            return null;
+        }
+    }
+}
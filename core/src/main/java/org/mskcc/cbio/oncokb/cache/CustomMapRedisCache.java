@@ -3,6 +3,11 @@ package org.mskcc.cbio.oncokb.cache;
 import org.redisson.api.RedissonClient;
 import org.springframework.cache.interceptor.CacheErrorHandler;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
 public class CustomMapRedisCache extends CustomRedisCache {
     public CustomMapRedisCache(String name, RedissonClient client, long ttlMinutes, CacheErrorHandler cacheErrorHandler) {
         super(name, client, ttlMinutes, cacheErrorHandler);
@@ -31,6 +36,46 @@ public class CustomMapRedisCache extends CustomRedisCache {
         }
     }
 
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> values = new HashMap<>();
+        if (keys.isEmpty()) {
+            return values;
+        }
+        try {
+            Map<Object, Object> storeValues = this.store.getMap(name).getAll(new HashSet<>(keys));
+            for (Map.Entry<Object, Object> entry : storeValues.entrySet()) {
+                Object value = fromStoreValue(entry.getValue());
+                if (value != null) {
+                    values.put(entry.getKey(), value);
+                }
+            }
+        } catch (RuntimeException e) {
+            cacheErrorHandler.handleCacheGetError(e, this, keys);
+            values.clear();
+        }
+        return values;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Object, Object> storeValues = new HashMap<>();
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                Object storeValue = entry.getValue() == null ? null : toStoreValue(entry.getValue());
+                if (storeValue != null) {
+                    storeValues.put(entry.getKey(), storeValue);
+                }
+            }
+            this.store.getMap(name).putAllAsync(storeValues);
+        } catch (RuntimeException e) {
+            cacheErrorHandler.handleCachePutError(e, this, entries.keySet(), entries.values());
+        }
+    }
+
     @Override
     public void clear() {
         try {
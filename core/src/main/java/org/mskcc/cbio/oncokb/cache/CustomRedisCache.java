@@ -1,5 +1,9 @@
 package org.mskcc.cbio.oncokb.cache;
 
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RFuture;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +13,7 @@ import org.springframework.cache.support.AbstractValueAdaptingCache;
 import org.springframework.cache.support.SimpleValueWrapper;
 
 import java.io.*;
+import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
@@ -19,7 +24,7 @@ import static org.mskcc.cbio.oncokb.cache.Constants.REDIS_KEY_SEPARATOR;
 /**
  * @author Luke Sikina, Hongxin Zhang
  **/
-public abstract class CustomRedisCache extends AbstractValueAdaptingCache {
+public abstract class CustomRedisCache extends AbstractValueAdaptingCache implements BatchCache {
     private static final Logger LOG = LoggerFactory.getLogger(CustomRedisCache.class);
     public static final int INFINITE_TTL = -1;
 
@@ -62,6 +67,64 @@ public abstract class CustomRedisCache extends AbstractValueAdaptingCache {
         }
     }
 
+    /**
+     * Get all buckets in one pipelined batch.
+     */
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> values = new HashMap<>();
+        if (keys.isEmpty()) {
+            return values;
+        }
+        try {
+            RBatch batch = this.store.createBatch(BatchOptions.defaults());
+            Map<Object, RFuture<Object>> futures = new LinkedHashMap<>();
+            for (Object key : keys) {
+                RBucketAsync<Object> bucket = batch.getBucket(name + REDIS_KEY_SEPARATOR + key);
+                futures.put(key, bucket.getAsync());
+            }
+            batch.execute();
+            for (Map.Entry<Object, RFuture<Object>> entry : futures.entrySet()) {
+                Object value = entry.getValue().toCompletableFuture().join();
+                if (value != null) {
+                    values.put(entry.getKey(), value);
+                }
+            }
+        } catch (RuntimeException e) {
+            this.cacheErrorHandler.handleCacheGetError(e, this, keys);
+            // Same as lookup, the entries are treated as not cached
+            values.clear();
+        }
+        return values;
+    }
+
+    /**
+     * Set all buckets in one pipelined batch, the batch is not waited for, same as put.
+     */
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            RBatch batch = this.store.createBatch(BatchOptions.defaults());
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                RBucketAsync<Object> bucket = batch.getBucket(name + REDIS_KEY_SEPARATOR + entry.getKey());
+                if (ttlMinutes == INFINITE_TTL) {
+                    bucket.setAsync(entry.getValue());
+                } else {
+                    bucket.setAsync(entry.getValue(), ttlMinutes, TimeUnit.MINUTES);
+                }
+            }
+            batch.executeAsync();
+        } catch (RuntimeException e) {
+            this.cacheErrorHandler.handleCachePutError(e, this, entries.keySet(), entries.values());
+        }
+    }
+
     private void asyncRefresh(Object key) {
         if (ttlMinutes != INFINITE_TTL) {
             this.store.getBucket(name + REDIS_KEY_SEPARATOR + key).expireAsync(ttlMinutes, TimeUnit.MINUTES);
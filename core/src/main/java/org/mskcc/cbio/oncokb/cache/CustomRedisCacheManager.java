@@ -1,5 +1,6 @@
 package org.mskcc.cbio.oncokb.cache;
 
+import com.google.common.cache.CacheStats;
 import org.redisson.api.RedissonClient;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -10,17 +11,26 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 public class CustomRedisCacheManager implements CacheManager {
-    private final ConcurrentMap<String, CustomRedisCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
     private final RedissonClient client;
     private final long ttlInMins;
     private CacheNameResolver cacheNameResolver;
     private CacheErrorHandler cacheErrorHandler;
+    private LocalCacheTier localCacheTier;
 
     public CustomRedisCacheManager(RedissonClient client, long ttlInMins, CacheNameResolver cacheNameResolver, CacheErrorHandler cacheErrorHandler) {
+        this(client, ttlInMins, cacheNameResolver, cacheErrorHandler, null);
+    }
+
+    /**
+     * @param localCacheTier the on-heap tier in front of the redis caches, null to only use redis
+     */
+    public CustomRedisCacheManager(RedissonClient client, long ttlInMins, CacheNameResolver cacheNameResolver, CacheErrorHandler cacheErrorHandler, LocalCacheTier localCacheTier) {
         this.client = client;
         this.ttlInMins = ttlInMins;
         this.cacheNameResolver = cacheNameResolver;
         this.cacheErrorHandler = cacheErrorHandler;
+        this.localCacheTier = localCacheTier;
     }
 
     /**
@@ -45,13 +55,24 @@ public class CustomRedisCacheManager implements CacheManager {
     public void clearAll() {
         // remove all cache within the application
         this.getCache("*").clear();
+        if (this.localCacheTier != null) {
+            this.localCacheTier.clearAll();
+        }
+    }
+
+    /**
+     * @return the hit, miss and eviction counts of the local cache tier, null when the local tier is disabled
+     */
+    public CacheStats getLocalCacheStats() {
+        return this.localCacheTier == null ? null : this.localCacheTier.getStats();
     }
 
     public Cache getCache(String name, boolean expires) {
         long clientTTLInMinutes = expires ? ttlInMins : CustomRedisCache.INFINITE_TTL;
         String cacheName = this.cacheNameResolver.getCacheName(name);
         return caches.computeIfAbsent(cacheName, k -> {
-            return new CustomBucketRedisCache(cacheName, client, clientTTLInMinutes, cacheErrorHandler);
+            CustomRedisCache redisCache = new CustomBucketRedisCache(cacheName, client, clientTTLInMinutes, cacheErrorHandler);
+            return localCacheTier == null ? redisCache : new TieredRedisCache(redisCache, localCacheTier);
         });
     }
 
@@ -0,0 +1,127 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.mskcc.cbio.oncokb.model.IndicatorQueryResp;
+import org.mskcc.cbio.oncokb.util.MainUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The on-heap tier in front of the redis caches, so the hot entries are served without a round trip to redis
+ * and the deserialization of the value.
+ *
+ * Every redis cache gets its own size and TTL bounded local cache. All local caches are invalidated when the
+ * cache manager clears all caches, when the data version changes, or, as an observer of the GeneObservable, when
+ * genes are updated or all genes are reset.
+ *
+ * The annotations are mutated by the callers (query id, transcript etc.), so each caller gets its own copy.
+ */
+public class LocalCacheTier implements Observer {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalCacheTier.class);
+
+    private final long maximumSize;
+    private final long ttlSeconds;
+    private final ConcurrentMap<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+    private volatile String dataVersion;
+
+    public LocalCacheTier(long maximumSize, long ttlSeconds) {
+        this.maximumSize = maximumSize;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public Object get(String cacheName, Object key) {
+        checkDataVersion();
+        Object value = getCache(cacheName).getIfPresent(key);
+        return copyOf(value);
+    }
+
+    public void put(String cacheName, Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        getCache(cacheName).put(key, copyOf(value));
+    }
+
+    public void evict(String cacheName, Object key) {
+        getCache(cacheName).invalidate(key);
+    }
+
+    public void clear(String cacheName) {
+        getCache(cacheName).invalidateAll();
+    }
+
+    public void clearAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    /**
+     * @return the number of entries in all local caches
+     */
+    public long size() {
+        long size = 0;
+        for (Cache<Object, Object> cache : caches.values()) {
+            size += cache.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void update(Observable o, Object arg) {
+        clearAll();
+    }
+
+    /**
+     * @return the hit, miss and eviction counts of all local caches
+     */
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (Cache<Object, Object> cache : caches.values()) {
+            stats = stats.plus(cache.stats());
+        }
+        return stats;
+    }
+
+    private Cache<Object, Object> getCache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, k -> CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build());
+    }
+
+    private void checkDataVersion() {
+        String currentDataVersion;
+        try {
+            currentDataVersion = MainUtils.getDataVersion();
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (!Objects.equals(currentDataVersion, dataVersion)) {
+            synchronized (this) {
+                if (!Objects.equals(currentDataVersion, dataVersion)) {
+                    if (dataVersion != null) {
+                        LOG.info("Data version changed from {} to {}, clear the local caches.", dataVersion, currentDataVersion);
+                    }
+                    clearAll();
+                    dataVersion = currentDataVersion;
+                }
+            }
+        }
+    }
+
+    private static Object copyOf(Object value) {
+        if (value instanceof IndicatorQueryResp) {
+            return ((IndicatorQueryResp) value).copy();
+        }
+        return value;
+    }
+}
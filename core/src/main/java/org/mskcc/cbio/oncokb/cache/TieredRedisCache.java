@@ -0,0 +1,123 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * A redis cache with the local cache tier in front of it. The lookups go to the local tier first and only go to
+ * redis when the entry is not available locally.
+ */
+public class TieredRedisCache implements Cache, BatchCache {
+    private final CustomRedisCache redisCache;
+    private final LocalCacheTier localCacheTier;
+
+    public TieredRedisCache(CustomRedisCache redisCache, LocalCacheTier localCacheTier) {
+        this.redisCache = redisCache;
+        this.localCacheTier = localCacheTier;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = localCacheTier.get(getName(), key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper valueWrapper = redisCache.get(key);
+        if (valueWrapper != null) {
+            localCacheTier.put(getName(), key, valueWrapper.get());
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        Object value = valueWrapper == null ? null : valueWrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+        T value = redisCache.get(key, valueLoader);
+        localCacheTier.put(getName(), key, value);
+        return value;
+    }
+
+    /**
+     * The keys not available locally are fetched from redis in one batch.
+     */
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> values = new HashMap<>();
+        List<Object> missingKeys = new ArrayList<>();
+        for (Object key : keys) {
+            Object value = localCacheTier.get(getName(), key);
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missingKeys.add(key);
+            }
+        }
+        Map<Object, Object> redisValues = redisCache.getAll(missingKeys);
+        for (Map.Entry<Object, Object> entry : redisValues.entrySet()) {
+            localCacheTier.put(getName(), entry.getKey(), entry.getValue());
+        }
+        values.putAll(redisValues);
+        return values;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        redisCache.putAll(entries);
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            localCacheTier.put(getName(), entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        localCacheTier.put(getName(), key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper valueWrapper = redisCache.putIfAbsent(key, value);
+        localCacheTier.put(getName(), key, valueWrapper == null ? value : valueWrapper.get());
+        return valueWrapper;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        localCacheTier.evict(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCacheTier.clear(getName());
+    }
+}
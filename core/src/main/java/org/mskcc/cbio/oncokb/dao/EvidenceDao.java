@@ -120,4 +120,11 @@ public interface EvidenceDao extends GenericDao<Evidence, Integer> {
     List<Object> findSubtypesWithEvidencesForAlterations(List<Alteration> alterations);
 
     List<Evidence> findEvidenceByUUIDs(List<String> uuids);
+
+    /**
+     * Find all evidences with their associations. The gene and the alterations are joined to the query, the other
+     * collections are loaded in batches, so the number of queries does not grow with each evidence.
+     * @return
+     */
+    List<Evidence> findAllWithAssociations();
 }
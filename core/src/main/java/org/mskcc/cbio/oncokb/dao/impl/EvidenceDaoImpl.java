@@ -130,4 +130,9 @@ public class EvidenceDaoImpl
         List[] values = {uuids};
         return (List<Evidence>) getHibernateTemplate().findByNamedQueryAndNamedParam("findEvidenceByUUIDs", params, values);
     }
+
+    @Override
+    public List<Evidence> findAllWithAssociations() {
+        return findByNamedQuery("findAllEvidencesWithAssociations");
+    }
 }
@@ -0,0 +1,261 @@
+package org.mskcc.cbio.oncokb.genomenexus;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.genome_nexus.client.TranscriptConsequenceSummary;
+import org.mskcc.cbio.oncokb.model.ReferenceGenome;
+import org.mskcc.cbio.oncokb.model.genomeNexus.TranscriptSummaryAlterationResult;
+import org.mskcc.cbio.oncokb.util.MainUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append only, on disk store of the Genome Nexus annotations.
+ *
+ * Records are appended to the active segment file and an in-memory map points every key to its latest record.
+ * When the active segment is over half of the max size, it is sealed and a new one is started, the segment before
+ * the sealed one is deleted together with its keys. So the store never takes more than the max size on disk and
+ * the recently written annotations survive a rotation. The map is rebuilt from the segments on startup,
+ * a record cut short by a crash is dropped.
+ *
+ * Record layout: key length, value length (both 4 bytes), the UTF-8 key, the UTF-8 JSON value.
+ */
+public class FileGenomeNexusAnnotationStore implements GenomeNexusAnnotationStore {
+    private static final String SEGMENT_PREFIX = "gn-annotations-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String KEY_SEPARATOR = "::";
+
+    private final File directory;
+    private final long maxSegmentSize;
+    private final Gson gson = new GsonBuilder().create();
+
+    private final Map<String, RecordLocation> index = new ConcurrentHashMap<>();
+    // the sealed segment and the active segment, by segment id
+    private final Map<Long, FileChannel> segments = new ConcurrentHashMap<>();
+    private volatile long activeSegmentId;
+
+    /**
+     * @param directory the directory of the segment files, created when missing
+     * @param maxSize   the max number of bytes the store takes on disk
+     */
+    public FileGenomeNexusAnnotationStore(File directory, long maxSize) throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The max size of the Genome Nexus annotation store should be positive.");
+        }
+        this.directory = directory;
+        this.maxSegmentSize = Math.max(1, maxSize / 2);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the Genome Nexus annotation store at " + directory.getAbsolutePath());
+        }
+        load();
+    }
+
+    @Override
+    public TranscriptSummaryAlterationResult get(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query) {
+        if (type == null || referenceGenome == null || query == null) {
+            return null;
+        }
+        String key = getKey(type, referenceGenome, query);
+        RecordLocation location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        FileChannel channel = segments.get(location.segmentId);
+        if (channel == null) {
+            // the segment has been rotated out after the lookup
+            index.remove(key, location);
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            readFully(channel, buffer, location.position);
+            StoredAnnotation stored = gson.fromJson(new String(buffer.array(), StandardCharsets.UTF_8), StoredAnnotation.class);
+            TranscriptSummaryAlterationResult result = new TranscriptSummaryAlterationResult(stored.transcriptConsequenceSummary);
+            result.setMessage(stored.message);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Cannot read the Genome Nexus annotation of " + query + ": " + e.getMessage());
+            index.remove(key, location);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query, TranscriptSummaryAlterationResult result) {
+        if (type == null || referenceGenome == null || query == null || result == null) {
+            return;
+        }
+        StoredAnnotation stored = new StoredAnnotation();
+        stored.transcriptConsequenceSummary = result.getTranscriptConsequenceSummary();
+        stored.message = result.getMessage();
+
+        String key = getKey(type, referenceGenome, query);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = gson.toJson(stored).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length);
+        record.putInt(keyBytes.length).putInt(valueBytes.length).put(keyBytes).put(valueBytes);
+        record.flip();
+
+        synchronized (this) {
+            try {
+                FileChannel channel = segments.get(activeSegmentId);
+                if (channel.size() > 0 && channel.size() + record.remaining() > maxSegmentSize) {
+                    rotate();
+                    channel = segments.get(activeSegmentId);
+                }
+                long position = channel.size();
+                while (record.hasRemaining()) {
+                    channel.write(record, position + record.position());
+                }
+                index.put(key, new RecordLocation(activeSegmentId, position + RECORD_HEADER_SIZE + keyBytes.length, valueBytes.length));
+            } catch (IOException e) {
+                System.out.println("Cannot store the Genome Nexus annotation of " + query + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            index.clear();
+            for (Long segmentId : new ArrayList<>(segments.keySet())) {
+                deleteSegment(segmentId);
+            }
+            openSegment(0);
+            activeSegmentId = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private void load() throws IOException {
+        List<Long> segmentIds = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String id = file.getName().substring(SEGMENT_PREFIX.length(), file.getName().length() - SEGMENT_SUFFIX.length());
+                try {
+                    segmentIds.add(Long.parseLong(id));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(segmentIds);
+
+        // only the last two segments are kept
+        while (segmentIds.size() > 2) {
+            Files.deleteIfExists(getSegmentFile(segmentIds.remove(0)).toPath());
+        }
+        if (segmentIds.isEmpty()) {
+            segmentIds.add(0L);
+        }
+
+        Long current = MainUtils.getCurrentTimestamp();
+        for (Long segmentId : segmentIds) {
+            FileChannel channel = openSegment(segmentId);
+            replay(segmentId, channel);
+        }
+        activeSegmentId = segmentIds.get(segmentIds.size() - 1);
+        System.out.println("Loaded " + index.size() + " Genome Nexus annotations from " + directory.getAbsolutePath() + " in " + MainUtils.getTimestampDiff(current) + "ms");
+    }
+
+    private void replay(long segmentId, FileChannel channel) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            if (keyLength < 0 || valueLength < 0 || position + RECORD_HEADER_SIZE + keyLength + valueLength > size) {
+                break;
+            }
+            ByteBuffer key = ByteBuffer.allocate(keyLength);
+            readFully(channel, key, position + RECORD_HEADER_SIZE);
+            index.put(new String(key.array(), StandardCharsets.UTF_8), new RecordLocation(segmentId, position + RECORD_HEADER_SIZE + keyLength, valueLength));
+            position += RECORD_HEADER_SIZE + keyLength + valueLength;
+        }
+        if (position < size) {
+            // the last record was not completely written
+            channel.truncate(position);
+        }
+    }
+
+    private void rotate() throws IOException {
+        long sealedSegmentId = activeSegmentId;
+        long newSegmentId = sealedSegmentId + 1;
+        openSegment(newSegmentId);
+        activeSegmentId = newSegmentId;
+        for (Long segmentId : new ArrayList<>(segments.keySet())) {
+            if (segmentId < sealedSegmentId) {
+                deleteSegment(segmentId);
+            }
+        }
+    }
+
+    private FileChannel openSegment(long segmentId) throws IOException {
+        FileChannel channel = FileChannel.open(getSegmentFile(segmentId).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(segmentId, channel);
+        return channel;
+    }
+
+    private void deleteSegment(long segmentId) throws IOException {
+        FileChannel channel = segments.remove(segmentId);
+        index.values().removeIf(location -> location.segmentId == segmentId);
+        if (channel != null) {
+            channel.close();
+        }
+        Files.deleteIfExists(getSegmentFile(segmentId).toPath());
+    }
+
+    private File getSegmentFile(long segmentId) {
+        return new File(directory, SEGMENT_PREFIX + segmentId + SEGMENT_SUFFIX);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of the Genome Nexus annotation store");
+            }
+        }
+    }
+
+    private static String getKey(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query) {
+        return type.name() + KEY_SEPARATOR + referenceGenome.name() + KEY_SEPARATOR + query;
+    }
+
+    private static class RecordLocation {
+        private final long segmentId;
+        private final long position;
+        private final int length;
+
+        RecordLocation(long segmentId, long position, int length) {
+            this.segmentId = segmentId;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    private static class StoredAnnotation {
+        private TranscriptConsequenceSummary transcriptConsequenceSummary;
+        private String message;
+    }
+}
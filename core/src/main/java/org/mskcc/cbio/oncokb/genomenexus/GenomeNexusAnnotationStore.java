@@ -0,0 +1,21 @@
+package org.mskcc.cbio.oncokb.genomenexus;
+
+import org.mskcc.cbio.oncokb.model.ReferenceGenome;
+import org.mskcc.cbio.oncokb.model.genomeNexus.TranscriptSummaryAlterationResult;
+
+/**
+ * Local store of the Genome Nexus annotations, consulted before a variant is sent to Genome Nexus.
+ *
+ * Only the transcript consequence summary and the message of a result are kept, the alteration is rebuilt by the
+ * caller from the summary, so a cached result follows the current gene cache.
+ */
+public interface GenomeNexusAnnotationStore {
+    /**
+     * @return the stored result, null when the query is not in the store
+     */
+    TranscriptSummaryAlterationResult get(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query);
+
+    void put(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query, TranscriptSummaryAlterationResult result);
+
+    void clear();
+}
@@ -0,0 +1,303 @@
+package org.mskcc.cbio.oncokb.genomenexus;
+
+import org.genome_nexus.ApiException;
+import org.mskcc.cbio.oncokb.util.LatencyHistogram;
+import org.mskcc.cbio.oncokb.util.MainUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the Genome Nexus queries in chunks.
+ *
+ * The queries are split into contiguous chunks of at most chunkSize queries, the chunks are fetched concurrently on a
+ * bounded pool and put back in the order of the queries. A chunk failing with an IO error, a 429 or a 5xx is retried
+ * up to maxRetries times, the delay doubles after every attempt. The retry is scheduled on the pool after the delay,
+ * so a chunk waiting for its retry does not hold a thread. The first chunk which still fails fails the whole fetch,
+ * the other chunks are cancelled.
+ *
+ * The number of chunks, retries and failures and the latency of the requests are kept for the metrics endpoint.
+ */
+public class GenomeNexusFetchPipeline {
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final AtomicLong numOfChunks = new AtomicLong();
+    private final AtomicLong numOfRetries = new AtomicLong();
+    private final AtomicLong numOfFailedChunks = new AtomicLong();
+    private final LatencyHistogram chunkLatency = new LatencyHistogram();
+
+    @FunctionalInterface
+    public interface ChunkFetcher<Q, R> {
+        List<R> fetch(List<Q> chunk) throws ApiException;
+    }
+
+    /**
+     * @param chunkSize          the max number of queries in a request to Genome Nexus
+     * @param parallelism        the max number of concurrent requests to Genome Nexus
+     * @param maxRetries         the number of times a failed chunk is retried, 0 to not retry
+     * @param retryBackoffMillis the delay before the first retry
+     */
+    public GenomeNexusFetchPipeline(int chunkSize, int parallelism, int maxRetries, long retryBackoffMillis) {
+        if (chunkSize <= 0 || parallelism <= 0 || maxRetries < 0 || retryBackoffMillis < 0) {
+            throw new IllegalArgumentException("Invalid Genome Nexus fetch pipeline configuration");
+        }
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.executor = parallelism > 1 ? createExecutor(parallelism) : null;
+    }
+
+    /**
+     * Fetch all queries, the result list is in the same order as the queries.
+     *
+     * @throws ApiException when a chunk still fails after the retries, or a chunk does not have one result per query
+     */
+    public <Q, R> List<R> fetch(List<Q> queries, ChunkFetcher<Q, R> fetcher) throws ApiException {
+        List<R> result = new ArrayList<>();
+        if (queries == null || queries.isEmpty()) {
+            return result;
+        }
+
+        List<List<Q>> chunks = new ArrayList<>();
+        for (int start = 0; start < queries.size(); start += chunkSize) {
+            chunks.add(queries.subList(start, Math.min(start + chunkSize, queries.size())));
+        }
+
+        Long current = MainUtils.getCurrentTimestamp();
+        if (executor == null || chunks.size() == 1) {
+            for (List<Q> chunk : chunks) {
+                result.addAll(fetchChunk(chunk, fetcher));
+            }
+        } else {
+            List<CompletableFuture<List<R>>> futures = new ArrayList<>();
+            for (List<Q> chunk : chunks) {
+                CompletableFuture<List<R>> future = new CompletableFuture<>();
+                futures.add(future);
+                executor.execute(() -> fetchChunkAsync(chunk, fetcher, 0, retryBackoffMillis, future));
+            }
+            try {
+                for (Future<List<R>> future : futures) {
+                    result.addAll(future.get());
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new ApiException("The Genome Nexus fetch is interrupted");
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                if (e.getCause() instanceof ApiException) {
+                    throw (ApiException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new ApiException(e.getCause());
+            }
+        }
+        if (chunks.size() > 1) {
+            System.out.println("Fetched " + queries.size() + " variants from Genome Nexus in " + chunks.size() + " chunks in " + MainUtils.getTimestampDiff(current) + "ms");
+        }
+        return result;
+    }
+
+    // Fetches the chunk on the calling thread, which waits for the retries
+    private <Q, R> List<R> fetchChunk(List<Q> chunk, ChunkFetcher<Q, R> fetcher) throws ApiException {
+        long backoff = retryBackoffMillis;
+        for (int attempt = 0; ; attempt++) {
+            List<R> result;
+            try {
+                result = fetchOnce(chunk, fetcher);
+            } catch (ApiException e) {
+                if (!shouldRetry(chunk, e, attempt, backoff)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff *= 2;
+                continue;
+            }
+            return checkResult(chunk, result);
+        }
+    }
+
+    // One attempt on the pool, a retry is scheduled on the pool after the backoff
+    private <Q, R> void fetchChunkAsync(List<Q> chunk, ChunkFetcher<Q, R> fetcher, int attempt, long backoff, CompletableFuture<List<R>> future) {
+        if (future.isDone()) {
+            // cancelled because another chunk failed
+            return;
+        }
+        List<R> result;
+        try {
+            result = fetchOnce(chunk, fetcher);
+        } catch (ApiException e) {
+            if (!shouldRetry(chunk, e, attempt, backoff)) {
+                future.completeExceptionally(e);
+                return;
+            }
+            try {
+                executor.schedule(() -> fetchChunkAsync(chunk, fetcher, attempt + 1, backoff * 2, future), backoff, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                future.completeExceptionally(e);
+            }
+            return;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            future.complete(checkResult(chunk, result));
+        } catch (ApiException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private <Q, R> List<R> fetchOnce(List<Q> chunk, ChunkFetcher<Q, R> fetcher) throws ApiException {
+        long start = System.nanoTime();
+        try {
+            return fetcher.fetch(chunk);
+        } finally {
+            numOfChunks.incrementAndGet();
+            chunkLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    // A chunk without one result per query is not retried
+    private <Q, R> List<R> checkResult(List<Q> chunk, List<R> result) throws ApiException {
+        if (result == null || result.size() != chunk.size()) {
+            numOfFailedChunks.incrementAndGet();
+            throw new ApiException("Genome Nexus returned " + (result == null ? 0 : result.size()) + " annotations for " + chunk.size() + " variants");
+        }
+        return result;
+    }
+
+    private boolean shouldRetry(List<?> chunk, ApiException e, int attempt, long backoff) {
+        if (attempt >= maxRetries || !isRetryable(e)) {
+            numOfFailedChunks.incrementAndGet();
+            return false;
+        }
+        numOfRetries.incrementAndGet();
+        System.out.println("Genome Nexus request of " + chunk.size() + " variants failed (" + e.getCode() + "), retry in " + backoff + "ms");
+        return true;
+    }
+
+    // code 0 is an IO error, the request did not get a response
+    private static boolean isRetryable(ApiException e) {
+        int code = e.getCode();
+        return code == 0 || code == 429 || code >= 500;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getNumOfChunks() {
+        return numOfChunks.get();
+    }
+
+    public long getNumOfRetries() {
+        return numOfRetries.get();
+    }
+
+    public long getNumOfFailedChunks() {
+        return numOfFailedChunks.get();
+    }
+
+    /**
+     * @return the latency of the requests to Genome Nexus, each attempt of a chunk is one request
+     */
+    public LatencyHistogram.Snapshot getChunkLatency() {
+        return chunkLatency.getSnapshot();
+    }
+
+    public Metrics getMetrics() {
+        Metrics metrics = new Metrics();
+        metrics.chunkSize = chunkSize;
+        metrics.parallelism = parallelism;
+        metrics.numOfChunks = getNumOfChunks();
+        metrics.numOfRetries = getNumOfRetries();
+        metrics.numOfFailedChunks = getNumOfFailedChunks();
+        metrics.chunkLatency = getChunkLatency();
+        return metrics;
+    }
+
+    public void resetMetrics() {
+        numOfChunks.set(0);
+        numOfRetries.set(0);
+        numOfFailedChunks.set(0);
+        chunkLatency.reset();
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createExecutor(int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "genome-nexus-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // a fixed pool of parallelism threads with an unbounded queue, the retries wait in the queue
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(parallelism, threadFactory);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * The configuration and the counters of the pipeline, the latencies are in milliseconds
+     */
+    public static class Metrics {
+        private int chunkSize;
+        private int parallelism;
+        private long numOfChunks;
+        private long numOfRetries;
+        private long numOfFailedChunks;
+        private LatencyHistogram.Snapshot chunkLatency;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public long getNumOfChunks() {
+            return numOfChunks;
+        }
+
+        public long getNumOfRetries() {
+            return numOfRetries;
+        }
+
+        public long getNumOfFailedChunks() {
+            return numOfFailedChunks;
+        }
+
+        public LatencyHistogram.Snapshot getChunkLatency() {
+            return chunkLatency;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.mskcc.cbio.oncokb.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 
@@ -94,12 +95,14 @@ public class Alteration implements java.io.Serializable {
     @Column(name = "variant_residues")
     private String variantResidues;
 
+    @BatchSize(size = 200)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "alteration_reference_genome", joinColumns = @JoinColumn(name = "alteration_id", nullable = false))
     @Column(length = 10, name = "reference_genome")
     @Enumerated(EnumType.STRING)
     private Set<ReferenceGenome> referenceGenomes = new HashSet<>(0);
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "portal_alteration_oncokb_alteration", joinColumns = {
         @JoinColumn(name = "oncokb_alteration_id", nullable = false, updatable = false)},
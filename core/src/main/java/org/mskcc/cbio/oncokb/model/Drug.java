@@ -3,6 +3,8 @@ package org.mskcc.cbio.oncokb.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import org.hibernate.annotations.BatchSize;
+
 import javax.persistence.*;
 import java.util.HashSet;
 import java.util.Objects;
@@ -36,6 +38,7 @@ import java.util.Set;
     )
 })
 
+@BatchSize(size = 200)
 @Entity
 @Table(name = "drug")
 public class Drug implements java.io.Serializable {
@@ -60,12 +63,14 @@ public class Drug implements java.io.Serializable {
     @Column(length = 40)
     private String uuid;
 
+    @BatchSize(size = 200)
     @JsonIgnore
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "drug_synonym", joinColumns = @JoinColumn(name = "drug_id", nullable = false))
     @Column(length = 1000, name = "synonym")
     private Set<String> synonyms = new HashSet<String>(0);
 
+    @BatchSize(size = 200)
     @JsonIgnore
     @ManyToMany(cascade={CascadeType.ALL}, fetch = FetchType.EAGER)
     @JoinTable(name="drug_family",
@@ -73,6 +78,7 @@ public class Drug implements java.io.Serializable {
         inverseJoinColumns={@JoinColumn(name="drug_family_id")})
     private Set<Drug> drugFamlilies = new HashSet<>();
 
+    @BatchSize(size = 200)
     @JsonIgnore
     @ManyToMany(mappedBy="drugFamlilies", fetch = FetchType.EAGER)
     private Set<Drug> drugs = new HashSet<>();
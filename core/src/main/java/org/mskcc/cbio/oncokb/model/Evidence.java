@@ -1,6 +1,7 @@
 package org.mskcc.cbio.oncokb.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 
@@ -78,6 +79,10 @@ import java.util.*;
         name = "findEvidenceByUUIDs",
         query = "select e from Evidence e where e.uuid in (:uuids)"
     ),
+    @NamedQuery(
+        name = "findAllEvidencesWithAssociations",
+        query = "select distinct e from Evidence e left join fetch e.gene left join fetch e.alterations"
+    ),
 })
 
 @Entity
@@ -99,18 +104,21 @@ public class Evidence implements java.io.Serializable {
     @Column(name = "for_germline")
     private Boolean forGermline = false;
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "evidence_cancer_type",
         joinColumns = @JoinColumn(name = "evidence_id", referencedColumnName = "id"),
         inverseJoinColumns = @JoinColumn(name = "cancer_type_id", referencedColumnName = "id"))
     private Set<TumorType> cancerTypes = new HashSet<>();
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "evidence_excluded_cancer_type",
         joinColumns = @JoinColumn(name = "evidence_id", referencedColumnName = "id"),
         inverseJoinColumns = @JoinColumn(name = "cancer_type_id", referencedColumnName = "id"))
     private Set<TumorType> excludedCancerTypes = new HashSet<>();
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "evidence_relevant_cancer_type",
         joinColumns = @JoinColumn(name = "evidence_id", referencedColumnName = "id"),
@@ -137,6 +145,7 @@ public class Evidence implements java.io.Serializable {
     @Column(name = "additional_info", length = 65535)
     private String additionalInfo;
 
+    @BatchSize(size = 200)
     @OneToMany(fetch = FetchType.EAGER, mappedBy = "evidence", cascade = CascadeType.ALL)
     private Set<Treatment> treatments = new HashSet<>(0);
 
@@ -165,6 +174,7 @@ public class Evidence implements java.io.Serializable {
     @Enumerated(EnumType.STRING)
     private LevelOfEvidence liquidPropagationLevel;
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "evidence_article", joinColumns = {
         @JoinColumn(name = "evidence_id", nullable = false, updatable = false)
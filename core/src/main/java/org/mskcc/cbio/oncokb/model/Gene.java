@@ -6,6 +6,8 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.swagger.annotations.ApiModelProperty;
 import org.mskcc.cbio.oncokb.serializer.SetGenesetInGeneConverter;
 
+import org.hibernate.annotations.BatchSize;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.HashSet;
@@ -26,6 +28,7 @@ import java.util.Set;
     )
 })
 
+@BatchSize(size = 200)
 @Entity
 @Table(name = "gene")
 public class Gene implements Serializable {
@@ -54,11 +57,13 @@ public class Gene implements Serializable {
     @Column(name = "grch38_ref_seq", length = 100)
     private String grch38RefSeq;
 
+    @BatchSize(size = 200)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "gene_alias", joinColumns = @JoinColumn(name = "entrez_gene_id", nullable = false))
     @Column(name = "alias")
     private Set<String> geneAliases = new HashSet<String>(0);
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER, mappedBy = "genes")
     @JsonSerialize(converter = SetGenesetInGeneConverter.class)
     private Set<Geneset> genesets = new HashSet<>();
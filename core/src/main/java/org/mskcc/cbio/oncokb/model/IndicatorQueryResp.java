@@ -54,6 +54,7 @@ public class IndicatorQueryResp implements java.io.Serializable {
         newResp.setHighestResistanceLevel(this.highestResistanceLevel);
         newResp.setHighestDiagnosticImplicationLevel(this.highestDiagnosticImplicationLevel);
         newResp.setHighestPrognosticImplicationLevel(this.highestPrognosticImplicationLevel);
+        newResp.setHighestFdaLevel(this.highestFdaLevel);
         newResp.setOtherSignificantSensitiveLevels(new ArrayList<>(this.otherSignificantSensitiveLevels));
         newResp.setOtherSignificantResistanceLevels(new ArrayList<>(this.otherSignificantResistanceLevels));
         newResp.setVUS(this.VUS);
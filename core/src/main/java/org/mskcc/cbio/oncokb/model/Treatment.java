@@ -6,6 +6,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import org.mskcc.cbio.oncokb.util.DrugUtils;
 import org.mskcc.cbio.oncokb.util.TreatmentUtils;
 
+import org.hibernate.annotations.BatchSize;
+
 import javax.persistence.*;
 import java.util.*;
 
@@ -27,10 +29,12 @@ public class Treatment implements java.io.Serializable {
     @Column(length = 40)
     private String uuid;
 
+    @BatchSize(size = 200)
     @OneToMany(fetch = FetchType.EAGER, mappedBy = "treatmentDrugId.treatment", cascade = CascadeType.ALL)
     @JsonProperty(value = "drugs")
     private Set<TreatmentDrug> treatmentDrugs = new HashSet<>(0);
 
+    @BatchSize(size = 200)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(
         name = "treatment_approved_indications",
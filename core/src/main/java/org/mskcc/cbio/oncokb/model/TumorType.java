@@ -3,6 +3,7 @@ package org.mskcc.cbio.oncokb.model;
 import com.mysql.jdbc.StringUtils;
 import io.swagger.annotations.ApiModel;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 
@@ -18,6 +19,7 @@ import java.util.*;
     ),
 })
 
+@BatchSize(size = 200)
 @Entity
 @Table(name = "cancer_type")
 @ApiModel(description = "OncoTree Detailed Cancer Type")
@@ -54,6 +56,7 @@ public class TumorType implements Serializable {
     @Enumerated(EnumType.STRING)
     private TumorForm tumorForm = null;
 
+    @BatchSize(size = 200)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "cancer_type_child", joinColumns = {
         @JoinColumn(name = "cancer_type_id", referencedColumnName = "id")
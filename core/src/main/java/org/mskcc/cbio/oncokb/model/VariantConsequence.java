@@ -6,6 +6,8 @@
 
 package org.mskcc.cbio.oncokb.model;
 
+import org.hibernate.annotations.BatchSize;
+
 import javax.persistence.*;
 import java.util.Objects;
 
@@ -19,6 +21,7 @@ import java.util.Objects;
     )
 })
 
+@BatchSize(size = 200)
 @Entity
 @Table(name = "variant_consequence")
 public class VariantConsequence implements java.io.Serializable {
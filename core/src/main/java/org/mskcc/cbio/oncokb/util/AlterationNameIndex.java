@@ -0,0 +1,49 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.Alteration;
+
+import java.util.*;
+
+/**
+ * Case-insensitive index of the alterations of one gene on one reference genome, keyed by the lowercase
+ * alteration and the lowercase name. The matches of each key keep the order of the indexed list so the
+ * lookups return the same alteration as a linear scan would.
+ */
+public class AlterationNameIndex {
+    private final List<Alteration> alterations;
+    private final Map<String, List<Alteration>> alterationsByLowercaseAlteration = new HashMap<>();
+    private final Map<String, List<Alteration>> alterationsByLowercaseName = new HashMap<>();
+
+    public AlterationNameIndex(List<Alteration> alterations) {
+        this.alterations = alterations;
+        for (Alteration alteration : alterations) {
+            if (alteration.getAlteration() == null) {
+                continue;
+            }
+            alterationsByLowercaseAlteration.computeIfAbsent(alteration.getAlteration().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(alteration);
+            if (alteration.getName() != null) {
+                alterationsByLowercaseName.computeIfAbsent(alteration.getName().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(alteration);
+            }
+        }
+    }
+
+    public boolean isBuiltOn(List<Alteration> alterations) {
+        return this.alterations == alterations;
+    }
+
+    public List<Alteration> findByAlteration(String alteration) {
+        return find(alterationsByLowercaseAlteration, alteration);
+    }
+
+    public List<Alteration> findByName(String name) {
+        return find(alterationsByLowercaseName, name);
+    }
+
+    private static List<Alteration> find(Map<String, List<Alteration>> index, String key) {
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        List<Alteration> matches = index.get(key.toLowerCase(Locale.ROOT));
+        return matches == null ? Collections.emptyList() : Collections.unmodifiableList(matches);
+    }
+}
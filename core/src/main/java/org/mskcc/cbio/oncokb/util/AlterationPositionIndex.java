@@ -0,0 +1,168 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.Alteration;
+import org.mskcc.cbio.oncokb.model.VariantConsequence;
+
+import java.util.*;
+
+import static org.mskcc.cbio.oncokb.Constants.SPLICE_SITE_VARIANTS;
+
+/**
+ * Protein position index over the alterations of one gene on one reference genome.
+ *
+ * Alterations are bucketed by consequence (all splice site variants share one bucket, same as
+ * AlterationUtils.consequenceRelated), and each bucket is sorted by protein start with the max protein end
+ * of every subtree stored in an implicit binary tree. Both the overlap and the start range lookups
+ * return the candidates in O(log n + k), callers still apply the remaining filters.
+ */
+public class AlterationPositionIndex {
+    private static final String SPLICE_SITE_BUCKET = "splice_site_variants";
+
+    private final List<Alteration> alterations;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    public AlterationPositionIndex(List<Alteration> alterations) {
+        this.alterations = Collections.unmodifiableList(alterations);
+
+        Map<String, List<Alteration>> grouped = new HashMap<>();
+        for (Alteration alteration : alterations) {
+            if (alteration.getConsequence() == null || alteration.getProteinStart() == null || alteration.getProteinEnd() == null) {
+                continue;
+            }
+            grouped.computeIfAbsent(getBucketKey(alteration.getConsequence()), k -> new ArrayList<>()).add(alteration);
+        }
+        for (Map.Entry<String, List<Alteration>> entry : grouped.entrySet()) {
+            buckets.put(entry.getKey(), new Bucket(entry.getValue()));
+        }
+    }
+
+    /**
+     * The list the index is built on. CacheUtils hands this exact instance out so the lookups can tell whether
+     * the list they are given is covered by the index.
+     */
+    public List<Alteration> getAlterations() {
+        return alterations;
+    }
+
+    public boolean isBuiltOn(List<Alteration> alterations) {
+        return this.alterations == alterations;
+    }
+
+    /**
+     * Alterations with related consequence where proteinStart <= maxStart and proteinEnd >= minEnd.
+     */
+    public List<Alteration> findByMaxStartAndMinEnd(VariantConsequence consequence, int maxStart, int minEnd) {
+        Bucket bucket = getBucket(consequence);
+        List<Alteration> result = new ArrayList<>();
+        if (bucket != null) {
+            bucket.collect(0, bucket.size(), upperBound(bucket.starts, maxStart), minEnd, result);
+        }
+        return result;
+    }
+
+    /**
+     * Alterations with related consequence where start <= proteinStart <= end.
+     */
+    public List<Alteration> findByStartRange(VariantConsequence consequence, int start, int end) {
+        Bucket bucket = getBucket(consequence);
+        if (bucket == null || start > end) {
+            return new ArrayList<>();
+        }
+        int from = lowerBound(bucket.starts, start);
+        int to = upperBound(bucket.starts, end);
+        return new ArrayList<>(Arrays.asList(bucket.alterations).subList(from, Math.max(from, to)));
+    }
+
+    private Bucket getBucket(VariantConsequence consequence) {
+        if (consequence == null) {
+            return null;
+        }
+        return buckets.get(getBucketKey(consequence));
+    }
+
+    private static String getBucketKey(VariantConsequence consequence) {
+        return SPLICE_SITE_VARIANTS.contains(consequence) ? SPLICE_SITE_BUCKET : consequence.getTerm();
+    }
+
+    // first index whose value is >= key
+    private static int lowerBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // first index whose value is > key
+    private static int upperBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static class Bucket {
+        private final Alteration[] alterations;
+        private final int[] starts;
+        private final int[] ends;
+        // maxEnds[mid] is the max protein end within the subtree [lo, hi) rooted at mid = (lo + hi) / 2
+        private final int[] maxEnds;
+
+        Bucket(List<Alteration> bucketAlterations) {
+            List<Alteration> sorted = new ArrayList<>(bucketAlterations);
+            sorted.sort(Comparator.comparingInt(Alteration::getProteinStart));
+            int size = sorted.size();
+            alterations = sorted.toArray(new Alteration[size]);
+            starts = new int[size];
+            ends = new int[size];
+            maxEnds = new int[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = alterations[i].getProteinStart();
+                ends[i] = alterations[i].getProteinEnd();
+            }
+            buildMaxEnds(0, size);
+        }
+
+        int size() {
+            return alterations.length;
+        }
+
+        private int buildMaxEnds(int lo, int hi) {
+            if (lo >= hi) {
+                return Integer.MIN_VALUE;
+            }
+            int mid = (lo + hi) >>> 1;
+            maxEnds[mid] = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+            return maxEnds[mid];
+        }
+
+        // collect the alterations in [lo, hi) with index < limit and protein end >= minEnd
+        private void collect(int lo, int hi, int limit, int minEnd, List<Alteration> result) {
+            if (lo >= hi || lo >= limit) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] < minEnd) {
+                return;
+            }
+            collect(lo, mid, limit, minEnd, result);
+            if (mid < limit) {
+                if (ends[mid] >= minEnd) {
+                    result.add(alterations[mid]);
+                }
+                collect(mid + 1, hi, limit, minEnd, result);
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.mskcc.cbio.oncokb.apiModels.annotation.AnnotateMutationByHGVSgQuery;
 import org.mskcc.cbio.oncokb.bo.AlterationBo;
 import org.mskcc.cbio.oncokb.bo.EvidenceBo;
 import org.mskcc.cbio.oncokb.genomenexus.GNVariantAnnotationType;
+import org.mskcc.cbio.oncokb.genomenexus.GenomeNexusAnnotationStore;
 import org.mskcc.cbio.oncokb.model.*;
 import org.mskcc.cbio.oncokb.model.genomeNexus.TranscriptSummaryAlterationResult;
 
@@ -42,6 +43,12 @@ public final class AlterationUtils {
     public static Pattern GENOMIC_CHANGE_FORMAT = Pattern.compile("((grch37|grch38):)?([\\dxy]+,\\d+,\\d+,.*)", Pattern.CASE_INSENSITIVE);
 
     private static String EXCLUSION_SEPERATOR_REGEX = "\\s*;\\s*";
+    private static final Pattern RANGE_INFRAME = Pattern.compile("([0-9]+)_([0-9]+)(ins|del)(.*)");
+    private static final Pattern EXCLUSION_CRITERIA = Pattern.compile("(.*)[\\{\\(]\\s*(exclude|excluding)(.*)[\\}\\)](.*)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MUTATION_WITH_ALLELES = Pattern.compile("([A-Z][0-9]+)([^0-9/]+/.+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFERENCE_GENOME_PREFIX = Pattern.compile("(((grch37)|(grch38)):\\s*).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FRAMESHIFT = Pattern.compile("([A-Z\\*]+)?([0-9]+)([A-Z])?fs(\\*([0-9]+|\\?)?)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DELINS_VARIANT_ALLELES = Pattern.compile(".*delins([\\w]+)");
 
 
     private AlterationUtils() {
@@ -93,8 +100,7 @@ public final class AlterationUtils {
             return false;
         }
 
-        Pattern p = Pattern.compile("([0-9]+)_([0-9]+)(ins|del)(.*)");
-        Matcher m = p.matcher(alteration.getAlteration());
+        Matcher m = RANGE_INFRAME.matcher(alteration.getAlteration());
         return m.matches();
     }
 
@@ -107,12 +113,16 @@ public final class AlterationUtils {
 
     public static Set<Alteration> findOverlapAlteration(List<Alteration> alterations, Gene gene, ReferenceGenome referenceGenome, VariantConsequence consequence, int start, int end, String proteinChange) {
         Set<Alteration> overlaps = new HashSet<>();
-        VariantConsequence inframeDeletionConsequence = VariantConsequenceUtils.findVariantConsequenceByTerm(IN_FRAME_DELETION);
+        boolean withoutSpecificPosition = start <= AlterationPositionBoundary.START.getValue() || end >= AlterationPositionBoundary.END.getValue();
+        AlterationPositionIndex index = CacheUtils.getAlterationPositionIndex(gene, referenceGenome, alterations);
+        if (index != null) {
+            alterations = withoutSpecificPosition ? index.findByMaxStartAndMinEnd(consequence, start, end) : index.findByMaxStartAndMinEnd(consequence, end, start);
+        }
         for (int i = 0; i < alterations.size(); i++) {
             Alteration alteration = alterations.get(i);
             if (alteration.getGene().equals(gene) && alteration.getConsequence() != null && consequenceRelated(consequence, alteration.getConsequence()) && (referenceGenome == null || alteration.getReferenceGenomes().contains(referenceGenome))) {
                 //For alteration without specific position, do not do intersection
-                if (start <= AlterationPositionBoundary.START.getValue() || end >= AlterationPositionBoundary.END.getValue()) {
+                if (withoutSpecificPosition) {
                     if (start >= alteration.getProteinStart()
                         && end <= alteration.getProteinEnd()) {
                         overlaps.add(alteration);
@@ -127,12 +137,11 @@ public final class AlterationUtils {
         return overlaps;
     }
 
-    private static Matcher getExclusionCriteriaMatcher(String proteinChange) {
+    static Matcher getExclusionCriteriaMatcher(String proteinChange) {
         if (proteinChange == null) {
             proteinChange = "";
         }
-        Pattern exclusionPatter = Pattern.compile("(.*)[\\{\\(]\\s*(exclude|excluding)(.*)[\\}\\)](.*)?", Pattern.CASE_INSENSITIVE);
-        Matcher exclusionMatch = exclusionPatter.matcher(proteinChange);
+        Matcher exclusionMatch = EXCLUSION_CRITERIA.matcher(proteinChange);
         return exclusionMatch;
     }
 
@@ -173,13 +182,11 @@ public final class AlterationUtils {
 
         String[] parts = mutationStr.split(mutationSeparator);
 
-        Pattern p = Pattern.compile("([A-Z][0-9]+)([^0-9/]+/.+)", Pattern.CASE_INSENSITIVE);
-        Pattern rgp = Pattern.compile("(((grch37)|(grch38)):\\s*).*", Pattern.CASE_INSENSITIVE);
         for (String part : parts) {
             String proteinChange, displayName;
             part = part.trim();
 
-            Matcher rgm = rgp.matcher(part);
+            Matcher rgm = REFERENCE_GENOME_PREFIX.matcher(part);
             Set<ReferenceGenome> referenceGenomes = new HashSet<>();
             if (rgm.find()) {
                 String referenceGenome = rgm.group(2);
@@ -216,7 +223,7 @@ public final class AlterationUtils {
             proteinChange = trimComment(proteinChange);
             proteinChange = proteinChange.replaceAll(EXCLUSION_SEPERATOR_REGEX, "; ");
 
-            Matcher m = p.matcher(proteinChange);
+            Matcher m = MUTATION_WITH_ALLELES.matcher(proteinChange);
             if (m.find()) {
                 String ref = m.group(1);
                 for (String var : m.group(2).split("/")) {
@@ -244,8 +251,7 @@ public final class AlterationUtils {
         if (StringUtils.isEmpty(proteinChange)) {
             return null;
         }
-        Pattern p = Pattern.compile("([A-Z\\*]+)?([0-9]+)([A-Z])?fs(\\*([0-9]+|\\?)?)?", Pattern.CASE_INSENSITIVE);
-        Matcher m = p.matcher(proteinChange);
+        Matcher m = FRAMESHIFT.matcher(proteinChange);
         if (m.matches()) {
             FrameshiftVariant variant = new FrameshiftVariant();
             variant.setRefResidues(m.group(1) == null ? "" : m.group(1).toUpperCase());
@@ -286,244 +292,18 @@ public final class AlterationUtils {
     }
 
     public static void annotateAlteration(Alteration alteration, String proteinChange) {
-        String consequence = "NA";
-        String ref = null;
-        String var = null;
-        Integer start = AlterationPositionBoundary.START.getValue();
-        Integer end = AlterationPositionBoundary.END.getValue();
-
         if (alteration == null) {
             return;
         }
 
-        if (proteinChange == null) {
-            proteinChange = "";
-        }
-
-        if (proteinChange.startsWith("p.")) {
-            proteinChange = proteinChange.substring(2);
-        }
-
-        if (proteinChange.indexOf("[") != -1) {
-            proteinChange = proteinChange.substring(0, proteinChange.indexOf("["));
-        }
-
-        // we need to deal with the exclusion format so the protein change can properly be interpreted.
-        String excludedStr = "";
-        Matcher exclusionMatch = getExclusionCriteriaMatcher(proteinChange);
-        if (exclusionMatch.matches()) {
-            proteinChange = exclusionMatch.group(1);
-            excludedStr = exclusionMatch.group(3).trim();
-        }
-
-        proteinChange = proteinChange.trim();
-
-        Pattern p = Pattern.compile("([A-Z]?)([0-9]+)(_[A-Z]?([0-9]+))?(delins|ins|del)([A-Z0-9\\*]*)", Pattern.CASE_INSENSITIVE);
-        Matcher m = p.matcher(proteinChange);
-            if (m.matches()) {
-                if (m.group(1) != null && m.group(3) == null) {
-                    // we only want to specify reference when it's one position ins/del
-                    ref = m.group(1).toUpperCase();
-                }
-                start = Integer.valueOf(m.group(2));
-                if (m.group(4) != null) {
-                    end = Integer.valueOf(m.group(4));
-                } else {
-                    end = start;
-                }
-                String type = m.group(5);
-                if (type.equals("ins")) {
-                    consequence = IN_FRAME_INSERTION;
-                } else if (type.equals("del")) {
-                    consequence = IN_FRAME_DELETION;
-                } else {
-                    // this will be delins, it requires AA after delins to be specified, otherwise, you won't be able to know its consequence
-                    Integer deletion = end - start + 1;
-                    String groupSix = m.group(6);
-                    String groupSixWithoutDigits = MainUtils.removeDigits(groupSix);
-
-                    if (groupSixWithoutDigits.contains("*")) {
-                        consequence = "stop_gained";
-                    } 
-                    else if (groupSixWithoutDigits.length() != groupSix.length() && groupSixWithoutDigits.length() > 0) {
-                        if (groupSixWithoutDigits.length() > deletion) {
-                            consequence = IN_FRAME_INSERTION;
-                        } else {
-                            consequence = "NA";
-                        }
-                    } else {
-                        Integer insertion = groupSix.length();
-                        if (groupSixWithoutDigits.length() == 0 && insertion > 0) {
-                            insertion = Integer.parseInt(groupSix);
-                        }
-                        if (insertion == 0) {
-                            consequence = "NA";
-                        } else if (insertion - deletion > 0) {
-                            consequence = IN_FRAME_INSERTION;
-                        } else if (insertion - deletion == 0) {
-                            consequence = MISSENSE_VARIANT;
-                        } else {
-                            consequence = IN_FRAME_DELETION;
-                        }
-                    }
-                }
-            } else {
-                p = Pattern.compile("[A-Z]?([0-9]+)(_[A-Z]?([0-9]+))?(_)?splice", Pattern.CASE_INSENSITIVE);
-                m = p.matcher(proteinChange);
-                if (m.matches()) {
-                    start = Integer.valueOf(m.group(1));
-                    if (m.group(3) != null) {
-                        end = Integer.valueOf(m.group(3));
-                    } else {
-                        end = start;
-                    }
-                    consequence = "splice_region_variant";
-                } else {
-                    p = Pattern.compile("[A-Z]?([0-9]+)_[A-Z]?([0-9]+)(.+)", Pattern.CASE_INSENSITIVE);
-                    m = p.matcher(proteinChange);
-                    if (m.matches()) {
-                        start = Integer.valueOf(m.group(1));
-                        end = Integer.valueOf(m.group(2));
-                        String v = m.group(3).toLowerCase();
-                        switch (v) {
-                            case "mis":
-                                consequence = MISSENSE_VARIANT;
-                                break;
-                            case "ins":
-                                consequence = IN_FRAME_INSERTION;
-                                break;
-                            case "del":
-                                consequence = IN_FRAME_DELETION;
-                                break;
-                            case "fs":
-                                consequence = FRAMESHIFT_VARIANT;
-                                break;
-                            case "trunc":
-                                consequence = "feature_truncation";
-                                break;
-                            case "dup":
-                                consequence = IN_FRAME_INSERTION;
-                                break;
-                            case "mut":
-                                consequence = "any";
-                        }
-                    } else {
-                        FrameshiftVariant frameshiftVariant = parseFrameshiftVariant(proteinChange);
-                        if (frameshiftVariant != null) {
-                            ref = frameshiftVariant.getRefResidues();
-                            start = frameshiftVariant.getProteinStart();
-                            end = start;
-                            consequence = FRAMESHIFT_VARIANT;
-                        } else {
-                            p = Pattern.compile("([A-Z]+)?([0-9]+)((ins)|(del)|(dup)|(mut))", Pattern.CASE_INSENSITIVE);
-                            m = p.matcher(proteinChange);
-                            if (m.matches()) {
-                                ref = m.group(1) == null ? null : m.group(1).toUpperCase();
-                                start = Integer.valueOf(m.group(2));
-                                end = start;
-                                String v = m.group(3).toLowerCase();
-                                switch (v) {
-                                    case "ins":
-                                        consequence = IN_FRAME_INSERTION;
-                                        break;
-                                    case "dup":
-                                        consequence = IN_FRAME_INSERTION;
-                                        break;
-                                    case "del":
-                                        consequence = IN_FRAME_DELETION;
-                                        break;
-                                    case "mut":
-                                        consequence = "any";
-                                        break;
-                                }
-                            } else {
-                                p = Pattern.compile("M?1ext(-[0-9]+)?", Pattern.CASE_INSENSITIVE);
-                                m = p.matcher(proteinChange);
-                                if (m.matches()) {
-                                    start = 1;
-                                    end = start;
-                                    consequence = IN_FRAME_INSERTION;
-                                } else {
-                                    /**
-                                     * support extension variant (https://varnomen.hgvs.org/recommendations/protein/variant/extension/)
-                                     * the following examples are supported
-                                     * *959Qext*14
-                                     * *110Gext*17
-                                     * *315TextALGT*
-                                     * *327Aext*?
-                                     */
-                                    p = Pattern.compile("(\\*)?([0-9]+)[A-Z]?ext([A-Z]+)?\\*([0-9]+)?(\\?)?", Pattern.CASE_INSENSITIVE);
-                                    m = p.matcher(proteinChange);
-                                    if (m.matches()) {
-                                        ref = m.group(1) == null ? "" : m.group(1).toUpperCase();
-                                        start = Integer.valueOf(m.group(2));
-                                        end = start;
-                                        consequence = "stop_lost";
-                                    } else {
-                                        p = Pattern.compile("([A-Z\\*])?([0-9]+)=", Pattern.CASE_INSENSITIVE);
-                                        m = p.matcher(proteinChange);
-                                        if (m.matches()) {
-                                            var = ref = m.group(1) == null ? "" : m.group(1).toUpperCase();
-                                            start = Integer.valueOf(m.group(2));
-                                            end = start;
-                                            if (ref != null && ref.equals("*")) {
-                                                consequence = "stop_retained_variant";
-                                            } else {
-                                                consequence = "synonymous_variant";
-                                            }
-                                        } else {
-                                            p = Pattern.compile("^([A-Z\\*]+)?([0-9]+)([A-Z\\*\\?]*)$", Pattern.CASE_INSENSITIVE);
-                                            m = p.matcher(proteinChange);
-                                            if (m.matches()) {
-                                                ref = m.group(1) == null ? "" : m.group(1).toUpperCase();
-                                                start = Integer.valueOf(m.group(2));
-                                                end = start;
-                                                var = m.group(3).toUpperCase();
-
-                                                Integer refL = ref.length();
-                                                Integer varL = var.length();
-
-                                                if (ref.equals("*")) {
-                                                    consequence = "stop_lost";
-                                                } else if (var.equals("*")) {
-                                                    consequence = "stop_gained";
-                                                } else if (ref.equalsIgnoreCase(var)) {
-                                                    consequence = "synonymous_variant";
-                                                } else if (start == 1) {
-                                                    consequence = "start_lost";
-                                                } else if (var.equals("?")) {
-                                                    consequence = "any";
-                                                } else {
-                                                    end = start + refL - 1;
-                                                    if (refL > 1 || varL > 1) {
-                                                        // Handle in-frame insertion/deletion event. Exp: IK744K
-                                                        if (refL > varL) {
-                                                            consequence = IN_FRAME_DELETION;
-                                                        } else if (refL < varL) {
-                                                            consequence = IN_FRAME_INSERTION;
-                                                        } else {
-                                                            consequence = MISSENSE_VARIANT;
-                                                        }
-                                                    } else if (refL == 1 && varL == 1) {
-                                                        consequence = MISSENSE_VARIANT;
-                                                    } else {
-                                                        consequence = "NA";
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-        // truncating
-        if (proteinChange.toLowerCase().matches("truncating mutations?")) {
-            consequence = "feature_truncation";
-        }
+        ProteinChangeParser.ParsedProteinChange parsedProteinChange = ProteinChangeParser.parse(proteinChange);
+        proteinChange = parsedProteinChange.getProteinChange();
+        String excludedStr = parsedProteinChange.getExcludedStr();
+        String consequence = parsedProteinChange.getConsequence();
+        String ref = parsedProteinChange.getRefResidues();
+        String var = parsedProteinChange.getVariantResidues();
+        Integer start = parsedProteinChange.getProteinStart();
+        Integer end = parsedProteinChange.getProteinEnd();
 
         VariantConsequence variantConsequence = VariantConsequenceUtils.findVariantConsequenceByTerm(consequence);
 
@@ -741,6 +521,10 @@ public final class AlterationUtils {
     }
 
     public static TranscriptSummaryAlterationResult getAlterationFromGenomeNexus(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query) throws ApiException {
+        TranscriptSummaryAlterationResult storedResult = getStoredAlterationFromGenomeNexus(type, referenceGenome, query);
+        if (storedResult != null) {
+            return storedResult;
+        }
         List<VariantAnnotation> variantAnnotations = new ArrayList<>();
         if (GNVariantAnnotationType.HGVS_G == type) {
             variantAnnotations = GenomeNexusUtils.getHgvsVariantsAnnotation(Collections.singletonList(query), referenceGenome);
@@ -751,7 +535,68 @@ public final class AlterationUtils {
             return null;
         } else {
             List<TranscriptSummaryAlterationResult> alterationInfos = getAlterationsFromGenomeNexus(variantAnnotations, referenceGenome);
-            return alterationInfos.isEmpty() ? null : alterationInfos.get(0);
+            if (alterationInfos.isEmpty()) {
+                return null;
+            }
+            storeAlterationFromGenomeNexus(type, referenceGenome, query, alterationInfos.get(0));
+            return alterationInfos.get(0);
+        }
+    }
+
+    /**
+     * Annotate the unique queries through the Genome Nexus annotation store first, only the queries not in the
+     * store are sent to Genome Nexus. The result is in the same order as the queries.
+     * The genomic location queries are in the format of GenomeNexusUtils.convertGenomicLocation.
+     */
+    public static List<TranscriptSummaryAlterationResult> getAlterationsFromGenomeNexus(GNVariantAnnotationType type, ReferenceGenome referenceGenome, List<String> queries) throws ApiException {
+        TranscriptSummaryAlterationResult[] result = new TranscriptSummaryAlterationResult[queries.size()];
+        List<String> queriesToGN = new ArrayList<>();
+        List<Integer> queryIndexes = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            result[i] = getStoredAlterationFromGenomeNexus(type, referenceGenome, queries.get(i));
+            if (result[i] == null) {
+                queriesToGN.add(queries.get(i));
+                queryIndexes.add(i);
+            }
+        }
+
+        if (!queriesToGN.isEmpty()) {
+            List<VariantAnnotation> variantAnnotations = new ArrayList<>();
+            if (GNVariantAnnotationType.HGVS_G == type) {
+                variantAnnotations = GenomeNexusUtils.getHgvsVariantsAnnotation(queriesToGN, referenceGenome);
+            } else if (GNVariantAnnotationType.GENOMIC_LOCATION == type) {
+                variantAnnotations = GenomeNexusUtils.getGenomicLocationVariantsAnnotation(queriesToGN.stream().map(GenomeNexusUtils::convertGenomicLocation).collect(Collectors.toList()), referenceGenome);
+            }
+            if (variantAnnotations.size() != queriesToGN.size()) {
+                throw new ApiException("Number of variants that have been annotated by GenomeNexus is not equal to the number of queries");
+            }
+            List<TranscriptSummaryAlterationResult> annotatedAlterations = getAlterationsFromGenomeNexus(variantAnnotations, referenceGenome);
+            for (int i = 0; i < queriesToGN.size(); i++) {
+                storeAlterationFromGenomeNexus(type, referenceGenome, queriesToGN.get(i), annotatedAlterations.get(i));
+                result[queryIndexes.get(i)] = annotatedAlterations.get(i);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private static TranscriptSummaryAlterationResult getStoredAlterationFromGenomeNexus(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query) {
+        GenomeNexusAnnotationStore annotationStore = GenomeNexusUtils.getAnnotationStore();
+        if (annotationStore == null) {
+            return null;
+        }
+        TranscriptSummaryAlterationResult storedResult = annotationStore.get(type, referenceGenome, query);
+        if (storedResult != null) {
+            Alteration alteration = convertTranscriptConsequenceSummaryToAlteration(storedResult);
+            storedResult.setAlteration(alteration == null ? new Alteration() : alteration);
+        }
+        return storedResult;
+    }
+
+    // Only the variants Genome Nexus was able to annotate are stored, the others are likely to be a temporary failure
+    private static void storeAlterationFromGenomeNexus(GNVariantAnnotationType type, ReferenceGenome referenceGenome, String query, TranscriptSummaryAlterationResult result) {
+        GenomeNexusAnnotationStore annotationStore = GenomeNexusUtils.getAnnotationStore();
+        if (annotationStore != null && result != null && result.getTranscriptConsequenceSummary() != null) {
+            annotationStore.put(type, referenceGenome, query, result);
         }
     }
 
@@ -1225,8 +1070,7 @@ public final class AlterationUtils {
     }
 
     private static String getMissenseVariantAllele(Alteration alteration, int position) {
-        Pattern pattern = Pattern.compile(".*delins([\\w]+)");
-        Matcher matcher = pattern.matcher(alteration.getAlteration());
+        Matcher matcher = DELINS_VARIANT_ALLELES.matcher(alteration.getAlteration());
         if (matcher.find()) {
             String variantAlleles = matcher.group(1);
             int index = position - alteration.getProteinStart();
@@ -1481,6 +1325,10 @@ public final class AlterationUtils {
         Set<Alteration> result = new HashSet<>();
 
         if (alterations != null && alterations.size() > 0) {
+            AlterationPositionIndex index = CacheUtils.getAlterationPositionIndex(gene, referenceGenome, alterations);
+            if (index != null) {
+                alterations = index.findByStartRange(consequence, start, end);
+            }
             for (int i = 0; i < alterations.size(); i++) {
                 Alteration alteration = alterations.get(i);
                 if (alteration.getGene().equals(gene) && alteration.getConsequence() != null
@@ -1510,6 +1358,17 @@ public final class AlterationUtils {
         if (alteration == null) {
             return null;
         }
+        AlterationNameIndex index = CacheUtils.getAlterationNameIndex(referenceGenome, fullAlterations);
+        if (index != null) {
+            Alteration match = findAlterationByReferenceGenome(referenceGenome, index.findByAlteration(alteration));
+            if (match == null) {
+                match = findAlterationByReferenceGenome(referenceGenome, index.findByName(alteration));
+            }
+            if (match == null && NamingUtils.hasAbbreviation(alteration)) {
+                return findAlteration(referenceGenome, NamingUtils.getFullName(alteration), fullAlterations);
+            }
+            return match;
+        }
         // Implement the data access logic
         for (int i = 0; i < fullAlterations.size(); i++) {
             Alteration alt = fullAlterations.get(i);
@@ -1538,10 +1397,23 @@ public final class AlterationUtils {
         return null;
     }
 
+    private static Alteration findAlterationByReferenceGenome(ReferenceGenome referenceGenome, List<Alteration> alterations) {
+        for (Alteration alt : alterations) {
+            if (referenceGenome == null || alt.getReferenceGenomes().contains(referenceGenome)) {
+                return alt;
+            }
+        }
+        return null;
+    }
+
     public static Alteration findAlteration(ReferenceGenome referenceGenome, String alteration, String name, List<Alteration> fullAlterations) {
         if (alteration == null) {
             return null;
         }
+        AlterationNameIndex index = CacheUtils.getAlterationNameIndex(referenceGenome, fullAlterations);
+        if (index != null) {
+            fullAlterations = index.findByAlteration(alteration);
+        }
         for (Alteration alt : fullAlterations) {
             if (alt.getAlteration() != null && alt.getAlteration().equalsIgnoreCase(alteration) && alt.getName().equalsIgnoreCase(name)) {
                 if (referenceGenome == null) {
@@ -0,0 +1,145 @@
+package org.mskcc.cbio.oncokb.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms of the stages of the annotation, keyed by the stage and a tag, like the alteration type of
+ * the query.
+ *
+ * The metrics are enabled with the property annotation.metrics.enabled. When they are disabled, startTimer returns
+ * a shared timer which does nothing, so the instrumented code does not read the clock or allocate anything.
+ */
+public class AnnotationMetrics {
+    private static final String ENABLED_PROPERTY = "annotation.metrics.enabled";
+
+    public static final String PROCESS_QUERY = "processQuery";
+    public static final String BATCH = "batch";
+
+    public static final String TOTAL_STAGE = "total";
+    public static final String GENE_STAGE = "gene";
+    public static final String ALTERATION_STAGE = "alteration";
+    public static final String RELEVANT_ALTERATIONS_STAGE = "relevantAlterations";
+    public static final String CANCER_TYPES_STAGE = "cancerTypes";
+    public static final String HOTSPOT_STAGE = "hotspot";
+    public static final String ONCOGENICITY_STAGE = "oncogenicity";
+    public static final String MUTATION_EFFECT_STAGE = "mutationEffect";
+    public static final String RELEVANT_EVIDENCES_STAGE = "relevantEvidences";
+    public static final String IMPLICATIONS_STAGE = "implications";
+    public static final String TREATMENTS_STAGE = "treatments";
+    public static final String SUMMARIES_STAGE = "summaries";
+    public static final String GENOME_NEXUS_STAGE = "genomeNexus";
+    public static final String ANNOTATION_STAGE = "annotation";
+
+    private static volatile boolean enabled = Boolean.parseBoolean(PropertiesUtils.getProperties(ENABLED_PROPERTY));
+    // name.stage -> tag -> histogram
+    private static final Map<String, Map<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    private AnnotationMetrics() {
+        throw new AssertionError();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        AnnotationMetrics.enabled = enabled;
+    }
+
+    /**
+     * @param name the prefix of the stages recorded by the timer
+     */
+    public static StageTimer startTimer(String name) {
+        return enabled ? new StageTimer(name) : StageTimer.DISABLED;
+    }
+
+    public static void record(String stage, String tag, long nanos) {
+        histograms.computeIfAbsent(stage, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(tag == null ? "" : tag, k -> new LatencyHistogram())
+            .record(nanos);
+    }
+
+    /**
+     * @return the latencies of every stage by tag, sorted by the stage then the tag
+     */
+    public static Map<String, Map<String, LatencyHistogram.Snapshot>> getSnapshot() {
+        Map<String, Map<String, LatencyHistogram.Snapshot>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Map<String, LatencyHistogram>> stage : histograms.entrySet()) {
+            Map<String, LatencyHistogram.Snapshot> stageSnapshot = new TreeMap<>();
+            for (Map.Entry<String, LatencyHistogram> tag : stage.getValue().entrySet()) {
+                stageSnapshot.put(tag.getKey(), tag.getValue().getSnapshot());
+            }
+            snapshot.put(stage.getKey(), stageSnapshot);
+        }
+        return snapshot;
+    }
+
+    public static void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Measures the stages of one call. Each mark attributes the time since the previous mark, or since the timer is
+     * started, to the stage. A stage can be marked more than once. The stages are only recorded when the timer is
+     * finished, once the tag is known, so a timer should only be used by one thread.
+     */
+    public static class StageTimer {
+        private static final StageTimer DISABLED = new StageTimer(null) {
+            @Override
+            public void mark(String stage) {
+            }
+
+            @Override
+            public void finish(String tag) {
+            }
+        };
+        private static final int MAX_NUM_OF_STAGES = 16;
+
+        private final String name;
+        private final long start;
+        private long last;
+        private final String[] stages;
+        private final long[] stageNanos;
+        private int numOfStages = 0;
+
+        private StageTimer(String name) {
+            this.name = name;
+            if (name == null) {
+                this.start = 0;
+                this.stages = null;
+                this.stageNanos = null;
+            } else {
+                this.start = System.nanoTime();
+                this.stages = new String[MAX_NUM_OF_STAGES];
+                this.stageNanos = new long[MAX_NUM_OF_STAGES];
+            }
+            this.last = this.start;
+        }
+
+        public void mark(String stage) {
+            long now = System.nanoTime();
+            long nanos = now - last;
+            last = now;
+            for (int i = 0; i < numOfStages; i++) {
+                if (stages[i].equals(stage)) {
+                    stageNanos[i] += nanos;
+                    return;
+                }
+            }
+            if (numOfStages < MAX_NUM_OF_STAGES) {
+                stages[numOfStages] = stage;
+                stageNanos[numOfStages] = nanos;
+                numOfStages++;
+            }
+        }
+
+        public void finish(String tag) {
+            for (int i = 0; i < numOfStages; i++) {
+                record(name + "." + stages[i], tag, stageNanos[i]);
+            }
+            record(name + "." + TOTAL_STAGE, tag, System.nanoTime() - start);
+        }
+    }
+}
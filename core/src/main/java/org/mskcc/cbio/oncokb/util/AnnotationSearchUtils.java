@@ -33,7 +33,7 @@ public class AnnotationSearchUtils {
             result.addAll(convertGene(GeneUtils.searchGene(keywords.get(0), false), keywords.get(0)));
 
             // Blur search variant
-            result.addAll(convertVariant(AlterationUtils.lookupVariant(keywords.get(0), false, false, AlterationUtils.getAllAlterations()), keywords.get(0)));
+            result.addAll(convertVariant(CacheUtils.getTypeaheadIndex().lookupVariant(keywords.get(0)), keywords.get(0)));
 
             // Blur search drug
             result.addAll(findEvidencesWithDrugAssociated(keywords.get(0), false));
@@ -66,7 +66,7 @@ public class AnnotationSearchUtils {
 
             // If there is no match, the key words could referring to a variant, try to do a blur variant search
             String fullKeywords = StringUtils.join(keywords, " ");
-            result.addAll(convertVariant(AlterationUtils.lookupVariant(fullKeywords, false, false, AlterationUtils.getAllAlterations()), fullKeywords));
+            result.addAll(convertVariant(CacheUtils.getTypeaheadIndex().lookupVariant(fullKeywords), fullKeywords));
 
             // Blur search for cancer type
             result.addAll(findMatchingCancerTypes(fullKeywords, false));
@@ -137,7 +137,7 @@ public class AnnotationSearchUtils {
             }
 
             String alterationKeywords = StringUtils.join(keywords.subList(1, keywords.size()), " ");
-            List<Alteration> altMatches = AlterationUtils.lookupVariant(alterationKeywords, false, true, AlterationUtils.getAllAlterations())
+            List<Alteration> altMatches = CacheUtils.getTypeaheadIndex().lookupVariant(alterationKeywords)
                     .stream()
                     .filter(alt -> geneMatches.contains(alt.getGene()))
                     .collect(Collectors.toList());
@@ -153,7 +153,7 @@ public class AnnotationSearchUtils {
                     }
                     AnnotationSearchResult annotationSearchResult = new AnnotationSearchResult();
                     annotationSearchResult.setQueryType(AnnotationSearchQueryType.VARIANT);
-                    annotationSearchResult.setIndicatorQueryResp(IndicatorUtils.processQuery(indicatorQuery, null, null, null, false));
+                    annotationSearchResult.setIndicatorQueryResp(CacheUtils.getTypeaheadIndex().getAnnotation(indicatorQuery, null, false));
                     if (annotationSearchResult.getIndicatorQueryResp().getVariantExist()) {
                         result.add(annotationSearchResult);
                     }
@@ -180,7 +180,7 @@ public class AnnotationSearchUtils {
             query.setHugoSymbol(gene.getHugoSymbol());
             AnnotationSearchResult annotationSearchResult = new AnnotationSearchResult();
             annotationSearchResult.setQueryType(AnnotationSearchQueryType.GENE);
-            annotationSearchResult.setIndicatorQueryResp(IndicatorUtils.processQuery(query, null, null, null, true));
+            annotationSearchResult.setIndicatorQueryResp(CacheUtils.getTypeaheadIndex().getAnnotation(query, null, true));
             result.add(annotationSearchResult);
         }
         return result;
@@ -188,7 +188,7 @@ public class AnnotationSearchUtils {
 
     private static LinkedHashSet<AnnotationSearchResult> findActionableGenesByAlterationSearch(String keyword) {
         LinkedHashSet<AnnotationSearchResult> result = new LinkedHashSet<>();
-        List<Alteration> altMatches = AlterationUtils.lookupVariant(keyword, false, true, AlterationUtils.getAllAlterations());
+        List<Alteration> altMatches = CacheUtils.getTypeaheadIndex().lookupVariant(keyword);
         for (Alteration alteration: altMatches) {
             Query indicatorQuery = new Query();
             if (alteration.getName().toLowerCase().contains(keyword.toLowerCase())) {
@@ -200,38 +200,23 @@ public class AnnotationSearchUtils {
             indicatorQuery.setHugoSymbol(alteration.getGene().getHugoSymbol());
             AnnotationSearchResult annotationSearchResult = new AnnotationSearchResult();
             annotationSearchResult.setQueryType(AnnotationSearchQueryType.VARIANT);
-            annotationSearchResult.setIndicatorQueryResp(IndicatorUtils.processQuery(indicatorQuery, null, null, null, false));
+            annotationSearchResult.setIndicatorQueryResp(CacheUtils.getTypeaheadIndex().getAnnotation(indicatorQuery, null, false));
             result.add(annotationSearchResult);
         }
         return result;
     }
 
     private static LinkedHashSet<AnnotationSearchResult> findActionableGenesByCancerType(String query) {
-
-        Set<Evidence> allImplicationEvidences = EvidenceUtils.getEvidenceByEvidenceTypesAndLevels(EvidenceTypeUtils.getImplicationEvidenceTypes(), LevelUtils.getPublicLevels());
-
         query = query.toLowerCase();
 
         Set<TumorType> tumorTypeMatches = new HashSet<>();
 
-        for (Map.Entry<String, TumorType> currSubtype : CacheUtils.getCodedTumorTypeMap().entrySet()) {
-            String code = query.toUpperCase();
-            if (currSubtype.getKey().equals(code)) {
-                tumorTypeMatches.add(currSubtype.getValue());
-            }
-        }
-
-        for(Map.Entry<String, TumorType> subtype: CacheUtils.getLowercaseSubtypeTumorTypeMap().entrySet()) {
-            if(subtype.getKey().contains(query)) {
-                tumorTypeMatches.add(subtype.getValue());
-            }
+        TumorType codeMatch = CacheUtils.getCodedTumorTypeMap().get(query.toUpperCase());
+        if (codeMatch != null) {
+            tumorTypeMatches.add(codeMatch);
         }
 
-        for(Map.Entry<String, TumorType> mainType: CacheUtils.getMainTypeTumorTypeMap().entrySet()) {
-            if (mainType.getKey().toLowerCase().contains(query)) {
-                tumorTypeMatches.add(mainType.getValue());
-            }
-        }
+        tumorTypeMatches.addAll(CacheUtils.getTypeaheadIndex().searchCancerType(query));
 
         if (tumorTypeMatches.isEmpty()) {
             return new LinkedHashSet<>();
@@ -240,15 +225,13 @@ public class AnnotationSearchUtils {
         LinkedHashSet<AnnotationSearchResult> result = new LinkedHashSet<>();
         Set<SearchObject> searchObjects = new HashSet<>();
         for (TumorType tumorType : tumorTypeMatches) {
-            for (Evidence evidence : allImplicationEvidences) {
-                if (TumorTypeUtils.findEvidenceRelevantCancerTypes(evidence).contains(tumorType)) {
-                    for (Alteration alteration: evidence.getAlterations()) {
-                        SearchObject searchObject = new SearchObject();
-                        searchObject.setGene(evidence.getGene());
-                        searchObject.setAlteration(alteration);
-                        searchObject.setTumorType(tumorType);
-                        searchObjects.add(searchObject);
-                    }
+            for (Evidence evidence : CacheUtils.getTypeaheadIndex().getImplicationEvidences(tumorType)) {
+                for (Alteration alteration: evidence.getAlterations()) {
+                    SearchObject searchObject = new SearchObject();
+                    searchObject.setGene(evidence.getGene());
+                    searchObject.setAlteration(alteration);
+                    searchObject.setTumorType(tumorType);
+                    searchObjects.add(searchObject);
                 }
             }
         }
@@ -265,7 +248,7 @@ public class AnnotationSearchUtils {
             }
             AnnotationSearchResult annotationSearchResult = new AnnotationSearchResult();
             annotationSearchResult.setQueryType(AnnotationSearchQueryType.CANCER_TYPE);
-            annotationSearchResult.setIndicatorQueryResp(IndicatorUtils.processQuery(indicatorQuery, null, null, null, true));
+            annotationSearchResult.setIndicatorQueryResp(CacheUtils.getTypeaheadIndex().getAnnotation(indicatorQuery, null, true));
             result.add(annotationSearchResult);
         }
 
@@ -273,8 +256,6 @@ public class AnnotationSearchUtils {
     }
 
     private static List<TypeaheadSearchResp> findMatchingCancerTypes(String query, Boolean exactMatch) {
-        // got all evidences and level
-        Set<Evidence> evidences = EvidenceUtils.getEvidenceByEvidenceTypesAndLevels(EvidenceTypeUtils.getTreatmentEvidenceTypes(), LevelUtils.getPublicLevels());
         Map<String, CancerTypeMatch> result = new HashMap<>();
 
         query = query.toLowerCase();
@@ -284,24 +265,12 @@ public class AnnotationSearchUtils {
         if (exactMatch) {
             matchedTumorTypes.add(ApplicationContextSingleton.getTumorTypeBo().getByName(query));
         } else {
-            for (Map.Entry<String, TumorType> currSubtype : CacheUtils.getCodedTumorTypeMap().entrySet()) {
-                String code = query.toUpperCase();
-                if (currSubtype.getKey().equals(code)) {
-                    matchedTumorTypes.add(currSubtype.getValue());
-                }
-            }
-
-            for (Map.Entry<String, TumorType> currSubtype : CacheUtils.getLowercaseSubtypeTumorTypeMap().entrySet()) {
-                if (currSubtype.getKey().startsWith(query) || currSubtype.getKey().contains(query)) {
-                    matchedTumorTypes.add(currSubtype.getValue());
-                }
+            TumorType codeMatch = CacheUtils.getCodedTumorTypeMap().get(query.toUpperCase());
+            if (codeMatch != null) {
+                matchedTumorTypes.add(codeMatch);
             }
 
-            for (Map.Entry<String, TumorType> currMainType : CacheUtils.getMainTypeTumorTypeMap().entrySet()) {
-                if (currMainType.getKey().toLowerCase().startsWith(query) || currMainType.getKey().toLowerCase().contains(query)) {
-                    matchedTumorTypes.add(currMainType.getValue());
-                }
-            }
+            matchedTumorTypes.addAll(CacheUtils.getTypeaheadIndex().searchCancerType(query));
         }
 
         // cancer type not found, return an empty list
@@ -313,15 +282,13 @@ public class AnnotationSearchUtils {
         for (TumorType currMatchedCancer : matchedTumorTypes) {
             String matchKey = TumorTypeUtils.getTumorTypeName(currMatchedCancer).toLowerCase();
 
-            for (Evidence evidence : evidences) {
-                // exact match found
-                if (TumorTypeUtils.findEvidenceRelevantCancerTypes(evidence).contains(currMatchedCancer)) {
-                    updateCancerMap(
-                            result, matchKey, evidence.getAlterations(),
-                            currMatchedCancer, evidence.getLevelOfEvidence(),
-                            matchKey.startsWith(query) ? 4.0 : 3.5
-                    );
-                }
+            // exact match found
+            for (Evidence evidence : CacheUtils.getTypeaheadIndex().getTreatmentEvidences(currMatchedCancer)) {
+                updateCancerMap(
+                        result, matchKey, evidence.getAlterations(),
+                        currMatchedCancer, evidence.getLevelOfEvidence(),
+                        matchKey.startsWith(query) ? 4.0 : 3.5
+                );
             }
             updateCancerMap(
                     result, matchKey, null, currMatchedCancer, null,
@@ -500,7 +467,7 @@ public class AnnotationSearchUtils {
     private static TreeSet<TypeaheadSearchResp> convertGene(Set<Gene> genes, String keyword) {
         TreeSet<TypeaheadSearchResp> result = new TreeSet<>(new GeneComp(keyword));
         if (genes != null) {
-            Map<Gene, Set<Evidence>> evidences = EvidenceUtils.getEvidenceByGenes(genes);
+            TypeaheadIndex typeaheadIndex = CacheUtils.getTypeaheadIndex();
             for (Gene gene : genes) {
                 TypeaheadSearchResp typeaheadSearchResp = new TypeaheadSearchResp();
                 typeaheadSearchResp.setGene(gene);
@@ -508,9 +475,9 @@ public class AnnotationSearchUtils {
                 typeaheadSearchResp.setLink("/gene/" + gene.getHugoSymbol());
                 typeaheadSearchResp.setQueryType(TypeaheadQueryType.GENE);
 
-                if (evidences.containsKey(gene)) {
-                    LevelOfEvidence highestSensitiveLevel = LevelUtils.getHighestLevelFromEvidenceByLevels(evidences.get(gene), LevelUtils.getSensitiveLevels());
-                    LevelOfEvidence highestResistanceLevel = LevelUtils.getHighestLevelFromEvidenceByLevels(evidences.get(gene), LevelUtils.getResistanceLevels());
+                if (typeaheadIndex.hasGeneLevels(gene)) {
+                    LevelOfEvidence highestSensitiveLevel = typeaheadIndex.getHighestSensitiveLevel(gene);
+                    LevelOfEvidence highestResistanceLevel = typeaheadIndex.getHighestResistanceLevel(gene);
                     typeaheadSearchResp.setHighestSensitiveLevel(highestSensitiveLevel == null ? "" : highestSensitiveLevel.getLevel());
                     typeaheadSearchResp.setHighestResistanceLevel(highestResistanceLevel == null ? "" : highestResistanceLevel.getLevel());
                 }
@@ -649,35 +616,72 @@ public class AnnotationSearchUtils {
 
         ReferenceGenome referenceGenome = alteration.getReferenceGenomes().stream().findAny().orElse(DEFAULT_REFERENCE_GENOME);
 
+        // The curated variants are ranked by what the index keeps of them, only the returned ones are annotated
+        TypeaheadIndex typeaheadIndex = CacheUtils.getTypeaheadIndex();
+        if (typeaheadIndex.hasAlteration(alteration)) {
+            Oncogenicity oncogenicity = typeaheadIndex.getOncogenicity(alteration);
+            typeaheadSearchResp.setOncogenicity(oncogenicity == null ? null : oncogenicity.getOncogenic());
+            typeaheadSearchResp.setVUS(typeaheadIndex.isVUS(alteration));
+            LevelOfEvidence highestSensitiveLevel = typeaheadIndex.getHighestSensitiveLevel(alteration);
+            if (highestSensitiveLevel != null) {
+                typeaheadSearchResp.setHighestSensitiveLevel(highestSensitiveLevel.getLevel());
+            }
+            LevelOfEvidence highestResistanceLevel = typeaheadIndex.getHighestResistanceLevel(alteration);
+            if (highestResistanceLevel != null) {
+                typeaheadSearchResp.setHighestResistanceLevel(highestResistanceLevel.getLevel());
+            }
+            if (alteration.getAlteration() != null && alteration.getAlteration().equalsIgnoreCase("oncogenic mutations")) {
+                typeaheadSearchResp.setOncogenicity(Oncogenicity.YES.getOncogenic());
+            }
+        } else {
+            setVariantAnnotation(typeaheadSearchResp, alteration);
+        }
+
+        typeaheadSearchResp.setQueryType(TypeaheadQueryType.VARIANT);
+
+        String link = "/gene/" + alteration.getGene().getHugoSymbol() + "/" + alteration.getAlteration();
+        if (referenceGenome != DEFAULT_REFERENCE_GENOME) {
+            link += "?refGenome=" + referenceGenome;
+        }
+        typeaheadSearchResp.setLink(link);
+        return typeaheadSearchResp;
+    }
+
+    /**
+     * Annotates the variants of the search results which are only ranked so far, call it on the results returned
+     *
+     * @return the results in the same order
+     */
+    public static LinkedHashSet<TypeaheadSearchResp> annotateTypeaheadVariants(LinkedHashSet<TypeaheadSearchResp> results) {
+        // The fields are part of the hash code, the results are added to a new set once annotated
+        LinkedHashSet<TypeaheadSearchResp> annotatedResults = new LinkedHashSet<>();
+        for (TypeaheadSearchResp result : results) {
+            if (TypeaheadQueryType.VARIANT.equals(result.getQueryType()) && result.getAnnotation() == null
+                && result.getVariants() != null && result.getVariants().size() == 1) {
+                setVariantAnnotation(result, result.getVariants().iterator().next());
+            }
+            annotatedResults.add(result);
+        }
+        return annotatedResults;
+    }
+
+    private static void setVariantAnnotation(TypeaheadSearchResp typeaheadSearchResp, Alteration alteration) {
         Query query = new Query();
         query.setEntrezGeneId(alteration.getGene().getEntrezGeneId());
         query.setAlteration(alteration.getAlteration());
         query.setReferenceGenome(alteration.getReferenceGenomes().iterator().next());
 
-        IndicatorQueryResp resp = IndicatorUtils.processQuery(query, null, false, null, false);
+        IndicatorQueryResp resp = CacheUtils.getTypeaheadIndex().getAnnotation(query, false, false);
         typeaheadSearchResp.setOncogenicity(resp.getOncogenic());
         typeaheadSearchResp.setVUS(resp.getVUS());
         typeaheadSearchResp.setAnnotation(resp.getVariantSummary() + " Click here to see more annotation details.");
 
-        if (resp.getHighestSensitiveLevel() != null) {
-            typeaheadSearchResp.setHighestSensitiveLevel(resp.getHighestSensitiveLevel().getLevel());
-        }
-        if (resp.getHighestResistanceLevel() != null) {
-            typeaheadSearchResp.setHighestResistanceLevel(resp.getHighestResistanceLevel().getLevel());
-        }
+        typeaheadSearchResp.setHighestSensitiveLevel(resp.getHighestSensitiveLevel() == null ? null : resp.getHighestSensitiveLevel().getLevel());
+        typeaheadSearchResp.setHighestResistanceLevel(resp.getHighestResistanceLevel() == null ? null : resp.getHighestResistanceLevel().getLevel());
 
         if (alteration.getAlteration() != null && alteration.getAlteration().equalsIgnoreCase("oncogenic mutations")) {
             typeaheadSearchResp.setOncogenicity(Oncogenicity.YES.getOncogenic());
         }
-
-        typeaheadSearchResp.setQueryType(TypeaheadQueryType.VARIANT);
-
-        String link = "/gene/" + alteration.getGene().getHugoSymbol() + "/" + alteration.getAlteration();
-        if (referenceGenome != DEFAULT_REFERENCE_GENOME) {
-            link += "?refGenome=" + referenceGenome;
-        }
-        typeaheadSearchResp.setLink(link);
-        return typeaheadSearchResp;
     }
 
     public static TypeaheadSearchResp newTypeaheadAnnotation(String query, GNVariantAnnotationType type, ReferenceGenome referenceGenome, Alteration alteration, IndicatorQueryResp queryResp) {
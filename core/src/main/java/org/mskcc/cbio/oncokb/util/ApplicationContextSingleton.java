@@ -4,6 +4,7 @@
  */
 package org.mskcc.cbio.oncokb.util;
 
+import org.hibernate.SessionFactory;
 import org.mskcc.cbio.oncokb.bo.*;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
@@ -66,4 +67,8 @@ public final class ApplicationContextSingleton {
     public static InfoBo getInfoBo() {
         return InfoBo.class.cast(getApplicationContext().getBean("infoBo"));
     }
+
+    public static SessionFactory getSessionFactory() {
+        return SessionFactory.class.cast(getApplicationContext().getBean("sessionFactory"));
+    }
 }
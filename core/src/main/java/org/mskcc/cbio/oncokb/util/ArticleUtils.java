@@ -8,11 +8,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.mskcc.cbio.oncokb.model.Article;
 
 public class ArticleUtils {
+    private static final Pattern ABSTRACT_PATTERN = Pattern.compile("abstract:?([^\\)]*?)(\\bhttps?:\\/\\/[\\w-.]+(\\S*)?\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PMID_PATTERN = Pattern.compile("PMIDs?:?\\s*([\\d,\\s*]+)", Pattern.CASE_INSENSITIVE);
+
     public static LinkedHashSet<Article> getAbstractFromText(String text) {
         LinkedHashSet<Article> articles = new LinkedHashSet<>();
         if (StringUtils.isEmpty(text)) return articles;
-        Pattern abstractPattern = Pattern.compile("abstract:?([^\\)]*?)(\\bhttps?:\\/\\/[\\w-.]+(\\S*)?\\b)", Pattern.CASE_INSENSITIVE);
-        Matcher abstractMatch = abstractPattern.matcher(text);
+        Matcher abstractMatch = ABSTRACT_PATTERN.matcher(text);
         int start = 0;
         while (abstractMatch.find(start)) {
             String abContent = abstractMatch.group(1).trim();
@@ -39,8 +41,7 @@ public class ArticleUtils {
     public static LinkedHashSet<String> getPmidsFromText(String text) {
         LinkedHashSet<String> pmids = new LinkedHashSet<>();
         if (StringUtils.isEmpty(text)) return pmids;
-        Pattern pmidPattern = Pattern.compile("PMIDs?:?\\s*([\\d,\\s*]+)", Pattern.CASE_INSENSITIVE);
-        Matcher m = pmidPattern.matcher(text);
+        Matcher m = PMID_PATTERN.matcher(text);
         int start = 0;
         while (m.find(start)) {
             String pmidsStr = m.group(1).trim();
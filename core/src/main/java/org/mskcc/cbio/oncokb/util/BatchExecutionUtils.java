@@ -0,0 +1,111 @@
+package org.mskcc.cbio.oncokb.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the batch annotations on a shared, bounded thread pool.
+ *
+ * The pool size is configured with the property annotation.batch.parallelism, it defaults to the number of
+ * available processors. Set it to 1 to annotate the batches on the request thread.
+ * A batch is split into at most (parallelism * CHUNKS_PER_THREAD) contiguous chunks, so a large batch does not
+ * flood the pool queue, and the results are put back in the order of the queries.
+ */
+public class BatchExecutionUtils {
+    private static final String PARALLELISM_PROPERTY = "annotation.batch.parallelism";
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final ThreadLocal<Boolean> isWorkerThread = ThreadLocal.withInitial(() -> false);
+    private static final int parallelism = getParallelism();
+    private static final ThreadPoolExecutor executor = parallelism > 1 ? createExecutor(parallelism) : null;
+
+    private BatchExecutionUtils() {
+        throw new AssertionError();
+    }
+
+    public static int getParallelism() {
+        int defaultParallelism = Runtime.getRuntime().availableProcessors();
+        String property = PropertiesUtils.getProperties(PARALLELISM_PROPERTY);
+        if (property == null || property.trim().isEmpty()) {
+            return defaultParallelism;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(property.trim()));
+        } catch (NumberFormatException e) {
+            System.out.println("The " + PARALLELISM_PROPERTY + " property is not a number, use " + defaultParallelism + " instead.");
+            return defaultParallelism;
+        }
+    }
+
+    /**
+     * Apply the function on every query, the result list is in the same order as the queries.
+     * The function is applied on the calling thread when the batch is too small, the parallelism is 1 or
+     * the call is made from one of the pool threads.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> List<R> map(List<T> queries, Function<T, R> function) {
+        if (executor == null || queries.size() < 2 || isWorkerThread.get()) {
+            List<R> result = new ArrayList<>(queries.size());
+            for (T query : queries) {
+                result.add(function.apply(query));
+            }
+            return result;
+        }
+
+        Object[] result = new Object[queries.size()];
+        int numOfChunks = Math.min(queries.size(), parallelism * CHUNKS_PER_THREAD);
+        int chunkSize = (queries.size() + numOfChunks - 1) / numOfChunks;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < queries.size(); start += chunkSize) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min(start + chunkSize, queries.size());
+            futures.add(executor.submit(() -> {
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    result[i] = function.apply(queries.get(i));
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The batch annotation is interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        List<R> list = new ArrayList<>(result.length);
+        for (Object item : result) {
+            list.add((R) item);
+        }
+        return list;
+    }
+
+    private static ThreadPoolExecutor createExecutor(int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(() -> {
+                isWorkerThread.set(true);
+                runnable.run();
+            }, "batch-annotation-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        System.out.println("Batch annotation parallelism: " + parallelism + " at " + MainUtils.getCurrentTime());
+        return new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+}
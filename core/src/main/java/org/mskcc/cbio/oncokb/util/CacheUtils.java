@@ -2,11 +2,14 @@ package org.mskcc.cbio.oncokb.util;
 
 import com.mysql.jdbc.StringUtils;
 import org.apache.commons.collections.map.HashedMap;
+import org.mskcc.cbio.oncokb.apiModels.StartupReport;
 import org.mskcc.cbio.oncokb.apiModels.download.DownloadAvailability;
 import org.mskcc.cbio.oncokb.model.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 
@@ -26,8 +29,8 @@ import java.util.stream.Collectors;
 
 
 public class CacheUtils {
-    private static Map<Integer, Gene> genesByEntrezId = new HashMap<>();
-    private static Map<String, Integer> hugoSymbolToEntrez = new HashMap<>();
+    private static volatile Map<Integer, Gene> genesByEntrezId = new HashMap<>();
+    private static volatile Map<String, Integer> hugoSymbolToEntrez = new HashMap<>();
 
     private static List<CancerGene> cancerGeneList = null;
     private static Map<String, Object> numbers = new HashMap<>();
@@ -36,13 +39,12 @@ public class CacheUtils {
 
 
     // Cache data from database
-    private static Set<Gene> genes = new HashSet<>();
+    private static volatile Set<Gene> genes = new HashSet<>();
     private static Set<Drug> drugs = new HashSet<>();
-    private static Map<Integer, List<Evidence>> evidences = new HashMap<>(); //Gene based evidences
-    private static Map<Integer, Map<Integer, Set<TumorType>>> evidenceRelevantCancerTypes = new HashedMap();
-    private static Map<Integer, List<Alteration>> alterations = new HashMap<>(); //Gene based alterations
-    private static Map<Integer, Map<ReferenceGenome, List<Alteration>>> alterationsByReferenceGenome = new HashMap<>(); //Gene based alterations
-    private static Map<Integer, Set<Alteration>> VUS = new HashMap<>(); //Gene based VUSs
+    // Gene based alterations, evidences and VUSs. The snapshot is immutable, updates are built off to the side
+    // and published by swapping the reference while holding the CacheUtils lock.
+    // Readers should read the reference once per lookup.
+    private static volatile GeneCacheSnapshot geneCacheSnapshot = GeneCacheSnapshot.EMPTY;
 
     private static List<TumorType> cancerTypes = new ArrayList<>();
     private static Map<String, TumorType> cancerTypesByCode = new HashMap<>();
@@ -51,6 +53,7 @@ public class CacheUtils {
     private static List<TumorType> subtypes = new ArrayList<>();
     private static List<TumorType> mainTypes = new ArrayList<>();
     private static List<TumorType> specialCancerTypes = new ArrayList<>();
+    private static TumorTypeHierarchy tumorTypeHierarchy = new TumorTypeHierarchy();
 
     // Other services which will be defined in the property cache.update separated by comma
     // Every time the observer is triggered, all other services will be triggered as well
@@ -58,25 +61,31 @@ public class CacheUtils {
 
     private static Map<String, Long> recordTime = new HashedMap();
 
-    private static Info oncokbInfo;
+    // Refreshed on reset, the local cache tier and the cache codec compare its data version
+    private static volatile Info oncokbInfo;
 
-    private static Observer numbersObserver = new Observer() {
+    private static StartupReport startupReport;
+
+    // Built from everything else in the cache, dropped on any change and built again on the next search
+    private static volatile TypeaheadIndex typeaheadIndex;
+    private static int typeaheadIndexVersion = 0;
+
+    private static final String SNAPSHOT_PATH_PROPERTY = "cache.snapshot.path";
+
+    private static Observer typeaheadIndexObserver = new Observer() {
         @Override
         public void update(Observable o, Object arg) {
-            numbers.clear();
+            synchronized (CacheUtils.class) {
+                typeaheadIndex = null;
+                typeaheadIndexVersion++;
+            }
         }
     };
 
-    private static Observer VUSObserver = new Observer() {
+    private static Observer numbersObserver = new Observer() {
         @Override
         public void update(Observable o, Object arg) {
-            Map<String, String> operation = (Map<String, String>) arg;
-            if (operation.get("cmd") == "update") {
-                Integer entrezGeneId = Integer.parseInt(operation.get("val"));
-                VUS.remove(entrezGeneId);
-            } else if (operation.get("cmd") == "reset") {
-                VUS.clear();
-            }
+            numbers.clear();
         }
     };
 
@@ -86,11 +95,9 @@ public class CacheUtils {
             Map<String, String> operation = (Map<String, String>) arg;
             if (operation.get("cmd") == "update") {
                 Integer entrezGeneId = Integer.parseInt(operation.get("val"));
-                alterations.remove(entrezGeneId);
-                alterationsByReferenceGenome.remove(entrezGeneId);
+                updateGeneAlterations(entrezGeneId);
             } else if (operation.get("cmd") == "reset") {
-                alterations.clear();
-                alterationsByReferenceGenome.clear();
+                setAllAlterations();
             }
         }
     };
@@ -116,15 +123,13 @@ public class CacheUtils {
             Map<String, String> operation = (Map<String, String>) arg;
             if (operation.get("cmd") == "update") {
                 Integer entrezGeneId = Integer.parseInt(operation.get("val"));
-                evidences.remove(entrezGeneId);
-                evidenceRelevantCancerTypes.remove(entrezGeneId);
                 Gene gene = ApplicationContextSingleton.getGeneBo().findGeneByEntrezGeneId(entrezGeneId);
                 if (gene != null) {
                     setEvidences(gene);
+                } else {
+                    publishGeneEvidences(entrezGeneId, null);
                 }
             } else if (operation.get("cmd") == "reset") {
-                evidences.clear();
-                evidenceRelevantCancerTypes.clear();
                 cacheAllEvidencesByGenes();
             }
         }
@@ -156,73 +161,187 @@ public class CacheUtils {
     }
 
     static {
+        StartupPhases phases = new StartupPhases();
+        boolean fromSnapshot = false;
         try {
-            Long current = MainUtils.getCurrentTimestamp();
-            GeneObservable.getInstance().addObserver(alterationsObserver);
-            GeneObservable.getInstance().addObserver(genesObserver);
-            GeneObservable.getInstance().addObserver(evidencesObserver);
-            GeneObservable.getInstance().addObserver(VUSObserver);
-            GeneObservable.getInstance().addObserver(numbersObserver);
-            GeneObservable.getInstance().addObserver(drugsObserver);
+            phases.run("Register observers", () -> {
+                // The observers are notified in the reverse order they are added, the index is dropped after the
+                // genes, alterations and evidences are updated
+                GeneObservable.getInstance().addObserver(typeaheadIndexObserver);
+                GeneObservable.getInstance().addObserver(alterationsObserver);
+                GeneObservable.getInstance().addObserver(genesObserver);
+                GeneObservable.getInstance().addObserver(evidencesObserver);
+                GeneObservable.getInstance().addObserver(numbersObserver);
+                GeneObservable.getInstance().addObserver(drugsObserver);
+            }, null);
+
+            // Neither of them is needed by the other phases
+            Future<Set<String>> abbreviations = KnowledgeBaseLoader.loadAbbreviations(phases);
+            Future<List<DownloadAvailability>> availabilities = KnowledgeBaseLoader.loadDownloadAvailability(phases);
+
+            phases.run("Cache oncokb info", () -> oncokbInfo = ApplicationContextSingleton.getInfoBo().get(), null);
+
+            KnowledgeBaseSnapshot snapshot = readSnapshot(oncokbInfo);
+            if (snapshot != null) {
+                fromSnapshot = true;
+                phases.run("Cache snapshot", () -> cacheSnapshot(snapshot), snapshot.getEvidences().size());
+            } else {
+                // All reads start at once, each part of the cache is built as soon as what it depends on is read:
+                // the evidences are mapped to the cached genes and resolve their relevant cancer types from the
+                // cached tumor types.
+                Future<Set<Gene>> allGenes = KnowledgeBaseLoader.loadGenes(phases);
+                Future<List<TumorType>> allCancerTypes = KnowledgeBaseLoader.loadCancerTypes(phases);
+                Future<List<Alteration>> allAlterations = KnowledgeBaseLoader.loadAlterations(phases);
+                Future<Set<Drug>> allDrugs = KnowledgeBaseLoader.loadDrugs(phases);
+                Future<List<Evidence>> allEvidences = KnowledgeBaseLoader.loadEvidences(phases);
+
+                Set<Gene> loadedGenes = phases.get(allGenes);
+                phases.run("Cache genes", () -> cacheAllGenes(loadedGenes), loadedGenes.size());
+
+                List<TumorType> loadedCancerTypes = phases.get(allCancerTypes);
+                phases.run("Cache tumor types", () -> cacheAllCancerTypes(loadedCancerTypes), loadedCancerTypes.size());
+
+                List<Alteration> loadedAlterations = phases.get(allAlterations);
+                phases.run("Cache alterations", () -> setAllAlterations(loadedAlterations), loadedAlterations.size());
+
+                drugs = phases.get(allDrugs);
+
+                List<Evidence> loadedEvidences = phases.get(allEvidences);
+                phases.run("Cache evidences", () -> cacheAllEvidencesByGenes(loadedEvidences, Collections.emptyMap()), loadedEvidences.size());
+
+                phases.run("Write snapshot", () -> writeSnapshot(oncokbInfo), null);
+            }
 
-            System.out.println("Observer: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+            phases.get(abbreviations);
 
-            cacheAllGenes();
+            phases.run("Cache typeahead index", () -> getTypeaheadIndex(), null);
 
-            setAllAlterations();
+            List<DownloadAvailability> loadedAvailabilities = phases.get(availabilities);
+            if (loadedAvailabilities != null) {
+                downloadAvailabilities = loadedAvailabilities;
+            }
 
-            current = MainUtils.getCurrentTimestamp();
-            drugs = new HashSet<>(ApplicationContextSingleton.getDrugBo().findAll());
-            System.out.println("Cached all drugs: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-            current = MainUtils.getCurrentTimestamp();
+            phases.run("Register other services", () -> registerOtherServices(), null);
+        } catch (Exception e) {
+            System.out.println(e + " at " + MainUtils.getCurrentTime());
+        } finally {
+            StartupReport report = phases.finish();
+            report.setDataVersion(oncokbInfo == null ? null : oncokbInfo.getDataVersion());
+            report.setFromSnapshot(fromSnapshot);
+            startupReport = report;
+            System.out.println("Cache bootstrap: " + report.getDuration() + "ms at " + MainUtils.getCurrentTime());
+            for (StartupReport.Phase phase : report.getPhases()) {
+                System.out.println("\t" + phase);
+            }
+        }
+    }
 
-            cancerTypes = ApplicationContextSingleton.getTumorTypeBo().findAll();
-            cancerTypes.stream().forEach(ct -> {
-                if (!StringUtils.isNullOrEmpty(ct.getCode())) {
-                    cancerTypesByCode.put(ct.getCode(), ct);
-                }
-                if (StringUtils.isNullOrEmpty(ct.getCode()) && !StringUtils.isNullOrEmpty(ct.getMainType())) {
-                    cancerTypesByMainType.put(ct.getMainType().toLowerCase(), ct);
-                }
-                if (!StringUtils.isNullOrEmpty(ct.getSubtype())) {
-                    cancerTypesByLowercaseSubtype.put(ct.getSubtype().toLowerCase(), ct);
-                }
-            });
-            subtypes = cancerTypes.stream().filter(tumorType -> org.apache.commons.lang3.StringUtils.isNotEmpty(tumorType.getCode()) && tumorType.getLevel() > 0).collect(Collectors.toList());
-            mainTypes = cancerTypes.stream().filter(tumorType -> org.apache.commons.lang3.StringUtils.isEmpty(tumorType.getCode()) || tumorType.getLevel() > 0).collect(Collectors.toList());
-            System.out.println("Cached all tumor types: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-            current = MainUtils.getCurrentTimestamp();
-
-            specialCancerTypes = Arrays.stream(SpecialTumorType.values()).map(specialTumorType -> cancerTypes.stream().filter(cancerType -> !StringUtils.isNullOrEmpty(cancerType.getMainType()) && cancerType.getMainType().equals(specialTumorType.getTumorType())).findAny().orElse(null)).filter(cancerType -> cancerType != null).collect(Collectors.toList());
-            System.out.println("Cached all special tumor types: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-
-            current = MainUtils.getCurrentTimestamp();
-            synEvidences();
-            System.out.println("Cached all evidences: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-            current = MainUtils.getCurrentTimestamp();
-
-            for (Map.Entry<Integer, List<Evidence>> entry : evidences.entrySet()) {
-                setVUS(entry.getKey(), new HashSet<>(entry.getValue()));
+    private static void cacheAllCancerTypes(List<TumorType> allCancerTypes) {
+        Long current = MainUtils.getCurrentTimestamp();
+        Map<String, TumorType> allCancerTypesByCode = new HashMap<>();
+        Map<String, TumorType> allCancerTypesByMainType = new HashMap<>();
+        Map<String, TumorType> allCancerTypesByLowercaseSubtype = new HashMap<>();
+        allCancerTypes.stream().forEach(ct -> {
+            if (!StringUtils.isNullOrEmpty(ct.getCode())) {
+                allCancerTypesByCode.put(ct.getCode(), ct);
+            }
+            if (StringUtils.isNullOrEmpty(ct.getCode()) && !StringUtils.isNullOrEmpty(ct.getMainType())) {
+                allCancerTypesByMainType.put(ct.getMainType().toLowerCase(), ct);
             }
-            System.out.println("Cached all VUSs: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-            current = MainUtils.getCurrentTimestamp();
+            if (!StringUtils.isNullOrEmpty(ct.getSubtype())) {
+                allCancerTypesByLowercaseSubtype.put(ct.getSubtype().toLowerCase(), ct);
+            }
+        });
+        cancerTypes = allCancerTypes;
+        cancerTypesByCode = allCancerTypesByCode;
+        cancerTypesByMainType = allCancerTypesByMainType;
+        cancerTypesByLowercaseSubtype = allCancerTypesByLowercaseSubtype;
+        subtypes = cancerTypes.stream().filter(tumorType -> org.apache.commons.lang3.StringUtils.isNotEmpty(tumorType.getCode()) && tumorType.getLevel() > 0).collect(Collectors.toList());
+        mainTypes = cancerTypes.stream().filter(tumorType -> org.apache.commons.lang3.StringUtils.isEmpty(tumorType.getCode()) || tumorType.getLevel() > 0).collect(Collectors.toList());
+        System.out.println("Cached all tumor types: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+        current = MainUtils.getCurrentTimestamp();
+
+        specialCancerTypes = Arrays.stream(SpecialTumorType.values()).map(specialTumorType -> cancerTypes.stream().filter(cancerType -> !StringUtils.isNullOrEmpty(cancerType.getMainType()) && cancerType.getMainType().equals(specialTumorType.getTumorType())).findAny().orElse(null)).filter(cancerType -> cancerType != null).collect(Collectors.toList());
+        System.out.println("Cached all special tumor types: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+        current = MainUtils.getCurrentTimestamp();
+
+        TumorTypeHierarchy hierarchy = new TumorTypeHierarchy(cancerTypes);
+        hierarchy.cacheSpecialTumorTypes();
+        tumorTypeHierarchy = hierarchy;
+        System.out.println("Cached tumor type hierarchy: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+    }
+
+    private static File getSnapshotFile() {
+        String path = PropertiesUtils.getProperties(SNAPSHOT_PATH_PROPERTY);
+        return StringUtils.isNullOrEmpty(path) ? null : new File(path.trim());
+    }
+
+    private static KnowledgeBaseSnapshot readSnapshot(Info info) {
+        File file = getSnapshotFile();
+        if (file == null || info == null) {
+            return null;
+        }
+        Long current = MainUtils.getCurrentTimestamp();
+        try {
+            KnowledgeBaseSnapshot snapshot = KnowledgeBaseSnapshot.read(file, info.getDataVersion());
+            if (snapshot != null) {
+                System.out.println("Read the snapshot of data version " + snapshot.getDataVersion() + ": " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+            }
+            return snapshot;
+        } catch (IOException e) {
+            System.out.println("The snapshot " + file.getAbsolutePath() + " cannot be read, load from the database instead. " + e.getMessage());
+            return null;
+        }
+    }
 
-            NamingUtils.cacheAllAbbreviations();
-            System.out.println("Cached abbreviation ontology: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-            current = MainUtils.getCurrentTimestamp();
+    private static void cacheSnapshot(KnowledgeBaseSnapshot snapshot) {
+        cacheAllGenes(snapshot.getGenes());
 
-            cacheDownloadAvailability();
-            System.out.println("Cached downloadable files availability on github: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+        setAllAlterations(snapshot.getAlterations());
 
-            oncokbInfo = ApplicationContextSingleton.getInfoBo().get();
-            System.out.println("Cached oncokb info " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+        drugs = snapshot.getDrugs();
 
-            registerOtherServices();
-            System.out.println("Register other services: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
-            current = MainUtils.getCurrentTimestamp();
+        cacheAllCancerTypes(snapshot.getCancerTypes());
 
-        } catch (Exception e) {
-            System.out.println(e + " at " + MainUtils.getCurrentTime());
+        Long current = MainUtils.getCurrentTimestamp();
+        cacheAllEvidencesByGenes(snapshot.getEvidences(), snapshot.getRelevantCancerTypes());
+        System.out.println("Cached all evidences: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+    }
+
+    /**
+     * Write what is in the cache as the snapshot of the data version, so the next startup does not need to go
+     * through the database. Nothing is written when the snapshot path is not configured.
+     */
+    private static void writeSnapshot(Info info) {
+        File file = getSnapshotFile();
+        if (file == null || info == null || info.getDataVersion() == null) {
+            return;
+        }
+        Long current = MainUtils.getCurrentTimestamp();
+        GeneCacheSnapshot cacheSnapshot = geneCacheSnapshot;
+        List<Alteration> allAlterations = new ArrayList<>();
+        for (GeneCacheSnapshot.GeneAlterations geneAlterations : cacheSnapshot.getAllAlterations()) {
+            allAlterations.addAll(geneAlterations.getAlterations());
+        }
+        List<Evidence> allEvidences = new ArrayList<>();
+        Map<Integer, Set<TumorType>> relevantCancerTypes = new HashMap<>();
+        for (GeneCacheSnapshot.GeneEvidences geneEvidences : cacheSnapshot.getAllEvidences()) {
+            allEvidences.addAll(geneEvidences.getEvidences());
+            relevantCancerTypes.putAll(geneEvidences.getAllRelevantCancerTypes());
+        }
+        try {
+            KnowledgeBaseSnapshot.write(file, new KnowledgeBaseSnapshot(info.getDataVersion(), genes, allAlterations, drugs, cancerTypes, allEvidences, relevantCancerTypes));
+            System.out.println("Wrote the snapshot of data version " + info.getDataVersion() + ": " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
+        } catch (IOException e) {
+            System.out.println("The snapshot " + file.getAbsolutePath() + " cannot be written. " + e.getMessage());
+        }
+    }
+
+    // A gene update is not part of any data version, the snapshot no longer matches the cache
+    private static void deleteSnapshot() {
+        File file = getSnapshotFile();
+        if (file != null && file.exists() && !file.delete()) {
+            System.out.println("The snapshot " + file.getAbsolutePath() + " cannot be deleted.");
         }
     }
 
@@ -234,11 +353,7 @@ public class CacheUtils {
     }
 
     public static Gene getGeneByEntrezId(Integer entrezId) {
-        if (genesByEntrezId.containsKey(entrezId)) {
-            return genesByEntrezId.get(entrezId);
-        } else {
-            return null;
-        }
+        return genesByEntrezId.get(entrezId);
     }
 
     public static Info getInfo() {
@@ -251,20 +366,34 @@ public class CacheUtils {
 
     public static void setGeneByEntrezId(Gene gene) {
         if (gene != null) {
-            genesByEntrezId.put(gene.getEntrezGeneId(), gene);
-            hugoSymbolToEntrez.put(gene.getHugoSymbol(), gene.getEntrezGeneId());
+            synchronized (CacheUtils.class) {
+                Map<Integer, Gene> updatedGenesByEntrezId = new HashMap<>(genesByEntrezId);
+                Map<String, Integer> updatedHugoSymbolToEntrez = new HashMap<>(hugoSymbolToEntrez);
+                updatedGenesByEntrezId.put(gene.getEntrezGeneId(), gene);
+                updatedHugoSymbolToEntrez.put(gene.getHugoSymbol(), gene.getEntrezGeneId());
+                genesByEntrezId = updatedGenesByEntrezId;
+                hugoSymbolToEntrez = updatedHugoSymbolToEntrez;
+            }
         }
     }
 
     private static void cacheAllGenes() {
+        cacheAllGenes(new HashSet<>(ApplicationContextSingleton.getGeneBo().findAll()));
+    }
+
+    private static void cacheAllGenes(Set<Gene> allGenes) {
         Long current = MainUtils.getCurrentTimestamp();
 
-        genes = new HashSet<>(ApplicationContextSingleton.getGeneBo().findAll());
-        genesByEntrezId = new HashedMap();
-        hugoSymbolToEntrez = new HashedMap();
-        for (Gene gene : genes) {
-            genesByEntrezId.put(gene.getEntrezGeneId(), gene);
-            hugoSymbolToEntrez.put(gene.getHugoSymbol(), gene.getEntrezGeneId());
+        Map<Integer, Gene> allGenesByEntrezId = new HashMap<>();
+        Map<String, Integer> allHugoSymbolToEntrez = new HashMap<>();
+        for (Gene gene : allGenes) {
+            allGenesByEntrezId.put(gene.getEntrezGeneId(), gene);
+            allHugoSymbolToEntrez.put(gene.getHugoSymbol(), gene.getEntrezGeneId());
+        }
+        synchronized (CacheUtils.class) {
+            genes = allGenes;
+            genesByEntrezId = allGenesByEntrezId;
+            hugoSymbolToEntrez = allHugoSymbolToEntrez;
         }
         cancerGeneList = null;
         System.out.println("Cached all genes: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
@@ -282,6 +411,7 @@ public class CacheUtils {
     }
 
     public static Gene getGeneByHugoSymbol(String hugoSymbol) {
+        Map<Integer, Gene> genesByEntrezId = CacheUtils.genesByEntrezId;
         Integer entrezGeneId = hugoSymbolToEntrez.get(hugoSymbol);
         if (entrezGeneId == null)
             return null;
@@ -290,6 +420,7 @@ public class CacheUtils {
     }
 
     public static Boolean containGeneByHugoSymbol(String hugoSymbol) {
+        Map<Integer, Gene> genesByEntrezId = CacheUtils.genesByEntrezId;
         Integer entrezGeneId = hugoSymbolToEntrez.get(hugoSymbol);
         if (entrezGeneId == null)
             return false;
@@ -301,24 +432,13 @@ public class CacheUtils {
         }
     }
 
-    private static void setVUS(Integer entrezGeneId, Set<Evidence> evidences) {
-        VUS.put(entrezGeneId, AlterationUtils.findVUSFromEvidences(evidences));
-    }
-
     public static Set<Alteration> getVUS(Integer entrezGeneId) {
         if (entrezGeneId == null) {
             return new HashSet<>();
         }
-        if (VUS.containsKey(entrezGeneId)) {
-            return VUS.get(entrezGeneId) == null ? new HashSet<Alteration>() : Collections.unmodifiableSet(VUS.get(entrezGeneId));
-        } else {
-            Gene gene = GeneUtils.getGeneByEntrezId(entrezGeneId);
-            if (gene != null) {
-                synEvidences();
-                setVUS(entrezGeneId, new HashSet<>(getEvidences(gene)));
-            }
-            return VUS.get(entrezGeneId) == null ? new HashSet<Alteration>() : Collections.unmodifiableSet(VUS.get(entrezGeneId));
-        }
+        synEvidences();
+        GeneCacheSnapshot.GeneEvidences geneEvidences = geneCacheSnapshot.getEvidences(entrezGeneId);
+        return geneEvidences == null ? new HashSet<>() : geneEvidences.getVUS();
     }
 
     public static void setNumbers(String type, Object number) {
@@ -331,12 +451,49 @@ public class CacheUtils {
 
     public static List<Alteration> getAlterations(Integer entrezGeneId, ReferenceGenome referenceGenome) {
         synAlterations();
-        List<Alteration> result = referenceGenome == null ? alterations.get(entrezGeneId) : (alterationsByReferenceGenome.get(entrezGeneId) == null ? null : alterationsByReferenceGenome.get(entrezGeneId).get(referenceGenome));
-        if (result == null) {
+        GeneCacheSnapshot.GeneAlterations geneAlterations = geneCacheSnapshot.getAlterations(entrezGeneId);
+        if (geneAlterations == null) {
             return new ArrayList<>();
-        }else {
-            return Collections.unmodifiableList(result);
         }
+        if (referenceGenome == null) {
+            return geneAlterations.getAlterations();
+        }
+        // Hand out the list the position index is built on, so the positional lookups can use the index
+        AlterationPositionIndex index = geneAlterations.getPositionIndex(referenceGenome);
+        return index == null ? new ArrayList<>() : index.getAlterations();
+    }
+
+    private static AlterationPositionIndex getAlterationPositionIndex(Integer entrezGeneId, ReferenceGenome referenceGenome) {
+        if (entrezGeneId == null || referenceGenome == null) {
+            return null;
+        }
+        GeneCacheSnapshot.GeneAlterations geneAlterations = geneCacheSnapshot.getAlterations(entrezGeneId);
+        return geneAlterations == null ? null : geneAlterations.getPositionIndex(referenceGenome);
+    }
+
+    /**
+     * Get the protein position index of the gene alterations on the reference genome.
+     * Only returns the index when the alterations are the ones the index is built on, otherwise null.
+     */
+    public static AlterationPositionIndex getAlterationPositionIndex(Gene gene, ReferenceGenome referenceGenome, List<Alteration> alterations) {
+        if (gene == null || alterations == null) {
+            return null;
+        }
+        AlterationPositionIndex index = getAlterationPositionIndex(gene.getEntrezGeneId(), referenceGenome);
+        return index != null && index.isBuiltOn(alterations) ? index : null;
+    }
+
+    /**
+     * Get the lowercase alteration/name index of the alterations on the reference genome.
+     * Only returns the index when the alterations are the ones the index is built on, otherwise null.
+     */
+    public static AlterationNameIndex getAlterationNameIndex(ReferenceGenome referenceGenome, List<Alteration> alterations) {
+        if (referenceGenome == null || alterations == null || alterations.isEmpty() || alterations.get(0).getGene() == null) {
+            return null;
+        }
+        GeneCacheSnapshot.GeneAlterations geneAlterations = geneCacheSnapshot.getAlterations(alterations.get(0).getGene().getEntrezGeneId());
+        AlterationNameIndex index = geneAlterations == null ? null : geneAlterations.getNameIndex(referenceGenome);
+        return index != null && index.isBuiltOn(alterations) ? index : null;
     }
 
     public static Set<Alteration> findRelevantOverlapAlterations(Gene gene, ReferenceGenome referenceGenome, VariantConsequence consequence, int start, int end, String proteinChange) {
@@ -345,7 +502,9 @@ public class CacheUtils {
 
     public static Set<Alteration> findMutationsByConsequenceAndPositionOnSamePosition(Gene gene, ReferenceGenome referenceGenome, VariantConsequence consequence, int start, int end, String referenceResidue) {
         Set<Alteration> alterations = new HashSet<>();
-        for (Alteration alteration : getAlterations(gene.getEntrezGeneId(), referenceGenome)) {
+        List<Alteration> geneAlterations = getAlterations(gene.getEntrezGeneId(), referenceGenome);
+        AlterationPositionIndex index = getAlterationPositionIndex(gene, referenceGenome, geneAlterations);
+        for (Alteration alteration : index == null ? geneAlterations : index.findByStartRange(consequence, start, end)) {
             if (AlterationUtils.consequenceRelated(alteration.getConsequence(), consequence)
                 && (referenceGenome == null || alteration.getReferenceGenomes().contains(referenceGenome))
                 && alteration.getProteinStart().equals(alteration.getProteinEnd())
@@ -361,27 +520,30 @@ public class CacheUtils {
 
     public static Boolean containAlterations(Integer entrezGeneId) {
         synAlterations();
-        return alterations.containsKey(entrezGeneId) ? true : false;
+        return geneCacheSnapshot.containsAlterations(entrezGeneId);
     }
 
     public static void setAlterations(Gene gene) {
         if (gene != null && genes.contains(gene)) {
-            List<Alteration> geneAlterations = ApplicationContextSingleton.getAlterationBo().findAlterationsByGene(Collections.singleton(gene));
-            if (!alterationsByReferenceGenome.containsKey(gene.getEntrezGeneId())) {
-                alterationsByReferenceGenome.put(gene.getEntrezGeneId(), new HashMap<>());
-            }
-            alterations.put(gene.getEntrezGeneId(), geneAlterations);
-            for (Alteration alteration : geneAlterations) {
-                for (ReferenceGenome refGenome : alteration.getReferenceGenomes()) {
-                    if (!alterationsByReferenceGenome.get(gene.getEntrezGeneId()).containsKey(refGenome)) {
-                        alterationsByReferenceGenome.get(gene.getEntrezGeneId()).put(refGenome, new ArrayList<>());
-                    }
-                    alterationsByReferenceGenome.get(gene.getEntrezGeneId()).get(refGenome).add(alteration);
-                }
+            GeneCacheSnapshot.GeneAlterations geneAlterations = findGeneAlterations(gene);
+            synchronized (CacheUtils.class) {
+                geneCacheSnapshot = geneCacheSnapshot.withAlterations(gene.getEntrezGeneId(), geneAlterations);
             }
         }
     }
 
+    private static GeneCacheSnapshot.GeneAlterations findGeneAlterations(Gene gene) {
+        return new GeneCacheSnapshot.GeneAlterations(ApplicationContextSingleton.getAlterationBo().findAlterationsByGene(Collections.singleton(gene)));
+    }
+
+    private static void updateGeneAlterations(Integer entrezGeneId) {
+        Gene gene = ApplicationContextSingleton.getGeneBo().findGeneByEntrezGeneId(entrezGeneId);
+        GeneCacheSnapshot.GeneAlterations geneAlterations = gene == null ? null : findGeneAlterations(gene);
+        synchronized (CacheUtils.class) {
+            geneCacheSnapshot = geneCacheSnapshot.withAlterations(entrezGeneId, geneAlterations);
+        }
+    }
+
     public static Set<Gene> getAllGenes() {
         if (genes.size() == 0) {
             genes = new HashSet<>(ApplicationContextSingleton.getGeneBo().findAll());
@@ -390,25 +552,22 @@ public class CacheUtils {
     }
 
     private static void setAllAlterations() {
+        setAllAlterations(ApplicationContextSingleton.getAlterationBo().findAll());
+    }
+
+    private static void setAllAlterations(List<Alteration> allAlterations) {
         Long current = MainUtils.getCurrentTimestamp();
-        List<Alteration> allAlterations = ApplicationContextSingleton.getAlterationBo().findAll();
 
+        Map<Integer, List<Alteration>> alterationsByGene = new HashMap<>();
         for (Alteration alteration : allAlterations) {
-            Gene gene = alteration.getGene();
-            if (!alterations.containsKey(gene.getEntrezGeneId())) {
-                alterations.put(gene.getEntrezGeneId(), new ArrayList<>());
-            }
-            if (!alterationsByReferenceGenome.containsKey(gene.getEntrezGeneId())) {
-                alterationsByReferenceGenome.put(gene.getEntrezGeneId(), new HashMap<>());
-            }
-            alterations.get(gene.getEntrezGeneId()).add(alteration);
-
-            for (ReferenceGenome refGenome : alteration.getReferenceGenomes()) {
-                if (!alterationsByReferenceGenome.get(gene.getEntrezGeneId()).containsKey(refGenome)) {
-                    alterationsByReferenceGenome.get(gene.getEntrezGeneId()).put(refGenome, new ArrayList<>());
-                }
-                alterationsByReferenceGenome.get(gene.getEntrezGeneId()).get(refGenome).add(alteration);
-            }
+            alterationsByGene.computeIfAbsent(alteration.getGene().getEntrezGeneId(), k -> new ArrayList<>()).add(alteration);
+        }
+        Map<Integer, GeneCacheSnapshot.GeneAlterations> allGeneAlterations = new HashMap<>();
+        for (Map.Entry<Integer, List<Alteration>> entry : alterationsByGene.entrySet()) {
+            allGeneAlterations.put(entry.getKey(), new GeneCacheSnapshot.GeneAlterations(entry.getValue()));
+        }
+        synchronized (CacheUtils.class) {
+            geneCacheSnapshot = geneCacheSnapshot.withAllAlterations(allGeneAlterations);
         }
         System.out.println("Cached all alterations: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
     }
@@ -439,8 +598,8 @@ public class CacheUtils {
 
     public static Set<Evidence> getAllEvidences() {
         Set<Evidence> evis = new HashSet<>();
-        for (Map.Entry<Integer, List<Evidence>> map : evidences.entrySet()) {
-            evis.addAll(map.getValue());
+        for (GeneCacheSnapshot.GeneEvidences geneEvidences : geneCacheSnapshot.getAllEvidences()) {
+            evis.addAll(geneEvidences.getEvidences());
         }
         return evis;
     }
@@ -452,11 +611,19 @@ public class CacheUtils {
 
         synEvidences();
 
-        if (evidences.containsKey(gene.getEntrezGeneId())) {
-            return evidences.get(gene.getEntrezGeneId()) == null ? new ArrayList<>() : Collections.unmodifiableList(evidences.get(gene.getEntrezGeneId()));
-        } else {
-            return new ArrayList<>();
+        GeneCacheSnapshot.GeneEvidences geneEvidences = geneCacheSnapshot.getEvidences(gene.getEntrezGeneId());
+        return geneEvidences == null ? new ArrayList<>() : geneEvidences.getEvidences();
+    }
+
+    public static EvidenceAlterationIndex getEvidenceAlterationIndex(Gene gene) {
+        if (gene == null) {
+            return null;
         }
+
+        synEvidences();
+
+        GeneCacheSnapshot.GeneEvidences geneEvidences = geneCacheSnapshot.getEvidences(gene.getEntrezGeneId());
+        return geneEvidences == null ? null : geneEvidences.getAlterationIndex();
     }
 
     public static Set<Evidence> getEvidencesByIds(Set<Integer> ids) {
@@ -464,11 +631,11 @@ public class CacheUtils {
 
         Set<Evidence> mappedEvis = new HashSet<>();
         if (ids != null) {
-            for (Map.Entry<Integer, List<Evidence>> map : evidences.entrySet()) {
-                for (Evidence evidence : map.getValue()) {
-                    if (ids.contains(evidence.getId())) {
-                        mappedEvis.add(evidence);
-                    }
+            GeneCacheSnapshot snapshot = geneCacheSnapshot;
+            for (Integer id : ids) {
+                Evidence evidence = snapshot.getEvidenceById(id);
+                if (evidence != null) {
+                    mappedEvis.add(evidence);
                 }
             }
         }
@@ -498,13 +665,7 @@ public class CacheUtils {
 
         Set<Evidence> mappedEvis = new HashSet<>();
         if (uuid != null) {
-            for (Map.Entry<Integer, List<Evidence>> map : evidences.entrySet()) {
-                for (Evidence evidence : map.getValue()) {
-                    if (uuid.equals(evidence.getUuid())) {
-                        mappedEvis.add(evidence);
-                    }
-                }
-            }
+            mappedEvis.addAll(geneCacheSnapshot.getEvidencesByUuid(uuid));
         }
         return mappedEvis;
     }
@@ -514,11 +675,10 @@ public class CacheUtils {
 
         Set<Evidence> mappedEvis = new HashSet<>();
         if (uuids != null) {
-            for (Map.Entry<Integer, List<Evidence>> map : evidences.entrySet()) {
-                for (Evidence evidence : map.getValue()) {
-                    if (evidence != null && uuids.contains(evidence.getUuid())) {
-                        mappedEvis.add(evidence);
-                    }
+            GeneCacheSnapshot snapshot = geneCacheSnapshot;
+            for (String uuid : uuids) {
+                if (uuid != null) {
+                    mappedEvis.addAll(snapshot.getEvidencesByUuid(uuid));
                 }
             }
         }
@@ -527,27 +687,41 @@ public class CacheUtils {
 
     private static void setEvidences(Gene gene) {
         List<Evidence> geneEvidences = ApplicationContextSingleton.getEvidenceBo().findEvidencesByGeneFromDB(Collections.singleton(gene));
-        evidences.put(gene.getEntrezGeneId(), geneEvidences);
-        updateEvidenceRelevantCancerTypes(gene.getEntrezGeneId(), geneEvidences);
+        publishGeneEvidences(gene.getEntrezGeneId(), new GeneCacheSnapshot.GeneEvidences(geneEvidences));
     }
 
+    private static void publishGeneEvidences(Integer entrezGeneId, GeneCacheSnapshot.GeneEvidences geneEvidences) {
+        synchronized (CacheUtils.class) {
+            geneCacheSnapshot = geneCacheSnapshot.withEvidences(entrezGeneId, geneEvidences);
+        }
+    }
+
+    // The caches can be read by several request threads at the same time, only one of them should refill the cache
     private static void synEvidences() {
-        Long current = MainUtils.getCurrentTimestamp();
-        if (evidences == null || evidences.size() == 0) {
-            cacheAllEvidencesByGenes();
+        if (!geneCacheSnapshot.hasEvidences()) {
+            synchronized (CacheUtils.class) {
+                if (!geneCacheSnapshot.hasEvidences()) {
+                    cacheAllEvidencesByGenes();
+                }
+            }
         }
     }
 
     private static void synAlterations() {
-        Long current = MainUtils.getCurrentTimestamp();
-        if (alterations == null || alterations.size() == 0) {
-            setAllAlterations();
-        }
+        if (geneCacheSnapshot.getNumberOfAlterationGenes() == 0 || geneCacheSnapshot.getNumberOfAlterationGenes() != genes.size()) {
+            synchronized (CacheUtils.class) {
+                if (geneCacheSnapshot.getNumberOfAlterationGenes() == 0) {
+                    setAllAlterations();
+                }
 
-        if (alterations.keySet().size() != genes.size()) {
-            for (Gene gene : genes) {
-                if (!alterations.containsKey(gene.getEntrezGeneId())) {
-                    setAlterations(gene);
+                if (geneCacheSnapshot.getNumberOfAlterationGenes() != genes.size()) {
+                    Map<Integer, GeneCacheSnapshot.GeneAlterations> missingGeneAlterations = new HashMap<>();
+                    for (Gene gene : genes) {
+                        if (!geneCacheSnapshot.containsAlterations(gene.getEntrezGeneId())) {
+                            missingGeneAlterations.put(gene.getEntrezGeneId(), findGeneAlterations(gene));
+                        }
+                    }
+                    geneCacheSnapshot = geneCacheSnapshot.withAlterations(missingGeneAlterations);
                 }
             }
         }
@@ -583,9 +757,30 @@ public class CacheUtils {
         return specialCancerTypes;
     }
 
+    public static TypeaheadIndex getTypeaheadIndex() {
+        TypeaheadIndex index = typeaheadIndex;
+        if (index == null) {
+            int version;
+            synchronized (CacheUtils.class) {
+                version = typeaheadIndexVersion;
+            }
+            index = new TypeaheadIndex(getAllGenes(), AlterationUtils.getAllAlterations(), getLowercaseSubtypeTumorTypeMap(), getMainTypeTumorTypeMap());
+            // an index built while the cache is being updated is not kept
+            synchronized (CacheUtils.class) {
+                if (version == typeaheadIndexVersion) {
+                    typeaheadIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    public static TumorTypeHierarchy getTumorTypeHierarchy() {
+        return tumorTypeHierarchy;
+    }
+
     public static void forceUpdateGeneAlterations(Integer entrezGeneId) {
-        alterations.remove(entrezGeneId);
-        alterationsByReferenceGenome.remove(entrezGeneId);
+        updateGeneAlterations(entrezGeneId);
     }
 
     public static void updateGene(Set<Integer> entrezGeneIds, Boolean propagate) throws IOException {
@@ -598,6 +793,7 @@ public class CacheUtils {
             return;
         }
         entrezGeneIds.forEach(entrezGeneId -> GeneObservable.getInstance().update("update", entrezGeneId.toString()));
+        deleteSnapshot();
         if (propagate) {
             notifyOtherServices("update", entrezGeneIds);
         }else{
@@ -607,13 +803,17 @@ public class CacheUtils {
 
     public static void resetAll() throws IOException {
         System.out.println("Reset all genes cache on instance " + PropertiesUtils.getProperties("app.name") + " at " + MainUtils.getCurrentTime());
+        oncokbInfo = ApplicationContextSingleton.getInfoBo().get();
         GeneObservable.getInstance().update("reset", null);
+        writeSnapshot(oncokbInfo);
         notifyOtherServices("reset", null);
     }
 
     public static void resetAll(Boolean propagate) throws IOException {
         System.out.println("Reset all genes cache on instance " + PropertiesUtils.getProperties("app.name") + " at " + MainUtils.getCurrentTime());
+        oncokbInfo = ApplicationContextSingleton.getInfoBo().get();
         GeneObservable.getInstance().update("reset", null);
+        writeSnapshot(oncokbInfo);
         if (propagate == null) {
             propagate = false;
         }
@@ -624,39 +824,37 @@ public class CacheUtils {
 
 
     private static void cacheAllEvidencesByGenes() {
+        cacheAllEvidencesByGenes(ApplicationContextSingleton.getEvidenceBo().findAllWithAssociations(), Collections.emptyMap());
+    }
+
+    private static void cacheAllEvidencesByGenes(List<Evidence> allEvidences, Map<Integer, Set<TumorType>> relevantCancerTypes) {
         Long current = MainUtils.getCurrentTimestamp();
 
         Map<Gene, List<Evidence>> mappedEvidence =
-            EvidenceUtils.separateEvidencesByGene(genes, new HashSet<>(
-                ApplicationContextSingleton.getEvidenceBo().findAll()));
-        Iterator it = mappedEvidence.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<Gene, List<Evidence>> pair = (Map.Entry) it.next();
-            int entrezGeneId = pair.getKey().getEntrezGeneId();
-            evidences.put(entrezGeneId, pair.getValue());
-            updateEvidenceRelevantCancerTypes(entrezGeneId, pair.getValue());
+            EvidenceUtils.separateEvidencesByGene(genes, new HashSet<>(allEvidences));
+        Map<Integer, GeneCacheSnapshot.GeneEvidences> allGeneEvidences = new HashMap<>();
+        for (Map.Entry<Gene, List<Evidence>> entry : mappedEvidence.entrySet()) {
+            allGeneEvidences.put(entry.getKey().getEntrezGeneId(), new GeneCacheSnapshot.GeneEvidences(entry.getValue(), relevantCancerTypes));
+        }
+        synchronized (CacheUtils.class) {
+            geneCacheSnapshot = geneCacheSnapshot.withAllEvidences(allGeneEvidences);
         }
         System.out.println("Cached all evidences by gene: " + MainUtils.getTimestampDiff(current) + " at " + MainUtils.getCurrentTime());
     }
 
+    /**
+     * The relevant cancer types are part of the gene evidences snapshot, so the gene evidences are replaced as a whole.
+     */
     public static void updateEvidenceRelevantCancerTypes(Integer entrezGeneId, List<Evidence> geneEvidences) {
-        evidenceRelevantCancerTypes.put(entrezGeneId, new HashMap<>());
-        for (Evidence evidence : geneEvidences) {
-            if (evidence.getId() != null) {
-                evidenceRelevantCancerTypes.get(entrezGeneId).put(evidence.getId(), TumorTypeUtils.findEvidenceRelevantCancerTypes(evidence));
-            }
-        }
+        publishGeneEvidences(entrezGeneId, new GeneCacheSnapshot.GeneEvidences(geneEvidences));
     }
 
     public static Set<TumorType> getEvidenceRelevantCancerTypes(Integer entrezGeneId, Integer evidenceId) {
         if (entrezGeneId == null || evidenceId == null) {
             return null;
         }
-        if (evidenceRelevantCancerTypes.containsKey(entrezGeneId) && evidenceRelevantCancerTypes.get(entrezGeneId).containsKey(evidenceId)) {
-            return evidenceRelevantCancerTypes.get(entrezGeneId).get(evidenceId);
-        } else {
-            return null;
-        }
+        GeneCacheSnapshot.GeneEvidences geneEvidences = geneCacheSnapshot.getEvidences(entrezGeneId);
+        return geneEvidences == null ? null : geneEvidences.getRelevantCancerTypes(evidenceId);
     }
 
     public static Map<String, Long> getRecordTime() {
@@ -677,13 +875,7 @@ public class CacheUtils {
         return downloadAvailabilities;
     }
 
-    private static void cacheDownloadAvailability() {
-        try {
-            downloadAvailabilities = GitHubUtils.getDownloadAvailability();
-        } catch (IOException e) {
-            System.out.println("There is an issue connecting to GitHub.");
-        } catch (NoPropertyException exception) {
-            System.out.println("The data access token is not available");
-        }
+    public static StartupReport getStartupReport() {
+        return startupReport;
     }
 }
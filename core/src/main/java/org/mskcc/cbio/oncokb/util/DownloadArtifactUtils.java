@@ -0,0 +1,222 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.apiModels.download.DownloadArtifact;
+import org.mskcc.cbio.oncokb.model.Info;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Observer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates the download files once per data version and keeps them gzipped in memory.
+ *
+ * The files written from the same data, like the json and the text version of a list, are generated together so the
+ * data is only computed once. A group can be prepared on a background thread ahead of the first request for it. A
+ * request for a file that is not generated yet generates it on the requesting thread, unless the background thread
+ * already started, and the concurrent requests for the same file wait for that one. The writer streams the content
+ * straight into the gzip stream. All files are dropped when the data version changes or the gene cache is updated or
+ * reset, and generated again when they are next prepared or requested.
+ *
+ * The entity tag of the files only depends on the data version, and on the number of times the cache has been updated
+ * since the start, so a request can be answered with a 304 without waiting for a file to be generated.
+ */
+public class DownloadArtifactUtils {
+    // data version::group -> the files of the group by name
+    private static final Map<String, FutureTask<Map<String, DownloadArtifact>>> artifacts = new ConcurrentHashMap<>();
+    private static final AtomicInteger revision = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "download-artifact");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static Observer artifactsObserver = (o, arg) -> clear();
+
+    static {
+        GeneObservable.getInstance().addObserver(artifactsObserver);
+    }
+
+    private DownloadArtifactUtils() {
+        throw new AssertionError();
+    }
+
+    @FunctionalInterface
+    public interface ArtifactWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface SourceWriter<T> {
+        void write(OutputStream outputStream, T source) throws IOException;
+    }
+
+    /**
+     * @return the entity tag of the files of the current data version
+     */
+    public static String getEtag() {
+        return getEtag(getDataVersion(), revision.get());
+    }
+
+    /**
+     * @return the file of the current data version, generated with the writer when it is not available yet
+     */
+    public static DownloadArtifact getArtifact(String name, ArtifactWriter writer) throws IOException {
+        return getArtifact(name, name, () -> null, Collections.singletonMap(name, (outputStream, source) -> writer.write(outputStream)));
+    }
+
+    /**
+     * Start generating the files of the group in the background if they are not generated yet for the current data
+     * version.
+     *
+     * @param group   the name of the files generated together
+     * @param source  the data of the files, loaded once for all the files of the group
+     * @param writers the writer of every file of the group by name
+     */
+    public static <T> void prepareArtifacts(String group, Callable<T> source, Map<String, SourceWriter<T>> writers) {
+        String dataVersion = getDataVersion();
+        String key = getKey(dataVersion, group);
+        FutureTask<Map<String, DownloadArtifact>> task = newTask(dataVersion, source, writers);
+        if (artifacts.putIfAbsent(key, task) == null) {
+            executor.execute(() -> {
+                task.run();
+                try {
+                    task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // the next request tries again
+                    artifacts.remove(key, task);
+                    System.out.println("Failed to prepare " + group + ": " + e.getCause());
+                }
+            });
+        }
+    }
+
+    /**
+     * @param group   the name of the files generated together
+     * @param name    the file to return, one of the writers
+     * @param source  the data of the files, loaded once for all the files of the group
+     * @param writers the writer of every file of the group by name
+     * @return the file of the current data version, generated with the other files of the group when it is not
+     * available yet
+     */
+    public static <T> DownloadArtifact getArtifact(String group, String name, Callable<T> source, Map<String, SourceWriter<T>> writers) throws IOException {
+        if (!writers.containsKey(name)) {
+            throw new IllegalArgumentException(name + " is not a file of " + group);
+        }
+        String dataVersion = getDataVersion();
+        String key = getKey(dataVersion, group);
+
+        FutureTask<Map<String, DownloadArtifact>> task = newTask(dataVersion, source, writers);
+        FutureTask<Map<String, DownloadArtifact>> existing = artifacts.putIfAbsent(key, task);
+        if (existing != null) {
+            task = existing;
+        }
+        // a task only runs once, when it is still waiting for the background thread the request does not wait behind
+        // the other files being prepared
+        task.run();
+        try {
+            return task.get().get(name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating " + name, e);
+        } catch (ExecutionException e) {
+            // the next request tries again
+            artifacts.remove(key, task);
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to generate " + name, e.getCause());
+        }
+    }
+
+    private static <T> FutureTask<Map<String, DownloadArtifact>> newTask(String dataVersion, Callable<T> source, Map<String, SourceWriter<T>> writers) {
+        String etag = getEtag(dataVersion, revision.get());
+        return new FutureTask<>(() -> generate(dataVersion, etag, source, writers));
+    }
+
+    public static void clear() {
+        revision.incrementAndGet();
+        artifacts.clear();
+    }
+
+    static <T> Map<String, DownloadArtifact> generate(String dataVersion, String etag, Callable<T> source, Map<String, SourceWriter<T>> writers) throws Exception {
+        T data = source.call();
+        Map<String, DownloadArtifact> generated = new HashMap<>();
+        for (Map.Entry<String, SourceWriter<T>> writer : writers.entrySet()) {
+            generated.put(writer.getKey(), generate(writer.getKey(), dataVersion, etag, outputStream -> writer.getValue().write(outputStream, data)));
+        }
+        return generated;
+    }
+
+    static DownloadArtifact generate(String name, String dataVersion, String etag, ArtifactWriter writer) throws IOException {
+        Long current = MainUtils.getCurrentTimestamp();
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        CountingOutputStream counting;
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipped, 1 << 16)) {
+            counting = new CountingOutputStream(gzipStream);
+            writer.write(counting);
+            counting.flush();
+        }
+        byte[] content = gzipped.toByteArray();
+        DownloadArtifact artifact = new DownloadArtifact(name, dataVersion, content, counting.getCount(), etag);
+        System.out.println("Generated " + name + " of data version " + dataVersion + " (" + counting.getCount() + " bytes, " + content.length + " gzipped): " + MainUtils.getTimestampDiff(current) + "ms");
+        return artifact;
+    }
+
+    private static String getKey(String dataVersion, String name) {
+        return dataVersion + "::" + name;
+    }
+
+    private static String getDataVersion() {
+        Info info = CacheUtils.getInfo();
+        return info == null || info.getDataVersion() == null ? "" : info.getDataVersion();
+    }
+
+    // The revision is only added once the cache is updated, so all the nodes serving a data version have the same tag
+    static String getEtag(String dataVersion, int revision) {
+        String etag = dataVersion.replaceAll("[^0-9A-Za-z.\\-_]", "");
+        if (revision > 0) {
+            etag += "-r" + revision;
+        }
+        return "\"" + etag + "\"";
+    }
+
+    // The writer may close the stream it is given, the gzip stream is only closed once all content is written
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.Alteration;
+import org.mskcc.cbio.oncokb.model.Evidence;
+import org.mskcc.cbio.oncokb.model.EvidenceType;
+
+import java.util.*;
+
+/**
+ * Inverted index of the evidences of one gene, from alteration id to the positions of the evidences associated with it,
+ * bucketed by evidence type. The evidences are returned in the same order as they are in the gene evidence list.
+ *
+ * The index only works on persisted alterations. When an alteration without id is queried, or one of the evidences
+ * has an alteration without id, the lookup returns null and the caller should go through the evidences instead.
+ */
+public class EvidenceAlterationIndex {
+    private final List<Evidence> evidences;
+    private final Map<EvidenceType, Map<Integer, List<Integer>>> positionsByEvidenceType = new HashMap<>();
+    private boolean complete = true;
+
+    public EvidenceAlterationIndex(List<Evidence> evidences) {
+        this.evidences = new ArrayList<>(evidences);
+        for (int i = 0; i < this.evidences.size(); i++) {
+            Evidence evidence = this.evidences.get(i);
+            if (evidence.getAlterations() == null) {
+                continue;
+            }
+            Map<Integer, List<Integer>> positions = positionsByEvidenceType.computeIfAbsent(evidence.getEvidenceType(), k -> new HashMap<>());
+            for (Alteration alteration : evidence.getAlterations()) {
+                if (alteration.getId() == null) {
+                    complete = false;
+                    continue;
+                }
+                List<Integer> alterationPositions = positions.computeIfAbsent(alteration.getId(), k -> new ArrayList<>());
+                if (alterationPositions.isEmpty() || alterationPositions.get(alterationPositions.size() - 1) != i) {
+                    alterationPositions.add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param alterations    the alterations the evidences should be associated with
+     * @param evidenceTypes  the evidence types to include, null for all evidence types
+     * @return the matched evidences in the gene evidence order, or null when the index cannot be used for the alterations
+     */
+    public List<Evidence> findEvidences(Collection<Alteration> alterations, Collection<EvidenceType> evidenceTypes) {
+        if (!complete) {
+            return null;
+        }
+        Set<Integer> alterationIds = new HashSet<>();
+        for (Alteration alteration : alterations) {
+            if (alteration == null || alteration.getId() == null) {
+                return null;
+            }
+            alterationIds.add(alteration.getId());
+        }
+
+        BitSet matched = new BitSet(evidences.size());
+        for (Map.Entry<EvidenceType, Map<Integer, List<Integer>>> entry : positionsByEvidenceType.entrySet()) {
+            if (evidenceTypes != null && !evidenceTypes.contains(entry.getKey())) {
+                continue;
+            }
+            for (Integer alterationId : alterationIds) {
+                List<Integer> positions = entry.getValue().get(alterationId);
+                if (positions != null) {
+                    for (Integer position : positions) {
+                        matched.set(position);
+                    }
+                }
+            }
+        }
+
+        List<Evidence> result = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            result.add(evidences.get(i));
+        }
+        return result;
+    }
+}
@@ -261,19 +261,56 @@ public class EvidenceUtils {
     }
 
     public static List<Evidence> getAlterationEvidences(List<Alteration> alterations) {
-        List<Evidence> evidences = new ArrayList<>();
+        return getAlterationEvidences(alterations, null);
+    }
+
+    /**
+     * Get the evidences of the alterations' genes which are associated with any of the alterations.
+     * The evidences are in the same order as the gene evidences.
+     *
+     * @param alterations
+     * @param evidenceTypes the evidence types to include, null for all evidence types
+     * @return
+     */
+    public static List<Evidence> getAlterationEvidences(Collection<Alteration> alterations, Collection<EvidenceType> evidenceTypes) {
+        List<Evidence> indexedEvidences = getIndexedAlterationEvidences(alterations, evidenceTypes);
+        if (indexedEvidences != null) {
+            return indexedEvidences;
+        }
 
+        List<Evidence> evidences = new ArrayList<>();
         List<Evidence> geneEvidences = getAllEvidencesByAlterationsGenes(alterations);
         Set<Alteration> altSet = new HashSet<>(alterations);
         for (int i = 0; i < geneEvidences.size(); i++) {
             Evidence evidence = geneEvidences.get(i);
-            if (!Collections.disjoint(evidence.getAlterations(), altSet)) {
+            if ((evidenceTypes == null || evidenceTypes.contains(evidence.getEvidenceType())) && !Collections.disjoint(evidence.getAlterations(), altSet)) {
                 evidences.add(evidence);
             }
         }
         return evidences;
     }
 
+    // Returns null when one of the genes is not indexed or the alterations cannot be looked up through the index
+    private static List<Evidence> getIndexedAlterationEvidences(Collection<Alteration> alterations, Collection<EvidenceType> evidenceTypes) {
+        Set<Gene> genes = new HashSet<>();
+        for (Alteration alteration : alterations) {
+            genes.add(alteration.getGene());
+        }
+        List<Evidence> evidences = new ArrayList<>();
+        for (Gene gene : genes) {
+            if (gene == null) {
+                continue;
+            }
+            EvidenceAlterationIndex index = CacheUtils.getEvidenceAlterationIndex(gene);
+            List<Evidence> geneEvidences = index == null ? null : index.findEvidences(alterations, evidenceTypes);
+            if (geneEvidences == null) {
+                return null;
+            }
+            evidences.addAll(geneEvidences);
+        }
+        return evidences;
+    }
+
     public static Map<Gene, Set<Evidence>> getEvidenceByGenes(Set<Gene> genes) {
         Map<Gene, Set<Evidence>> evidences = new HashMap<>();
         for (Gene gene : genes) {
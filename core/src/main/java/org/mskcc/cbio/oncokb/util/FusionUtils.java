@@ -15,6 +15,8 @@ public class FusionUtils {
     public final static String FUSION_ALTERNATIVE_SEPARATOR = "-";
     private final static String FUSION_REGEX = "\\s*(\\w*)" + FUSION_SEPARATOR + "(\\w*)\\s*(?i)(fusion)?\\s*";
     private final static String FUSION_ALT_REGEX = "\\s*((\\w*)" + FUSION_ALTERNATIVE_SEPARATOR + "(\\w*))\\s+(?i)fusion\\s*";
+    private final static Pattern FUSION_PATTERN = Pattern.compile(FUSION_REGEX);
+    private final static Pattern FUSION_ALT_PATTERN = Pattern.compile(FUSION_ALT_REGEX);
 
     public static List<String> getGenesStrs(String query) {
         Set<String> geneStrsList = new LinkedHashSet<>();
@@ -125,7 +127,7 @@ public class FusionUtils {
             if (variant.toLowerCase().equals("fusion") || variant.toLowerCase().equals("fusions")) {
                 return true;
             }
-            if ((Pattern.matches(FUSION_REGEX, variant) || Pattern.matches(FUSION_ALT_REGEX, variant))) {
+            if ((FUSION_PATTERN.matcher(variant).matches() || FUSION_ALT_PATTERN.matcher(variant).matches())) {
                 return true;
             }
         }
@@ -134,16 +136,14 @@ public class FusionUtils {
 
     public static String getRevertFusionName(String fusionName) {
         String revertFusionAltStr = "";
-        Pattern pattern = Pattern.compile(FUSION_REGEX);
-        Matcher matcher = pattern.matcher(fusionName);
+        Matcher matcher = FUSION_PATTERN.matcher(fusionName);
         if (matcher.matches() && matcher.groupCount() == 3) {
             // Revert fusion
             String geneA = matcher.group(1);
             String geneB = matcher.group(2);
             revertFusionAltStr = getFusionName(geneB, geneA);
         } else {
-            pattern = Pattern.compile(FUSION_ALT_REGEX);
-            matcher = pattern.matcher(fusionName);
+            matcher = FUSION_ALT_PATTERN.matcher(fusionName);
             if (matcher.matches() && matcher.groupCount() == 3) {
                 // Revert fusion
                 String geneA = matcher.group(2);
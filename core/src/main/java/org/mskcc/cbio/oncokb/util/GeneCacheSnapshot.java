@@ -0,0 +1,249 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the gene based alterations, evidences and VUSs cached by CacheUtils.
+ *
+ * A snapshot is never changed once it is published. An update builds a new snapshot with the changed genes
+ * replaced, then CacheUtils swaps the reference, so a reader always sees either the old or the new state of a gene,
+ * never a partial one.
+ */
+public class GeneCacheSnapshot {
+    static final GeneCacheSnapshot EMPTY = new GeneCacheSnapshot(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<Integer, GeneAlterations> alterations;
+    private final Map<Integer, GeneEvidences> evidences;
+    // Evidences of all genes by id and by uuid, kept in line with the gene evidences
+    private final Map<Integer, Evidence> evidencesById;
+    private final Map<String, Set<Evidence>> evidencesByUuid;
+
+    private GeneCacheSnapshot(Map<Integer, GeneAlterations> alterations, Map<Integer, GeneEvidences> evidences, Map<Integer, Evidence> evidencesById, Map<String, Set<Evidence>> evidencesByUuid) {
+        this.alterations = Collections.unmodifiableMap(alterations);
+        this.evidences = Collections.unmodifiableMap(evidences);
+        this.evidencesById = Collections.unmodifiableMap(evidencesById);
+        this.evidencesByUuid = Collections.unmodifiableMap(evidencesByUuid);
+    }
+
+    GeneAlterations getAlterations(Integer entrezGeneId) {
+        return alterations.get(entrezGeneId);
+    }
+
+    boolean containsAlterations(Integer entrezGeneId) {
+        return alterations.containsKey(entrezGeneId);
+    }
+
+    int getNumberOfAlterationGenes() {
+        return alterations.size();
+    }
+
+    GeneEvidences getEvidences(Integer entrezGeneId) {
+        return evidences.get(entrezGeneId);
+    }
+
+    Collection<GeneAlterations> getAllAlterations() {
+        return alterations.values();
+    }
+
+    Collection<GeneEvidences> getAllEvidences() {
+        return evidences.values();
+    }
+
+    boolean hasEvidences() {
+        return !evidences.isEmpty();
+    }
+
+    Evidence getEvidenceById(Integer id) {
+        return evidencesById.get(id);
+    }
+
+    Set<Evidence> getEvidencesByUuid(String uuid) {
+        Set<Evidence> uuidEvidences = evidencesByUuid.get(uuid);
+        return uuidEvidences == null ? Collections.emptySet() : uuidEvidences;
+    }
+
+    /**
+     * @param entrezGeneId    the gene to replace
+     * @param geneAlterations the new alterations of the gene, null to remove the gene
+     */
+    GeneCacheSnapshot withAlterations(Integer entrezGeneId, GeneAlterations geneAlterations) {
+        return withAlterations(Collections.singletonMap(entrezGeneId, geneAlterations));
+    }
+
+    GeneCacheSnapshot withAlterations(Map<Integer, GeneAlterations> geneAlterations) {
+        return new GeneCacheSnapshot(replace(alterations, geneAlterations), evidences, evidencesById, evidencesByUuid);
+    }
+
+    GeneCacheSnapshot withAllAlterations(Map<Integer, GeneAlterations> allAlterations) {
+        return new GeneCacheSnapshot(new HashMap<>(allAlterations), evidences, evidencesById, evidencesByUuid);
+    }
+
+    /**
+     * @param entrezGeneId  the gene to replace
+     * @param geneEvidences the new evidences of the gene, null to remove the gene
+     */
+    GeneCacheSnapshot withEvidences(Integer entrezGeneId, GeneEvidences geneEvidences) {
+        // Only the entries of the replaced gene are touched, the indexes are not rebuilt from all genes
+        Map<Integer, Evidence> newEvidencesById = new HashMap<>(evidencesById);
+        Map<String, Set<Evidence>> newEvidencesByUuid = new HashMap<>(evidencesByUuid);
+        GeneEvidences current = evidences.get(entrezGeneId);
+        if (current != null) {
+            removeFromIndexes(current, newEvidencesById, newEvidencesByUuid);
+        }
+        if (geneEvidences != null) {
+            addToIndexes(geneEvidences, newEvidencesById, newEvidencesByUuid);
+        }
+        return new GeneCacheSnapshot(alterations, replace(evidences, Collections.singletonMap(entrezGeneId, geneEvidences)), newEvidencesById, newEvidencesByUuid);
+    }
+
+    GeneCacheSnapshot withAllEvidences(Map<Integer, GeneEvidences> allEvidences) {
+        Map<Integer, Evidence> newEvidencesById = new HashMap<>();
+        Map<String, Set<Evidence>> newEvidencesByUuid = new HashMap<>();
+        for (GeneEvidences geneEvidences : allEvidences.values()) {
+            addToIndexes(geneEvidences, newEvidencesById, newEvidencesByUuid);
+        }
+        return new GeneCacheSnapshot(alterations, new HashMap<>(allEvidences), newEvidencesById, newEvidencesByUuid);
+    }
+
+    // The uuid sets are shared between snapshots, so they are copied instead of changed in place
+    private static void addToIndexes(GeneEvidences geneEvidences, Map<Integer, Evidence> evidencesById, Map<String, Set<Evidence>> evidencesByUuid) {
+        for (Evidence evidence : geneEvidences.getEvidences()) {
+            if (evidence.getId() != null) {
+                evidencesById.put(evidence.getId(), evidence);
+            }
+        }
+        for (Map.Entry<String, Set<Evidence>> entry : geneEvidences.getEvidencesByUuid().entrySet()) {
+            Set<Evidence> uuidEvidences = new HashSet<>(evidencesByUuid.getOrDefault(entry.getKey(), Collections.emptySet()));
+            uuidEvidences.addAll(entry.getValue());
+            evidencesByUuid.put(entry.getKey(), Collections.unmodifiableSet(uuidEvidences));
+        }
+    }
+
+    private static void removeFromIndexes(GeneEvidences geneEvidences, Map<Integer, Evidence> evidencesById, Map<String, Set<Evidence>> evidencesByUuid) {
+        for (Evidence evidence : geneEvidences.getEvidences()) {
+            if (evidence.getId() != null) {
+                evidencesById.remove(evidence.getId());
+            }
+        }
+        for (Map.Entry<String, Set<Evidence>> entry : geneEvidences.getEvidencesByUuid().entrySet()) {
+            Set<Evidence> uuidEvidences = new HashSet<>(evidencesByUuid.getOrDefault(entry.getKey(), Collections.emptySet()));
+            uuidEvidences.removeAll(entry.getValue());
+            if (uuidEvidences.isEmpty()) {
+                evidencesByUuid.remove(entry.getKey());
+            } else {
+                evidencesByUuid.put(entry.getKey(), Collections.unmodifiableSet(uuidEvidences));
+            }
+        }
+    }
+
+    private static <T> Map<Integer, T> replace(Map<Integer, T> current, Map<Integer, T> changes) {
+        Map<Integer, T> result = new HashMap<>(current);
+        for (Map.Entry<Integer, T> entry : changes.entrySet()) {
+            if (entry.getValue() == null) {
+                result.remove(entry.getKey());
+            } else {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * All alterations of one gene, split by reference genome, with the position and name indexes built on the
+     * reference genome lists.
+     */
+    static class GeneAlterations {
+        private final List<Alteration> alterations;
+        private final Map<ReferenceGenome, AlterationPositionIndex> positionIndexes = new EnumMap<>(ReferenceGenome.class);
+        private final Map<ReferenceGenome, AlterationNameIndex> nameIndexes = new EnumMap<>(ReferenceGenome.class);
+
+        GeneAlterations(List<Alteration> geneAlterations) {
+            this.alterations = Collections.unmodifiableList(new ArrayList<>(geneAlterations));
+
+            Map<ReferenceGenome, List<Alteration>> alterationsByReferenceGenome = new EnumMap<>(ReferenceGenome.class);
+            for (Alteration alteration : geneAlterations) {
+                for (ReferenceGenome refGenome : alteration.getReferenceGenomes()) {
+                    alterationsByReferenceGenome.computeIfAbsent(refGenome, k -> new ArrayList<>()).add(alteration);
+                }
+            }
+            for (Map.Entry<ReferenceGenome, List<Alteration>> entry : alterationsByReferenceGenome.entrySet()) {
+                AlterationPositionIndex positionIndex = new AlterationPositionIndex(entry.getValue());
+                positionIndexes.put(entry.getKey(), positionIndex);
+                // build on the same list instance getAlterations hands out
+                nameIndexes.put(entry.getKey(), new AlterationNameIndex(positionIndex.getAlterations()));
+            }
+        }
+
+        List<Alteration> getAlterations() {
+            return alterations;
+        }
+
+        AlterationPositionIndex getPositionIndex(ReferenceGenome referenceGenome) {
+            return referenceGenome == null ? null : positionIndexes.get(referenceGenome);
+        }
+
+        AlterationNameIndex getNameIndex(ReferenceGenome referenceGenome) {
+            return referenceGenome == null ? null : nameIndexes.get(referenceGenome);
+        }
+    }
+
+    /**
+     * All evidences of one gene, with the alteration index, the relevant cancer types of every evidence and the VUSs.
+     */
+    static class GeneEvidences {
+        private final List<Evidence> evidences;
+        private final EvidenceAlterationIndex alterationIndex;
+        private final Map<Integer, Set<TumorType>> relevantCancerTypes = new HashMap<>();
+        private final Set<Alteration> vus;
+        private final Map<String, Set<Evidence>> evidencesByUuid = new HashMap<>();
+
+        GeneEvidences(List<Evidence> geneEvidences) {
+            this(geneEvidences, Collections.emptyMap());
+        }
+
+        /**
+         * @param resolvedRelevantCancerTypes the relevant cancer types already resolved by evidence id, the ones
+         *                                    missing are resolved from the evidences
+         */
+        GeneEvidences(List<Evidence> geneEvidences, Map<Integer, Set<TumorType>> resolvedRelevantCancerTypes) {
+            this.evidences = Collections.unmodifiableList(new ArrayList<>(geneEvidences));
+            this.alterationIndex = new EvidenceAlterationIndex(this.evidences);
+            for (Evidence evidence : this.evidences) {
+                if (evidence.getId() != null) {
+                    Set<TumorType> resolved = resolvedRelevantCancerTypes.get(evidence.getId());
+                    relevantCancerTypes.put(evidence.getId(), resolved != null ? resolved : TumorTypeUtils.resolveEvidenceRelevantCancerTypes(evidence));
+                }
+                if (evidence.getUuid() != null) {
+                    evidencesByUuid.computeIfAbsent(evidence.getUuid(), k -> new HashSet<>()).add(evidence);
+                }
+            }
+            this.vus = Collections.unmodifiableSet(AlterationUtils.findVUSFromEvidences(new HashSet<>(this.evidences)));
+        }
+
+        List<Evidence> getEvidences() {
+            return evidences;
+        }
+
+        EvidenceAlterationIndex getAlterationIndex() {
+            return alterationIndex;
+        }
+
+        Set<TumorType> getRelevantCancerTypes(Integer evidenceId) {
+            return relevantCancerTypes.get(evidenceId);
+        }
+
+        Map<Integer, Set<TumorType>> getAllRelevantCancerTypes() {
+            return relevantCancerTypes;
+        }
+
+        Set<Alteration> getVUS() {
+            return vus;
+        }
+
+        Map<String, Set<Evidence>> getEvidencesByUuid() {
+            return evidencesByUuid;
+        }
+    }
+}
@@ -76,58 +76,39 @@ public class GeneUtils {
         if (exactSearch == null)
             exactSearch = false;
         if (keyword != null && keyword != "") {
+            if (!exactSearch) {
+                genes.addAll(CacheUtils.getTypeaheadIndex().searchGene(keyword));
+
+                // If the keyword contains dash and exact search is false, then we should return both fusion genes
+                if (!org.apache.commons.lang3.math.NumberUtils.isNumber(keyword) && keyword.contains("-")) {
+                    for (String subKeyword : keyword.split("-")) {
+                        genes.addAll(searchGene(subKeyword, false));
+                    }
+                }
+                return genes;
+            }
             Set<Gene> allGenes = CacheUtils.getAllGenes();
             if (org.apache.commons.lang3.math.NumberUtils.isNumber(keyword)) {
                 for (Gene gene : allGenes) {
                     String entrezId = Integer.toString(gene.getEntrezGeneId());
-                    if (exactSearch) {
-                        if (entrezId.equals(keyword)) {
-                            genes.add(gene);
-                        }
-                    } else {
-                        if (entrezId.contains(keyword)) {
-                            genes.add(gene);
-                        }
+                    if (entrezId.equals(keyword)) {
+                        genes.add(gene);
                     }
                 }
             } else {
-                keyword = keyword.toLowerCase();
                 for (Gene gene : allGenes) {
-                    String hugoSymbol = gene.getHugoSymbol();
-                    if (exactSearch) {
-                        if (hugoSymbol.equalsIgnoreCase(keyword)) {
-                            genes.add(gene);
-                        }
-                    } else {
-                        if (StringUtils.containsIgnoreCase(hugoSymbol, keyword)) {
-                            genes.add(gene);
-                        }
+                    if (gene.getHugoSymbol().equalsIgnoreCase(keyword)) {
+                        genes.add(gene);
                     }
                 }
                 for (Gene gene : allGenes) {
-                    if (exactSearch) {
-                        for (String alias : gene.getGeneAliases()) {
-                            if (alias.toLowerCase().equals(keyword)) {
-                                genes.add(gene);
-                                break;
-                            }
-                        }
-                    } else {
-                        for (String alias : gene.getGeneAliases()) {
-                            if (StringUtils.containsIgnoreCase(alias, keyword)) {
-                                genes.add(gene);
-                                break;
-                            }
+                    for (String alias : gene.getGeneAliases()) {
+                        if (alias.equalsIgnoreCase(keyword)) {
+                            genes.add(gene);
+                            break;
                         }
                     }
                 }
-
-                // If the keyword contains dash and exact search is false, then we should return both fusion genes
-                if (keyword.contains("-") && exactSearch == false) {
-                    for (String subKeyword : keyword.split("-")) {
-                        genes.addAll(searchGene(subKeyword, false));
-                    }
-                }
             }
         }
 
@@ -10,7 +10,10 @@ import org.json.JSONObject;
 import org.mskcc.cbio.oncokb.apiModels.TranscriptMatchResult;
 import org.mskcc.cbio.oncokb.apiModels.TranscriptPair;
 import org.mskcc.cbio.oncokb.apiModels.ensembl.Sequence;
+import org.mskcc.cbio.oncokb.genomenexus.FileGenomeNexusAnnotationStore;
 import org.mskcc.cbio.oncokb.genomenexus.GNVariantAnnotationType;
+import org.mskcc.cbio.oncokb.genomenexus.GenomeNexusFetchPipeline;
+import org.mskcc.cbio.oncokb.genomenexus.GenomeNexusAnnotationStore;
 import org.mskcc.cbio.oncokb.model.Gene;
 import org.mskcc.cbio.oncokb.model.ReferenceGenome;
 import org.mskcc.cbio.oncokb.model.VariantConsequence;
@@ -19,6 +22,8 @@ import org.mskcc.cbio.oncokb.model.genomeNexusPreAnnotations.GenomeNexusAnnotate
 import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,6 +43,23 @@ public class GenomeNexusUtils {
     private static final String GN_38_URL = "https://grch38.genomenexus.org";
     private static final int GN_READ_TIMEOUT_OVERRIDE = 30000;
 
+    private static final String ANNOTATION_STORE_PATH_PROPERTY = "genome_nexus.annotation_store.path";
+    private static final String ANNOTATION_STORE_MAX_SIZE_PROPERTY = "genome_nexus.annotation_store.max_size";
+    private static final long DEFAULT_ANNOTATION_STORE_MAX_SIZE_IN_MB = 1024;
+
+    private static final String FETCH_CHUNK_SIZE_PROPERTY = "genome_nexus.fetch.chunk_size";
+    private static final String FETCH_PARALLELISM_PROPERTY = "genome_nexus.fetch.parallelism";
+    private static final String FETCH_MAX_RETRIES_PROPERTY = "genome_nexus.fetch.max_retries";
+    private static final String FETCH_RETRY_BACKOFF_PROPERTY = "genome_nexus.fetch.retry_backoff";
+    private static final int DEFAULT_FETCH_CHUNK_SIZE = 200;
+    private static final int DEFAULT_FETCH_PARALLELISM = 4;
+    private static final int DEFAULT_FETCH_MAX_RETRIES = 2;
+    private static final int DEFAULT_FETCH_RETRY_BACKOFF_IN_MS = 500;
+
+    private static volatile GenomeNexusFetchPipeline fetchPipeline;
+    private static volatile GenomeNexusAnnotationStore annotationStore;
+    private static volatile boolean annotationStoreInitialized = false;
+
     public static String getEnsemblSequencePOSTUrl(ReferenceGenome referenceGenome) {
         return getEnsemblAPIUrl(referenceGenome) + "/sequence/id";
     }
@@ -73,6 +95,92 @@ public class GenomeNexusUtils {
         return transcriptMatchResult;
     }
 
+    /**
+     * The local store of the Genome Nexus annotations, null when the property genome_nexus.annotation_store.path is
+     * not set.
+     */
+    public static GenomeNexusAnnotationStore getAnnotationStore() {
+        if (!annotationStoreInitialized) {
+            synchronized (GenomeNexusUtils.class) {
+                if (!annotationStoreInitialized) {
+                    annotationStore = createAnnotationStore();
+                    annotationStoreInitialized = true;
+                }
+            }
+        }
+        return annotationStore;
+    }
+
+    public static synchronized void setAnnotationStore(GenomeNexusAnnotationStore store) {
+        annotationStore = store;
+        annotationStoreInitialized = true;
+    }
+
+    private static GenomeNexusAnnotationStore createAnnotationStore() {
+        String path = PropertiesUtils.getProperties(ANNOTATION_STORE_PATH_PROPERTY);
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        long maxSizeInMb = DEFAULT_ANNOTATION_STORE_MAX_SIZE_IN_MB;
+        String maxSize = PropertiesUtils.getProperties(ANNOTATION_STORE_MAX_SIZE_PROPERTY);
+        if (StringUtils.isNotEmpty(maxSize)) {
+            try {
+                maxSizeInMb = Long.parseLong(maxSize.trim());
+            } catch (NumberFormatException e) {
+                System.out.println("The " + ANNOTATION_STORE_MAX_SIZE_PROPERTY + " property is not a number, use " + DEFAULT_ANNOTATION_STORE_MAX_SIZE_IN_MB + " instead.");
+            }
+        }
+        if (maxSizeInMb <= 0) {
+            return null;
+        }
+        try {
+            return new FileGenomeNexusAnnotationStore(new File(path.trim()), maxSizeInMb * 1024 * 1024);
+        } catch (IOException e) {
+            System.out.println("The Genome Nexus annotation store is disabled. " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The pipeline every variant annotation request to Genome Nexus goes through, configured with the
+     * genome_nexus.fetch.* properties.
+     */
+    public static GenomeNexusFetchPipeline getFetchPipeline() {
+        if (fetchPipeline == null) {
+            synchronized (GenomeNexusUtils.class) {
+                if (fetchPipeline == null) {
+                    fetchPipeline = new GenomeNexusFetchPipeline(
+                        getIntProperty(FETCH_CHUNK_SIZE_PROPERTY, DEFAULT_FETCH_CHUNK_SIZE, 1),
+                        getIntProperty(FETCH_PARALLELISM_PROPERTY, DEFAULT_FETCH_PARALLELISM, 1),
+                        getIntProperty(FETCH_MAX_RETRIES_PROPERTY, DEFAULT_FETCH_MAX_RETRIES, 0),
+                        getIntProperty(FETCH_RETRY_BACKOFF_PROPERTY, DEFAULT_FETCH_RETRY_BACKOFF_IN_MS, 0)
+                    );
+                }
+            }
+        }
+        return fetchPipeline;
+    }
+
+    public static synchronized void setFetchPipeline(GenomeNexusFetchPipeline pipeline) {
+        if (fetchPipeline != null && fetchPipeline != pipeline) {
+            fetchPipeline.shutdown();
+        }
+        fetchPipeline = pipeline;
+    }
+
+    private static int getIntProperty(String property, int defaultValue, int minValue) {
+        String value = PropertiesUtils.getProperties(property);
+        if (StringUtils.isEmpty(value)) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(minValue, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.out.println("The " + property + " property is not a number, use " + defaultValue + " instead.");
+            return defaultValue;
+        }
+    }
+
     private static ApiClient getGNApiClient(String url) {
         ApiClient client = new ApiClient();
         client.setReadTimeout(GN_READ_TIMEOUT_OVERRIDE);
@@ -290,7 +398,8 @@ public class GenomeNexusUtils {
         if (queries != null) {
             List<String> gnFields = new ArrayList<>();
             gnFields.add("annotation_summary");
-            variantsAnnotation = getAnnotationControllerApi(referenceGenome).fetchVariantAnnotationPOST(queries, MSK_ISOFORM_OVERRIDE, null, gnFields);
+            AnnotationControllerApi api = getAnnotationControllerApi(referenceGenome);
+            variantsAnnotation = getFetchPipeline().fetch(queries, chunk -> api.fetchVariantAnnotationPOST(chunk, MSK_ISOFORM_OVERRIDE, null, gnFields));
         }
         return variantsAnnotation;
     }
@@ -300,7 +409,8 @@ public class GenomeNexusUtils {
         if (queries != null) {
             List<String> gnFields = new ArrayList<>();
             gnFields.add("annotation_summary");
-            variantsAnnotation = getAnnotationControllerApi(referenceGenome).fetchVariantAnnotationByGenomicLocationPOST(queries, MSK_ISOFORM_OVERRIDE, null, gnFields);
+            AnnotationControllerApi api = getAnnotationControllerApi(referenceGenome);
+            variantsAnnotation = getFetchPipeline().fetch(queries, chunk -> api.fetchVariantAnnotationByGenomicLocationPOST(chunk, MSK_ISOFORM_OVERRIDE, null, gnFields));
         }
         return variantsAnnotation;
     }
@@ -0,0 +1,111 @@
+package org.mskcc.cbio.oncokb.util;
+
+import java.util.*;
+
+/**
+ * Genomic ranges by chromosome, each range widened by a buffer on both sides.
+ *
+ * The widened ranges of a chromosome are sorted and overlapping ones are merged, so whether a location intersects
+ * any range is answered with one binary search.
+ */
+public class GenomicIntervalIndex {
+    private final Map<String, Intervals> intervalsByChromosome;
+
+    private GenomicIntervalIndex(Map<String, Intervals> intervalsByChromosome) {
+        this.intervalsByChromosome = Collections.unmodifiableMap(intervalsByChromosome);
+    }
+
+    public boolean isEmpty() {
+        return intervalsByChromosome.isEmpty();
+    }
+
+    public boolean containsChromosome(String chromosome) {
+        return chromosome != null && intervalsByChromosome.containsKey(chromosome);
+    }
+
+    /**
+     * Whether [start, end] intersects any range of the chromosome. A null start or end is treated as unbounded,
+     * same as MainUtils.rangesIntersect.
+     */
+    public boolean intersects(String chromosome, Integer start, Integer end) {
+        Intervals intervals = chromosome == null ? null : intervalsByChromosome.get(chromosome);
+        if (intervals == null) {
+            return false;
+        }
+        return intervals.intersects(start == null ? Integer.MIN_VALUE : start, end == null ? Integer.MAX_VALUE : end);
+    }
+
+    public static class Builder {
+        private final int buffer;
+        private final Map<String, List<long[]>> rangesByChromosome = new HashMap<>();
+
+        /**
+         * @param buffer the number of bases added on both sides of every range, the start does not go below 0
+         */
+        public Builder(int buffer) {
+            this.buffer = buffer;
+        }
+
+        public Builder add(String chromosome, Integer start, Integer end) {
+            if (chromosome != null && start != null && end != null) {
+                long bufferedStart = start > buffer ? (long) start - buffer : 0;
+                long bufferedEnd = (long) end + buffer;
+                rangesByChromosome.computeIfAbsent(chromosome, k -> new ArrayList<>()).add(new long[]{bufferedStart, bufferedEnd});
+            }
+            return this;
+        }
+
+        public GenomicIntervalIndex build() {
+            Map<String, Intervals> intervalsByChromosome = new HashMap<>();
+            for (Map.Entry<String, List<long[]>> entry : rangesByChromosome.entrySet()) {
+                intervalsByChromosome.put(entry.getKey(), new Intervals(entry.getValue()));
+            }
+            return new GenomicIntervalIndex(intervalsByChromosome);
+        }
+    }
+
+    private static class Intervals {
+        // disjoint and sorted, starts[i] <= ends[i] < starts[i + 1]
+        private final long[] starts;
+        private final long[] ends;
+
+        Intervals(List<long[]> ranges) {
+            List<long[]> sorted = new ArrayList<>(ranges);
+            sorted.sort(Comparator.comparingLong(range -> range[0]));
+
+            List<long[]> merged = new ArrayList<>();
+            for (long[] range : sorted) {
+                if (range[0] > range[1]) {
+                    continue;
+                }
+                long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && range[0] <= last[1]) {
+                    last[1] = Math.max(last[1], range[1]);
+                } else {
+                    merged.add(new long[]{range[0], range[1]});
+                }
+            }
+
+            starts = new long[merged.size()];
+            ends = new long[merged.size()];
+            for (int i = 0; i < merged.size(); i++) {
+                starts[i] = merged.get(i)[0];
+                ends[i] = merged.get(i)[1];
+            }
+        }
+
+        boolean intersects(long start, long end) {
+            // the last interval starting at or before the end is the only one that can reach the start
+            int lo = 0, hi = starts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] <= end) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo > 0 && ends[lo - 1] >= start;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.mskcc.cbio.oncokb.util;
+
+import java.util.*;
+
+/**
+ * Residue range index over the hotspots of one gene.
+ *
+ * Hotspots are bucketed by the kind of mutation they can match (single residue, in-frame, splice), 3d hotspots are
+ * left out. Each bucket is sorted by start with the max end of every subtree stored in an implicit binary tree, the
+ * same layout as AlterationPositionIndex, so a lookup only visits the hotspots that can cover the queried range.
+ */
+class HotspotIndex {
+    enum HotspotKind {
+        SINGLE_RESIDUE("single residue"),
+        IN_FRAME("in-frame"),
+        SPLICE("splice");
+
+        private final String type;
+
+        HotspotKind(String type) {
+            this.type = type;
+        }
+    }
+
+    private final Map<HotspotKind, Bucket> buckets = new EnumMap<>(HotspotKind.class);
+
+    HotspotIndex(List<EnrichedHotspot> hotspots) {
+        Map<HotspotKind, List<EnrichedHotspot>> grouped = new EnumMap<>(HotspotKind.class);
+        for (EnrichedHotspot hotspot : hotspots) {
+            if (hotspot.getType() == null || hotspot.getType().equals("3d") || hotspot.getStart() == null || hotspot.getEnd() == null) {
+                continue;
+            }
+            for (HotspotKind kind : HotspotKind.values()) {
+                if (hotspot.getType().contains(kind.type)) {
+                    grouped.computeIfAbsent(kind, k -> new ArrayList<>()).add(hotspot);
+                }
+            }
+        }
+        for (Map.Entry<HotspotKind, List<EnrichedHotspot>> entry : grouped.entrySet()) {
+            buckets.put(entry.getKey(), new Bucket(entry.getValue()));
+        }
+    }
+
+    /**
+     * Hotspots of the kind where start <= maxStart and end >= minEnd.
+     */
+    List<EnrichedHotspot> findByMaxStartAndMinEnd(HotspotKind kind, int maxStart, int minEnd) {
+        Bucket bucket = kind == null ? null : buckets.get(kind);
+        List<EnrichedHotspot> result = new ArrayList<>();
+        if (bucket != null) {
+            bucket.collect(0, bucket.size(), upperBound(bucket.starts, maxStart), minEnd, result);
+        }
+        return result;
+    }
+
+    // first index whose value is > key
+    private static int upperBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static class Bucket {
+        private final EnrichedHotspot[] hotspots;
+        private final int[] starts;
+        private final int[] ends;
+        // maxEnds[mid] is the max end within the subtree [lo, hi) rooted at mid = (lo + hi) / 2
+        private final int[] maxEnds;
+
+        Bucket(List<EnrichedHotspot> bucketHotspots) {
+            List<EnrichedHotspot> sorted = new ArrayList<>(bucketHotspots);
+            sorted.sort(Comparator.comparingInt(EnrichedHotspot::getStart));
+            int size = sorted.size();
+            hotspots = sorted.toArray(new EnrichedHotspot[size]);
+            starts = new int[size];
+            ends = new int[size];
+            maxEnds = new int[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = hotspots[i].getStart();
+                ends[i] = hotspots[i].getEnd();
+            }
+            buildMaxEnds(0, size);
+        }
+
+        int size() {
+            return hotspots.length;
+        }
+
+        private int buildMaxEnds(int lo, int hi) {
+            if (lo >= hi) {
+                return Integer.MIN_VALUE;
+            }
+            int mid = (lo + hi) >>> 1;
+            maxEnds[mid] = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+            return maxEnds[mid];
+        }
+
+        // collect the hotspots in [lo, hi) with index < limit and end >= minEnd
+        private void collect(int lo, int hi, int limit, int minEnd, List<EnrichedHotspot> result) {
+            if (lo >= hi || lo >= limit) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] < minEnd) {
+                return;
+            }
+            collect(lo, mid, limit, minEnd, result);
+            if (mid < limit) {
+                if (ends[mid] >= minEnd) {
+                    result.add(hotspots[mid]);
+                }
+                collect(mid + 1, hi, limit, minEnd, result);
+            }
+        }
+    }
+}
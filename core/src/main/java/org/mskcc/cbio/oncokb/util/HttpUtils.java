@@ -1,18 +1,24 @@
 package org.mskcc.cbio.oncokb.util;
 
+import org.mskcc.cbio.oncokb.apiModels.download.DownloadArtifact;
 import org.mskcc.cbio.oncokb.apiModels.download.FileExtension;
 import org.mskcc.cbio.oncokb.apiModels.download.FileName;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Created by Hongxin on 11/03/16.
@@ -131,4 +137,105 @@ public class HttpUtils {
             return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
+
+    /**
+     * Serve the file of a data release as it is stored, with the media type of the generated file. The body is a
+     * {@link Resource} whatever the declared type of the endpoint.
+     */
+    public static <T> ResponseEntity<T> getDataDownloadResourceResponseEntity(String version, FileName fileName, FileExtension fileExtension, MediaType mediaType) {
+        try {
+            byte[] content = GitHubUtils.getOncoKBDataInBytes(version, fileName.getName() + fileExtension.getExtension());
+            return (ResponseEntity<T>) ResponseEntity.ok()
+                .contentType(mediaType)
+                .contentLength(content.length)
+                .body(new ByteArrayResource(content));
+        } catch (HttpClientErrorException exception) {
+            return new ResponseEntity<>(exception.getStatusCode());
+        } catch (IOException exception) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (NoPropertyException exception) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Serve a generated download file. The gzipped content is sent as is when the client accepts gzip, otherwise
+     * it is decompressed while it is written to the response. A request with the same entity tag in If-None-Match
+     * gets a 304 without a body. The body is a {@link Resource} whatever the declared type of the endpoint.
+     */
+    public static <T> ResponseEntity<T> getDownloadArtifactResponseEntity(DownloadArtifact artifact, MediaType mediaType, String ifNoneMatch, String acceptEncoding) throws IOException {
+        if (matchesEtag(ifNoneMatch, artifact.getEtag())) {
+            return getNotModifiedResponseEntity(artifact.getEtag());
+        }
+        HttpHeaders headers = getDownloadArtifactHeaders(artifact.getEtag());
+        headers.setContentType(mediaType);
+        if (acceptsGzip(acceptEncoding)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.setContentLength(artifact.getGzippedContent().length);
+            return new ResponseEntity<>((T) new ByteArrayResource(artifact.getGzippedContent()), headers, HttpStatus.OK);
+        }
+        headers.setContentLength(artifact.getContentLength());
+        Resource resource = new InputStreamResource(new GZIPInputStream(new ByteArrayInputStream(artifact.getGzippedContent())));
+        return new ResponseEntity<>((T) resource, headers, HttpStatus.OK);
+    }
+
+    public static <T> ResponseEntity<T> getNotModifiedResponseEntity(String etag) {
+        return new ResponseEntity<>(getDownloadArtifactHeaders(etag), HttpStatus.NOT_MODIFIED);
+    }
+
+    private static HttpHeaders getDownloadArtifactHeaders(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return headers;
+    }
+
+    public static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // An explicit gzip coding takes precedence over the wildcard
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip")) {
+                return getQuality(parts) > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = getQuality(parts) > 0;
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static double getQuality(String[] codingParts) {
+        for (int i = 1; i < codingParts.length; i++) {
+            String parameter = codingParts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
 }
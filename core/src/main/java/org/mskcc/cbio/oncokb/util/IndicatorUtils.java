@@ -23,9 +23,53 @@ import static org.mskcc.cbio.oncokb.util.SummaryUtils.getVUSSummary;
  * Created by hongxinzhang on 4/5/16.
  */
 public class IndicatorUtils {
+    private static final Set<EvidenceType> TREATMENT_FIELD_EVIDENCE_TYPES = Collections.unmodifiableSet(
+        // A hotspot without a valid oncogenicity gets the treatments of Oncogenic Mutations, the treatments depend on the oncogenicity
+        Stream.concat(EvidenceTypeUtils.getTreatmentEvidenceTypes().stream(), Stream.of(EvidenceType.ONCOGENIC)).collect(Collectors.toSet())
+    );
+
+    // The evidence types each field of the response is built from. The fields not listed, like lastUpdate, depend on all of them.
+    private static final Map<String, Set<EvidenceType>> EVIDENCE_TYPES_BY_FIELD = new HashMap<String, Set<EvidenceType>>() {{
+        put("query", Collections.emptySet());
+        put("geneExist", Collections.emptySet());
+        put("variantExist", Collections.emptySet());
+        put("alleleExist", Collections.emptySet());
+        put("VUS", Collections.emptySet());
+        put("hotspot", Collections.emptySet());
+        put("dataVersion", Collections.emptySet());
+        put("oncogenic", Collections.singleton(EvidenceType.ONCOGENIC));
+        put("mutationEffect", Collections.singleton(EvidenceType.MUTATION_EFFECT));
+        put("geneSummary", Collections.singleton(EvidenceType.GENE_SUMMARY));
+        put("variantSummary", Collections.singleton(EvidenceType.MUTATION_SUMMARY));
+        put("tumorTypeSummary", Collections.singleton(EvidenceType.TUMOR_TYPE_SUMMARY));
+        put("prognosticSummary", Collections.singleton(EvidenceType.PROGNOSTIC_SUMMARY));
+        put("diagnosticSummary", new HashSet<>(Arrays.asList(EvidenceType.DIAGNOSTIC_SUMMARY, EvidenceType.DIAGNOSTIC_IMPLICATION)));
+        put("diagnosticImplications", Collections.singleton(EvidenceType.DIAGNOSTIC_IMPLICATION));
+        put("highestDiagnosticImplicationLevel", Collections.singleton(EvidenceType.DIAGNOSTIC_IMPLICATION));
+        put("prognosticImplications", Collections.singleton(EvidenceType.PROGNOSTIC_IMPLICATION));
+        put("highestPrognosticImplicationLevel", Collections.singleton(EvidenceType.PROGNOSTIC_IMPLICATION));
+        put("treatments", TREATMENT_FIELD_EVIDENCE_TYPES);
+        put("highestSensitiveLevel", TREATMENT_FIELD_EVIDENCE_TYPES);
+        put("highestResistanceLevel", TREATMENT_FIELD_EVIDENCE_TYPES);
+        put("highestFdaLevel", TREATMENT_FIELD_EVIDENCE_TYPES);
+        put("otherSignificantSensitiveLevels", TREATMENT_FIELD_EVIDENCE_TYPES);
+        put("otherSignificantResistanceLevels", TREATMENT_FIELD_EVIDENCE_TYPES);
+    }};
+
     public static IndicatorQueryResp processQuery(Query query,
                                                   Set<LevelOfEvidence> levels, Boolean highestLevelOnly,
                                                   Set<EvidenceType> evidenceTypes, Boolean geneQueryOnly) {
+        return processQuery(query, levels, highestLevelOnly, evidenceTypes, geneQueryOnly, null);
+    }
+
+    /**
+     * @param fields the comma separated fields of the response the caller uses, same as the fields parameter of the
+     *               API. The sections none of the fields are built from are skipped and left empty in the response.
+     */
+    public static IndicatorQueryResp processQuery(Query query,
+                                                  Set<LevelOfEvidence> levels, Boolean highestLevelOnly,
+                                                  Set<EvidenceType> evidenceTypes, Boolean geneQueryOnly,
+                                                  String fields) {
         highestLevelOnly = highestLevelOnly == null ? false : highestLevelOnly;
 
         levels = levels == null ? LevelUtils.getPublicLevels() :
@@ -39,6 +83,14 @@ public class IndicatorUtils {
             selectedTreatmentEvidence = Sets.intersection(evidenceTypes, EvidenceTypeUtils.getTreatmentEvidenceTypes());
         }
 
+        Set<String> requestedFields = getFields(fields);
+        Set<EvidenceType> fieldEvidenceTypes = getEvidenceTypesByFields(requestedFields);
+        if (fieldEvidenceTypes != null) {
+            evidenceTypes = new HashSet<>(Sets.intersection(evidenceTypes, fieldEvidenceTypes));
+            selectedTreatmentEvidence = new HashSet<>(Sets.intersection(selectedTreatmentEvidence, fieldEvidenceTypes));
+        }
+        boolean includeTreatmentDescriptions = requestedFields == null || requestedFields.contains("treatments");
+
         boolean hasTreatmentEvidence = !selectedTreatmentEvidence.isEmpty();
         boolean hasDiagnosticImplicationEvidence = evidenceTypes.contains(EvidenceType.DIAGNOSTIC_IMPLICATION);
         boolean hasPrognosticImplicationEvidence = evidenceTypes.contains(EvidenceType.PROGNOSTIC_IMPLICATION);
@@ -60,6 +112,9 @@ public class IndicatorUtils {
             return indicatorQuery;
         }
 
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.PROCESS_QUERY);
+        String metricsTag = null;
+
         query.enrich();
 
         // Temporary forward previous production annotation
@@ -154,13 +209,17 @@ public class IndicatorUtils {
             }
         } else {
             gene = GeneUtils.getGene(query.getEntrezGeneId(), query.getHugoSymbol());
+            timer.mark(AnnotationMetrics.GENE_STAGE);
             if (gene != null) {
                 Alteration alt = AlterationUtils.getAlteration(gene.getHugoSymbol(), query.getAlteration(),
                     null, query.getConsequence(), query.getProteinStart(), query.getProteinEnd(), query.getReferenceGenome());
+                timer.mark(AnnotationMetrics.ALTERATION_STAGE);
 
                 relevantAlterations = AlterationUtils.getRelevantAlterations(query.getReferenceGenome(), alt);
             }
         }
+        // The genes of the fusions and structural variants are looked up together with their relevant alterations
+        timer.mark(AnnotationMetrics.RELEVANT_ALTERATIONS_STAGE);
 
         // For fusions
         if (fusionGeneAltsMap.containsKey("hasRelevantAltsGenes")) {
@@ -171,8 +230,9 @@ public class IndicatorUtils {
                     tmpGene.getHugoSymbol(), query.getAlteration(), null, query.getSvType(),
                     query.getTumorType(), query.getConsequence(), query.getProteinStart(),
                     query.getProteinEnd(), query.getHgvs());
-                result.add(IndicatorUtils.processQuery(tmpQuery, levels, highestLevelOnly, evidenceTypes, geneQueryOnly));
+                result.add(IndicatorUtils.processQuery(tmpQuery, levels, highestLevelOnly, evidenceTypes, geneQueryOnly, fields));
             }
+            // The annotation of each gene is recorded on its own
             return result.iterator().next();
         }
 
@@ -192,6 +252,7 @@ public class IndicatorUtils {
                 indicatorQuery.setGeneSummary(SummaryUtils.geneSummary(gene, query.getHugoSymbol()));
                 allQueryRelatedEvidences.addAll(EvidenceUtils.getEvidenceByGeneAndEvidenceTypes(gene, Collections.singleton(EvidenceType.GENE_SUMMARY)));
             }
+            timer.mark(AnnotationMetrics.SUMMARIES_STAGE);
 
             alteration = AlterationUtils.getAlteration(gene.getHugoSymbol(), query.getAlteration(),
                 null, query.getConsequence(), query.getProteinStart(), query.getProteinEnd(), query.getReferenceGenome());
@@ -219,14 +280,18 @@ public class IndicatorUtils {
             // This is for tumor type level info. We do not want to map the alternative alleles on tumor type level
             List<Alteration> relevantAlterationsWithoutAlternativeAlleles = new ArrayList<>(relevantAlterations);
             AlterationUtils.removeAlternativeAllele(query.getReferenceGenome(), matchedAlt, relevantAlterationsWithoutAlternativeAlleles);
+            metricsTag = getMetricsTag(alterationType, matchedAlt);
+            timer.mark(AnnotationMetrics.ALTERATION_STAGE);
 
             indicatorQuery.setHotspot(HotspotUtils.isHotspot(matchedAlt));
+            timer.mark(AnnotationMetrics.HOTSPOT_STAGE);
 
             if (query.getTumorType() != null) {
                 relevantUpwardTumorTypes = TumorTypeUtils.findRelevantTumorTypes(query.getTumorType());
             }
 
             relevantDownwardTumorTypes = TumorTypeUtils.findRelevantTumorTypes(query.getTumorType(), null, RelevantTumorTypeDirection.DOWNWARD);
+            timer.mark(AnnotationMetrics.CANCER_TYPES_STAGE);
 
             indicatorQuery.setVUS(isVUS(matchedAlt));
 
@@ -242,6 +307,7 @@ public class IndicatorUtils {
             } else {
                 indicatorQuery.setAlleleExist(true);
             }
+            timer.mark(AnnotationMetrics.ALTERATION_STAGE);
 
             Set<Evidence> treatmentEvidences = new HashSet<>();
 
@@ -257,6 +323,7 @@ public class IndicatorUtils {
                     if (indicatorQuery.getOncogenic() == null && indicatorQueryOncogenicity.getOncogenicity() != null) {
                         indicatorQuery.setOncogenic(indicatorQueryOncogenicity.getOncogenicity().getOncogenic());
                     }
+                    timer.mark(AnnotationMetrics.ONCOGENICITY_STAGE);
                 }
 
                 if (hasMutationEffectEvidence) {
@@ -284,6 +351,7 @@ public class IndicatorUtils {
                         }
                         indicatorQuery.setMutationEffect(mutationEffectResp);
                     }
+                    timer.mark(AnnotationMetrics.MUTATION_EFFECT_STAGE);
                 }
             }
 
@@ -297,6 +365,7 @@ public class IndicatorUtils {
                         EvidenceUtils.getRelevantEvidences(query, matchedAlt,
                             selectedTreatmentEvidence, levels, relevantAlterationsWithoutAlternativeAlleles, alleles, geneQueryOnly), query.getReferenceGenome(), matchedAlt);
                 }
+                timer.mark(AnnotationMetrics.RELEVANT_EVIDENCES_STAGE);
             }
 
             if (gene != null && hasDiagnosticImplicationEvidence) {
@@ -318,6 +387,7 @@ public class IndicatorUtils {
                     indicatorQuery.setHighestPrognosticImplicationLevel(LevelUtils.getHighestPrognosticImplicationLevel(indicatorQuery.getPrognosticImplications().stream().map(implication -> implication.getLevelOfEvidence()).collect(Collectors.toSet())));
                 }
             }
+            timer.mark(AnnotationMetrics.IMPLICATIONS_STAGE);
 
             // Set hotspot oncogenicity to Likely Oncogenic
             if (indicatorQuery.getHotspot() && !MainUtils.isValidHotspotOncogenicity(Oncogenicity.getByEffect(indicatorQuery.getOncogenic()))) {
@@ -338,6 +408,7 @@ public class IndicatorUtils {
                         }
                     }
                 }
+                timer.mark(AnnotationMetrics.RELEVANT_EVIDENCES_STAGE);
             }
 
             if (hasTreatmentEvidence && treatmentEvidences != null && !treatmentEvidences.isEmpty()) {
@@ -360,16 +431,19 @@ public class IndicatorUtils {
                     if (gene.getHugoSymbol().equals("KIT")) {
                         CustomizeComparator.sortKitTreatment(treatments);
                     }
-                    for (IndicatorQueryTreatment treatment : treatments) {
-                        treatment.setDescription(CplUtils.annotate(
-                            treatment.getDescription(),
-                            query.getHugoSymbol(),
-                            query.getAlteration(),
-                            query.getTumorType(),
-                            query.getReferenceGenome(),
-                            gene,
-                            matchedTumorType
-                        ));
+                    // The descriptions are only annotated when the treatments are part of the response
+                    if (includeTreatmentDescriptions) {
+                        for (IndicatorQueryTreatment treatment : treatments) {
+                            treatment.setDescription(CplUtils.annotate(
+                                treatment.getDescription(),
+                                query.getHugoSymbol(),
+                                query.getAlteration(),
+                                query.getTumorType(),
+                                query.getReferenceGenome(),
+                                gene,
+                                matchedTumorType
+                            ));
+                        }
                     }
                     indicatorQuery.setTreatments(treatments);
                     highestLevels = findHighestLevel(new HashSet<>(treatments));
@@ -378,6 +452,7 @@ public class IndicatorUtils {
                     indicatorQuery.setHighestFdaLevel(LevelUtils.getHighestFdaLevel(treatments.stream().filter(t -> t.getFdaLevel() != null).map(t -> t.getFdaLevel()).collect(Collectors.toSet())));
                     allQueryRelatedEvidences.addAll(treatmentEvidences);
                 }
+                timer.mark(AnnotationMetrics.TREATMENTS_STAGE);
             }
 
             // Tumor type summary
@@ -465,6 +540,7 @@ public class IndicatorUtils {
                     indicatorQuery.setHighestSensitiveLevel(null);
                 }
             }
+            timer.mark(AnnotationMetrics.SUMMARIES_STAGE);
         } else {
             indicatorQuery.setGeneExist(false);
         }
@@ -487,9 +563,51 @@ public class IndicatorUtils {
         if (indicatorQuery.getOncogenic() == null) {
             indicatorQuery.setOncogenic(Oncogenicity.UNKNOWN.getOncogenic());
         }
+        timer.finish(metricsTag == null ? getMetricsTag(alterationType, null) : metricsTag);
         return indicatorQuery;
     }
 
+    /**
+     * @return the structural variant or fusion type of the query, otherwise the consequence of the alteration
+     */
+    private static String getMetricsTag(AlterationType alterationType, Alteration alteration) {
+        if (alterationType == AlterationType.FUSION || alterationType == AlterationType.STRUCTURAL_VARIANT) {
+            return alterationType.name();
+        }
+        if (alteration != null && alteration.getConsequence() != null && alteration.getConsequence().getTerm() != null) {
+            return alteration.getConsequence().getTerm();
+        }
+        if (alteration != null && alteration.getAlterationType() != null) {
+            return alteration.getAlterationType().name();
+        }
+        return alterationType == null ? "UNKNOWN" : alterationType.name();
+    }
+
+    private static Set<String> getFields(String fields) {
+        if (StringUtils.isBlank(fields)) {
+            return null;
+        }
+        return new HashSet<>(Arrays.asList(fields.trim().split("\\s*,\\s*")));
+    }
+
+    /**
+     * @return the evidence types the fields are built from, null when one of the fields depends on all of them
+     */
+    private static Set<EvidenceType> getEvidenceTypesByFields(Set<String> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<EvidenceType> evidenceTypes = new HashSet<>();
+        for (String field : fields) {
+            Set<EvidenceType> fieldEvidenceTypes = EVIDENCE_TYPES_BY_FIELD.get(field);
+            if (fieldEvidenceTypes == null) {
+                return null;
+            }
+            evidenceTypes.addAll(fieldEvidenceTypes);
+        }
+        return evidenceTypes;
+    }
+
     // This should used by only for delins range missense mutation
     private static Alteration pickMatchedAlteration(List<Alteration> alterations, Query originalQuery, Set<LevelOfEvidence> levels, Boolean highestLevelOnly, Set<EvidenceType> evidenceTypes) {
         if (alterations == null || alterations.size() == 0) {
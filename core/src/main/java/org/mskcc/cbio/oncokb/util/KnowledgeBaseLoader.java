@@ -0,0 +1,64 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.apiModels.download.DownloadAvailability;
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Future;
+
+/**
+ * The reads of the cache bootstrap, each one is submitted as its own phase so they run at the same time.
+ *
+ * They run while CacheUtils is being initialized, so none of them may use CacheUtils: a pool thread touching it
+ * waits for the initialization to complete, which waits for the reads. This is also why they are defined here and
+ * not as lambdas of CacheUtils.
+ */
+final class KnowledgeBaseLoader {
+    private KnowledgeBaseLoader() {
+        throw new AssertionError();
+    }
+
+    static Future<Set<Gene>> loadGenes(StartupPhases phases) {
+        return phases.submit("Load genes", () -> new HashSet<>(ApplicationContextSingleton.getGeneBo().findAll()), Set::size);
+    }
+
+    static Future<List<Alteration>> loadAlterations(StartupPhases phases) {
+        return phases.submit("Load alterations", () -> ApplicationContextSingleton.getAlterationBo().findAll(), List::size);
+    }
+
+    static Future<Set<Drug>> loadDrugs(StartupPhases phases) {
+        return phases.submit("Load drugs", () -> new HashSet<>(ApplicationContextSingleton.getDrugBo().findAll()), Set::size);
+    }
+
+    static Future<List<TumorType>> loadCancerTypes(StartupPhases phases) {
+        return phases.submit("Load tumor types", () -> ApplicationContextSingleton.getTumorTypeBo().findAll(), List::size);
+    }
+
+    static Future<List<Evidence>> loadEvidences(StartupPhases phases) {
+        return phases.submit("Load evidences", () -> ApplicationContextSingleton.getEvidenceBo().findAllWithAssociations(), List::size);
+    }
+
+    static Future<Set<String>> loadAbbreviations(StartupPhases phases) {
+        return phases.submit("Cache abbreviation ontology", () -> {
+            NamingUtils.cacheAllAbbreviations();
+            return NamingUtils.getAllAbbreviations();
+        }, Set::size);
+    }
+
+    /**
+     * @return the downloadable files on GitHub, null when they are not available
+     */
+    static Future<List<DownloadAvailability>> loadDownloadAvailability(StartupPhases phases) {
+        return phases.submit("Load downloadable files availability on github", () -> {
+            try {
+                return GitHubUtils.getDownloadAvailability();
+            } catch (IOException e) {
+                System.out.println("There is an issue connecting to GitHub.");
+            } catch (NoPropertyException exception) {
+                System.out.println("The data access token is not available");
+            }
+            return null;
+        }, availabilities -> availabilities == null ? 0 : availabilities.size());
+    }
+}
@@ -0,0 +1,204 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Everything CacheUtils loads from the database at startup, so a node can be started from a file instead.
+ *
+ * File layout: magic, format version, data version length (all 4 bytes), the UTF-8 data version,
+ * payload length, payload CRC32 (both 8 bytes), then the serialized snapshot as payload.
+ * The snapshot is only read when both the format version and the data version match, the file is memory mapped
+ * and the checksum is verified before anything is deserialized. The file is written to a temporary file first
+ * and moved in place, so a reader never sees a partial snapshot.
+ *
+ * The entities are serialized as one object graph, the alterations, drugs and tumor types shared between
+ * the evidences are still shared after the snapshot is read.
+ */
+class KnowledgeBaseSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x4f4b4253;
+    // Increase when the layout or any of the serialized models changes in an incompatible way
+    static final int FORMAT_VERSION = 1;
+
+    private final String dataVersion;
+    private final Set<Gene> genes;
+    private final List<Alteration> alterations;
+    private final Set<Drug> drugs;
+    private final List<TumorType> cancerTypes;
+    private final List<Evidence> evidences;
+    // The resolved relevant cancer types by evidence id
+    private final Map<Integer, Set<TumorType>> relevantCancerTypes;
+
+    KnowledgeBaseSnapshot(String dataVersion, Set<Gene> genes, List<Alteration> alterations, Set<Drug> drugs, List<TumorType> cancerTypes, List<Evidence> evidences, Map<Integer, Set<TumorType>> relevantCancerTypes) {
+        this.dataVersion = dataVersion;
+        this.genes = new HashSet<>(genes);
+        this.alterations = new ArrayList<>(alterations);
+        this.drugs = new HashSet<>(drugs);
+        this.cancerTypes = new ArrayList<>(cancerTypes);
+        this.evidences = new ArrayList<>(evidences);
+        this.relevantCancerTypes = new HashMap<>(relevantCancerTypes);
+    }
+
+    String getDataVersion() {
+        return dataVersion;
+    }
+
+    Set<Gene> getGenes() {
+        return genes;
+    }
+
+    List<Alteration> getAlterations() {
+        return alterations;
+    }
+
+    Set<Drug> getDrugs() {
+        return drugs;
+    }
+
+    List<TumorType> getCancerTypes() {
+        return cancerTypes;
+    }
+
+    List<Evidence> getEvidences() {
+        return evidences;
+    }
+
+    Map<Integer, Set<TumorType>> getRelevantCancerTypes() {
+        return relevantCancerTypes;
+    }
+
+    static void write(File file, KnowledgeBaseSnapshot snapshot) throws IOException {
+        byte[] dataVersion = snapshot.getDataVersion().getBytes(StandardCharsets.UTF_8);
+        int headerSize = 4 + 4 + 4 + dataVersion.length + 8 + 8;
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the directory of the snapshot " + file.getAbsolutePath());
+        }
+        File tmpFile = new File(directory, file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(headerSize);
+            CRC32 crc = new CRC32();
+            // flushed instead of closed, closing the stream would close the channel before the header is written
+            ObjectOutputStream objectStream = new ObjectOutputStream(new BufferedOutputStream(new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            objectStream.writeObject(snapshot);
+            objectStream.flush();
+            long payloadLength = channel.position() - headerSize;
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dataVersion.length).put(dataVersion).putLong(payloadLength).putLong(crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the snapshot, null when the file does not exist or it is not a snapshot of the data version
+     * @throws IOException when the file is a snapshot of the data version but it cannot be read
+     */
+    static KnowledgeBaseSnapshot read(File file, String dataVersion) throws IOException {
+        if (dataVersion == null || !file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                System.out.println("The file " + file.getAbsolutePath() + " is not a snapshot.");
+                return null;
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                System.out.println("The snapshot format version " + formatVersion + " does not match " + FORMAT_VERSION);
+                return null;
+            }
+            int dataVersionLength = buffer.getInt();
+            if (dataVersionLength < 0 || buffer.remaining() < dataVersionLength + 16) {
+                throw new IOException("The snapshot header is corrupted");
+            }
+            byte[] snapshotDataVersion = new byte[dataVersionLength];
+            buffer.get(snapshotDataVersion);
+            if (!dataVersion.equals(new String(snapshotDataVersion, StandardCharsets.UTF_8))) {
+                System.out.println("The snapshot data version " + new String(snapshotDataVersion, StandardCharsets.UTF_8) + " does not match " + dataVersion);
+                return null;
+            }
+            long payloadLength = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (payloadLength != buffer.remaining()) {
+                throw new IOException("The snapshot is truncated");
+            }
+
+            ByteBuffer payload = buffer.slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException("The snapshot checksum does not match");
+            }
+
+            try (ObjectInputStream objectStream = new ObjectInputStream(new ByteBufferInputStream(payload))) {
+                KnowledgeBaseSnapshot snapshot = (KnowledgeBaseSnapshot) objectStream.readObject();
+                if (!dataVersion.equals(snapshot.getDataVersion())) {
+                    throw new IOException("The snapshot payload does not match its header");
+                }
+                return snapshot;
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("The snapshot cannot be deserialized: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int length = Math.min(len, buffer.remaining());
+            buffer.get(b, off, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long n) {
+            int length = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
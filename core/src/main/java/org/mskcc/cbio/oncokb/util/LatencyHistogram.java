@@ -0,0 +1,133 @@
+package org.mskcc.cbio.oncokb.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram with power of two microsecond buckets, from 1 microsecond up to about 34 seconds.
+ * The percentiles are the upper bound of the bucket they fall in, so they are within a factor of two of the real
+ * value, which is enough to tell where the time goes.
+ */
+public class LatencyHistogram {
+    static final int NUM_OF_BUCKETS = 26;
+
+    private final LongAdder[] buckets = new LongAdder[NUM_OF_BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        buckets[getBucket(nanos)].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public Snapshot getSnapshot() {
+        long[] bucketCounts = new long[NUM_OF_BUCKETS];
+        long numOfRecords = 0;
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            bucketCounts[i] = buckets[i].sum();
+            numOfRecords += bucketCounts[i];
+        }
+        long max = maxNanos.get();
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.count = numOfRecords;
+        snapshot.total = toMillis(totalNanos.sum());
+        snapshot.mean = numOfRecords == 0 ? 0 : toMillis(totalNanos.sum() / numOfRecords);
+        snapshot.max = toMillis(max);
+        snapshot.p50 = toMillis(getPercentile(bucketCounts, numOfRecords, 0.5, max));
+        snapshot.p90 = toMillis(getPercentile(bucketCounts, numOfRecords, 0.9, max));
+        snapshot.p99 = toMillis(getPercentile(bucketCounts, numOfRecords, 0.99, max));
+        return snapshot;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    // The bucket i holds the latencies up to 2^i microseconds
+    static int getBucket(long nanos) {
+        long micros = (nanos + 999) / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(NUM_OF_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros - 1));
+    }
+
+    static long getBucketUpperBound(int bucket) {
+        return (1L << bucket) * 1000;
+    }
+
+    private static long getPercentile(long[] bucketCounts, long numOfRecords, double percentile, long max) {
+        if (numOfRecords == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(numOfRecords * percentile);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    /**
+     * The latencies are in milliseconds
+     */
+    public static class Snapshot {
+        private long count;
+        private double total;
+        private double mean;
+        private double max;
+        private double p50;
+        private double p90;
+        private double p99;
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotal() {
+            return total;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.util.regex.Pattern;
  * Created by Hongxin Zhang on 4/5/16.
  */
 public class MainUtils {
+    private static final Pattern UPPERCASE_ALTERATION_NAME = Pattern.compile("[A-Z]{2,}|\\b[A-Z]+\\b");
     private static final List<Oncogenicity> PRIORITIZED_ONCOGENICITY = Collections.unmodifiableList(
         Arrays.asList(
             Oncogenicity.UNKNOWN,
@@ -825,8 +826,7 @@ public class MainUtils {
     }
 
     public static String lowerCaseAlterationName(String text) {
-        Pattern pattern = Pattern.compile("[A-Z]{2,}|\\b[A-Z]+\\b");
-        Matcher matcher = pattern.matcher(text);
+        Matcher matcher = UPPERCASE_ALTERATION_NAME.matcher(text);
         StringBuilder sb = new StringBuilder();
         int currentIndex = 0;
         while (matcher.find()) {
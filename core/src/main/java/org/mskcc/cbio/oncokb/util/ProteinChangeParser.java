@@ -0,0 +1,670 @@
+package org.mskcc.cbio.oncokb.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.mskcc.cbio.oncokb.model.AlterationPositionBoundary;
+
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+
+import static org.mskcc.cbio.oncokb.Constants.*;
+
+/**
+ * Parses the protein change of a query into the consequence, the reference and variant residues and the protein
+ * position, the way AlterationUtils.annotateAlteration interprets it.
+ *
+ * The protein change is split once into runs of letters, runs of digits and single other characters. The shapes are
+ * then tried in the same order as the regular expressions they replace, each one on the runs, and most of them are
+ * ruled out by the first run or two.
+ *
+ * The parsed results are immutable and memoized by the raw protein change.
+ */
+public final class ProteinChangeParser {
+    private static final int MAXIMUM_CACHE_SIZE = 50000;
+
+    private static final Cache<String, ParsedProteinChange> cache = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_CACHE_SIZE)
+        .build();
+
+    private ProteinChangeParser() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @param proteinChange the protein change, with or without the p. prefix and the exclusion criteria
+     * @return the parsed protein change, never null
+     */
+    public static ParsedProteinChange parse(String proteinChange) {
+        String key = proteinChange == null ? "" : proteinChange;
+        try {
+            return cache.get(key, () -> doParse(key));
+        } catch (ExecutionException e) {
+            // the parser only throws unchecked exceptions
+            throw new IllegalStateException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    static ParsedProteinChange doParse(String proteinChange) {
+        if (proteinChange.startsWith("p.")) {
+            proteinChange = proteinChange.substring(2);
+        }
+
+        if (proteinChange.indexOf("[") != -1) {
+            proteinChange = proteinChange.substring(0, proteinChange.indexOf("["));
+        }
+
+        // we need to deal with the exclusion format so the protein change can properly be interpreted.
+        String excludedStr = "";
+        if (proteinChange.indexOf('(') != -1 || proteinChange.indexOf('{') != -1) {
+            Matcher exclusionMatch = AlterationUtils.getExclusionCriteriaMatcher(proteinChange);
+            if (exclusionMatch.matches()) {
+                proteinChange = exclusionMatch.group(1);
+                excludedStr = exclusionMatch.group(3).trim();
+            }
+        }
+
+        proteinChange = proteinChange.trim();
+
+        ParsedProteinChange parsed = new ParsedProteinChange(proteinChange, excludedStr);
+        parseShape(parsed, new Tokens(proteinChange));
+
+        // truncating
+        if (proteinChange.equalsIgnoreCase("truncating mutation") || proteinChange.equalsIgnoreCase("truncating mutations")) {
+            parsed.consequence = "feature_truncation";
+        }
+        return parsed;
+    }
+
+    private static void parseShape(ParsedProteinChange parsed, Tokens tokens) {
+        if (parseIndel(parsed, tokens)) {
+            return;
+        }
+        if (parseSplice(parsed, tokens)) {
+            return;
+        }
+        if (parseRange(parsed, tokens)) {
+            return;
+        }
+        if (parseFrameshift(parsed, tokens)) {
+            return;
+        }
+        if (parsePositionalIndel(parsed, tokens)) {
+            return;
+        }
+        if (parseStartExtension(parsed, tokens)) {
+            return;
+        }
+        if (parseStopExtension(parsed, tokens)) {
+            return;
+        }
+        if (parseSynonymous(parsed, tokens)) {
+            return;
+        }
+        parseSubstitution(parsed, tokens);
+    }
+
+    /**
+     * ([A-Z]?)([0-9]+)(_[A-Z]?([0-9]+))?(delins|ins|del)([A-Z0-9\*]*)
+     */
+    private static boolean parseIndel(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        String ref = "";
+        if (tokens.isResidue(i)) {
+            ref = tokens.text(i++);
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int start = i++;
+        int end = -1;
+        if (tokens.is(i, '_')) {
+            int j = i + 1;
+            if (tokens.isResidue(j)) {
+                j++;
+            }
+            if (!tokens.isDigits(j)) {
+                return false;
+            }
+            end = j;
+            i = j + 1;
+        }
+        if (!tokens.isLetters(i)) {
+            return false;
+        }
+        String letters = tokens.text(i);
+        int typeLength;
+        if (letters.regionMatches(true, 0, "delins", 0, 6)) {
+            typeLength = 6;
+        } else if (letters.regionMatches(true, 0, "ins", 0, 3) || letters.regionMatches(true, 0, "del", 0, 3)) {
+            typeLength = 3;
+        } else {
+            return false;
+        }
+        for (int j = i + 1; j < tokens.size(); j++) {
+            if (!tokens.isLetters(j) && !tokens.isDigits(j) && !tokens.is(j, '*')) {
+                return false;
+            }
+        }
+
+        if (end == -1) {
+            // we only want to specify reference when it's one position ins/del
+            parsed.ref = ref.toUpperCase();
+        }
+        parsed.start = Integer.valueOf(tokens.text(start));
+        if (end != -1) {
+            parsed.end = Integer.valueOf(tokens.text(end));
+        } else {
+            parsed.end = parsed.start;
+        }
+        String type = letters.substring(0, typeLength);
+        if (type.equals("ins")) {
+            parsed.consequence = IN_FRAME_INSERTION;
+        } else if (type.equals("del")) {
+            parsed.consequence = IN_FRAME_DELETION;
+        } else {
+            // this will be delins, it requires AA after delins to be specified, otherwise, you won't be able to know its consequence
+            Integer deletion = parsed.end - parsed.start + 1;
+            String groupSix = tokens.textFrom(i, typeLength);
+            String groupSixWithoutDigits = MainUtils.removeDigits(groupSix);
+
+            if (groupSixWithoutDigits.contains("*")) {
+                parsed.consequence = "stop_gained";
+            } else if (groupSixWithoutDigits.length() != groupSix.length() && groupSixWithoutDigits.length() > 0) {
+                if (groupSixWithoutDigits.length() > deletion) {
+                    parsed.consequence = IN_FRAME_INSERTION;
+                } else {
+                    parsed.consequence = "NA";
+                }
+            } else {
+                Integer insertion = groupSix.length();
+                if (groupSixWithoutDigits.length() == 0 && insertion > 0) {
+                    insertion = Integer.parseInt(groupSix);
+                }
+                if (insertion == 0) {
+                    parsed.consequence = "NA";
+                } else if (insertion - deletion > 0) {
+                    parsed.consequence = IN_FRAME_INSERTION;
+                } else if (insertion - deletion == 0) {
+                    parsed.consequence = MISSENSE_VARIANT;
+                } else {
+                    parsed.consequence = IN_FRAME_DELETION;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * [A-Z]?([0-9]+)(_[A-Z]?([0-9]+))?(_)?splice
+     */
+    private static boolean parseSplice(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        if (tokens.isResidue(i)) {
+            i++;
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int start = i++;
+        int end = start;
+        if (tokens.is(i, '_')) {
+            int j = i + 1;
+            if (tokens.isResidue(j)) {
+                j++;
+            }
+            if (tokens.isDigits(j)) {
+                end = j;
+                i = j + 1;
+            }
+        }
+        if (tokens.is(i, '_')) {
+            i++;
+        }
+        if (!tokens.isLast(i) || !tokens.isLetters(i) || !tokens.text(i).equalsIgnoreCase("splice")) {
+            return false;
+        }
+        parsed.start = Integer.valueOf(tokens.text(start));
+        parsed.end = Integer.valueOf(tokens.text(end));
+        parsed.consequence = "splice_region_variant";
+        return true;
+    }
+
+    /**
+     * [A-Z]?([0-9]+)_[A-Z]?([0-9]+)(.+)
+     */
+    private static boolean parseRange(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        if (tokens.isResidue(i)) {
+            i++;
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int start = i++;
+        if (!tokens.is(i++, '_')) {
+            return false;
+        }
+        if (tokens.isResidue(i)) {
+            i++;
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        String end = tokens.text(i);
+        String type;
+        if (tokens.isLast(i)) {
+            // the type takes at least one character, the last digit when nothing follows
+            if (end.length() == 1) {
+                return false;
+            }
+            type = end.substring(end.length() - 1);
+            end = end.substring(0, end.length() - 1);
+        } else {
+            type = tokens.textFrom(i + 1, 0);
+            if (hasLineTerminator(type)) {
+                return false;
+            }
+        }
+        parsed.start = Integer.valueOf(tokens.text(start));
+        parsed.end = Integer.valueOf(end);
+        switch (type.toLowerCase()) {
+            case "mis":
+                parsed.consequence = MISSENSE_VARIANT;
+                break;
+            case "ins":
+                parsed.consequence = IN_FRAME_INSERTION;
+                break;
+            case "del":
+                parsed.consequence = IN_FRAME_DELETION;
+                break;
+            case "fs":
+                parsed.consequence = FRAMESHIFT_VARIANT;
+                break;
+            case "trunc":
+                parsed.consequence = "feature_truncation";
+                break;
+            case "dup":
+                parsed.consequence = IN_FRAME_INSERTION;
+                break;
+            case "mut":
+                parsed.consequence = "any";
+        }
+        return true;
+    }
+
+    /**
+     * ([A-Z\*]+)?([0-9]+)([A-Z])?fs(\*([0-9]+|\?)?)?, same as AlterationUtils.parseFrameshiftVariant
+     */
+    private static boolean parseFrameshift(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        while (tokens.isLetters(i) || tokens.is(i, '*')) {
+            i++;
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        String ref = tokens.textBefore(i);
+        int start = i++;
+        if (!tokens.isLetters(i)) {
+            return false;
+        }
+        String letters = tokens.text(i++);
+        if (!letters.equalsIgnoreCase("fs") && !(letters.length() == 3 && letters.regionMatches(true, 1, "fs", 0, 2))) {
+            return false;
+        }
+        if (i < tokens.size()) {
+            if (!tokens.is(i++, '*')) {
+                return false;
+            }
+            if (tokens.isDigits(i) || tokens.is(i, '?')) {
+                i++;
+            }
+            if (i < tokens.size()) {
+                return false;
+            }
+        }
+        parsed.ref = ref.toUpperCase();
+        parsed.start = Integer.valueOf(tokens.text(start));
+        parsed.end = parsed.start;
+        parsed.consequence = FRAMESHIFT_VARIANT;
+        return true;
+    }
+
+    /**
+     * ([A-Z]+)?([0-9]+)((ins)|(del)|(dup)|(mut))
+     */
+    private static boolean parsePositionalIndel(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        String ref = null;
+        if (tokens.isLetters(i)) {
+            ref = tokens.text(i++).toUpperCase();
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int start = i++;
+        if (!tokens.isLast(i) || !tokens.isLetters(i)) {
+            return false;
+        }
+        String consequence;
+        switch (tokens.text(i).toLowerCase()) {
+            case "ins":
+            case "dup":
+                consequence = IN_FRAME_INSERTION;
+                break;
+            case "del":
+                consequence = IN_FRAME_DELETION;
+                break;
+            case "mut":
+                consequence = "any";
+                break;
+            default:
+                return false;
+        }
+        parsed.ref = ref;
+        parsed.start = Integer.valueOf(tokens.text(start));
+        parsed.end = parsed.start;
+        parsed.consequence = consequence;
+        return true;
+    }
+
+    /**
+     * M?1ext(-[0-9]+)?
+     */
+    private static boolean parseStartExtension(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        if (tokens.isLetters(i) && tokens.text(i).equalsIgnoreCase("m")) {
+            i++;
+        }
+        if (!tokens.isDigits(i) || !tokens.text(i++).equals("1")) {
+            return false;
+        }
+        if (!tokens.isLetters(i) || !tokens.text(i++).equalsIgnoreCase("ext")) {
+            return false;
+        }
+        if (i < tokens.size() && !(tokens.is(i, '-') && tokens.isDigits(i + 1) && tokens.isLast(i + 1))) {
+            return false;
+        }
+        parsed.start = 1;
+        parsed.end = parsed.start;
+        parsed.consequence = IN_FRAME_INSERTION;
+        return true;
+    }
+
+    /**
+     * (\*)?([0-9]+)[A-Z]?ext([A-Z]+)?\*([0-9]+)?(\?)?
+     *
+     * support extension variant (https://varnomen.hgvs.org/recommendations/protein/variant/extension/)
+     * the following examples are supported
+     * *959Qext*14
+     * *110Gext*17
+     * *315TextALGT*
+     * *327Aext*?
+     */
+    private static boolean parseStopExtension(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        String ref = "";
+        if (tokens.is(i, '*')) {
+            ref = tokens.text(i++);
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int start = i++;
+        if (!tokens.isLetters(i)) {
+            return false;
+        }
+        String letters = tokens.text(i++);
+        if (!letters.regionMatches(true, 0, "ext", 0, 3) && !(letters.length() > 3 && letters.regionMatches(true, 1, "ext", 0, 3))) {
+            return false;
+        }
+        if (!tokens.is(i++, '*')) {
+            return false;
+        }
+        if (tokens.isDigits(i)) {
+            i++;
+        }
+        if (tokens.is(i, '?')) {
+            i++;
+        }
+        if (i < tokens.size()) {
+            return false;
+        }
+        parsed.ref = ref;
+        parsed.start = Integer.valueOf(tokens.text(start));
+        parsed.end = parsed.start;
+        parsed.consequence = "stop_lost";
+        return true;
+    }
+
+    /**
+     * ([A-Z\*])?([0-9]+)=
+     */
+    private static boolean parseSynonymous(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        String ref = "";
+        if (tokens.isResidue(i) || tokens.is(i, '*')) {
+            ref = tokens.text(i++).toUpperCase();
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int start = i++;
+        if (!tokens.isLast(i) || !tokens.is(i, '=')) {
+            return false;
+        }
+        parsed.var = parsed.ref = ref;
+        parsed.start = Integer.valueOf(tokens.text(start));
+        parsed.end = parsed.start;
+        if (parsed.ref.equals("*")) {
+            parsed.consequence = "stop_retained_variant";
+        } else {
+            parsed.consequence = "synonymous_variant";
+        }
+        return true;
+    }
+
+    /**
+     * ([A-Z\*]+)?([0-9]+)([A-Z\*\?]*)
+     */
+    private static boolean parseSubstitution(ParsedProteinChange parsed, Tokens tokens) {
+        int i = 0;
+        while (tokens.isLetters(i) || tokens.is(i, '*')) {
+            i++;
+        }
+        if (!tokens.isDigits(i)) {
+            return false;
+        }
+        int position = i++;
+        for (int j = i; j < tokens.size(); j++) {
+            if (!tokens.isLetters(j) && !tokens.is(j, '*') && !tokens.is(j, '?')) {
+                return false;
+            }
+        }
+
+        String ref = tokens.textBefore(position).toUpperCase();
+        String var = tokens.textFrom(i, 0).toUpperCase();
+        parsed.ref = ref;
+        parsed.var = var;
+        parsed.start = Integer.valueOf(tokens.text(position));
+        parsed.end = parsed.start;
+
+        int refL = ref.length();
+        int varL = var.length();
+
+        if (ref.equals("*")) {
+            parsed.consequence = "stop_lost";
+        } else if (var.equals("*")) {
+            parsed.consequence = "stop_gained";
+        } else if (ref.equalsIgnoreCase(var)) {
+            parsed.consequence = "synonymous_variant";
+        } else if (parsed.start == 1) {
+            parsed.consequence = "start_lost";
+        } else if (var.equals("?")) {
+            parsed.consequence = "any";
+        } else {
+            parsed.end = parsed.start + refL - 1;
+            if (refL > 1 || varL > 1) {
+                // Handle in-frame insertion/deletion event. Exp: IK744K
+                if (refL > varL) {
+                    parsed.consequence = IN_FRAME_DELETION;
+                } else if (refL < varL) {
+                    parsed.consequence = IN_FRAME_INSERTION;
+                } else {
+                    parsed.consequence = MISSENSE_VARIANT;
+                }
+            } else if (refL == 1 && varL == 1) {
+                parsed.consequence = MISSENSE_VARIANT;
+            } else {
+                parsed.consequence = "NA";
+            }
+        }
+        return true;
+    }
+
+    // What . does not match
+    private static boolean hasLineTerminator(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The runs of ASCII letters, the runs of digits and every other character on its own, in one pass over the text.
+     * An index past the last token is none of them.
+     */
+    private static final class Tokens {
+        private static final byte LETTERS = 0;
+        private static final byte DIGITS = 1;
+        private static final byte OTHER = 2;
+
+        private final String text;
+        private final byte[] kinds;
+        private final int[] starts;
+        private int size = 0;
+
+        private Tokens(String text) {
+            this.text = text;
+            this.kinds = new byte[text.length()];
+            this.starts = new int[text.length() + 1];
+            byte previous = OTHER;
+            for (int i = 0; i < text.length(); i++) {
+                byte kind = kindOf(text.charAt(i));
+                if (kind == OTHER || kind != previous) {
+                    kinds[size] = kind;
+                    starts[size++] = i;
+                }
+                previous = kind;
+            }
+            starts[size] = text.length();
+        }
+
+        private static byte kindOf(char c) {
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                return LETTERS;
+            }
+            if (c >= '0' && c <= '9') {
+                return DIGITS;
+            }
+            return OTHER;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isLast(int index) {
+            return index == size - 1;
+        }
+
+        boolean isLetters(int index) {
+            return index < size && kinds[index] == LETTERS;
+        }
+
+        // A single residue letter
+        boolean isResidue(int index) {
+            return isLetters(index) && starts[index + 1] - starts[index] == 1;
+        }
+
+        boolean isDigits(int index) {
+            return index < size && kinds[index] == DIGITS;
+        }
+
+        boolean is(int index, char c) {
+            return index < size && kinds[index] == OTHER && text.charAt(starts[index]) == c;
+        }
+
+        String text(int index) {
+            return text.substring(starts[index], starts[index + 1]);
+        }
+
+        // The text of the tokens before the index
+        String textBefore(int index) {
+            return text.substring(0, starts[index]);
+        }
+
+        // The text from the offset in the token at the index to the end
+        String textFrom(int index, int offset) {
+            return text.substring(starts[index] + offset);
+        }
+    }
+
+    /**
+     * The protein change as annotateAlteration interprets it. The fields are only written while parsing.
+     */
+    public static final class ParsedProteinChange {
+        private final String proteinChange;
+        private final String excludedStr;
+        private String consequence = "NA";
+        private String ref = null;
+        private String var = null;
+        private Integer start = AlterationPositionBoundary.START.getValue();
+        private Integer end = AlterationPositionBoundary.END.getValue();
+
+        private ParsedProteinChange(String proteinChange, String excludedStr) {
+            this.proteinChange = proteinChange;
+            this.excludedStr = excludedStr;
+        }
+
+        /**
+         * @return the protein change without the p. prefix, the exclusion criteria and the surrounding spaces
+         */
+        public String getProteinChange() {
+            return proteinChange;
+        }
+
+        /**
+         * @return the exclusion criteria, empty when there is none
+         */
+        public String getExcludedStr() {
+            return excludedStr;
+        }
+
+        public String getConsequence() {
+            return consequence;
+        }
+
+        public String getRefResidues() {
+            return ref;
+        }
+
+        public String getVariantResidues() {
+            return var;
+        }
+
+        public Integer getProteinStart() {
+            return start;
+        }
+
+        public Integer getProteinEnd() {
+            return end;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.apiModels.StartupReport;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs the phases of the cache bootstrap and records them in a StartupReport.
+ *
+ * The phases which do not depend on anything else are submitted to a pool and run at the same time, the phases
+ * which need their results run on the calling thread once the results they wait for are available.
+ */
+class StartupPhases {
+    private final long start = System.currentTimeMillis();
+    private final List<StartupReport.Phase> phases = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService executor;
+
+    @FunctionalInterface
+    interface Phase {
+        void run() throws Exception;
+    }
+
+    StartupPhases() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cache-startup-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start the phase on the pool.
+     *
+     * @param counter the number of objects of the result, null if it is not relevant
+     */
+    <T> Future<T> submit(String name, Callable<T> phase, ToIntFunction<T> counter) {
+        return executor.submit(() -> record(name, phase, counter));
+    }
+
+    /**
+     * @return the result of a submitted phase, once it is done
+     */
+    <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Run the phase on the calling thread.
+     *
+     * @param count the number of objects of the phase, null if it is not relevant
+     */
+    void run(String name, Phase phase, Integer count) throws Exception {
+        record(name, () -> {
+            phase.run();
+            return null;
+        }, count == null ? null : result -> count);
+    }
+
+    /**
+     * Stop the pool, the phases still running are not waited for and are not part of the report.
+     */
+    StartupReport finish() {
+        executor.shutdownNow();
+        StartupReport report = new StartupReport();
+        report.setDuration(System.currentTimeMillis() - start);
+        synchronized (phases) {
+            List<StartupReport.Phase> sortedPhases = new ArrayList<>(phases);
+            sortedPhases.sort(Comparator.comparing(StartupReport.Phase::getStart));
+            report.setPhases(sortedPhases);
+        }
+        return report;
+    }
+
+    private <T> T record(String name, Callable<T> phase, ToIntFunction<T> counter) throws Exception {
+        StartupReport.Phase report = new StartupReport.Phase();
+        report.setName(name);
+        report.setThread(Thread.currentThread().getName());
+        long phaseStart = System.currentTimeMillis();
+        report.setStart(phaseStart - start);
+        try {
+            T result = phase.call();
+            if (counter != null) {
+                report.setCount(counter.applyAsInt(result));
+            }
+            return result;
+        } catch (Exception e) {
+            report.setFailed(true);
+            throw e;
+        } finally {
+            report.setDuration(System.currentTimeMillis() - phaseStart);
+            phases.add(report);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.mskcc.cbio.oncokb.util;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Case insensitive substring search over the terms of a list of values.
+ *
+ * Every substring of up to GRAM_LENGTH characters of a term is indexed. A short query is looked up directly, a longer
+ * one only checks the terms containing its least common gram. The matches are returned once each, in the order of
+ * the values the index was built with, so the result is the same as scanning the values with a contains check.
+ */
+public class SubstringIndex<T> {
+    static final int GRAM_LENGTH = 3;
+    private static final int[] NO_TERMS = new int[0];
+
+    private final List<T> values;
+    private final String[] terms;
+    // The index of the value of each term, the terms are ordered by their value
+    private final int[] termValues;
+    private final Map<String, int[]> termsByGram;
+
+    public SubstringIndex(Collection<T> values, Function<T, Collection<String>> termsFunction) {
+        this.values = new ArrayList<>(values);
+
+        List<String> allTerms = new ArrayList<>();
+        List<Integer> allTermValues = new ArrayList<>();
+        for (int i = 0; i < this.values.size(); i++) {
+            Collection<String> valueTerms = termsFunction.apply(this.values.get(i));
+            if (valueTerms == null) {
+                continue;
+            }
+            for (String term : valueTerms) {
+                if (term != null && !term.isEmpty()) {
+                    allTerms.add(term.toLowerCase(Locale.ROOT));
+                    allTermValues.add(i);
+                }
+            }
+        }
+        this.terms = allTerms.toArray(new String[0]);
+        this.termValues = new int[allTermValues.size()];
+        for (int i = 0; i < this.termValues.length; i++) {
+            this.termValues[i] = allTermValues.get(i);
+        }
+
+        Map<String, List<Integer>> gramTerms = new HashMap<>();
+        for (int termIndex = 0; termIndex < this.terms.length; termIndex++) {
+            String term = this.terms[termIndex];
+            for (int start = 0; start < term.length(); start++) {
+                for (int end = start + 1; end <= Math.min(term.length(), start + GRAM_LENGTH); end++) {
+                    List<Integer> termIndexes = gramTerms.computeIfAbsent(term.substring(start, end), k -> new ArrayList<>());
+                    // a gram can appear more than once in the same term
+                    if (termIndexes.isEmpty() || termIndexes.get(termIndexes.size() - 1) != termIndex) {
+                        termIndexes.add(termIndex);
+                    }
+                }
+            }
+        }
+        this.termsByGram = new HashMap<>(gramTerms.size());
+        for (Map.Entry<String, List<Integer>> entry : gramTerms.entrySet()) {
+            int[] termIndexes = new int[entry.getValue().size()];
+            for (int i = 0; i < termIndexes.length; i++) {
+                termIndexes[i] = entry.getValue().get(i);
+            }
+            this.termsByGram.put(entry.getKey(), termIndexes);
+        }
+    }
+
+    /**
+     * @return the values with at least one term containing the query, ignoring case
+     */
+    public List<T> search(String query) {
+        List<T> result = new ArrayList<>();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+        int lastValue = -1;
+        for (int termIndex : getCandidateTerms(lowerCaseQuery)) {
+            int value = termValues[termIndex];
+            if (value != lastValue && terms[termIndex].contains(lowerCaseQuery)) {
+                result.add(values.get(value));
+                lastValue = value;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    private int[] getCandidateTerms(String query) {
+        if (query.length() <= GRAM_LENGTH) {
+            return termsByGram.getOrDefault(query, NO_TERMS);
+        }
+        int[] candidates = null;
+        for (int start = 0; start + GRAM_LENGTH <= query.length(); start++) {
+            int[] termIndexes = termsByGram.get(query.substring(start, start + GRAM_LENGTH));
+            if (termIndexes == null) {
+                return NO_TERMS;
+            }
+            if (candidates == null || termIndexes.length < candidates.length) {
+                candidates = termIndexes;
+            }
+        }
+        return candidates;
+    }
+}
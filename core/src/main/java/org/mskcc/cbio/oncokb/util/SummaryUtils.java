@@ -21,6 +21,7 @@ import static org.mskcc.cbio.oncokb.util.MainUtils.manuallyAssignedTruncatingMut
  * Created by Hongxin on 8/10/15.
  */
 public class SummaryUtils {
+    private static final Pattern UPPERCASE_WORD = Pattern.compile("(\\b[A-Z0-9]+\\b)");
     public static final String TERT_PROMOTER_MUTATION_SUMMARY = "Select hotspot mutations in the TERT promoter have been shown to be oncogenic.";
     public static final String TERT_PROMOTER_NO_THERAPY_TUMOR_TYPE_SUMMARY = "There are no FDA-approved or NCCN-compendium listed treatments specifically for patients with TERT promoter mutations in [[tumor type]].";
     public static final String ONCOGENIC_MUTATIONS_DEFAULT_SUMMARY = "\"Oncogenic Mutations\" includes all variants annotated as oncogenic and likely oncogenic.";
@@ -1035,8 +1036,7 @@ public class SummaryUtils {
             }
 
             // Find all uppercased string
-            Pattern p = Pattern.compile("(\\b[A-Z0-9]+\\b)");
-            Matcher m = p.matcher(tumorType);
+            Matcher m = UPPERCASE_WORD.matcher(tumorType);
 
             while (m.find()) {
                 sb.replace(m.start(), m.end(), m.group(1));
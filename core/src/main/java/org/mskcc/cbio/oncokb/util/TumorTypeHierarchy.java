@@ -0,0 +1,183 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.RelevantTumorTypeDirection;
+import org.mskcc.cbio.oncokb.model.SpecialTumorType;
+import org.mskcc.cbio.oncokb.model.TumorType;
+
+import java.util.*;
+
+/**
+ * Precomputed upward (ancestors) and downward (descendants) closure of every cached tumor type.
+ *
+ * Each tumor type gets an ordinal based on its position in the cached list. A closure is kept both as an
+ * ordered list, which is the order the recursive walk used to return, and as a BitSet of ordinals, so
+ * the solid/liquid checks are a BitSet intersection instead of checking every tumor type.
+ * The relevant tumor types of the special tumor types are precomputed for both directions as well.
+ *
+ * Tumor types which are not part of the cache fall back to walking the tree.
+ */
+public class TumorTypeHierarchy {
+    private final Map<TumorType, Integer> ordinals = new HashMap<>();
+    private final BitSet solidTumorTypes = new BitSet();
+    private final BitSet liquidTumorTypes = new BitSet();
+
+    // indexed by ordinal
+    private final List<Closure> ancestors = new ArrayList<>();
+    private final List<Closure> ancestorsWithSameMainType = new ArrayList<>();
+    private final List<Closure> descendants = new ArrayList<>();
+    private final List<Closure> descendantsWithSameMainType = new ArrayList<>();
+
+    private final Map<SpecialTumorType, List<TumorType>> upwardSpecialTumorTypes = new EnumMap<>(SpecialTumorType.class);
+    private final Map<SpecialTumorType, List<TumorType>> downwardSpecialTumorTypes = new EnumMap<>(SpecialTumorType.class);
+
+    public TumorTypeHierarchy() {
+    }
+
+    public TumorTypeHierarchy(List<TumorType> tumorTypes) {
+        for (TumorType tumorType : tumorTypes) {
+            if (!ordinals.containsKey(tumorType)) {
+                ordinals.put(tumorType, ordinals.size());
+            }
+        }
+        for (TumorType tumorType : tumorTypes) {
+            Integer ordinal = ordinals.get(tumorType);
+            if (ordinal != ancestors.size()) {
+                // duplicate
+                continue;
+            }
+            solidTumorTypes.set(ordinal, TumorTypeUtils.isSolidTumor(tumorType));
+            liquidTumorTypes.set(ordinal, TumorTypeUtils.isLiquidTumor(tumorType));
+            ancestors.add(new Closure(walkParentTumorTypes(tumorType, false)));
+            ancestorsWithSameMainType.add(new Closure(walkParentTumorTypes(tumorType, true)));
+            descendants.add(new Closure(walkChildTumorTypes(tumorType, false)));
+            descendantsWithSameMainType.add(new Closure(walkChildTumorTypes(tumorType, true)));
+        }
+    }
+
+    /**
+     * Precompute the relevant tumor types of the special tumor types. This relies on the cached subtypes, main types
+     * and special tumor types, so it is called once these are available.
+     */
+    public void cacheSpecialTumorTypes() {
+        for (SpecialTumorType specialTumorType : SpecialTumorType.values()) {
+            upwardSpecialTumorTypes.put(specialTumorType, Collections.unmodifiableList(TumorTypeUtils.computeRelevantTumorTypesForSpecialCancerTypes(specialTumorType, RelevantTumorTypeDirection.UPWARD)));
+            downwardSpecialTumorTypes.put(specialTumorType, Collections.unmodifiableList(TumorTypeUtils.computeRelevantTumorTypesForSpecialCancerTypes(specialTumorType, RelevantTumorTypeDirection.DOWNWARD)));
+        }
+    }
+
+    public List<TumorType> getParentTumorTypes(TumorType tumorType, boolean onlySameMaintype) {
+        Integer ordinal = ordinals.get(tumorType);
+        if (ordinal == null) {
+            return walkParentTumorTypes(tumorType, onlySameMaintype);
+        }
+        return (onlySameMaintype ? ancestorsWithSameMainType : ancestors).get(ordinal).tumorTypes;
+    }
+
+    public List<TumorType> getChildTumorTypes(TumorType tumorType, boolean onlySameMaintype) {
+        Integer ordinal = ordinals.get(tumorType);
+        if (ordinal == null) {
+            return walkChildTumorTypes(tumorType, onlySameMaintype);
+        }
+        return (onlySameMaintype ? descendantsWithSameMainType : descendants).get(ordinal).tumorTypes;
+    }
+
+    /**
+     * @return null when the special tumor types have not been cached
+     */
+    public List<TumorType> getRelevantTumorTypesForSpecialCancerType(SpecialTumorType specialTumorType, RelevantTumorTypeDirection direction) {
+        if (RelevantTumorTypeDirection.UPWARD.equals(direction)) {
+            return upwardSpecialTumorTypes.get(specialTumorType);
+        } else if (RelevantTumorTypeDirection.DOWNWARD.equals(direction)) {
+            return downwardSpecialTumorTypes.get(specialTumorType);
+        }
+        return null;
+    }
+
+    /**
+     * Whether the tumor type or any of its parent/child tumor types in the direction is solid.
+     */
+    public boolean hasSolidTumor(TumorType tumorType, RelevantTumorTypeDirection direction) {
+        return hasTumorForm(tumorType, direction, true);
+    }
+
+    /**
+     * Whether the tumor type or any of its parent/child tumor types in the direction is liquid.
+     */
+    public boolean hasLiquidTumor(TumorType tumorType, RelevantTumorTypeDirection direction) {
+        return hasTumorForm(tumorType, direction, false);
+    }
+
+    public boolean isSolidTumor(TumorType tumorType) {
+        Integer ordinal = ordinals.get(tumorType);
+        return ordinal == null ? TumorTypeUtils.isSolidTumor(tumorType) : solidTumorTypes.get(ordinal);
+    }
+
+    public boolean isLiquidTumor(TumorType tumorType) {
+        Integer ordinal = ordinals.get(tumorType);
+        return ordinal == null ? TumorTypeUtils.isLiquidTumor(tumorType) : liquidTumorTypes.get(ordinal);
+    }
+
+    private boolean hasTumorForm(TumorType tumorType, RelevantTumorTypeDirection direction, boolean solid) {
+        if (tumorType == null) {
+            return false;
+        }
+        Integer ordinal = ordinals.get(tumorType);
+        if (ordinal == null) {
+            Set<TumorType> relevant = new HashSet<>();
+            relevant.add(tumorType);
+            relevant.addAll(RelevantTumorTypeDirection.UPWARD.equals(direction) ? walkParentTumorTypes(tumorType, true) : walkChildTumorTypes(tumorType, true));
+            return solid ? TumorTypeUtils.hasSolidTumor(relevant) : TumorTypeUtils.hasLiquidTumor(relevant);
+        }
+        BitSet tumorForm = solid ? solidTumorTypes : liquidTumorTypes;
+        if (tumorForm.get(ordinal)) {
+            return true;
+        }
+        Closure closure = (RelevantTumorTypeDirection.UPWARD.equals(direction) ? ancestorsWithSameMainType : descendantsWithSameMainType).get(ordinal);
+        return closure.ordinals.intersects(tumorForm);
+    }
+
+    private static List<TumorType> walkParentTumorTypes(TumorType tumorType, boolean onlySameMaintype) {
+        LinkedHashSet<TumorType> parentTumorTypes = new LinkedHashSet<>();
+        // we do not want to include the tissue level which is 1
+        while (tumorType != null && tumorType.getParent() != null && tumorType.getLevel() > 2) {
+            if (!onlySameMaintype || tumorType.getParent().getMainType().equals(tumorType.getMainType())) {
+                parentTumorTypes.add(tumorType.getParent());
+            }
+            tumorType = tumorType.getParent();
+        }
+        return new ArrayList<>(parentTumorTypes);
+    }
+
+    private static List<TumorType> walkChildTumorTypes(TumorType tumorType, boolean onlySameMaintype) {
+        LinkedHashSet<TumorType> childTumorTypes = new LinkedHashSet<>();
+        collectChildTumorTypes(tumorType, onlySameMaintype, childTumorTypes);
+        return new ArrayList<>(childTumorTypes);
+    }
+
+    private static void collectChildTumorTypes(TumorType tumorType, boolean onlySameMaintype, LinkedHashSet<TumorType> childTumorTypes) {
+        if (tumorType == null || tumorType.getChildren() == null || tumorType.getChildren().isEmpty()) {
+            return;
+        }
+        for (TumorType child : tumorType.getChildren()) {
+            if (!onlySameMaintype || child.getMainType().equals(tumorType.getMainType())) {
+                childTumorTypes.add(child);
+            }
+        }
+        tumorType.getChildren().forEach(child -> collectChildTumorTypes(child, onlySameMaintype, childTumorTypes));
+    }
+
+    private class Closure {
+        private final List<TumorType> tumorTypes;
+        private final BitSet ordinals = new BitSet();
+
+        Closure(List<TumorType> tumorTypes) {
+            this.tumorTypes = Collections.unmodifiableList(tumorTypes);
+            for (TumorType tumorType : tumorTypes) {
+                Integer ordinal = TumorTypeHierarchy.this.ordinals.get(tumorType);
+                if (ordinal != null) {
+                    this.ordinals.set(ordinal);
+                }
+            }
+        }
+    }
+}
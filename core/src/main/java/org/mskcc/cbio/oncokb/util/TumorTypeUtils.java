@@ -102,6 +102,16 @@ public class TumorTypeUtils {
                 return relevantCancerTypes;
             }
         }
+        return resolveEvidenceRelevantCancerTypes(evidence);
+    }
+
+    /**
+     * Same as findEvidenceRelevantCancerTypes but always resolves the cancer types from the evidence, the cached
+     * relevant cancer types are not used. This is used to build the cache.
+     */
+    public static Set<TumorType> resolveEvidenceRelevantCancerTypes(Evidence evidence) {
+        if (evidence == null)
+            return new HashSet<>();
 
         if (!evidence.getRelevantCancerTypes().isEmpty())
             return evidence.getRelevantCancerTypes();
@@ -137,7 +147,7 @@ public class TumorTypeUtils {
                 TumorType cancerType = ApplicationContextSingleton.getTumorTypeBo().getByName(tumorType);
                 if (cancerType != null) {
                     mappedTumorTypes.add(cancerType);
-                    mappedTumorTypes.addAll(getChildTumorTypes(cancerType, true));
+                    mappedTumorTypes.addAll(CacheUtils.getTumorTypeHierarchy().getChildTumorTypes(cancerType, true));
                 }
             }
         } else if (direction.equals(RelevantTumorTypeDirection.UPWARD)) {
@@ -150,7 +160,7 @@ public class TumorTypeUtils {
                 TumorType cancerType = ApplicationContextSingleton.getTumorTypeBo().getByName(tumorType);
                 if (cancerType != null) {
                     mappedTumorTypes.add(cancerType);
-                    mappedTumorTypes.addAll(getParentTumorTypes(cancerType, true));
+                    mappedTumorTypes.addAll(CacheUtils.getTumorTypeHierarchy().getParentTumorTypes(cancerType, true));
                 }
             }
         }
@@ -159,31 +169,24 @@ public class TumorTypeUtils {
     }
 
     public static LinkedHashSet<TumorType> getParentTumorTypes(TumorType tumorType, boolean onlySameMaintype) {
-        if (tumorType == null || tumorType.getParent() == null) return new LinkedHashSet<>();
-        LinkedHashSet parentTumorTypes = new LinkedHashSet();
-        // we do not want to include the tissue level which is 1
-        if (tumorType.getParent() != null && tumorType.getLevel() > 2) {
-            if (!onlySameMaintype || tumorType.getParent().getMainType().equals(tumorType.getMainType())) {
-                parentTumorTypes.add(tumorType.getParent());
-            }
-            parentTumorTypes.addAll(getParentTumorTypes(tumorType.getParent(), onlySameMaintype));
-        }
-        return parentTumorTypes;
+        if (tumorType == null) return new LinkedHashSet<>();
+        return new LinkedHashSet<>(CacheUtils.getTumorTypeHierarchy().getParentTumorTypes(tumorType, onlySameMaintype));
     }
 
     public static LinkedHashSet<TumorType> getChildTumorTypes(TumorType tumorType, boolean onlySameMaintype) {
-        if (tumorType == null || tumorType.getChildren().isEmpty()) return new LinkedHashSet<>();
-        LinkedHashSet<TumorType> childTumorTypes = new LinkedHashSet();
-        if (onlySameMaintype) {
-            childTumorTypes.addAll(tumorType.getChildren().stream().filter(child -> child.getMainType().equals(tumorType.getMainType())).collect(Collectors.toList()));
-        } else {
-            childTumorTypes.addAll(tumorType.getChildren());
-        }
-        tumorType.getChildren().forEach(child -> childTumorTypes.addAll(getChildTumorTypes(child, onlySameMaintype)));
-        return childTumorTypes;
+        if (tumorType == null) return new LinkedHashSet<>();
+        return new LinkedHashSet<>(CacheUtils.getTumorTypeHierarchy().getChildTumorTypes(tumorType, onlySameMaintype));
     }
 
     public static List<TumorType> findRelevantTumorTypesForSpecialCancerTypes(SpecialTumorType specialTumorType, RelevantTumorTypeDirection direction) {
+        List<TumorType> relevantCancerTypes = CacheUtils.getTumorTypeHierarchy().getRelevantTumorTypesForSpecialCancerType(specialTumorType, direction);
+        if (relevantCancerTypes != null) {
+            return new ArrayList<>(relevantCancerTypes);
+        }
+        return computeRelevantTumorTypesForSpecialCancerTypes(specialTumorType, direction);
+    }
+
+    static List<TumorType> computeRelevantTumorTypesForSpecialCancerTypes(SpecialTumorType specialTumorType, RelevantTumorTypeDirection direction) {
         List<TumorType> relevantCancerTypes = new ArrayList<>();
         if (specialTumorType == null) {
             return relevantCancerTypes;
@@ -265,26 +268,27 @@ public class TumorTypeUtils {
             mappedTumorTypes.add(matchedMainType);
         }
 
+        TumorTypeHierarchy tumorTypeHierarchy = CacheUtils.getTumorTypeHierarchy();
         if (direction.equals(RelevantTumorTypeDirection.UPWARD)) {
             if (matchedTumorType != null) {
                 // Add matched parent tumor types
-                mappedTumorTypes.addAll(getParentTumorTypes(matchedTumorType, true));
+                mappedTumorTypes.addAll(tumorTypeHierarchy.getParentTumorTypes(matchedTumorType, true));
             }
         } else {
             if (matchedTumorType != null) {
                 // Add matched child tumor types
-                mappedTumorTypes.addAll(getChildTumorTypes(matchedTumorType, true));
+                mappedTumorTypes.addAll(tumorTypeHierarchy.getChildTumorTypes(matchedTumorType, true));
             }
         }
 
         if (includeSpecialTumorTypes) {
             // Include all solid tumors
-            if (hasSolidTumor(new HashSet<>(mappedTumorTypes))) {
+            if (tumorTypeHierarchy.hasSolidTumor(matchedTumorType, direction) || tumorTypeHierarchy.isSolidTumor(matchedMainType)) {
                 mappedTumorTypes.add(ApplicationContextSingleton.getTumorTypeBo().getBySpecialTumor(ALL_SOLID_TUMORS));
             }
 
             // Include all liquid tumors
-            if (hasLiquidTumor(new HashSet<>(mappedTumorTypes))) {
+            if (tumorTypeHierarchy.hasLiquidTumor(matchedTumorType, direction) || tumorTypeHierarchy.isLiquidTumor(matchedMainType)) {
                 mappedTumorTypes.add(ApplicationContextSingleton.getTumorTypeBo().getBySpecialTumor(ALL_LIQUID_TUMORS));
             }
 
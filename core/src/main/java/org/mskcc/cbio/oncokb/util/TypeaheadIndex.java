@@ -0,0 +1,232 @@
+package org.mskcc.cbio.oncokb.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The substring indexes behind the gene, variant and cancer type search, together with what is used to rank the
+ * matches: the highest levels of every gene, and the oncogenicity and the highest levels curated for every variant, are
+ * computed when the index is built, the annotations of the most recently matched variants and the evidences relevant
+ * to a cancer type are kept once they are first needed.
+ *
+ * An index is built from the cache as it is, CacheUtils builds a new one when the cache changes.
+ */
+public class TypeaheadIndex {
+    private static final int MAXIMUM_ANNOTATIONS = 10000;
+
+    private final SubstringIndex<Gene> hugoSymbolIndex;
+    private final SubstringIndex<Gene> geneAliasIndex;
+    private final SubstringIndex<Gene> entrezGeneIdIndex;
+    // Both the alteration and the name without the exclusion criteria
+    private final SubstringIndex<Alteration> alterationIndex;
+    private final SubstringIndex<Alteration> alterationNameIndex;
+    private final SubstringIndex<Map.Entry<String, TumorType>> subtypeIndex;
+    private final SubstringIndex<Map.Entry<String, TumorType>> mainTypeIndex;
+
+    private final Map<Gene, LevelOfEvidence> highestSensitiveLevels = new HashMap<>();
+    private final Map<Gene, LevelOfEvidence> highestResistanceLevels = new HashMap<>();
+
+    // Of the evidences curated for the variant itself, the relevant alterations are only considered by the annotation
+    private final Set<Alteration> indexedAlterations;
+    private final Map<Alteration, Oncogenicity> alterationOncogenicities = new HashMap<>();
+    private final Set<Alteration> vusAlterations = new HashSet<>();
+    private final Map<Alteration, LevelOfEvidence> alterationHighestSensitiveLevels = new HashMap<>();
+    private final Map<Alteration, LevelOfEvidence> alterationHighestResistanceLevels = new HashMap<>();
+
+    private final Cache<String, IndicatorQueryResp> annotations = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_ANNOTATIONS)
+        .build();
+    private final Map<TumorType, Set<Evidence>> implicationEvidencesByCancerType = new ConcurrentHashMap<>();
+    private final Map<TumorType, Set<Evidence>> treatmentEvidencesByCancerType = new ConcurrentHashMap<>();
+    private volatile Set<Evidence> implicationEvidences;
+    private volatile Set<Evidence> treatmentEvidences;
+
+    TypeaheadIndex(Set<Gene> genes, List<Alteration> alterations, Map<String, TumorType> lowercaseSubtypes, Map<String, TumorType> mainTypes) {
+        List<Gene> geneList = new ArrayList<>(genes);
+        hugoSymbolIndex = new SubstringIndex<>(geneList, gene -> Collections.singleton(gene.getHugoSymbol()));
+        geneAliasIndex = new SubstringIndex<>(geneList, Gene::getGeneAliases);
+        entrezGeneIdIndex = new SubstringIndex<>(geneList, gene -> Collections.singleton(Integer.toString(gene.getEntrezGeneId())));
+
+        alterationIndex = new SubstringIndex<>(alterations, alteration -> Arrays.asList(
+            AlterationUtils.removeExclusionCriteria(alteration.getAlteration()),
+            AlterationUtils.removeExclusionCriteria(alteration.getName())
+        ));
+        alterationNameIndex = new SubstringIndex<>(alterations, alteration -> Collections.singleton(alteration.getName()));
+
+        subtypeIndex = new SubstringIndex<>(lowercaseSubtypes.entrySet(), entry -> Collections.singleton(entry.getKey()));
+        mainTypeIndex = new SubstringIndex<>(mainTypes.entrySet(), entry -> Collections.singleton(entry.getKey()));
+
+        indexedAlterations = new HashSet<>(alterations);
+        Map<Alteration, Set<Evidence>> oncogenicEvidences = new HashMap<>();
+        Map<Alteration, Set<Evidence>> treatmentEvidences = new HashMap<>();
+        Set<EvidenceType> treatmentEvidenceTypes = EvidenceTypeUtils.getTreatmentEvidenceTypes();
+        for (Map.Entry<Gene, Set<Evidence>> entry : EvidenceUtils.getEvidenceByGenes(genes).entrySet()) {
+            highestSensitiveLevels.put(entry.getKey(), LevelUtils.getHighestLevelFromEvidenceByLevels(entry.getValue(), LevelUtils.getSensitiveLevels()));
+            highestResistanceLevels.put(entry.getKey(), LevelUtils.getHighestLevelFromEvidenceByLevels(entry.getValue(), LevelUtils.getResistanceLevels()));
+
+            for (Evidence evidence : entry.getValue()) {
+                if (evidence.getAlterations() == null) {
+                    continue;
+                }
+                for (Alteration alteration : evidence.getAlterations()) {
+                    if (EvidenceType.ONCOGENIC.equals(evidence.getEvidenceType())) {
+                        oncogenicEvidences.computeIfAbsent(alteration, k -> new HashSet<>()).add(evidence);
+                    } else if (EvidenceType.VUS.equals(evidence.getEvidenceType())) {
+                        vusAlterations.add(alteration);
+                    } else if (treatmentEvidenceTypes.contains(evidence.getEvidenceType())) {
+                        treatmentEvidences.computeIfAbsent(alteration, k -> new HashSet<>()).add(evidence);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Alteration, Set<Evidence>> entry : oncogenicEvidences.entrySet()) {
+            Oncogenicity oncogenicity = MainUtils.findHighestOncogenicByEvidences(entry.getValue());
+            if (oncogenicity != null) {
+                alterationOncogenicities.put(entry.getKey(), oncogenicity);
+            }
+        }
+        for (Map.Entry<Alteration, Set<Evidence>> entry : treatmentEvidences.entrySet()) {
+            alterationHighestSensitiveLevels.put(entry.getKey(), LevelUtils.getHighestLevelFromEvidenceByLevels(entry.getValue(), LevelUtils.getSensitiveLevels()));
+            alterationHighestResistanceLevels.put(entry.getKey(), LevelUtils.getHighestLevelFromEvidenceByLevels(entry.getValue(), LevelUtils.getResistanceLevels()));
+        }
+    }
+
+    /**
+     * Same as GeneUtils.searchGene without exact search: the genes with the keyword in the hugo symbol first, then
+     * the ones with it in an alias. A number is looked up in the entrez gene ids.
+     */
+    public LinkedHashSet<Gene> searchGene(String keyword) {
+        LinkedHashSet<Gene> genes = new LinkedHashSet<>();
+        if (keyword == null || keyword.isEmpty()) {
+            return genes;
+        }
+        if (NumberUtils.isNumber(keyword)) {
+            genes.addAll(entrezGeneIdIndex.search(keyword));
+        } else {
+            genes.addAll(hugoSymbolIndex.search(keyword));
+            genes.addAll(geneAliasIndex.search(keyword));
+        }
+        return genes;
+    }
+
+    /**
+     * Same as AlterationUtils.lookupVariant over all alterations without exact match
+     */
+    public List<Alteration> lookupVariant(String query) {
+        List<Alteration> alterations = new ArrayList<>();
+        if (query == null || query.trim().isEmpty()) {
+            return alterations;
+        }
+        query = query.trim().toLowerCase();
+        alterations.addAll(alterationIndex.search(query));
+
+        // if the query is part of the abbreviation list, the corresponding full name should be indexed.
+        if (NamingUtils.hasAbbreviation(query)) {
+            String fullName = NamingUtils.getFullName(query);
+            if (fullName != null) {
+                alterations.addAll(alterationNameIndex.search(fullName));
+            }
+        }
+        return alterations;
+    }
+
+    /**
+     * @return the subtypes with the query in their name, then the main types with it in their name
+     */
+    public List<TumorType> searchCancerType(String query) {
+        List<TumorType> tumorTypes = new ArrayList<>();
+        for (Map.Entry<String, TumorType> entry : subtypeIndex.search(query)) {
+            tumorTypes.add(entry.getValue());
+        }
+        for (Map.Entry<String, TumorType> entry : mainTypeIndex.search(query)) {
+            tumorTypes.add(entry.getValue());
+        }
+        return tumorTypes;
+    }
+
+    public boolean hasGeneLevels(Gene gene) {
+        return highestSensitiveLevels.containsKey(gene);
+    }
+
+    public LevelOfEvidence getHighestSensitiveLevel(Gene gene) {
+        return highestSensitiveLevels.get(gene);
+    }
+
+    public LevelOfEvidence getHighestResistanceLevel(Gene gene) {
+        return highestResistanceLevels.get(gene);
+    }
+
+    /**
+     * @return whether the alteration is one of the alterations the index is built from
+     */
+    public boolean hasAlteration(Alteration alteration) {
+        return indexedAlterations.contains(alteration);
+    }
+
+    /**
+     * @return the highest oncogenicity curated for the alteration, null when there is none
+     */
+    public Oncogenicity getOncogenicity(Alteration alteration) {
+        return alterationOncogenicities.get(alteration);
+    }
+
+    public boolean isVUS(Alteration alteration) {
+        return vusAlterations.contains(alteration);
+    }
+
+    public LevelOfEvidence getHighestSensitiveLevel(Alteration alteration) {
+        return alterationHighestSensitiveLevels.get(alteration);
+    }
+
+    public LevelOfEvidence getHighestResistanceLevel(Alteration alteration) {
+        return alterationHighestResistanceLevels.get(alteration);
+    }
+
+    /**
+     * IndicatorUtils.processQuery on all public levels and evidence types. Every caller gets its own copy of the
+     * response.
+     */
+    public IndicatorQueryResp getAnnotation(Query query, Boolean highestLevelOnly, Boolean geneQueryOnly) {
+        String key = StringUtils.join(Arrays.asList(query.getReferenceGenome(), query.getEntrezGeneId(), query.getHugoSymbol(), query.getAlteration(), query.getTumorType(), highestLevelOnly, geneQueryOnly), "&");
+        IndicatorQueryResp annotation = annotations.getIfPresent(key);
+        if (annotation == null) {
+            // Annotated without holding a lock, the same variant searched at the same time may be annotated twice
+            annotation = IndicatorUtils.processQuery(query, null, highestLevelOnly, null, geneQueryOnly);
+            annotations.put(key, annotation);
+        }
+        return annotation.copy();
+    }
+
+    /**
+     * @return the implication evidences of public levels relevant to the cancer type
+     */
+    public Set<Evidence> getImplicationEvidences(TumorType tumorType) {
+        if (implicationEvidences == null) {
+            implicationEvidences = EvidenceUtils.getEvidenceByEvidenceTypesAndLevels(EvidenceTypeUtils.getImplicationEvidenceTypes(), LevelUtils.getPublicLevels());
+        }
+        return implicationEvidencesByCancerType.computeIfAbsent(tumorType, k -> filterByRelevantCancerType(implicationEvidences, k));
+    }
+
+    /**
+     * @return the treatment evidences of public levels relevant to the cancer type
+     */
+    public Set<Evidence> getTreatmentEvidences(TumorType tumorType) {
+        if (treatmentEvidences == null) {
+            treatmentEvidences = EvidenceUtils.getEvidenceByEvidenceTypesAndLevels(EvidenceTypeUtils.getTreatmentEvidenceTypes(), LevelUtils.getPublicLevels());
+        }
+        return treatmentEvidencesByCancerType.computeIfAbsent(tumorType, k -> filterByRelevantCancerType(treatmentEvidences, k));
+    }
+
+    private static Set<Evidence> filterByRelevantCancerType(Set<Evidence> evidences, TumorType tumorType) {
+        return evidences.stream()
+            .filter(evidence -> TumorTypeUtils.findEvidenceRelevantCancerTypes(evidence).contains(tumorType))
+            .collect(Collectors.toSet());
+    }
+}
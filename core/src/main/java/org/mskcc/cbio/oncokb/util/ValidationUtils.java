@@ -20,6 +20,10 @@ import java.util.stream.Collectors;
 import static org.mskcc.cbio.oncokb.util.FusionUtils.FUSION_ALTERNATIVE_SEPARATOR;
 
 public class ValidationUtils {
+    private static final Pattern RESERVED_CHARS_REGEX = Pattern.compile("&[\\w]{4};");
+    private static final Pattern HTML_FRAGMENT_REGEX = Pattern.compile("<\\s*a[^>]*>");
+    private static final Pattern UNSUPPORTED_ALTERATION_NAME_REGEX = Pattern.compile("[^\\w\\s\\*-\\{\\};]");
+    private static final Pattern PMID_PATTERN = Pattern.compile("PMIDs?:\\s*([\\d,\\s*]+)", Pattern.CASE_INSENSITIVE);
 
     public static JSONArray getMissingTreatmentInfoData() {
         final String NO_LEVEL = "No level is specified";
@@ -105,9 +109,6 @@ public class ValidationUtils {
         final String HTML_TAGS_EXIST = "HTML tag exists";
         final String CANNOT_FIND_PMIDS = "Following PMID(s) cannot be identified: ";
 
-        Pattern reservedCharsRegex = Pattern.compile("&[\\w]{4};");
-        Pattern htmlFragmentRegex = Pattern.compile("<\\s*a[^>]*>");
-
         JSONArray data = new JSONArray();
 
         ArticleBo articleBo = ApplicationContextSingleton.getArticleBo();
@@ -115,12 +116,12 @@ public class ValidationUtils {
 
         for (Evidence evidence : CacheUtils.getAllEvidences()) {
             if (evidence.getDescription() != null) {
-                Matcher matcher = reservedCharsRegex.matcher(evidence.getDescription());
+                Matcher matcher = RESERVED_CHARS_REGEX.matcher(evidence.getDescription());
                 if (matcher.find()) {
                     data.put(getErrorMessage(getTarget(evidence.getGene().getHugoSymbol(), evidence.getEvidenceType(), getEvidenceAlterationsName(evidence), TumorTypeUtils.getEvidenceTumorTypesName(evidence), TreatmentUtils.getTreatmentName(evidence.getTreatments())), HTML_RESERVED_CHARS_EXIST));
                 }
 
-                matcher = htmlFragmentRegex.matcher(evidence.getDescription());
+                matcher = HTML_FRAGMENT_REGEX.matcher(evidence.getDescription());
                 if (matcher.find()) {
                     data.put(getErrorMessage(getTarget(evidence.getGene().getHugoSymbol(), evidence.getEvidenceType(), getEvidenceAlterationsName(evidence), TumorTypeUtils.getEvidenceTumorTypesName(evidence), TreatmentUtils.getTreatmentName(evidence.getTreatments())), HTML_TAGS_EXIST));
                 }
@@ -209,12 +210,11 @@ public class ValidationUtils {
 
         JSONArray data = new JSONArray();
 
-        Pattern unsupportedAlterationNameRegex = Pattern.compile("[^\\w\\s\\*-\\{\\};]");
         for (Alteration alteration : AlterationUtils.getAllAlterations()) {
             if (StringUtils.isNullOrEmpty(alteration.getAlteration())) {
                 data.put(getErrorMessage(getTarget(alteration.getGene().getHugoSymbol()), ALTERATION_NAME_IS_EMPTY));
             } else {
-                Matcher matcher = unsupportedAlterationNameRegex.matcher(alteration.getAlteration());
+                Matcher matcher = UNSUPPORTED_ALTERATION_NAME_REGEX.matcher(alteration.getAlteration());
                 if (matcher.find() && !specialAlterationNames().contains(alteration.getName())) {
                     data.put(getErrorMessage(getTarget(alteration.getGene().getHugoSymbol(), getAlterationName(alteration)), UNSUPPORTED_ALTERATION_NAME));
                 } else {
@@ -286,8 +286,7 @@ public class ValidationUtils {
     }
 
     private static Set<String> findIncorrectPmids(Evidence evidence, List<Article> allArticles) {
-        Pattern pmidPattern = Pattern.compile("PMIDs?:\\s*([\\d,\\s*]+)", Pattern.CASE_INSENSITIVE);
-        Matcher m = pmidPattern.matcher(evidence.getDescription());
+        Matcher m = PMID_PATTERN.matcher(evidence.getDescription());
         int start = 0;
         Set<String> pmidToSearch = new LinkedHashSet<>();
         while (m.find(start)) {
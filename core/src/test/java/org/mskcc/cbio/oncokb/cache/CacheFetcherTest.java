@@ -0,0 +1,151 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.cache.keygenerator.ConcatGenerator;
+import org.mskcc.cbio.oncokb.model.*;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mskcc.cbio.oncokb.cache.Constants.REDIS_KEY_SEPARATOR;
+
+public class CacheFetcherTest extends TestCase {
+    private AnnotationConfigApplicationContext context;
+    private AnnotatingCacheFetcher cacheFetcher;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        context = new AnnotationConfigApplicationContext(TestCacheConfiguration.class);
+        cacheFetcher = context.getBean(AnnotatingCacheFetcher.class);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        context.close();
+        super.tearDown();
+    }
+
+    public void testProcessQueriesSharesTheEntriesOfProcessQuery() {
+        Set<EvidenceType> evidenceTypes = Collections.singleton(EvidenceType.ONCOGENIC);
+        Query braf = new Query(null, ReferenceGenome.GRCh37, 673, "BRAF", "V600E", null, null, "Melanoma", null, null, null, null);
+        Query egfr = new Query(null, ReferenceGenome.GRCh37, 1956, "EGFR", "L858R", null, null, "Lung Adenocarcinoma", null, null, null, null);
+
+        // written by the cacheable processQuery
+        processQuery(braf, evidenceTypes);
+        assertEquals(1, cacheFetcher.getNumOfAnnotations());
+
+        // read by the batch, only the other query is annotated
+        List<IndicatorQueryResp> resps = cacheFetcher.processQueries(Arrays.asList(braf, egfr, braf), Arrays.asList(evidenceTypes, evidenceTypes, evidenceTypes));
+        assertEquals(2, cacheFetcher.getNumOfAnnotations());
+        assertEquals(3, resps.size());
+        assertEquals("V600E", resps.get(0).getQuery().getAlteration());
+        assertEquals("L858R", resps.get(1).getQuery().getAlteration());
+        assertEquals("V600E", resps.get(2).getQuery().getAlteration());
+        assertNotSame(resps.get(0), resps.get(2));
+
+        // and the entries written by the batch are read by processQuery
+        processQuery(egfr, evidenceTypes);
+        assertEquals(2, cacheFetcher.getNumOfAnnotations());
+
+        // a different argument is a different entry
+        processQuery(egfr, Collections.singleton(EvidenceType.MUTATION_EFFECT));
+        assertEquals(3, cacheFetcher.getNumOfAnnotations());
+    }
+
+    // The same arguments as the annotation endpoints give for a protein change
+    private IndicatorQueryResp processQuery(Query query, Set<EvidenceType> evidenceTypes) {
+        return cacheFetcher.processQuery(
+            query.getReferenceGenome(), query.getEntrezGeneId(), query.getHugoSymbol(), query.getAlteration(),
+            query.getAlterationType(), query.getTumorType(), query.getConsequence(), query.getProteinStart(),
+            query.getProteinEnd(), query.getSvType(), query.getHgvs(), null, false, evidenceTypes, false
+        );
+    }
+
+    // Annotates without the database and counts the annotations
+    static class AnnotatingCacheFetcher extends CacheFetcher {
+        private final AtomicInteger numOfAnnotations = new AtomicInteger();
+
+        @Override
+        @Cacheable(
+            cacheResolver = "generalCacheResolver",
+            keyGenerator = "concatKeyGenerator"
+        )
+        public IndicatorQueryResp processQuery(ReferenceGenome referenceGenome, Integer entrezGeneId, String hugoSymbol,
+                                               String alteration, String alterationType, String tumorType,
+                                               String consequence, Integer proteinStart, Integer proteinEnd,
+                                               StructuralVariantType svType, String hgvs, Set<LevelOfEvidence> levels,
+                                               Boolean highestLevelOnly, Set<EvidenceType> evidenceTypes,
+                                               Boolean geneQueryOnly) {
+            numOfAnnotations.incrementAndGet();
+            IndicatorQueryResp resp = new IndicatorQueryResp();
+            resp.setQuery(new Query(null, referenceGenome, entrezGeneId, hugoSymbol, alteration, alterationType, svType, tumorType, consequence, proteinStart, proteinEnd, hgvs));
+            return resp;
+        }
+
+        public int getNumOfAnnotations() {
+            return numOfAnnotations.get();
+        }
+    }
+
+    static class BatchConcurrentMapCache extends ConcurrentMapCache implements BatchCache {
+        BatchConcurrentMapCache(String name) {
+            super(name);
+        }
+
+        @Override
+        public Map<Object, Object> getAll(Collection<?> keys) {
+            Map<Object, Object> values = new HashMap<>();
+            for (Object key : keys) {
+                Object value = lookup(key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public void putAll(Map<?, ?> entries) {
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class TestCacheConfiguration {
+        @Bean
+        public AnnotatingCacheFetcher cacheFetcher() {
+            return new AnnotatingCacheFetcher();
+        }
+
+        @Bean
+        public CacheManager cacheManager() {
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(Collections.singletonList(new BatchConcurrentMapCache(CacheCategory.GENERAL.getKey() + REDIS_KEY_SEPARATOR + "processQuery")));
+            return cacheManager;
+        }
+
+        @Bean
+        public CacheResolver generalCacheResolver(CacheManager cacheManager) {
+            return new GeneralCacheResolver(cacheManager);
+        }
+
+        @Bean
+        public KeyGenerator concatKeyGenerator() {
+            return new ConcatGenerator();
+        }
+    }
+}
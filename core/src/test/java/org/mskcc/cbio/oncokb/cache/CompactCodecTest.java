@@ -0,0 +1,374 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.apiModels.Citations;
+import org.mskcc.cbio.oncokb.apiModels.Implication;
+import org.mskcc.cbio.oncokb.apiModels.MainType;
+import org.mskcc.cbio.oncokb.apiModels.MutationEffectResp;
+import org.mskcc.cbio.oncokb.model.*;
+import org.mskcc.cbio.oncokb.util.ApplicationContextSingleton;
+import org.mskcc.cbio.oncokb.util.CacheUtils;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.SerializationCodec;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+public class CompactCodecTest extends TestCase {
+    private String dataVersion = "v4.0";
+    private final CompactCodec codec = new CompactCodec(() -> dataVersion, new SerializationCodec());
+
+    public void testIndicatorQueryResp() throws Exception {
+        IndicatorQueryResp resp = getIndicatorQueryResp();
+        Object decoded = roundTrip(codec, resp);
+        assertTrue(decoded instanceof IndicatorQueryResp);
+        // The annotation is returned with every field java serialization keeps, the ones the API does not show too
+        assertNull(getFirstDifference("resp", roundTrip(new SerializationCodec(), resp), decoded, new IdentityHashMap<>()));
+
+        // and is smaller than with java serialization
+        assertTrue(getSize(codec, resp) < getSize(new SerializationCodec(), resp));
+    }
+
+    public void testAlteration() throws Exception {
+        Alteration alteration = getAlteration();
+        Alteration decoded = (Alteration) roundTrip(codec, alteration);
+        assertNull(getFirstDifference("alteration", roundTrip(new SerializationCodec(), alteration), decoded, new IdentityHashMap<>()));
+
+        // the fields the API does not show are cached too
+        assertEquals(Integer.valueOf(1), decoded.getId());
+        assertEquals("c1b2a3", decoded.getUuid());
+        assertEquals(AlterationType.MUTATION, decoded.getAlterationType());
+        assertEquals(1, decoded.getPortalAlterations().size());
+        Geneset geneset = decoded.getGene().getGenesets().iterator().next();
+        assertEquals("c7d8e9", geneset.getUuid());
+        // an object referenced twice is still one object
+        assertSame(decoded.getGene(), geneset.getGenes().iterator().next());
+        assertSame(decoded.getGene(), decoded.getPortalAlterations().iterator().next().getGene());
+    }
+
+    public void testGene() throws Exception {
+        Gene gene = getAlteration().getGene();
+        assertNull(getFirstDifference("gene", roundTrip(new SerializationCodec(), gene), roundTrip(codec, gene), new IdentityHashMap<>()));
+    }
+
+    public void testFallback() throws Exception {
+        // the types the codec does not know are written by the fallback codec
+        assertEquals("all", roundTrip(codec, "all"));
+        assertEquals(Arrays.asList("BRAF", "EGFR"), roundTrip(codec, Arrays.asList("BRAF", "EGFR")));
+
+        // the entries written before the codec was enabled are still read
+        ByteBuf buf = new SerializationCodec().getValueEncoder().encode("all");
+        try {
+            assertEquals("all", codec.getValueDecoder().decode(buf, null));
+        } finally {
+            buf.release();
+        }
+    }
+
+    public void testDataVersion() throws Exception {
+        ByteBuf buf = codec.getValueEncoder().encode(getIndicatorQueryResp());
+        try {
+            dataVersion = "v4.1";
+            // The entries of the previous data release are not cached anymore
+            assertNull(codec.getValueDecoder().decode(buf, null));
+        } finally {
+            buf.release();
+        }
+    }
+
+    public void testCurrentDataVersion() throws Exception {
+        CacheUtils.resetAll(false);
+        CompactCodec currentCodec = new CompactCodec();
+        ByteBuf buf = currentCodec.getValueEncoder().encode(getIndicatorQueryResp());
+        try {
+            // The entries are written with the data version reloaded by the reset
+            buf.skipBytes(4);
+            assertEquals(ApplicationContextSingleton.getInfoBo().get().getDataVersion(), new ByteBufInputStream(buf).readUTF());
+            buf.readerIndex(0);
+            assertNotNull(currentCodec.getValueDecoder().decode(buf, null));
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static Object roundTrip(Codec codec, Object value) throws Exception {
+        ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            return codec.getValueDecoder().decode(buf, null);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static int getSize(Codec codec, Object value) throws Exception {
+        ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Compares the fields of both objects, the sets whatever the order of their elements. An object referenced more
+     * than once in the expected object should be the same object in the actual one.
+     *
+     * @return the path of the first field which differs, null when the objects have the same fields
+     */
+    private static String getFirstDifference(String path, Object expected, Object actual, Map<Object, Object> visited) throws IllegalAccessException {
+        if (expected == null || actual == null) {
+            return expected == actual ? null : path;
+        }
+        if (expected instanceof Map) {
+            Map<?, ?> expectedMap = (Map<?, ?>) expected;
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            if (!expectedMap.keySet().equals(actualMap.keySet())) {
+                return path;
+            }
+            for (Map.Entry<?, ?> entry : expectedMap.entrySet()) {
+                String difference = getFirstDifference(path + "[" + entry.getKey() + "]", entry.getValue(), actualMap.get(entry.getKey()), visited);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return null;
+        }
+        if (expected instanceof List) {
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            if (expectedList.size() != actualList.size()) {
+                return path;
+            }
+            for (int i = 0; i < expectedList.size(); i++) {
+                String difference = getFirstDifference(path + "[" + i + "]", expectedList.get(i), actualList.get(i), visited);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return null;
+        }
+        if (expected instanceof Set) {
+            List<Object> remaining = new ArrayList<>((Set<?>) actual);
+            if (((Set<?>) expected).size() != remaining.size()) {
+                return path;
+            }
+            for (Object element : (Set<?>) expected) {
+                Object match = null;
+                for (Object candidate : remaining) {
+                    if (getFirstDifference(path, element, candidate, new IdentityHashMap<>(visited)) == null) {
+                        match = candidate;
+                        break;
+                    }
+                }
+                if (match == null) {
+                    return path + "[" + element + "]";
+                }
+                remaining.remove(match);
+                getFirstDifference(path, element, match, visited);
+            }
+            return null;
+        }
+        if (!expected.getClass().equals(actual.getClass())) {
+            return path;
+        }
+        if (expected.getClass().isEnum() || expected.getClass().getName().startsWith("java.")) {
+            return expected.equals(actual) ? null : path;
+        }
+        if (visited.containsKey(expected)) {
+            return visited.get(expected) == actual ? null : path;
+        }
+        visited.put(expected, actual);
+        for (Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                String difference = getFirstDifference(path + "." + field.getName(), field.get(expected), field.get(actual), visited);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Alteration getAlteration() {
+        Gene gene = new Gene(673, "BRAF");
+        gene.setOncogene(true);
+        gene.setTSG(false);
+        gene.setGrch37Isoform("ENST00000288602");
+        gene.setGrch37RefSeq("NM_004333.4");
+        gene.setGrch38Isoform("ENST00000646891");
+        gene.setGrch38RefSeq("NM_004333.6");
+        gene.setGeneAliases(new HashSet<>(Arrays.asList("BRAF1", "B-RAF1")));
+        Geneset geneset = new Geneset();
+        geneset.setId(3);
+        geneset.setName("RAF");
+        geneset.setUuid("c7d8e9");
+        geneset.setGenes(new HashSet<>(Collections.singletonList(gene)));
+        gene.setGenesets(new HashSet<>(Collections.singletonList(geneset)));
+
+        PortalAlteration portalAlteration = new PortalAlteration();
+        portalAlteration.setId(5);
+        portalAlteration.setCancerType("Melanoma");
+        portalAlteration.setCancerStudy("skcm_tcga");
+        portalAlteration.setSampleId("TCGA-D3-A1Q1-06");
+        portalAlteration.setGene(gene);
+        portalAlteration.setProteinChange("V600E");
+        portalAlteration.setProteinStartPosition(600);
+        portalAlteration.setProteinEndPosition(600);
+        portalAlteration.setAlterationType("Missense_Mutation");
+
+        Alteration alteration = new Alteration();
+        alteration.setId(1);
+        alteration.setUuid("c1b2a3");
+        alteration.setGene(gene);
+        alteration.setAlterationType(AlterationType.MUTATION);
+        alteration.setConsequence(new VariantConsequence("missense_variant", "A sequence variant that changes one or more bases", false));
+        alteration.setAlteration("V600E");
+        alteration.setName("V600E");
+        alteration.setRefResidues("V");
+        alteration.setProteinStart(600);
+        alteration.setProteinEnd(600);
+        alteration.setVariantResidues("E");
+        alteration.setReferenceGenomes(new HashSet<>(Arrays.asList(ReferenceGenome.GRCh37, ReferenceGenome.GRCh38)));
+        alteration.setPortalAlterations(new HashSet<>(Collections.singletonList(portalAlteration)));
+        return alteration;
+    }
+
+    private static org.mskcc.cbio.oncokb.apiModels.TumorType getApiTumorType() {
+        MainType mainType = new MainType();
+        mainType.setId(1);
+        mainType.setName("Melanoma");
+        mainType.setTumorForm(TumorForm.SOLID);
+        org.mskcc.cbio.oncokb.apiModels.TumorType uvealMelanoma = new org.mskcc.cbio.oncokb.apiModels.TumorType();
+        uvealMelanoma.setId(3);
+        uvealMelanoma.setCode("UM");
+        uvealMelanoma.setName("Uveal Melanoma");
+        uvealMelanoma.setMainType(mainType);
+        uvealMelanoma.setParent("MEL");
+
+        org.mskcc.cbio.oncokb.apiModels.TumorType melanoma = new org.mskcc.cbio.oncokb.apiModels.TumorType();
+        melanoma.setId(2);
+        melanoma.setCode("MEL");
+        melanoma.setColor("Black");
+        melanoma.setName("Melanoma");
+        melanoma.setMainType(mainType);
+        melanoma.setTissue("Skin");
+        melanoma.setChildren(Collections.singletonMap("UM", uvealMelanoma));
+        melanoma.setParent("SKIN");
+        melanoma.setLevel(2);
+        melanoma.setTumorForm(TumorForm.SOLID);
+        return melanoma;
+    }
+
+    private static ArticleAbstract getArticleAbstract(String abstractContent) {
+        ArticleAbstract articleAbstract = new ArticleAbstract();
+        articleAbstract.setAbstractContent(abstractContent);
+        articleAbstract.setLink("https://example.org/" + abstractContent.length());
+        return articleAbstract;
+    }
+
+    private static IndicatorQueryResp getIndicatorQueryResp() {
+        TumorType skin = new TumorType();
+        skin.setId(1);
+        skin.setCode("SKIN");
+        skin.setSubtype("Skin");
+        skin.setMainType("Skin Cancer");
+        skin.setTissue("Skin");
+        skin.setColor("Black");
+        skin.setLevel(1);
+        skin.setTumorForm(TumorForm.SOLID);
+        TumorType melanoma = new TumorType();
+        melanoma.setId(2);
+        melanoma.setCode("MEL");
+        melanoma.setSubtype("Melanoma");
+        melanoma.setMainType("Melanoma");
+        melanoma.setTissue("Skin");
+        melanoma.setColor("Black");
+        melanoma.setLevel(2);
+        melanoma.setTumorForm(TumorForm.SOLID);
+        melanoma.setParent(skin);
+        melanoma.setChildren(new HashSet<>());
+        skin.setChildren(new HashSet<>(Collections.singletonList(melanoma)));
+
+        IndicatorQueryResp resp = new IndicatorQueryResp();
+        Query query = new Query(null, ReferenceGenome.GRCh37, 673, "BRAF", "V600E", "MUTATION", null, "Melanoma", "missense_variant", 600, 600, null);
+        query.setId("query-1");
+        query.setHgvsInfo("7:g.140453136A>T");
+        query.setCanonicalTranscript("ENST00000288602");
+        resp.setQuery(query);
+        resp.setGeneExist(true);
+        resp.setVariantExist(true);
+        resp.setAlleleExist(true);
+        resp.setOncogenic("Oncogenic");
+        MutationEffectResp mutationEffect = new MutationEffectResp();
+        mutationEffect.setKnownEffect("Gain-of-function");
+        mutationEffect.setDescription("The BRAF V600E mutation activates the kinase.");
+        Citations citations = new Citations();
+        citations.setPmids(new HashSet<>(Arrays.asList("12068308", "15035987")));
+        citations.setAbstracts(new HashSet<>(Collections.singletonList(getArticleAbstract("Chapman et al. Abstract# 9"))));
+        mutationEffect.setCitations(citations);
+        resp.setMutationEffect(mutationEffect);
+        resp.setHighestSensitiveLevel(LevelOfEvidence.LEVEL_1);
+        resp.setHighestResistanceLevel(LevelOfEvidence.LEVEL_R2);
+        resp.setHighestDiagnosticImplicationLevel(LevelOfEvidence.LEVEL_Dx2);
+        resp.setHighestPrognosticImplicationLevel(LevelOfEvidence.LEVEL_Px1);
+        resp.setHighestFdaLevel(LevelOfEvidence.LEVEL_Fda2);
+        resp.setOtherSignificantSensitiveLevels(new ArrayList<>(Collections.singletonList(LevelOfEvidence.LEVEL_3A)));
+        resp.setOtherSignificantResistanceLevels(new ArrayList<>(Collections.singletonList(LevelOfEvidence.LEVEL_R1)));
+        resp.setVUS(false);
+        resp.setHotspot(true);
+        resp.setGeneSummary("BRAF, an intracellular kinase, is frequently mutated in melanoma.");
+        resp.setVariantSummary("The BRAF V600E mutation is known to be oncogenic.");
+        resp.setTumorTypeSummary("Dabrafenib in combination with trametinib is FDA-approved for BRAF V600E melanoma.");
+        resp.setPrognosticSummary("BRAF V600E is associated with a poorer prognosis.");
+        resp.setDiagnosticSummary("BRAF V600E is diagnostic of hairy cell leukemia.");
+        resp.setDataVersion("v4.0");
+        resp.setLastUpdate("10/18/2026");
+
+        Implication implication = new Implication();
+        implication.setLevelOfEvidence(LevelOfEvidence.LEVEL_Dx2);
+        implication.setAlterations(new HashSet<>(Collections.singletonList("V600E")));
+        implication.setTumorType(getApiTumorType());
+        implication.setPmids(new HashSet<>(Collections.singletonList("26287849")));
+        implication.setAbstracts(new HashSet<>(Collections.singletonList(getArticleAbstract("Tiacci et al. Abstract# 12"))));
+        implication.setDescription("BRAF V600E is found in most hairy cell leukemias.");
+        resp.setDiagnosticImplications(new ArrayList<>(Collections.singletonList(implication)));
+        resp.setPrognosticImplications(new ArrayList<>(Collections.singletonList(implication)));
+
+        Drug family = new Drug("BRAF Inhibitor");
+        family.setId(10);
+        family.setUuid("f10");
+        family.setType(DrugTableItemType.FAMILY);
+        for (String drugName : Arrays.asList("Dabrafenib", "Trametinib", "Vemurafenib", "Cobimetinib")) {
+            Drug drug = new Drug(drugName);
+            drug.setId(drugName.length());
+            drug.setUuid("d" + drugName.length());
+            drug.setNcitCode("C" + drugName.length());
+            drug.setType(DrugTableItemType.DRUG);
+            drug.setSynonyms(new HashSet<>(Arrays.asList(drugName.toUpperCase(), drugName + " Mesylate")));
+            drug.setDrugFamlilies(new HashSet<>(Collections.singletonList(family)));
+            drug.setDescription(drugName + " is a kinase inhibitor.");
+            family.getDrugs().add(drug);
+
+            IndicatorQueryTreatment treatment = new IndicatorQueryTreatment();
+            treatment.setAlterations(Collections.singletonList("V600E"));
+            treatment.setDrugs(Collections.singletonList(drug));
+            treatment.setApprovedIndications(new HashSet<>(Collections.singletonList("Melanoma with BRAF V600E")));
+            treatment.setLevel(LevelOfEvidence.LEVEL_1);
+            treatment.setFdaLevel(LevelOfEvidence.LEVEL_Fda2);
+            treatment.setLevelAssociatedCancerType(melanoma);
+            treatment.setLevelExcludedCancerTypes(new HashSet<>(Collections.singletonList(skin)));
+            treatment.setPmids(new HashSet<>(Arrays.asList("22663011", "22608338")));
+            treatment.setAbstracts(new HashSet<>(Collections.singletonList(getArticleAbstract("Long et al. Abstract# " + drugName))));
+            treatment.setDescription(drugName + " is FDA-approved for BRAF V600E melanoma.");
+            resp.getTreatments().add(treatment);
+        }
+        return resp;
+    }
+}
@@ -0,0 +1,61 @@
+package org.mskcc.cbio.oncokb.cache;
+
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.model.IndicatorQueryResp;
+import org.mskcc.cbio.oncokb.util.ApplicationContextSingleton;
+import org.mskcc.cbio.oncokb.util.CacheUtils;
+import org.mskcc.cbio.oncokb.util.GeneObservable;
+import org.mskcc.cbio.oncokb.util.MainUtils;
+
+import java.util.Collections;
+
+public class LocalCacheTierTest extends TestCase {
+    private static final String CACHE_NAME = "processQuery";
+
+    private LocalCacheTier localCacheTier;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        localCacheTier = new LocalCacheTier(100, 60);
+        GeneObservable.getInstance().addObserver(localCacheTier);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        GeneObservable.getInstance().deleteObserver(localCacheTier);
+        super.tearDown();
+    }
+
+    public void testResetAllClearsTheLocalCaches() throws Exception {
+        localCacheTier.put(CACHE_NAME, "BRAF V600E", new IndicatorQueryResp());
+        localCacheTier.put(CACHE_NAME, "EGFR L858R", new IndicatorQueryResp());
+        assertEquals(2, localCacheTier.size());
+
+        CacheUtils.resetAll(false);
+
+        assertEquals(0, localCacheTier.size());
+        assertNull(localCacheTier.get(CACHE_NAME, "BRAF V600E"));
+        // the data version the local caches are checked against is the one reloaded by the reset
+        assertEquals(ApplicationContextSingleton.getInfoBo().get().getDataVersion(), MainUtils.getDataVersion());
+    }
+
+    public void testUpdateGeneClearsTheLocalCaches() throws Exception {
+        localCacheTier.put(CACHE_NAME, "BRAF V600E", new IndicatorQueryResp());
+        assertEquals(1, localCacheTier.size());
+
+        CacheUtils.updateGene(Collections.singleton(673), false);
+
+        assertEquals(0, localCacheTier.size());
+    }
+
+    public void testGetReturnsACopy() {
+        IndicatorQueryResp resp = new IndicatorQueryResp();
+        localCacheTier.put(CACHE_NAME, "BRAF V600E", resp);
+
+        Object cached = localCacheTier.get(CACHE_NAME, "BRAF V600E");
+        assertNotNull(cached);
+        assertNotSame(resp, cached);
+        assertNotSame(cached, localCacheTier.get(CACHE_NAME, "BRAF V600E"));
+    }
+}
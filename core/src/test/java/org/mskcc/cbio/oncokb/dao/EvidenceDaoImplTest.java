@@ -0,0 +1,132 @@
+package org.mskcc.cbio.oncokb.dao;
+
+import junit.framework.TestCase;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.stat.Statistics;
+import org.mskcc.cbio.oncokb.model.Evidence;
+import org.mskcc.cbio.oncokb.model.Treatment;
+import org.mskcc.cbio.oncokb.util.ApplicationContextSingleton;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.orm.hibernate3.LocalSessionFactoryBean;
+import org.springframework.orm.hibernate3.SessionFactoryUtils;
+
+import java.util.*;
+
+/**
+ * Compares loading all evidences the way the cache did before, one select per eager collection of each evidence, with
+ * the bulk path the cache uses now, and checks the bulk path needs a fraction of the statements.
+ */
+public class EvidenceDaoImplTest extends TestCase {
+    // The bulk path has to use at least this many times fewer statements than the baseline
+    private static final int MIN_STATEMENT_RATIO = 20;
+    // and at most one statement for this many evidences
+    private static final int MIN_EVIDENCES_PER_STATEMENT = 10;
+
+    private LocalSessionFactoryBean baselineSessionFactoryBean;
+    private SessionFactory baselineSessionFactory;
+    private Statistics statistics;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        SessionFactory sessionFactory = ApplicationContextSingleton.getSessionFactory();
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        baselineSessionFactoryBean = new UnbatchedSessionFactoryBean();
+        baselineSessionFactoryBean.setDataSource(SessionFactoryUtils.getDataSource(sessionFactory));
+        baselineSessionFactoryBean.setConfigLocation(new ClassPathResource("hibernate/hibernate.cfg.xml"));
+        baselineSessionFactoryBean.afterPropertiesSet();
+        baselineSessionFactory = baselineSessionFactoryBean.getObject();
+        baselineSessionFactory.getStatistics().setStatisticsEnabled(true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        statistics.setStatisticsEnabled(false);
+        baselineSessionFactoryBean.destroy();
+        super.tearDown();
+    }
+
+    public void testFindAllWithAssociations() throws Exception {
+        Statistics baselineStatistics = baselineSessionFactory.getStatistics();
+        baselineStatistics.clear();
+        long start = System.nanoTime();
+        List<Evidence> evidences = findAllWithoutBatches();
+        long baselineMillis = (System.nanoTime() - start) / 1000000;
+        long baselineStatements = baselineStatistics.getPrepareStatementCount();
+
+        statistics.clear();
+        start = System.nanoTime();
+        List<Evidence> bulkEvidences = ApplicationContextSingleton.getEvidenceBo().findAllWithAssociations();
+        long bulkMillis = (System.nanoTime() - start) / 1000000;
+        long bulkStatements = statistics.getPrepareStatementCount();
+
+        System.out.println(evidences.size() + " evidences, baseline: " + baselineStatements + " statements in " + baselineMillis + "ms, bulk: " + bulkStatements + " statements in " + bulkMillis + "ms");
+
+        // the joined collection does not duplicate the evidences
+        assertEquals(evidences.size(), new HashSet<>(bulkEvidences).size());
+        assertEquals(evidences.size(), bulkEvidences.size());
+
+        Map<Integer, Evidence> bulkEvidencesById = new HashMap<>();
+        for (Evidence evidence : bulkEvidences) {
+            bulkEvidencesById.put(evidence.getId(), evidence);
+        }
+        for (Evidence evidence : evidences) {
+            Evidence bulkEvidence = bulkEvidencesById.get(evidence.getId());
+            assertNotNull(bulkEvidence);
+            assertEquals(evidence.getGene(), bulkEvidence.getGene());
+            assertEquals(evidence.getAlterations(), bulkEvidence.getAlterations());
+            assertEquals(evidence.getCancerTypes(), bulkEvidence.getCancerTypes());
+            assertEquals(evidence.getExcludedCancerTypes(), bulkEvidence.getExcludedCancerTypes());
+            assertEquals(evidence.getRelevantCancerTypes(), bulkEvidence.getRelevantCancerTypes());
+            assertEquals(evidence.getArticles(), bulkEvidence.getArticles());
+            assertEquals(getDrugNames(evidence), getDrugNames(bulkEvidence));
+        }
+
+        if (!evidences.isEmpty()) {
+            assertTrue("The evidences are loaded in " + bulkStatements + " statements, the baseline takes " + baselineStatements, bulkStatements * MIN_STATEMENT_RATIO <= baselineStatements);
+            assertTrue("The " + evidences.size() + " evidences are loaded in " + bulkStatements + " statements", bulkStatements * MIN_EVIDENCES_PER_STATEMENT <= evidences.size());
+        }
+    }
+
+    // The query the cache used before, with each eager collection loaded for one owner at a time
+    private List<Evidence> findAllWithoutBatches() {
+        Session session = baselineSessionFactory.openSession();
+        try {
+            return (List<Evidence>) session.createQuery("from Evidence").list();
+        } finally {
+            session.close();
+        }
+    }
+
+    private static Set<String> getDrugNames(Evidence evidence) {
+        Set<String> names = new HashSet<>();
+        for (Treatment treatment : evidence.getTreatments()) {
+            names.add(treatment.getName());
+        }
+        return names;
+    }
+
+    // The same mappings with the @BatchSize annotations turned off
+    private static class UnbatchedSessionFactoryBean extends LocalSessionFactoryBean {
+        @Override
+        protected SessionFactory newSessionFactory(Configuration config) throws HibernateException {
+            config.buildMappings();
+            Iterator<Collection> collections = config.getCollectionMappings();
+            while (collections.hasNext()) {
+                collections.next().setBatchSize(1);
+            }
+            Iterator<PersistentClass> classes = config.getClassMappings();
+            while (classes.hasNext()) {
+                classes.next().setBatchSize(1);
+            }
+            return super.newSessionFactory(config);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.mskcc.cbio.oncokb.genomenexus;
+
+import junit.framework.TestCase;
+import org.genome_nexus.client.TranscriptConsequenceSummary;
+import org.mskcc.cbio.oncokb.model.ReferenceGenome;
+import org.mskcc.cbio.oncokb.model.genomeNexus.TranscriptSummaryAlterationResult;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+public class FileGenomeNexusAnnotationStoreTest extends TestCase {
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("gn-annotation-store").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    public void testPutAndGet() throws Exception {
+        FileGenomeNexusAnnotationStore store = new FileGenomeNexusAnnotationStore(directory, 1024 * 1024);
+        store.put(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.140453136A>T", getResult("BRAF", "p.V600E"));
+
+        TranscriptSummaryAlterationResult result = store.get(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.140453136A>T");
+        assertNotNull(result);
+        assertEquals("BRAF", result.getTranscriptConsequenceSummary().getHugoGeneSymbol());
+        assertEquals("p.V600E", result.getTranscriptConsequenceSummary().getHgvspShort());
+        assertEquals("message", result.getMessage());
+
+        // the key includes the type and the reference genome
+        assertNull(store.get(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh38, "7:g.140453136A>T"));
+        assertNull(store.get(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "7:g.140453136A>T"));
+
+        // the latest record wins
+        store.put(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.140453136A>T", getResult("BRAF", "p.V600K"));
+        assertEquals("p.V600K", store.get(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.140453136A>T").getTranscriptConsequenceSummary().getHgvspShort());
+        assertEquals(1, store.size());
+
+        store.clear();
+        assertNull(store.get(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.140453136A>T"));
+    }
+
+    public void testReload() throws Exception {
+        FileGenomeNexusAnnotationStore store = new FileGenomeNexusAnnotationStore(directory, 1024 * 1024);
+        store.put(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "7,140453136,140453136,A,T", getResult("BRAF", "p.V600E"));
+        store.put(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "12,25398284,25398284,C,T", getResult("KRAS", "p.G12D"));
+
+        // a record cut short should be dropped on reload
+        File[] segments = directory.listFiles();
+        assertEquals(1, segments.length);
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        store = new FileGenomeNexusAnnotationStore(directory, 1024 * 1024);
+        assertEquals("BRAF", store.get(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "7,140453136,140453136,A,T").getTranscriptConsequenceSummary().getHugoGeneSymbol());
+        assertNull(store.get(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "12,25398284,25398284,C,T"));
+
+        // and the store can be appended to after the truncation
+        store.put(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "12,25398284,25398284,C,T", getResult("KRAS", "p.G12D"));
+        store = new FileGenomeNexusAnnotationStore(directory, 1024 * 1024);
+        assertEquals("KRAS", store.get(GNVariantAnnotationType.GENOMIC_LOCATION, ReferenceGenome.GRCh37, "12,25398284,25398284,C,T").getTranscriptConsequenceSummary().getHugoGeneSymbol());
+    }
+
+    public void testBoundedSize() throws Exception {
+        long maxSize = 16 * 1024;
+        FileGenomeNexusAnnotationStore store = new FileGenomeNexusAnnotationStore(directory, maxSize);
+        for (int i = 0; i < 1000; i++) {
+            store.put(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g." + i + "A>T", getResult("BRAF", "p.V" + i + "E"));
+        }
+
+        long size = 0;
+        for (File file : directory.listFiles()) {
+            size += file.length();
+        }
+        assertTrue("The store takes " + size + " bytes", size <= maxSize);
+        assertTrue(directory.listFiles().length <= 2);
+
+        // the latest ones are kept, the oldest ones are rotated out
+        assertNotNull(store.get(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.999A>T"));
+        assertNull(store.get(GNVariantAnnotationType.HGVS_G, ReferenceGenome.GRCh37, "7:g.0A>T"));
+        assertTrue(store.size() < 1000);
+    }
+
+    private TranscriptSummaryAlterationResult getResult(String hugoSymbol, String hgvspShort) {
+        TranscriptConsequenceSummary summary = new TranscriptConsequenceSummary();
+        summary.setHugoGeneSymbol(hugoSymbol);
+        summary.setHgvspShort(hgvspShort);
+        TranscriptSummaryAlterationResult result = new TranscriptSummaryAlterationResult(summary);
+        result.setMessage("message");
+        return result;
+    }
+}
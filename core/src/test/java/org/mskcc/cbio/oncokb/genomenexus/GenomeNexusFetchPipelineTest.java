@@ -0,0 +1,219 @@
+package org.mskcc.cbio.oncokb.genomenexus;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import org.genome_nexus.ApiClient;
+import org.genome_nexus.ApiException;
+import org.genome_nexus.client.AnnotationControllerApi;
+import org.genome_nexus.client.VariantAnnotation;
+
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GenomeNexusFetchPipelineTest extends TestCase {
+    private static final List<String> FIELDS = Collections.singletonList("annotation_summary");
+
+    public void testInOrder() throws Exception {
+        GenomeNexusFetchPipeline pipeline = new GenomeNexusFetchPipeline(7, 4, 0, 0);
+        try {
+            List<Integer> queries = getQueries(100);
+            List<Integer> result = pipeline.fetch(queries, chunk -> {
+                List<Integer> squares = new ArrayList<>();
+                for (Integer query : chunk) {
+                    squares.add(query * query);
+                }
+                return squares;
+            });
+            assertEquals(100, result.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Integer.valueOf(i * i), result.get(i));
+            }
+            assertEquals(15, pipeline.getNumOfChunks());
+            assertTrue(pipeline.fetch(new ArrayList<Integer>(), chunk -> chunk).isEmpty());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    public void testRetry() throws Exception {
+        GenomeNexusFetchPipeline pipeline = new GenomeNexusFetchPipeline(10, 2, 2, 1);
+        try {
+            AtomicInteger attempts = new AtomicInteger();
+            List<Integer> result = pipeline.fetch(getQueries(10), chunk -> {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new ApiException(503, "Service Unavailable");
+                }
+                return chunk;
+            });
+            assertEquals(getQueries(10), result);
+            assertEquals(3, attempts.get());
+            assertEquals(2, pipeline.getNumOfRetries());
+            assertEquals(0, pipeline.getNumOfFailedChunks());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    public void testRetryDoesNotHoldThePool() throws Exception {
+        GenomeNexusFetchPipeline pipeline = new GenomeNexusFetchPipeline(1, 2, 1, 500);
+        try {
+            // the first two chunks fail once, they would hold both threads while waiting for their retry
+            Set<Integer> failed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            Map<Integer, Long> fetchedAt = new ConcurrentHashMap<>();
+            long start = System.currentTimeMillis();
+            List<Integer> result = pipeline.fetch(getQueries(6), chunk -> {
+                Integer query = chunk.get(0);
+                if (query < 2 && failed.add(query)) {
+                    throw new ApiException(503, "Service Unavailable");
+                }
+                fetchedAt.put(query, System.currentTimeMillis() - start);
+                return chunk;
+            });
+            assertEquals(getQueries(6), result);
+            for (int query = 2; query < 6; query++) {
+                assertTrue("Chunk " + query + " waited for the retries", fetchedAt.get(query) < 400);
+            }
+            assertTrue(fetchedAt.get(0) >= 500);
+
+            GenomeNexusFetchPipeline.Metrics metrics = pipeline.getMetrics();
+            assertEquals(8, metrics.getNumOfChunks());
+            assertEquals(2, metrics.getNumOfRetries());
+            assertEquals(0, metrics.getNumOfFailedChunks());
+            assertEquals(8, metrics.getChunkLatency().getCount());
+
+            pipeline.resetMetrics();
+            assertEquals(0, pipeline.getMetrics().getNumOfChunks());
+            assertEquals(0, pipeline.getMetrics().getChunkLatency().getCount());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    public void testFailure() throws Exception {
+        GenomeNexusFetchPipeline pipeline = new GenomeNexusFetchPipeline(5, 2, 2, 1);
+        try {
+            // the chunk keeps failing
+            AtomicInteger attempts = new AtomicInteger();
+            try {
+                pipeline.fetch(getQueries(10), chunk -> {
+                    if (chunk.contains(7)) {
+                        attempts.incrementAndGet();
+                        throw new ApiException(500, "Internal Server Error");
+                    }
+                    return chunk;
+                });
+                fail("The fetch should fail");
+            } catch (ApiException e) {
+                assertEquals(500, e.getCode());
+            }
+            assertEquals(3, attempts.get());
+
+            // a client error is not retried
+            attempts.set(0);
+            try {
+                pipeline.fetch(getQueries(5), chunk -> {
+                    attempts.incrementAndGet();
+                    throw new ApiException(400, "Bad Request");
+                });
+                fail("The fetch should fail");
+            } catch (ApiException e) {
+                assertEquals(400, e.getCode());
+            }
+            assertEquals(1, attempts.get());
+
+            // a chunk without one result per query
+            try {
+                pipeline.fetch(getQueries(10), chunk -> chunk.subList(1, chunk.size()));
+                fail("The fetch should fail");
+            } catch (ApiException e) {
+                // expected
+            }
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    public void testAgainstLocalServer() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger concurrentRequests = new AtomicInteger();
+        AtomicInteger maxConcurrentRequests = new AtomicInteger();
+        Gson gson = new Gson();
+
+        // stands in for Genome Nexus, the first request fails and every variant is annotated with its own query
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/annotation", exchange -> {
+            try {
+                maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+                String[] variants = gson.fromJson(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), String[].class);
+                if (requests.incrementAndGet() == 1) {
+                    exchange.sendResponseHeaders(503, -1);
+                    return;
+                }
+                Thread.sleep(20);
+                List<VariantAnnotation> annotations = new ArrayList<>();
+                for (String variant : variants) {
+                    VariantAnnotation annotation = new VariantAnnotation();
+                    annotation.setVariant(variant);
+                    annotation.setOriginalVariantQuery(variant);
+                    annotations.add(annotation);
+                }
+                byte[] response = gson.toJson(annotations).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(response);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentRequests.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(8));
+        server.start();
+
+        GenomeNexusFetchPipeline pipeline = new GenomeNexusFetchPipeline(50, 3, 2, 1);
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://localhost:" + server.getAddress().getPort());
+            AnnotationControllerApi api = new AnnotationControllerApi(client);
+
+            List<String> queries = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                queries.add("7:g." + (140453136 + i) + "A>T");
+            }
+            List<VariantAnnotation> annotations = pipeline.fetch(queries, chunk -> api.fetchVariantAnnotationPOST(chunk, "mskcc", null, FIELDS));
+
+            assertEquals(queries.size(), annotations.size());
+            for (int i = 0; i < queries.size(); i++) {
+                assertEquals(queries.get(i), annotations.get(i).getOriginalVariantQuery());
+            }
+            // 20 chunks and the failed one
+            assertEquals(21, requests.get());
+            assertEquals(1, pipeline.getNumOfRetries());
+            assertTrue(maxConcurrentRequests.get() <= 3);
+        } finally {
+            pipeline.shutdown();
+            server.stop(0);
+        }
+    }
+
+    private List<Integer> getQueries(int size) {
+        List<Integer> queries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            queries.add(i);
+        }
+        return queries;
+    }
+}
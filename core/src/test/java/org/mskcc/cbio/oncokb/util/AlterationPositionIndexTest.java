@@ -0,0 +1,68 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.model.Alteration;
+import org.mskcc.cbio.oncokb.model.AlterationPositionBoundary;
+import org.mskcc.cbio.oncokb.model.Gene;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.mskcc.cbio.oncokb.Constants.DEFAULT_REFERENCE_GENOME;
+
+/**
+ * The positional lookups should return the same alterations with or without the index.
+ * The cached gene alterations are indexed, a copy of the list is not.
+ */
+public class AlterationPositionIndexTest extends TestCase {
+    private static final String[] GENES = new String[]{"TP53", "EGFR", "BRAF", "BRCA2", "KIT", "PDGFRA"};
+
+    public void testIndexIsOnlyUsedForCachedAlterations() throws Exception {
+        Gene gene = GeneUtils.getGeneByHugoSymbol("BRAF");
+        List<Alteration> cached = AlterationUtils.getAllAlterations(DEFAULT_REFERENCE_GENOME, gene);
+        assertNotNull(CacheUtils.getAlterationPositionIndex(gene, DEFAULT_REFERENCE_GENOME, cached));
+        assertNull(CacheUtils.getAlterationPositionIndex(gene, DEFAULT_REFERENCE_GENOME, new ArrayList<>(cached)));
+        assertNull(CacheUtils.getAlterationPositionIndex(gene, null, cached));
+    }
+
+    public void testFindOverlapAlteration() throws Exception {
+        for (String hugoSymbol : GENES) {
+            Gene gene = GeneUtils.getGeneByHugoSymbol(hugoSymbol);
+            List<Alteration> cached = AlterationUtils.getAllAlterations(DEFAULT_REFERENCE_GENOME, gene);
+            List<Alteration> copy = new ArrayList<>(cached);
+            for (Alteration alteration : cached) {
+                if (alteration.getConsequence() == null || alteration.getProteinStart() == null || alteration.getProteinEnd() == null) {
+                    continue;
+                }
+                int start = alteration.getProteinStart();
+                int end = alteration.getProteinEnd();
+                assertEquals(hugoSymbol + " " + alteration.getAlteration(),
+                    AlterationUtils.findOverlapAlteration(copy, gene, DEFAULT_REFERENCE_GENOME, alteration.getConsequence(), start, end, alteration.getAlteration()),
+                    AlterationUtils.findOverlapAlteration(cached, gene, DEFAULT_REFERENCE_GENOME, alteration.getConsequence(), start, end, alteration.getAlteration()));
+                // alteration without specific position
+                assertEquals(hugoSymbol + " " + alteration.getAlteration(),
+                    AlterationUtils.findOverlapAlteration(copy, gene, DEFAULT_REFERENCE_GENOME, alteration.getConsequence(), AlterationPositionBoundary.START.getValue(), end, alteration.getAlteration()),
+                    AlterationUtils.findOverlapAlteration(cached, gene, DEFAULT_REFERENCE_GENOME, alteration.getConsequence(), AlterationPositionBoundary.START.getValue(), end, alteration.getAlteration()));
+            }
+        }
+    }
+
+    public void testFindMutationsByConsequenceAndPosition() throws Exception {
+        for (String hugoSymbol : GENES) {
+            Gene gene = GeneUtils.getGeneByHugoSymbol(hugoSymbol);
+            List<Alteration> cached = AlterationUtils.getAllAlterations(DEFAULT_REFERENCE_GENOME, gene);
+            List<Alteration> copy = new ArrayList<>(cached);
+            for (Alteration alteration : cached) {
+                if (alteration.getConsequence() == null || alteration.getProteinStart() == null || alteration.getProteinEnd() == null) {
+                    continue;
+                }
+                for (Boolean onSamePosition : new Boolean[]{true, false}) {
+                    assertEquals(hugoSymbol + " " + alteration.getAlteration(),
+                        new HashSet<>(AlterationUtils.findMutationsByConsequenceAndPosition(gene, DEFAULT_REFERENCE_GENOME, alteration.getConsequence(), alteration.getProteinStart(), alteration.getProteinEnd(), alteration.getRefResidues(), copy, onSamePosition)),
+                        new HashSet<>(AlterationUtils.findMutationsByConsequenceAndPosition(gene, DEFAULT_REFERENCE_GENOME, alteration.getConsequence(), alteration.getProteinStart(), alteration.getProteinEnd(), alteration.getRefResidues(), cached, onSamePosition)));
+                }
+            }
+        }
+    }
+}
@@ -589,4 +589,21 @@ public class AlterationUtilsTest extends TestCase {
         Alteration alteration = generateAlteration(gene, "L1340_Q1341delinsF*");
         assertEquals(alteration.getConsequence(), VariantConsequenceUtils.findVariantConsequenceByTerm("stop_gained"));
     }
+
+    public void testFindAlterationWithNameIndex() {
+        for (String hugoSymbol : new String[]{"TP53", "EGFR", "BRAF", "KIT"}) {
+            Gene gene = GeneUtils.getGeneByHugoSymbol(hugoSymbol);
+            List<Alteration> cached = AlterationUtils.getAllAlterations(DEFAULT_REFERENCE_GENOME, gene);
+            List<Alteration> copy = new ArrayList<>(cached);
+            assertNotNull(CacheUtils.getAlterationNameIndex(DEFAULT_REFERENCE_GENOME, cached));
+            assertNull(CacheUtils.getAlterationNameIndex(DEFAULT_REFERENCE_GENOME, copy));
+            for (Alteration alteration : cached) {
+                assertEquals(AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getAlteration(), copy), AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getAlteration(), cached));
+                assertEquals(AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getName(), copy), AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getName(), cached));
+                assertEquals(AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getAlteration().toUpperCase(), copy), AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getAlteration().toUpperCase(), cached));
+                assertEquals(AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getAlteration(), alteration.getName(), copy), AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, alteration.getAlteration(), alteration.getName(), cached));
+            }
+            assertNull(AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, "NOT_AN_ALTERATION", cached));
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+
+import java.util.Map;
+
+public class AnnotationMetricsTest extends TestCase {
+    @Override
+    protected void tearDown() throws Exception {
+        AnnotationMetrics.setEnabled(false);
+        AnnotationMetrics.reset();
+        super.tearDown();
+    }
+
+    public void testBucket() {
+        assertEquals(0, LatencyHistogram.getBucket(0));
+        assertEquals(0, LatencyHistogram.getBucket(1000));
+        assertEquals(1, LatencyHistogram.getBucket(1001));
+        assertEquals(1, LatencyHistogram.getBucket(2000));
+        assertEquals(2, LatencyHistogram.getBucket(3000));
+        assertEquals(10, LatencyHistogram.getBucket(1024 * 1000));
+        assertEquals(11, LatencyHistogram.getBucket(1025 * 1000));
+        assertEquals(LatencyHistogram.NUM_OF_BUCKETS - 1, LatencyHistogram.getBucket(Long.MAX_VALUE / 2));
+
+        for (int i = 0; i < LatencyHistogram.NUM_OF_BUCKETS; i++) {
+            assertEquals(i, LatencyHistogram.getBucket(LatencyHistogram.getBucketUpperBound(i)));
+        }
+    }
+
+    public void testSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0, snapshot.getP99());
+
+        // 90 queries of 1ms and 10 of 100ms
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1000000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100000000);
+        }
+        histogram.record(-1);
+
+        snapshot = histogram.getSnapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1090.0, snapshot.getTotal());
+        assertEquals(10.9, snapshot.getMean());
+        assertEquals(100.0, snapshot.getMax());
+        // 1ms is in the bucket up to 1.024ms
+        assertEquals(1.024, snapshot.getP50());
+        assertEquals(1.024, snapshot.getP90());
+        // capped by the max
+        assertEquals(100.0, snapshot.getP99());
+
+        histogram.reset();
+        assertEquals(0, histogram.getSnapshot().getCount());
+    }
+
+    public void testTimer() {
+        AnnotationMetrics.setEnabled(true);
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.PROCESS_QUERY);
+        timer.mark(AnnotationMetrics.GENE_STAGE);
+        timer.mark(AnnotationMetrics.ALTERATION_STAGE);
+        timer.mark(AnnotationMetrics.GENE_STAGE);
+        timer.finish("missense_variant");
+
+        timer = AnnotationMetrics.startTimer(AnnotationMetrics.PROCESS_QUERY);
+        timer.mark(AnnotationMetrics.GENE_STAGE);
+        timer.finish("FUSION");
+
+        Map<String, Map<String, LatencyHistogram.Snapshot>> snapshot = AnnotationMetrics.getSnapshot();
+        assertEquals(3, snapshot.size());
+        // a stage marked twice in one call is recorded once
+        assertEquals(1, snapshot.get("processQuery.gene").get("missense_variant").getCount());
+        assertEquals(1, snapshot.get("processQuery.gene").get("FUSION").getCount());
+        assertEquals(1, snapshot.get("processQuery.alteration").get("missense_variant").getCount());
+        assertNull(snapshot.get("processQuery.alteration").get("FUSION"));
+        assertEquals(1, snapshot.get("processQuery.total").get("FUSION").getCount());
+
+        AnnotationMetrics.reset();
+        assertTrue(AnnotationMetrics.getSnapshot().isEmpty());
+    }
+
+    public void testDisabled() {
+        AnnotationMetrics.setEnabled(false);
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.PROCESS_QUERY);
+        assertSame(timer, AnnotationMetrics.startTimer(AnnotationMetrics.BATCH));
+        timer.mark(AnnotationMetrics.GENE_STAGE);
+        timer.finish("missense_variant");
+        assertTrue(AnnotationMetrics.getSnapshot().isEmpty());
+    }
+}
@@ -1,12 +1,16 @@
 package org.mskcc.cbio.oncokb.util;
 
+import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.annotateTypeaheadVariants;
 import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.annotationSearch;
 import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.searchNonHgvsAnnotation;
 
+import java.util.LinkedHashSet;
 import java.util.Set;
 import junit.framework.TestCase;
 import org.mskcc.cbio.oncokb.model.AnnotationSearchQueryType;
 import org.mskcc.cbio.oncokb.model.AnnotationSearchResult;
+import org.mskcc.cbio.oncokb.model.LevelOfEvidence;
+import org.mskcc.cbio.oncokb.model.Oncogenicity;
 import org.mskcc.cbio.oncokb.model.TypeaheadQueryType;
 import org.mskcc.cbio.oncokb.model.TypeaheadSearchResp;
 
@@ -105,4 +109,23 @@ public class AnnotationSearchUtilsTest extends TestCase {
         // This is a variant search, the cancer type search result should not be available
         assertTrue(respSet.stream().filter(resp -> AnnotationSearchQueryType.CANCER_TYPE.equals(resp.getQueryType())).count() == 0);
     }
+
+    public void testTypeaheadVariantsAreAnnotatedOnceReturned() {
+        Set<TypeaheadSearchResp> respSet = searchNonHgvsAnnotation("BRAF V600E");
+        TypeaheadSearchResp variant = respSet.stream().filter(resp -> TypeaheadQueryType.VARIANT.equals(resp.getQueryType())).findFirst().orElse(null);
+        assertNotNull(variant);
+        // ranked by the oncogenicity and the levels curated for the variant, without annotating it
+        assertEquals("V600E", variant.getVariants().iterator().next().getAlteration());
+        assertEquals(Oncogenicity.YES.getOncogenic(), variant.getOncogenicity());
+        assertEquals(LevelOfEvidence.LEVEL_1.getLevel(), variant.getHighestSensitiveLevel());
+        assertNull(variant.getAnnotation());
+
+        LinkedHashSet<TypeaheadSearchResp> annotated = annotateTypeaheadVariants(MainUtils.getLimit(new LinkedHashSet<>(respSet), 1));
+        assertEquals(1, annotated.size());
+        variant = annotated.iterator().next();
+        assertEquals("V600E", variant.getVariants().iterator().next().getAlteration());
+        assertNotNull(variant.getAnnotation());
+        assertEquals(Oncogenicity.YES.getOncogenic(), variant.getOncogenicity());
+        assertEquals(LevelOfEvidence.LEVEL_1.getLevel(), variant.getHighestSensitiveLevel());
+    }
 }
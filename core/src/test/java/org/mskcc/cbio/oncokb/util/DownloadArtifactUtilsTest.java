@@ -0,0 +1,117 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.apiModels.download.DownloadArtifact;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+public class DownloadArtifactUtilsTest extends TestCase {
+    public void testGenerate() throws Exception {
+        String content = "Hugo Symbol\tAlteration\nBRAF\tV600E\n";
+        DownloadArtifact artifact = DownloadArtifactUtils.generate("allAnnotatedVariants.txt", "v3.10", "\"v3.10\"", outputStream -> {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+            // the writer may close the stream
+            outputStream.close();
+        });
+
+        assertEquals("allAnnotatedVariants.txt", artifact.getName());
+        assertEquals("v3.10", artifact.getDataVersion());
+        assertEquals(content.length(), artifact.getContentLength());
+        assertEquals(content, gunzip(artifact.getGzippedContent()));
+        assertEquals("\"v3.10\"", artifact.getEtag());
+    }
+
+    public void testGenerateGroup() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, DownloadArtifactUtils.SourceWriter<List<String>>> writers = new HashMap<>();
+        writers.put("allAnnotatedVariants.json", (outputStream, source) -> outputStream.write(("[\"" + String.join("\",\"", source) + "\"]").getBytes(StandardCharsets.UTF_8)));
+        writers.put("allAnnotatedVariants.txt", (outputStream, source) -> outputStream.write(String.join("\n", source).getBytes(StandardCharsets.UTF_8)));
+
+        Map<String, DownloadArtifact> artifacts = DownloadArtifactUtils.generate("v3.10", "\"v3.10\"", () -> {
+            calls.incrementAndGet();
+            return Arrays.asList("BRAF", "EGFR");
+        }, writers);
+
+        // the data is loaded once for all the files
+        assertEquals(1, calls.get());
+        assertEquals(2, artifacts.size());
+        assertEquals("[\"BRAF\",\"EGFR\"]", gunzip(artifacts.get("allAnnotatedVariants.json").getGzippedContent()));
+        assertEquals("BRAF\nEGFR", gunzip(artifacts.get("allAnnotatedVariants.txt").getGzippedContent()));
+    }
+
+    public void testPrepareArtifacts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, DownloadArtifactUtils.SourceWriter<String>> writers = new HashMap<>();
+        writers.put("preparedArtifact.txt", (outputStream, source) -> outputStream.write(source.getBytes(StandardCharsets.UTF_8)));
+
+        DownloadArtifactUtils.prepareArtifacts("preparedArtifact", () -> {
+            calls.incrementAndGet();
+            return "BRAF";
+        }, writers);
+        DownloadArtifactUtils.prepareArtifacts("preparedArtifact", () -> {
+            calls.incrementAndGet();
+            return "EGFR";
+        }, writers);
+        // the request gets the prepared file, whether the background thread is done with it or not
+        DownloadArtifact artifact = DownloadArtifactUtils.getArtifact("preparedArtifact", "preparedArtifact.txt", () -> {
+            calls.incrementAndGet();
+            return "KRAS";
+        }, writers);
+
+        assertEquals(1, calls.get());
+        assertEquals("BRAF", gunzip(artifact.getGzippedContent()));
+        assertEquals(DownloadArtifactUtils.getEtag(), artifact.getEtag());
+
+        DownloadArtifactUtils.clear();
+    }
+
+    public void testEtag() {
+        // the tag is known before the file is generated and only changes with the data
+        assertEquals("\"v3.10\"", DownloadArtifactUtils.getEtag("v3.10", 0));
+        assertEquals("\"v3.10-r2\"", DownloadArtifactUtils.getEtag("v3.10", 2));
+        assertEquals("\"v3.10\"", DownloadArtifactUtils.getEtag("v3.10\"", 0));
+        assertFalse(DownloadArtifactUtils.getEtag("v3.10", 0).equals(DownloadArtifactUtils.getEtag("v3.11", 0)));
+    }
+
+    public void testMatchesEtag() {
+        String etag = "\"v3.10\"";
+        assertTrue(HttpUtils.matchesEtag(etag, etag));
+        assertTrue(HttpUtils.matchesEtag("W/" + etag, etag));
+        assertTrue(HttpUtils.matchesEtag("\"v3.9-def\", " + etag, etag));
+        assertTrue(HttpUtils.matchesEtag("*", etag));
+        assertFalse(HttpUtils.matchesEtag(null, etag));
+        assertFalse(HttpUtils.matchesEtag("", etag));
+        assertFalse(HttpUtils.matchesEtag("\"v3.9-def\"", etag));
+    }
+
+    public void testAcceptsGzip() {
+        assertTrue(HttpUtils.acceptsGzip("gzip"));
+        assertTrue(HttpUtils.acceptsGzip("deflate, gzip;q=0.5, br"));
+        assertTrue(HttpUtils.acceptsGzip("*"));
+        assertFalse(HttpUtils.acceptsGzip(null));
+        assertFalse(HttpUtils.acceptsGzip("identity"));
+        assertFalse(HttpUtils.acceptsGzip("gzip;q=0"));
+        assertFalse(HttpUtils.acceptsGzip("*, gzip;q=0"));
+    }
+
+    private String gunzip(byte[] content) throws Exception {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, length);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
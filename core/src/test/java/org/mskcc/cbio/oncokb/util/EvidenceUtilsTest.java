@@ -328,6 +328,58 @@ public class EvidenceUtilsTest extends TestCase {
 
     }
 
+    public void testEvidenceAlterationIndex() throws Exception {
+        Alteration a1 = new Alteration();
+        a1.setId(1);
+        Alteration a2 = new Alteration();
+        a2.setId(2);
+        Alteration a3 = new Alteration();
+        a3.setId(3);
+
+        Evidence e1 = new Evidence();
+        e1.setId(1);
+        e1.setEvidenceType(EvidenceType.ONCOGENIC);
+        e1.setAlterations(new HashSet<>(Arrays.asList(a1, a2)));
+        Evidence e2 = new Evidence();
+        e2.setId(2);
+        e2.setEvidenceType(EvidenceType.MUTATION_EFFECT);
+        e2.setAlterations(Collections.singleton(a2));
+        Evidence e3 = new Evidence();
+        e3.setId(3);
+        e3.setEvidenceType(EvidenceType.ONCOGENIC);
+        e3.setAlterations(Collections.singleton(a3));
+
+        EvidenceAlterationIndex index = new EvidenceAlterationIndex(Arrays.asList(e1, e2, e3));
+        assertEquals(Arrays.asList(e1, e2), index.findEvidences(Collections.singleton(a2), null));
+        assertEquals(Arrays.asList(e1, e3), index.findEvidences(Arrays.asList(a3, a1), null));
+        assertEquals(Collections.singletonList(e1), index.findEvidences(Collections.singleton(a2), Collections.singleton(EvidenceType.ONCOGENIC)));
+        assertTrue(index.findEvidences(Collections.singleton(a1), Collections.singleton(EvidenceType.MUTATION_EFFECT)).isEmpty());
+
+        // alterations without id cannot be looked up through the index
+        assertNull(index.findEvidences(Collections.singleton(new Alteration()), null));
+
+        Evidence e4 = new Evidence();
+        e4.setEvidenceType(EvidenceType.ONCOGENIC);
+        e4.setAlterations(Collections.singleton(new Alteration()));
+        assertNull(new EvidenceAlterationIndex(Arrays.asList(e1, e4)).findEvidences(Collections.singleton(a1), null));
+    }
+
+    public void testGetAlterationEvidences() throws Exception {
+        Gene gene = GeneUtils.getGeneByHugoSymbol("BRAF");
+        Alteration alteration = AlterationUtils.findAlteration(DEFAULT_REFERENCE_GENOME, "V600E", AlterationUtils.getAllAlterations(DEFAULT_REFERENCE_GENOME, gene));
+        List<Alteration> alterations = AlterationUtils.getRelevantAlterations(DEFAULT_REFERENCE_GENOME, alteration);
+
+        List<Evidence> expected = new ArrayList<>();
+        Set<Alteration> alterationSet = new HashSet<>(alterations);
+        for (Evidence evidence : CacheUtils.getEvidences(gene)) {
+            if (!Collections.disjoint(evidence.getAlterations(), alterationSet)) {
+                expected.add(evidence);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, EvidenceUtils.getAlterationEvidences(alterations));
+    }
+
     private void processRequestSuite(List<EvidenceQueryRes> responses) {
         assertTrue("There should only be one query response", responses.size() == 1);
         assertTrue("There should be evidences associated", responses.get(0).getEvidences().size() > 0);
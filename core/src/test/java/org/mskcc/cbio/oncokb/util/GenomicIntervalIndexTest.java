@@ -0,0 +1,74 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+
+import static org.mskcc.cbio.oncokb.util.MainUtils.rangesIntersect;
+
+public class GenomicIntervalIndexTest extends TestCase {
+    public void testIntersects() throws Exception {
+        GenomicIntervalIndex index = new GenomicIntervalIndex.Builder(100)
+            .add("7", 1000, 2000)
+            .add("7", 2150, 2500)
+            .add("7", 5000, 6000)
+            .add("X", 50, 60)
+            .build();
+
+        assertFalse(index.isEmpty());
+        assertTrue(index.containsChromosome("7"));
+        assertFalse(index.containsChromosome("1"));
+
+        // within the gene and within the buffer
+        assertTrue(index.intersects("7", 1500, 1500));
+        assertTrue(index.intersects("7", 900, 900));
+        assertTrue(index.intersects("7", 2100, 2100));
+        assertFalse(index.intersects("7", 899, 899));
+
+        // the gap between 2000 and 2150 is covered by the buffers
+        assertTrue(index.intersects("7", 2075, 2075));
+
+        // between two buffered genes
+        assertFalse(index.intersects("7", 3000, 4000));
+        assertTrue(index.intersects("7", 3000, 4900));
+
+        // the buffered start does not go below 0
+        assertTrue(index.intersects("X", 0, 0));
+
+        // unknown chromosome
+        assertFalse(index.intersects("1", 1500, 1500));
+        assertFalse(index.intersects(null, 1500, 1500));
+
+        // null start or end are unbounded
+        assertTrue(index.intersects("7", null, 1000));
+        assertTrue(index.intersects("7", 6000, null));
+        assertFalse(index.intersects("7", 6101, null));
+    }
+
+    public void testSameAsRangesIntersect() throws Exception {
+        int buffer = 10000;
+        int[][] genes = {{20000, 30000}, {25000, 80000}, {120000, 125000}, {300000, 301000}, {5000, 6000}};
+        GenomicIntervalIndex.Builder builder = new GenomicIntervalIndex.Builder(buffer);
+        for (int[] gene : genes) {
+            builder.add("1", gene[0], gene[1]);
+        }
+        GenomicIntervalIndex index = builder.build();
+
+        for (int start = 0; start < 320000; start += 997) {
+            for (int length : new int[]{0, 1, 50, 5000}) {
+                int end = start + length;
+                boolean expected = false;
+                for (int[] gene : genes) {
+                    if (rangesIntersect(gene[0] > buffer ? (gene[0] - buffer) : 0, gene[1] + buffer, start, end)) {
+                        expected = true;
+                    }
+                }
+                assertEquals("Location " + start + "-" + end, expected, index.intersects("1", start, end));
+            }
+        }
+    }
+
+    public void testEmpty() throws Exception {
+        GenomicIntervalIndex index = new GenomicIntervalIndex.Builder(10000).add("1", null, 100).build();
+        assertTrue(index.isEmpty());
+        assertFalse(index.intersects("1", 50, 50));
+    }
+}
@@ -4,9 +4,7 @@ import junit.framework.TestCase;
 import org.mskcc.cbio.oncokb.model.Alteration;
 import org.mskcc.cbio.oncokb.model.ReferenceGenome;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 
 /**
@@ -112,4 +110,16 @@ public class HotspotUtilsTest extends TestCase {
         assertFalse(HotspotUtils.isHotspot(alteration));
     }
 
+    public void testIsHotspotInBatch() throws Exception {
+        List<Alteration> alterations = new ArrayList<>();
+        alterations.add(AlterationUtils.getAlteration("AKT1", "E17K", null, null, null, null, null));
+        alterations.add(AlterationUtils.getAlteration("AKT1", "E17*", null, null, null, null, null));
+        alterations.add(AlterationUtils.getAlteration("MET", "X1010splice", null, null, null, null, null));
+        alterations.add(AlterationUtils.getAlteration("EGFR", "744_759del", null, null, null, null, null));
+        alterations.add(AlterationUtils.getAlteration("EGFR", "746_759del", null, null, null, null, null));
+        alterations.add(null);
+
+        assertEquals(Arrays.asList(true, false, true, false, true, false), HotspotUtils.isHotspot(alterations));
+        assertTrue(HotspotUtils.isHotspot((List<Alteration>) null).isEmpty());
+    }
 }
@@ -988,6 +988,29 @@ public class IndicatorUtilsTest {
 
     }
 
+    @Test
+    public void testProcessQueryWithFields() {
+        Query query = new Query(null, DEFAULT_REFERENCE_GENOME, null, "BRAF", "V600E", null, null, "Melanoma", null, null, null, null);
+        IndicatorQueryResp indicatorQueryResp = IndicatorUtils.processQuery(query, null, false, null, false);
+        IndicatorQueryResp indicatorQueryRespWithFields = IndicatorUtils.processQuery(query, null, false, null, false, "oncogenic, highestSensitiveLevel,treatments");
+
+        // the requested fields are the same as the full annotation
+        assertEquals(indicatorQueryResp.getOncogenic(), indicatorQueryRespWithFields.getOncogenic());
+        assertEquals(indicatorQueryResp.getHighestSensitiveLevel(), indicatorQueryRespWithFields.getHighestSensitiveLevel());
+        assertEquals(indicatorQueryResp.getTreatments().size(), indicatorQueryRespWithFields.getTreatments().size());
+        assertEquals(indicatorQueryResp.getGeneExist(), indicatorQueryRespWithFields.getGeneExist());
+        assertEquals(indicatorQueryResp.getVariantExist(), indicatorQueryRespWithFields.getVariantExist());
+
+        // the ones not requested are skipped
+        assertTrue("The geneSummary is not empty, but it should be.", StringUtils.isEmpty(indicatorQueryRespWithFields.getGeneSummary()));
+        assertTrue("The variantSummary is not empty, but it should be.", StringUtils.isEmpty(indicatorQueryRespWithFields.getVariantSummary()));
+        assertTrue("There is diagnostic in the response, but it should not be.", indicatorQueryRespWithFields.getDiagnosticImplications().size() == 0);
+
+        // a field that depends on all evidence types, or no fields, gives the full annotation
+        pairComparison(indicatorQueryResp, IndicatorUtils.processQuery(query, null, false, null, false, "oncogenic,lastUpdate"));
+        pairComparison(indicatorQueryResp, IndicatorUtils.processQuery(query, null, false, null, false, ""));
+    }
+
     @Test
     public void testFilterImplication() {
         TumorType melanoma = new TumorType();
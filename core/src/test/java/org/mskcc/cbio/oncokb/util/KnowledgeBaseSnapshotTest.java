@@ -0,0 +1,133 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.*;
+
+public class KnowledgeBaseSnapshotTest extends TestCase {
+    private File directory;
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("kb-snapshot").toFile();
+        file = new File(directory, "snapshot.bin");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    public void testWriteAndRead() throws Exception {
+        KnowledgeBaseSnapshot.write(file, getSnapshot("v3.10"));
+
+        KnowledgeBaseSnapshot snapshot = KnowledgeBaseSnapshot.read(file, "v3.10");
+        assertNotNull(snapshot);
+        assertEquals("v3.10", snapshot.getDataVersion());
+        assertEquals(1, snapshot.getGenes().size());
+        assertEquals(2, snapshot.getAlterations().size());
+        assertEquals(2, snapshot.getCancerTypes().size());
+        assertEquals(1, snapshot.getEvidences().size());
+
+        // the entities shared in the cache are still shared after the snapshot is read
+        Gene gene = snapshot.getGenes().iterator().next();
+        assertEquals("BRAF", gene.getHugoSymbol());
+        for (Alteration alteration : snapshot.getAlterations()) {
+            assertSame(gene, alteration.getGene());
+        }
+        Evidence evidence = snapshot.getEvidences().get(0);
+        assertSame(gene, evidence.getGene());
+        assertTrue(snapshot.getAlterations().containsAll(evidence.getAlterations()));
+        TumorType melanoma = snapshot.getCancerTypes().get(0);
+        assertSame(melanoma, evidence.getCancerTypes().iterator().next());
+        assertSame(melanoma, snapshot.getRelevantCancerTypes().get(evidence.getId()).iterator().next());
+    }
+
+    public void testDataVersionMismatch() throws Exception {
+        assertNull(KnowledgeBaseSnapshot.read(file, "v3.10"));
+
+        KnowledgeBaseSnapshot.write(file, getSnapshot("v3.10"));
+        assertNull(KnowledgeBaseSnapshot.read(file, "v3.11"));
+        assertNull(KnowledgeBaseSnapshot.read(file, null));
+
+        // a new snapshot replaces the old one
+        KnowledgeBaseSnapshot.write(file, getSnapshot("v3.11"));
+        assertNotNull(KnowledgeBaseSnapshot.read(file, "v3.11"));
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    public void testCorrupted() throws Exception {
+        KnowledgeBaseSnapshot.write(file, getSnapshot("v3.10"));
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            long position = randomAccessFile.length() - 10;
+            randomAccessFile.seek(position);
+            int b = randomAccessFile.read();
+            randomAccessFile.seek(position);
+            randomAccessFile.write(b ^ 0xff);
+        }
+        try {
+            KnowledgeBaseSnapshot.read(file, "v3.10");
+            fail("The checksum should not match");
+        } catch (IOException e) {
+            // expected
+        }
+
+        KnowledgeBaseSnapshot.write(file, getSnapshot("v3.10"));
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 1);
+        }
+        try {
+            KnowledgeBaseSnapshot.read(file, "v3.10");
+            fail("The snapshot is truncated");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private KnowledgeBaseSnapshot getSnapshot(String dataVersion) {
+        Gene gene = new Gene();
+        gene.setEntrezGeneId(673);
+        gene.setHugoSymbol("BRAF");
+
+        List<Alteration> alterations = new ArrayList<>();
+        for (String name : Arrays.asList("V600E", "V600K")) {
+            Alteration alteration = new Alteration();
+            alteration.setId(alterations.size() + 1);
+            alteration.setGene(gene);
+            alteration.setAlteration(name);
+            alterations.add(alteration);
+        }
+
+        List<TumorType> cancerTypes = new ArrayList<>();
+        for (String code : Arrays.asList("MEL", "NSCLC")) {
+            TumorType tumorType = new TumorType();
+            tumorType.setId(cancerTypes.size() + 1);
+            tumorType.setCode(code);
+            cancerTypes.add(tumorType);
+        }
+
+        Evidence evidence = new Evidence();
+        evidence.setId(1);
+        evidence.setUuid("uuid");
+        evidence.setGene(gene);
+        evidence.setAlterations(new HashSet<>(alterations));
+        evidence.setCancerTypes(Collections.singleton(cancerTypes.get(0)));
+
+        Map<Integer, Set<TumorType>> relevantCancerTypes = new HashMap<>();
+        relevantCancerTypes.put(evidence.getId(), Collections.singleton(cancerTypes.get(0)));
+
+        return new KnowledgeBaseSnapshot(dataVersion, Collections.singleton(gene), alterations, new HashSet<>(), cancerTypes, Collections.singletonList(evidence), relevantCancerTypes);
+    }
+}
@@ -0,0 +1,271 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.mskcc.cbio.oncokb.model.AlterationPositionBoundary;
+import org.mskcc.cbio.oncokb.model.FrameshiftVariant;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mskcc.cbio.oncokb.Constants.*;
+
+/**
+ * The regex cascade AlterationUtils.annotateAlteration used before ProteinChangeParser, kept as it was so the parser
+ * can be compared against it. Only used by the tests.
+ */
+final class LegacyProteinChangeParser {
+    String consequence;
+    String ref;
+    String var;
+    Integer start;
+    Integer end;
+    String excludedStr;
+
+    private LegacyProteinChangeParser() {
+    }
+
+    static LegacyProteinChangeParser parse(String proteinChange) {
+        String consequence = "NA";
+        String ref = null;
+        String var = null;
+        Integer start = AlterationPositionBoundary.START.getValue();
+        Integer end = AlterationPositionBoundary.END.getValue();
+
+        if (proteinChange == null) {
+            proteinChange = "";
+        }
+
+        if (proteinChange.startsWith("p.")) {
+            proteinChange = proteinChange.substring(2);
+        }
+
+        if (proteinChange.indexOf("[") != -1) {
+            proteinChange = proteinChange.substring(0, proteinChange.indexOf("["));
+        }
+
+        // we need to deal with the exclusion format so the protein change can properly be interpreted.
+        String excludedStr = "";
+        Matcher exclusionMatch = AlterationUtils.getExclusionCriteriaMatcher(proteinChange);
+        if (exclusionMatch.matches()) {
+            proteinChange = exclusionMatch.group(1);
+            excludedStr = exclusionMatch.group(3).trim();
+        }
+
+        proteinChange = proteinChange.trim();
+
+        Pattern p = Pattern.compile("([A-Z]?)([0-9]+)(_[A-Z]?([0-9]+))?(delins|ins|del)([A-Z0-9\\*]*)", Pattern.CASE_INSENSITIVE);
+        Matcher m = p.matcher(proteinChange);
+            if (m.matches()) {
+                if (m.group(1) != null && m.group(3) == null) {
+                    // we only want to specify reference when it's one position ins/del
+                    ref = m.group(1).toUpperCase();
+                }
+                start = Integer.valueOf(m.group(2));
+                if (m.group(4) != null) {
+                    end = Integer.valueOf(m.group(4));
+                } else {
+                    end = start;
+                }
+                String type = m.group(5);
+                if (type.equals("ins")) {
+                    consequence = IN_FRAME_INSERTION;
+                } else if (type.equals("del")) {
+                    consequence = IN_FRAME_DELETION;
+                } else {
+                    // this will be delins, it requires AA after delins to be specified, otherwise, you won't be able to know its consequence
+                    Integer deletion = end - start + 1;
+                    String groupSix = m.group(6);
+                    String groupSixWithoutDigits = MainUtils.removeDigits(groupSix);
+
+                    if (groupSixWithoutDigits.contains("*")) {
+                        consequence = "stop_gained";
+                    } 
+                    else if (groupSixWithoutDigits.length() != groupSix.length() && groupSixWithoutDigits.length() > 0) {
+                        if (groupSixWithoutDigits.length() > deletion) {
+                            consequence = IN_FRAME_INSERTION;
+                        } else {
+                            consequence = "NA";
+                        }
+                    } else {
+                        Integer insertion = groupSix.length();
+                        if (groupSixWithoutDigits.length() == 0 && insertion > 0) {
+                            insertion = Integer.parseInt(groupSix);
+                        }
+                        if (insertion == 0) {
+                            consequence = "NA";
+                        } else if (insertion - deletion > 0) {
+                            consequence = IN_FRAME_INSERTION;
+                        } else if (insertion - deletion == 0) {
+                            consequence = MISSENSE_VARIANT;
+                        } else {
+                            consequence = IN_FRAME_DELETION;
+                        }
+                    }
+                }
+            } else {
+                p = Pattern.compile("[A-Z]?([0-9]+)(_[A-Z]?([0-9]+))?(_)?splice", Pattern.CASE_INSENSITIVE);
+                m = p.matcher(proteinChange);
+                if (m.matches()) {
+                    start = Integer.valueOf(m.group(1));
+                    if (m.group(3) != null) {
+                        end = Integer.valueOf(m.group(3));
+                    } else {
+                        end = start;
+                    }
+                    consequence = "splice_region_variant";
+                } else {
+                    p = Pattern.compile("[A-Z]?([0-9]+)_[A-Z]?([0-9]+)(.+)", Pattern.CASE_INSENSITIVE);
+                    m = p.matcher(proteinChange);
+                    if (m.matches()) {
+                        start = Integer.valueOf(m.group(1));
+                        end = Integer.valueOf(m.group(2));
+                        String v = m.group(3).toLowerCase();
+                        switch (v) {
+                            case "mis":
+                                consequence = MISSENSE_VARIANT;
+                                break;
+                            case "ins":
+                                consequence = IN_FRAME_INSERTION;
+                                break;
+                            case "del":
+                                consequence = IN_FRAME_DELETION;
+                                break;
+                            case "fs":
+                                consequence = FRAMESHIFT_VARIANT;
+                                break;
+                            case "trunc":
+                                consequence = "feature_truncation";
+                                break;
+                            case "dup":
+                                consequence = IN_FRAME_INSERTION;
+                                break;
+                            case "mut":
+                                consequence = "any";
+                        }
+                    } else {
+                        FrameshiftVariant frameshiftVariant = AlterationUtils.parseFrameshiftVariant(proteinChange);
+                        if (frameshiftVariant != null) {
+                            ref = frameshiftVariant.getRefResidues();
+                            start = frameshiftVariant.getProteinStart();
+                            end = start;
+                            consequence = FRAMESHIFT_VARIANT;
+                        } else {
+                            p = Pattern.compile("([A-Z]+)?([0-9]+)((ins)|(del)|(dup)|(mut))", Pattern.CASE_INSENSITIVE);
+                            m = p.matcher(proteinChange);
+                            if (m.matches()) {
+                                ref = m.group(1) == null ? null : m.group(1).toUpperCase();
+                                start = Integer.valueOf(m.group(2));
+                                end = start;
+                                String v = m.group(3).toLowerCase();
+                                switch (v) {
+                                    case "ins":
+                                        consequence = IN_FRAME_INSERTION;
+                                        break;
+                                    case "dup":
+                                        consequence = IN_FRAME_INSERTION;
+                                        break;
+                                    case "del":
+                                        consequence = IN_FRAME_DELETION;
+                                        break;
+                                    case "mut":
+                                        consequence = "any";
+                                        break;
+                                }
+                            } else {
+                                p = Pattern.compile("M?1ext(-[0-9]+)?", Pattern.CASE_INSENSITIVE);
+                                m = p.matcher(proteinChange);
+                                if (m.matches()) {
+                                    start = 1;
+                                    end = start;
+                                    consequence = IN_FRAME_INSERTION;
+                                } else {
+                                    /**
+                                     * support extension variant (https://varnomen.hgvs.org/recommendations/protein/variant/extension/)
+                                     * the following examples are supported
+                                     * *959Qext*14
+                                     * *110Gext*17
+                                     * *315TextALGT*
+                                     * *327Aext*?
+                                     */
+                                    p = Pattern.compile("(\\*)?([0-9]+)[A-Z]?ext([A-Z]+)?\\*([0-9]+)?(\\?)?", Pattern.CASE_INSENSITIVE);
+                                    m = p.matcher(proteinChange);
+                                    if (m.matches()) {
+                                        ref = m.group(1) == null ? "" : m.group(1).toUpperCase();
+                                        start = Integer.valueOf(m.group(2));
+                                        end = start;
+                                        consequence = "stop_lost";
+                                    } else {
+                                        p = Pattern.compile("([A-Z\\*])?([0-9]+)=", Pattern.CASE_INSENSITIVE);
+                                        m = p.matcher(proteinChange);
+                                        if (m.matches()) {
+                                            var = ref = m.group(1) == null ? "" : m.group(1).toUpperCase();
+                                            start = Integer.valueOf(m.group(2));
+                                            end = start;
+                                            if (ref != null && ref.equals("*")) {
+                                                consequence = "stop_retained_variant";
+                                            } else {
+                                                consequence = "synonymous_variant";
+                                            }
+                                        } else {
+                                            p = Pattern.compile("^([A-Z\\*]+)?([0-9]+)([A-Z\\*\\?]*)$", Pattern.CASE_INSENSITIVE);
+                                            m = p.matcher(proteinChange);
+                                            if (m.matches()) {
+                                                ref = m.group(1) == null ? "" : m.group(1).toUpperCase();
+                                                start = Integer.valueOf(m.group(2));
+                                                end = start;
+                                                var = m.group(3).toUpperCase();
+
+                                                Integer refL = ref.length();
+                                                Integer varL = var.length();
+
+                                                if (ref.equals("*")) {
+                                                    consequence = "stop_lost";
+                                                } else if (var.equals("*")) {
+                                                    consequence = "stop_gained";
+                                                } else if (ref.equalsIgnoreCase(var)) {
+                                                    consequence = "synonymous_variant";
+                                                } else if (start == 1) {
+                                                    consequence = "start_lost";
+                                                } else if (var.equals("?")) {
+                                                    consequence = "any";
+                                                } else {
+                                                    end = start + refL - 1;
+                                                    if (refL > 1 || varL > 1) {
+                                                        // Handle in-frame insertion/deletion event. Exp: IK744K
+                                                        if (refL > varL) {
+                                                            consequence = IN_FRAME_DELETION;
+                                                        } else if (refL < varL) {
+                                                            consequence = IN_FRAME_INSERTION;
+                                                        } else {
+                                                            consequence = MISSENSE_VARIANT;
+                                                        }
+                                                    } else if (refL == 1 && varL == 1) {
+                                                        consequence = MISSENSE_VARIANT;
+                                                    } else {
+                                                        consequence = "NA";
+                                                    }
+                                                }
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+        // truncating
+        if (proteinChange.toLowerCase().matches("truncating mutations?")) {
+            consequence = "feature_truncation";
+        }
+
+        LegacyProteinChangeParser parsed = new LegacyProteinChangeParser();
+        parsed.consequence = consequence;
+        parsed.ref = ref;
+        parsed.var = var;
+        parsed.start = start;
+        parsed.end = end;
+        parsed.excludedStr = excludedStr;
+        return parsed;
+    }
+}
@@ -0,0 +1,103 @@
+package org.mskcc.cbio.oncokb.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mskcc.cbio.oncokb.util.TestUtils.getTestFileBufferedReader;
+
+/**
+ * Runs the annotate alteration cases against the parser directly, and makes sure the parser
+ * gives the same answer as the regex cascade it replaced.
+ */
+@RunWith(Parameterized.class)
+public class ProteinChangeParserParameterizedTest {
+    private static String EXAMPLES_PATH = "src/test/resources/test_annotate_alterations.tsv";
+
+    private String proteinChange;
+    private String expectedConsequence;
+    private String expectedRefAllele;
+    private String expectedVarAllele;
+    private String expectedProteinStart;
+    private String expectedProteinEnd;
+
+    public ProteinChangeParserParameterizedTest(String proteinChange, String expectedConsequence, String expectedRefAllele, String expectedVarAllele, String expectedProteinStart, String expectedProteinEnd) {
+        this.proteinChange = proteinChange;
+        this.expectedConsequence = expectedConsequence;
+        this.expectedRefAllele = expectedRefAllele;
+        this.expectedVarAllele = expectedVarAllele;
+        this.expectedProteinStart = expectedProteinStart;
+        this.expectedProteinEnd = expectedProteinEnd;
+    }
+
+    @Test
+    public void testParse() {
+        testSuite(ProteinChangeParser.parse(proteinChange), proteinChange);
+
+        // match needs to be case-insensitive
+        testSuite(ProteinChangeParser.parse(proteinChange.toLowerCase()), proteinChange.toLowerCase());
+    }
+
+    @Test
+    public void testParityWithLegacyParser() {
+        for (String query : new String[]{proteinChange, proteinChange.toLowerCase(), "p." + proteinChange, proteinChange + " {excluding V600}", " " + proteinChange + " "}) {
+            ProteinChangeParser.ParsedProteinChange parsed = ProteinChangeParser.doParse(query);
+            LegacyProteinChangeParser legacy = LegacyProteinChangeParser.parse(query);
+
+            assertEquals("Not the same consequence. Query: " + query, legacy.consequence, parsed.getConsequence());
+            assertEquals("Not the same ref allele. Query: " + query, legacy.ref, parsed.getRefResidues());
+            assertEquals("Not the same var allele. Query: " + query, legacy.var, parsed.getVariantResidues());
+            assertEquals("Not the same protein start. Query: " + query, legacy.start, parsed.getProteinStart());
+            assertEquals("Not the same protein end. Query: " + query, legacy.end, parsed.getProteinEnd());
+            assertEquals("Not the same exclusion. Query: " + query, legacy.excludedStr, parsed.getExcludedStr());
+        }
+    }
+
+    @Test
+    public void testMemoized() {
+        assertSame("The parsed protein change should be cached. Query: " + proteinChange, ProteinChangeParser.parse(proteinChange), ProteinChangeParser.parse(proteinChange));
+    }
+
+    private void testSuite(ProteinChangeParser.ParsedProteinChange parsed, String query) {
+        assertEquals("Not expected consequence. Query: " + query, expectedConsequence, parsed.getConsequence());
+        assertEquals("Not expected ref allele. Query: " + query, expectedRefAllele, StringUtils.isEmpty(parsed.getRefResidues()) ? "" : parsed.getRefResidues());
+        assertEquals("Not expected var allele. Query: " + query, expectedVarAllele, StringUtils.isEmpty(parsed.getVariantResidues()) ? "" : parsed.getVariantResidues());
+        assertEquals("Not expected protein start. Query: " + query, expectedProteinStart, parsed.getProteinStart() == null ? "" : Integer.toString(parsed.getProteinStart()));
+        assertEquals("Not expected protein end. Query: " + query, expectedProteinEnd, parsed.getProteinEnd() == null ? "" : Integer.toString(parsed.getProteinEnd()));
+    }
+
+    @Parameterized.Parameters
+    public static Collection<String[]> getParameters() throws IOException {
+        return importer();
+    }
+
+    private static List<String[]> importer() throws IOException {
+        BufferedReader buf = getTestFileBufferedReader(EXAMPLES_PATH);
+        String line = buf.readLine();
+
+        List<String[]> queries = new ArrayList<>();
+        while (line != null) {
+            if (!line.startsWith("#") && line.trim().length() > 0) {
+                String parts[] = line.split("\t");
+                String proteinChange = parts[0];
+                String expectedConsequence = parts.length > 1 ? parts[1] : "";
+                String expectedRefAllele = parts.length > 2 ? parts[2] : "";
+                String expectedVarAllele = parts.length > 3 ? parts[3] : "";
+                String expectedProteinStart = parts.length > 4 ? parts[4] : "";
+                String expectedProteinEnd = parts.length > 5 ? parts[5] : "";
+                queries.add(new String[]{proteinChange, expectedConsequence, expectedRefAllele, expectedVarAllele, expectedProteinStart, expectedProteinEnd});
+            }
+            line = buf.readLine();
+        }
+        return queries;
+    }
+}
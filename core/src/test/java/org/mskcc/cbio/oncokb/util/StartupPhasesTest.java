@@ -0,0 +1,95 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.apiModels.StartupReport;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class StartupPhasesTest extends TestCase {
+    public void testSubmit() throws Exception {
+        StartupPhases phases = new StartupPhases();
+
+        // Each phase can only finish when the other one has started
+        CountDownLatch started = new CountDownLatch(2);
+        Future<List<String>> genes = phases.submit("Load genes", () -> {
+            started.countDown();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            return Arrays.asList("BRAF", "EGFR");
+        }, List::size);
+        Future<List<String>> drugs = phases.submit("Load drugs", () -> {
+            started.countDown();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            return Arrays.asList("Vemurafenib");
+        }, List::size);
+
+        List<String> loadedGenes = phases.get(genes);
+        phases.run("Cache genes", () -> assertEquals(2, loadedGenes.size()), loadedGenes.size());
+        phases.get(drugs);
+        phases.run("Register other services", () -> {
+        }, null);
+
+        StartupReport report = phases.finish();
+        assertNotNull(report.getDuration());
+        assertEquals(4, report.getPhases().size());
+        for (StartupReport.Phase phase : report.getPhases()) {
+            switch (phase.getName()) {
+                case "Load genes":
+                    assertEquals(2, phase.getCount().intValue());
+                    assertTrue(phase.getThread().startsWith("cache-startup-"));
+                    break;
+                case "Load drugs":
+                    assertEquals(1, phase.getCount().intValue());
+                    assertTrue(phase.getThread().startsWith("cache-startup-"));
+                    break;
+                case "Cache genes":
+                    assertEquals(2, phase.getCount().intValue());
+                    assertEquals(Thread.currentThread().getName(), phase.getThread());
+                    break;
+                case "Register other services":
+                    assertNull(phase.getCount());
+                    break;
+                default:
+                    fail("Unexpected phase " + phase.getName());
+            }
+            assertFalse(phase.getFailed());
+        }
+
+        // sorted by start
+        for (int i = 1; i < report.getPhases().size(); i++) {
+            assertTrue(report.getPhases().get(i - 1).getStart() <= report.getPhases().get(i).getStart());
+        }
+    }
+
+    public void testFailure() throws Exception {
+        StartupPhases phases = new StartupPhases();
+        Future<List<String>> evidences = phases.submit("Load evidences", () -> {
+            throw new IOException("The database is not available");
+        }, List::size);
+        try {
+            phases.get(evidences);
+            fail("The failure of the phase should be thrown");
+        } catch (IOException e) {
+            assertEquals("The database is not available", e.getMessage());
+        }
+
+        try {
+            phases.run("Cache evidences", () -> {
+                throw new IllegalStateException();
+            }, null);
+            fail("The failure of the phase should be thrown");
+        } catch (IllegalStateException e) {
+        }
+
+        StartupReport report = phases.finish();
+        assertEquals(2, report.getPhases().size());
+        for (StartupReport.Phase phase : report.getPhases()) {
+            assertTrue(phase.getFailed());
+            assertNull(phase.getCount());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.mskcc.cbio.oncokb.util;
+
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class SubstringIndexTest extends TestCase {
+    private static final List<String[]> VALUES = Arrays.asList(
+        new String[]{"BRAF", "BRAF1", "RAFB1"},
+        new String[]{"BRCA1", "RNF53"},
+        new String[]{"BRCA2", "FANCD1"},
+        new String[]{"ABL1"},
+        new String[]{"BCR", "D22S11"},
+        new String[]{"V600E"},
+        new String[]{"V600K", "V600"},
+        new String[]{"Oncogenic Mutations"},
+        new String[]{"Truncating Mutations"},
+        new String[]{"AAAA"},
+        new String[]{null, ""}
+    );
+
+    public void testSearch() {
+        SubstringIndex<String[]> index = new SubstringIndex<>(VALUES, Arrays::asList);
+        assertEquals(VALUES.size(), index.size());
+
+        List<String> queries = Arrays.asList("b", "B", "br", "bra", "BRAF", "braf1", "rca", "brca1", "RNF", "1", "22s", "d22s11x",
+            "v600", "600e", "v600e", "mutations", "g mut", "aa", "aaa", "aaaa", "aaaaa", "xyz", "x", " ");
+        for (String query : queries) {
+            assertEquals(query, scan(query), index.search(query));
+        }
+        assertTrue(index.search(null).isEmpty());
+        assertTrue(index.search("").isEmpty());
+    }
+
+    public void testOrder() {
+        SubstringIndex<String[]> index = new SubstringIndex<>(VALUES, Arrays::asList);
+
+        // the values are returned once and in order, even when more than one of their terms matches
+        List<String[]> result = index.search("br");
+        assertEquals(3, result.size());
+        assertEquals("BRAF", result.get(0)[0]);
+        assertEquals("BRCA1", result.get(1)[0]);
+        assertEquals("BRCA2", result.get(2)[0]);
+
+        result = index.search("mutations");
+        assertEquals("Oncogenic Mutations", result.get(0)[0]);
+        assertEquals("Truncating Mutations", result.get(1)[0]);
+    }
+
+    public void testLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            // the dotted and dotless i of the turkish locale do not change the matches
+            Locale.setDefault(new Locale("tr", "TR"));
+            SubstringIndex<String[]> index = new SubstringIndex<>(VALUES, Arrays::asList);
+            assertEquals(1, index.search("oncogenic").size());
+            assertEquals(1, index.search("ONCOGENIC").size());
+            assertEquals(1, index.search("TRUNCATING MUTATIONS").size());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private List<String[]> scan(String query) {
+        List<String[]> result = new ArrayList<>();
+        for (String[] value : VALUES) {
+            for (String term : value) {
+                if (term != null && !term.isEmpty() && term.toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT))) {
+                    result.add(value);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -256,4 +256,23 @@ public class TumorTypeUtilsTest extends TestCase {
         }
         return org.apache.commons.lang3.StringUtils.join(name, ", ");
     }
+
+    public void testTumorTypeHierarchy() {
+        TumorTypeHierarchy cached = CacheUtils.getTumorTypeHierarchy();
+        // an empty hierarchy walks the tree for every tumor type
+        TumorTypeHierarchy walking = new TumorTypeHierarchy();
+        for (TumorType tumorType : CacheUtils.getAllCancerTypes()) {
+            for (boolean onlySameMainType : new boolean[]{true, false}) {
+                assertEquals(walking.getParentTumorTypes(tumorType, onlySameMainType), cached.getParentTumorTypes(tumorType, onlySameMainType));
+                assertEquals(walking.getChildTumorTypes(tumorType, onlySameMainType), cached.getChildTumorTypes(tumorType, onlySameMainType));
+            }
+            for (RelevantTumorTypeDirection direction : RelevantTumorTypeDirection.values()) {
+                Set<TumorType> relevant = new HashSet<>();
+                relevant.add(tumorType);
+                relevant.addAll(direction.equals(RelevantTumorTypeDirection.UPWARD) ? walking.getParentTumorTypes(tumorType, true) : walking.getChildTumorTypes(tumorType, true));
+                assertEquals(TumorTypeUtils.hasSolidTumor(relevant).booleanValue(), cached.hasSolidTumor(tumorType, direction));
+                assertEquals(TumorTypeUtils.hasLiquidTumor(relevant).booleanValue(), cached.hasLiquidTumor(tumorType, direction));
+            }
+        }
+    }
 }
@@ -2,6 +2,8 @@ package org.mskcc.cbio.oncokb.api.pub.v1;
 
 import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.annotationSearch;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.swagger.annotations.*;
 import org.apache.commons.lang3.StringUtils;
 import org.genome_nexus.client.GenomicLocation;
@@ -10,23 +12,34 @@ import org.mskcc.cbio.oncokb.apiModels.annotation.*;
 import org.mskcc.cbio.oncokb.cache.CacheFetcher;
 import org.mskcc.cbio.oncokb.config.annotation.PremiumPublicApi;
 import org.mskcc.cbio.oncokb.config.annotation.PublicApi;
+import org.mskcc.cbio.oncokb.genomenexus.GNVariantAnnotationType;
 import org.mskcc.cbio.oncokb.model.*;
 import org.mskcc.cbio.oncokb.model.genomeNexus.TranscriptSummaryAlterationResult;
 import org.mskcc.cbio.oncokb.util.*;
 import org.oncokb.oncokb_transcript.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.mskcc.cbio.oncokb.controller.advice.ApiHttpError;
 import org.mskcc.cbio.oncokb.controller.advice.ApiHttpErrorException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -36,10 +49,18 @@ import java.util.stream.Stream;
 @Controller
 public class AnnotationsApiController {
     final String EVIDENCE_TYPES_DESCRIPTION = "DEPRECATED. We do not recommend using this parameter and it will eventually be removed.";
+    static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    static final String NDJSON_CATEGORY_FIELD = "category";
+    private static final int STREAMING_CHUNK_SIZE = 500;
+    private static final Logger LOG = LoggerFactory.getLogger(AnnotationsApiController.class);
 
     @Autowired
     CacheFetcher cacheFetcher;
 
+    // The mapper of the JSON responses, so a streamed line is the same as the element of the JSON array
+    @Autowired
+    ObjectMapper objectMapper;
+
     // Annotate mutations by protein change
     @PublicApi
     @PremiumPublicApi
@@ -98,14 +119,20 @@ public class AnnotationsApiController {
         @ApiResponse(code = 400, message = "Error, error message will be given.", response = ApiHttpError.class)})
     @RequestMapping(value = "/annotate/mutations/byProteinChange",
         consumes = {"application/json"},
-        produces = {"application/json"},
+        produces = {"application/json", NDJSON_MEDIA_TYPE},
         method = RequestMethod.POST)
     public ResponseEntity<List<IndicatorQueryResp>> annotateMutationsByProteinChangePost(
-        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateMutationByProteinChangeQuery> body
-    ) throws ApiHttpErrorException {
+        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateMutationByProteinChangeQuery> body,
+        @ApiParam(value = "Use application/x-ndjson to stream one annotation per line as soon as it is available.") @RequestHeader(value = "Accept", required = false) String accept,
+        HttpServletResponse response
+    ) throws ApiHttpErrorException, IOException {
         if (body == null) {
             throw new ApiHttpErrorException("The request body is missing.", HttpStatus.BAD_REQUEST);
         } 
+        if (isNdjsonRequested(accept)) {
+            streamAnnotations(response, body, this::annotateMutationsByProteinChange);
+            return null;
+        }
         return new ResponseEntity<>(annotateMutationsByProteinChange(body), HttpStatus.OK);
     }
 
@@ -162,14 +189,20 @@ public class AnnotationsApiController {
         @ApiResponse(code = 400, message = "Error, error message will be given.", response = ApiHttpError.class)})
     @RequestMapping(value = "/annotate/mutations/byGenomicChange",
         consumes = {"application/json"},
-        produces = {"application/json"},
+        produces = {"application/json", NDJSON_MEDIA_TYPE},
         method = RequestMethod.POST)
     public ResponseEntity<List<IndicatorQueryResp>> annotateMutationsByGenomicChangePost(
-        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateMutationByGenomicChangeQuery> body
-    ) throws ApiException, org.genome_nexus.ApiException, ApiHttpErrorException {
+        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateMutationByGenomicChangeQuery> body,
+        @ApiParam(value = "Use application/x-ndjson to stream one annotation per line as soon as it is available.") @RequestHeader(value = "Accept", required = false) String accept,
+        HttpServletResponse response
+    ) throws ApiException, org.genome_nexus.ApiException, ApiHttpErrorException, IOException {
         if (body == null) {
             throw new ApiHttpErrorException("The request body is missing.", HttpStatus.BAD_REQUEST);
         }
+        if (isNdjsonRequested(accept)) {
+            streamAnnotations(response, body, this::annotateMutationsByGenomicChange);
+            return null;
+        }
         return new ResponseEntity<>(annotateMutationsByGenomicChange(body), HttpStatus.OK);
     }
 
@@ -221,14 +254,20 @@ public class AnnotationsApiController {
         @ApiResponse(code = 400, message = "Error, error message will be given.", response = ApiHttpError.class)})
     @RequestMapping(value = "/annotate/mutations/byHGVSg",
         consumes = {"application/json"},
-        produces = {"application/json"},
+        produces = {"application/json", NDJSON_MEDIA_TYPE},
         method = RequestMethod.POST)
     public ResponseEntity<List<IndicatorQueryResp>> annotateMutationsByHGVSgPost(
-        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateMutationByHGVSgQuery> body
-    ) throws ApiException, org.genome_nexus.ApiException, ApiHttpErrorException {
+        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateMutationByHGVSgQuery> body,
+        @ApiParam(value = "Use application/x-ndjson to stream one annotation per line as soon as it is available.") @RequestHeader(value = "Accept", required = false) String accept,
+        HttpServletResponse response
+    ) throws ApiException, org.genome_nexus.ApiException, ApiHttpErrorException, IOException {
         if (body == null) {
             throw new ApiHttpErrorException("The request body is missing.", HttpStatus.BAD_REQUEST);
         }
+        if (isNdjsonRequested(accept)) {
+            streamAnnotations(response, body, this::annotateMutationsByHGVSg);
+            return null;
+        }
         return new ResponseEntity<>(annotateMutationsByHGVSg(body), HttpStatus.OK);
     }
 
@@ -287,14 +326,20 @@ public class AnnotationsApiController {
         @ApiResponse(code = 400, message = "Error, error message will be given.", response = ApiHttpError.class)})
     @RequestMapping(value = "/annotate/copyNumberAlterations",
         consumes = {"application/json"},
-        produces = {"application/json"},
+        produces = {"application/json", NDJSON_MEDIA_TYPE},
         method = RequestMethod.POST)
     public ResponseEntity<List<IndicatorQueryResp>> annotateCopyNumberAlterationsPost(
-        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateCopyNumberAlterationQuery> body
-    ) throws ApiHttpErrorException {
+        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody() List<AnnotateCopyNumberAlterationQuery> body,
+        @ApiParam(value = "Use application/x-ndjson to stream one annotation per line as soon as it is available.") @RequestHeader(value = "Accept", required = false) String accept,
+        HttpServletResponse response
+    ) throws ApiHttpErrorException, IOException {
         if (body == null) {
             throw new ApiHttpErrorException("The request body is missing.", HttpStatus.BAD_REQUEST);
         }
+        if (isNdjsonRequested(accept)) {
+            streamAnnotations(response, body, this::annotateCopyNumberAlterations);
+            return null;
+        }
         return new ResponseEntity<>(annotateCopyNumberAlterations(body), HttpStatus.OK);
     }
 
@@ -374,14 +419,20 @@ public class AnnotationsApiController {
         @ApiResponse(code = 400, message = "Error, error message will be given.", response = ApiHttpError.class)})
     @RequestMapping(value = "/annotate/structuralVariants",
         consumes = {"application/json"},
-        produces = {"application/json"},
+        produces = {"application/json", NDJSON_MEDIA_TYPE},
         method = RequestMethod.POST)
     public ResponseEntity<List<IndicatorQueryResp>> annotateStructuralVariantsPost(
-        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody(required = true) List<AnnotateStructuralVariantQuery> body
-    ) throws ApiHttpErrorException {
+        @ApiParam(value = "List of queries. Please see swagger.json for request body format.", required = true) @RequestBody(required = true) List<AnnotateStructuralVariantQuery> body,
+        @ApiParam(value = "Use application/x-ndjson to stream one annotation per line as soon as it is available.") @RequestHeader(value = "Accept", required = false) String accept,
+        HttpServletResponse response
+    ) throws ApiHttpErrorException, IOException {
         if (body == null) {
             throw new ApiHttpErrorException("The request body is missing.", HttpStatus.BAD_REQUEST);
         }
+        if (isNdjsonRequested(accept)) {
+            streamAnnotations(response, body, this::annotateStructuralVariants);
+            return null;
+        }
         return new ResponseEntity<>(annotateStructuralVariants(body), HttpStatus.OK);
     }
 
@@ -419,14 +470,20 @@ public class AnnotationsApiController {
         @ApiResponse(code = 400, message = "Error, error message will be given.", response = ApiHttpError.class)})
     @RequestMapping(value = "/annotate/sample",
         consumes = {"application/json"},
-        produces = {"application/json"},
+        produces = {"application/json", NDJSON_MEDIA_TYPE},
         method = RequestMethod.POST)
     public ResponseEntity<SampleQueryResp> annotateSamplePost(
-        @ApiParam(value = "Sample query. Please see swagger.json for request body format.", required = true) @RequestBody() AnnotateSampleQuery body
-    ) throws ApiHttpErrorException, ApiException, org.genome_nexus.ApiException {
+        @ApiParam(value = "Sample query. Please see swagger.json for request body format.", required = true) @RequestBody() AnnotateSampleQuery body,
+        @ApiParam(value = "Use application/x-ndjson to stream one annotation per line as soon as it is available. The structural variants are streamed first, then the copy number alterations and the mutations. The category field of each line is STRUCTURAL_VARIANT, COPY_NUMBER_ALTERATION or MUTATION.") @RequestHeader(value = "Accept", required = false) String accept,
+        HttpServletResponse response
+    ) throws ApiHttpErrorException, ApiException, org.genome_nexus.ApiException, IOException {
         if (body == null) {
             throw new ApiHttpErrorException("The request body is missing.", HttpStatus.BAD_REQUEST);
         }
+        if (isNdjsonRequested(accept)) {
+            streamSample(response, body);
+            return null;
+        }
         return new ResponseEntity<>(annotateSample(body), HttpStatus.OK);
     }
 
@@ -457,12 +514,7 @@ public class AnnotationsApiController {
             false
         );
 
-        // Indicate which transcript was used to generate the annotation
-        TranscriptConsequenceSummary summary = transcriptSummaryAlterationResult.getTranscriptConsequenceSummary();
-        if (summary != null && StringUtils.isNotEmpty(summary.getTranscriptId())) {
-            indicatorQueryResp.getQuery().setCanonicalTranscript(summary.getTranscriptId());
-        }
-        indicatorQueryResp.getQuery().setHgvsInfo(transcriptSummaryAlterationResult.getMessage());
+        setTranscriptInfo(indicatorQueryResp, transcriptSummaryAlterationResult);
         return indicatorQueryResp;
     }
 
@@ -470,8 +522,10 @@ public class AnnotationsApiController {
         List<String> queriesToGN = new ArrayList<>();
         Map<String, Integer> queryIndexMap = new HashMap<>();
 
-        for (String query : queries) {
-            if (this.cacheFetcher.hgvsgShouldBeAnnotated(query, referenceGenome)) {
+        List<Boolean> shouldBeAnnotated = this.cacheFetcher.hgvsgsShouldBeAnnotated(queries, referenceGenome);
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            if (shouldBeAnnotated.get(i)) {
                 if (!queryIndexMap.containsKey(query)) {
                     queryIndexMap.put(query, queriesToGN.size());
                     queriesToGN.add(query);
@@ -479,13 +533,9 @@ public class AnnotationsApiController {
             }
         }
         // query to GN needs to be a list of uniq queries
-        List<org.genome_nexus.client.VariantAnnotation> variantAnnotations = GenomeNexusUtils.getHgvsVariantsAnnotation(queriesToGN, referenceGenome);
-        if(variantAnnotations.size() != queriesToGN.size()){
-            throw new ApiException("Number of variants that have been annotated by GenomeNexus is not equal to the number of queries");
-        }
         List<TranscriptSummaryAlterationResult> annotatedAlterationResult = new ArrayList<>();
         if (!queriesToGN.isEmpty()) {
-            annotatedAlterationResult = AlterationUtils.getAlterationsFromGenomeNexus(variantAnnotations, referenceGenome);
+            annotatedAlterationResult = AlterationUtils.getAlterationsFromGenomeNexus(GNVariantAnnotationType.HGVS_G, referenceGenome, queriesToGN);
         }
         List<TranscriptSummaryAlterationResult> result = new ArrayList<>();
         for (String query : queries) {
@@ -527,33 +577,35 @@ public class AnnotationsApiController {
             false
         );
 
+        setTranscriptInfo(indicatorQueryResp, transcriptSummaryAlterationResult);
+        return indicatorQueryResp;
+    }
+
+    private static void setTranscriptInfo(IndicatorQueryResp indicatorQueryResp, TranscriptSummaryAlterationResult transcriptSummaryAlterationResult) {
         // Indicate which transcript was used to generate the annotation
         TranscriptConsequenceSummary summary = transcriptSummaryAlterationResult.getTranscriptConsequenceSummary();
         if (summary != null && StringUtils.isNotEmpty(summary.getTranscriptId())) {
             indicatorQueryResp.getQuery().setCanonicalTranscript(summary.getTranscriptId());
         }
         indicatorQueryResp.getQuery().setHgvsInfo(transcriptSummaryAlterationResult.getMessage());
-        return indicatorQueryResp;
     }
 
     private List<TranscriptSummaryAlterationResult> getAlterationsFromGenomeNexusByGenomicLocation(ReferenceGenome referenceGenome, List<GenomicLocation> queries) throws ApiException, org.genome_nexus.ApiException {
         List<GenomicLocation> queriesToGN = new ArrayList<>();
         Map<GenomicLocation, Integer> queryIndexMap = new HashMap<>();
-        for (GenomicLocation query : queries) {
-            if (this.cacheFetcher.genomicLocationShouldBeAnnotated(query, referenceGenome)) {
+        List<Boolean> shouldBeAnnotated = this.cacheFetcher.genomicLocationsShouldBeAnnotated(queries, referenceGenome);
+        for (int i = 0; i < queries.size(); i++) {
+            GenomicLocation query = queries.get(i);
+            if (shouldBeAnnotated.get(i)) {
                 if (!queryIndexMap.containsKey(query)) {
                     queryIndexMap.put(query, queriesToGN.size());
                     queriesToGN.add(query);
                 }
             }
         }
-        List<org.genome_nexus.client.VariantAnnotation> variantAnnotations = GenomeNexusUtils.getGenomicLocationVariantsAnnotation(queriesToGN, referenceGenome);
-        if(variantAnnotations.size() != queriesToGN.size()){
-            throw new ApiException("Number of variants that have been annotated by GenomeNexus is not equal to the number of queries");
-        }
         List<TranscriptSummaryAlterationResult> annotatedAlterationResult = new ArrayList<>();
         if (!queriesToGN.isEmpty()) {
-            annotatedAlterationResult = AlterationUtils.getAlterationsFromGenomeNexus(variantAnnotations, referenceGenome);
+            annotatedAlterationResult = AlterationUtils.getAlterationsFromGenomeNexus(GNVariantAnnotationType.GENOMIC_LOCATION, referenceGenome, queriesToGN.stream().map(GenomeNexusUtils::convertGenomicLocation).collect(Collectors.toList()));
         }
         List<TranscriptSummaryAlterationResult> result = new ArrayList<>();
         for (GenomicLocation query : queries) {
@@ -569,6 +621,96 @@ public class AnnotationsApiController {
     }
 
 
+    private void streamSample(HttpServletResponse response, AnnotateSampleQuery sample) throws IOException {
+        AnnotateSampleQuery.MutationsQuery mutations = sample.getMutations() == null ? new AnnotateSampleQuery.MutationsQuery() : sample.getMutations();
+
+        // same order as the annotated sample, each line tells which list of the annotated sample it belongs to
+        writeNdjson(response, outputStream -> {
+            writeAnnotations(outputStream, orEmpty(sample.getStructuralVariants()), this::annotateStructuralVariants, AlterationType.STRUCTURAL_VARIANT);
+            writeAnnotations(outputStream, orEmpty(sample.getCopyNumberAlterations()), this::annotateCopyNumberAlterations, AlterationType.COPY_NUMBER_ALTERATION);
+            writeAnnotations(outputStream, orEmpty(mutations.getGenomicChange()), this::annotateMutationsByGenomicChange, AlterationType.MUTATION);
+            writeAnnotations(outputStream, orEmpty(mutations.getcDnaChange()), this::annotateMutationsByHGVSg, AlterationType.MUTATION);
+            writeAnnotations(outputStream, orEmpty(mutations.getProteinChange()), this::annotateMutationsByProteinChange, AlterationType.MUTATION);
+            writeAnnotations(outputStream, orEmpty(mutations.getHgvsg()), this::annotateMutationsByHGVSg, AlterationType.MUTATION);
+        });
+    }
+
+    private static <T> List<T> orEmpty(List<T> queries) {
+        return queries == null ? Collections.emptyList() : queries;
+    }
+
+    private static boolean isNdjsonRequested(String accept) {
+        return accept != null && accept.contains(NDJSON_MEDIA_TYPE);
+    }
+
+    private <T> void streamAnnotations(HttpServletResponse response, List<T> queries, BatchAnnotator<T> annotator) throws IOException {
+        writeNdjson(response, outputStream -> writeAnnotations(outputStream, queries, annotator, null));
+    }
+
+    /**
+     * Once the first line is sent the status cannot be changed anymore, so a failure is written as a last line with
+     * the error and the stream is closed. The client can tell a complete stream from a broken one by that line.
+     */
+    private void writeNdjson(HttpServletResponse response, NdjsonWriter writer) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream outputStream = response.getOutputStream();
+        try {
+            writer.write(outputStream);
+        } catch (Exception e) {
+            LOG.error("Failed to stream the annotations", e);
+            HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+            if (!response.isCommitted()) {
+                response.setStatus(status.value());
+            }
+            String path = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest().getRequestURI();
+            outputStream.write(objectMapper.writeValueAsBytes(new ApiHttpError(path, status, e.getMessage())));
+            outputStream.write('\n');
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Annotate the queries chunk by chunk and write each annotation as one line of JSON once its chunk is done,
+     * so only one chunk of annotations is kept in memory.
+     *
+     * @param category the type of the alterations added to each line, null to write the annotations as they are
+     */
+    private <T> void writeAnnotations(OutputStream outputStream, List<T> queries, BatchAnnotator<T> annotator, AlterationType category) throws ApiException, org.genome_nexus.ApiException, IOException {
+        for (int start = 0; start < queries.size(); start += STREAMING_CHUNK_SIZE) {
+            List<T> chunk = queries.subList(start, Math.min(start + STREAMING_CHUNK_SIZE, queries.size()));
+            for (IndicatorQueryResp resp : annotator.annotate(chunk)) {
+                writeNdjsonLine(objectMapper, outputStream, resp, category);
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Write the annotation as one line of JSON, with the category field first when the category is given.
+     */
+    static void writeNdjsonLine(ObjectMapper objectMapper, OutputStream outputStream, IndicatorQueryResp resp, AlterationType category) throws IOException {
+        if (category == null) {
+            outputStream.write(objectMapper.writeValueAsBytes(resp));
+        } else {
+            ObjectNode line = objectMapper.createObjectNode();
+            line.put(NDJSON_CATEGORY_FIELD, category.name());
+            line.setAll((ObjectNode) objectMapper.valueToTree(resp));
+            outputStream.write(objectMapper.writeValueAsBytes(line));
+        }
+        outputStream.write('\n');
+    }
+
+    private interface NdjsonWriter {
+        void write(OutputStream outputStream) throws Exception;
+    }
+
+    private interface BatchAnnotator<T> {
+        List<IndicatorQueryResp> annotate(List<T> queries) throws ApiException, org.genome_nexus.ApiException;
+    }
+
     private SampleQueryResp annotateSample(AnnotateSampleQuery sample) throws ApiException, org.genome_nexus.ApiException {
         SampleQueryResp annotatedSample = new SampleQueryResp();
 
@@ -610,115 +752,146 @@ public class AnnotationsApiController {
     }
 
     private List<IndicatorQueryResp> annotateStructuralVariants(List<AnnotateStructuralVariantQuery> structuralVariants) {
-        List<IndicatorQueryResp> result = new ArrayList<>();
-        for (AnnotateStructuralVariantQuery query : structuralVariants) {
-            Gene geneA = new Gene();
-            if (query.getGeneA() != null) {
-                try {
-                    geneA = this.cacheFetcher.findGeneBySymbol(
-                        query.getGeneA().getEntrezGeneId() != null ?
-                            query.getGeneA().getEntrezGeneId().toString() :
-                            query.getGeneA().getHugoSymbol()
-                    );
-                    if (geneA == null) {
-                        geneA = new Gene();
-                    }
-                } catch (ApiException e) {
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.BATCH);
+        List<IndicatorQueryResp> result = annotateDistinctQueries(
+            structuralVariants,
+            query -> Arrays.asList(
+                query.getReferenceGenome(),
+                query.getGeneA() == null ? null : query.getGeneA().getEntrezGeneId(),
+                query.getGeneA() == null ? null : query.getGeneA().getHugoSymbol(),
+                query.getGeneB() == null ? null : query.getGeneB().getEntrezGeneId(),
+                query.getGeneB() == null ? null : query.getGeneB().getHugoSymbol(),
+                query.getFunctionalFusion(),
+                query.getStructuralVariantType(),
+                query.getTumorType(),
+                query.getEvidenceTypes()
+            ),
+            queries -> this.cacheFetcher.processQueries(
+                BatchExecutionUtils.map(queries, this::getStructuralVariantQuery),
+                getEvidenceTypes(queries)
+            ),
+            AnnotationQuery::getId
+        );
+        timer.mark(AnnotationMetrics.ANNOTATION_STAGE);
+        timer.finish("structuralVariants");
+        return result;
+    }
+
+    private Query getStructuralVariantQuery(AnnotateStructuralVariantQuery query) {
+        Gene geneA = new Gene();
+        if (query.getGeneA() != null) {
+            try {
+                geneA = this.cacheFetcher.findGeneBySymbol(
+                    query.getGeneA().getEntrezGeneId() != null ?
+                        query.getGeneA().getEntrezGeneId().toString() :
+                        query.getGeneA().getHugoSymbol()
+                );
+                if (geneA == null) {
+                    geneA = new Gene();
                 }
+            } catch (ApiException e) {
             }
-            if (StringUtils.isEmpty(geneA.getHugoSymbol()) && geneA.getEntrezGeneId() == null && query.getGeneA() != null) {
-                geneA.setHugoSymbol(query.getGeneA().getHugoSymbol() == null ? "" : query.getGeneA().getHugoSymbol());
-                geneA.setEntrezGeneId(query.getGeneA().getEntrezGeneId());
-            }
+        }
+        if (StringUtils.isEmpty(geneA.getHugoSymbol()) && geneA.getEntrezGeneId() == null && query.getGeneA() != null) {
+            geneA.setHugoSymbol(query.getGeneA().getHugoSymbol() == null ? "" : query.getGeneA().getHugoSymbol());
+            geneA.setEntrezGeneId(query.getGeneA().getEntrezGeneId());
+        }
 
-            Gene geneB = new Gene();
-            if (query.getGeneB() != null) {
-                try {
-                    geneB = this.cacheFetcher.findGeneBySymbol(
-                        query.getGeneB().getEntrezGeneId() != null ?
-                            query.getGeneB().getEntrezGeneId().toString() :
-                            query.getGeneB().getHugoSymbol()
-                    );
-                    if (geneB == null) {
-                        geneB = new Gene();
-                    }
-                } catch (ApiException e) {
+        Gene geneB = new Gene();
+        if (query.getGeneB() != null) {
+            try {
+                geneB = this.cacheFetcher.findGeneBySymbol(
+                    query.getGeneB().getEntrezGeneId() != null ?
+                        query.getGeneB().getEntrezGeneId().toString() :
+                        query.getGeneB().getHugoSymbol()
+                );
+                if (geneB == null) {
+                    geneB = new Gene();
                 }
+            } catch (ApiException e) {
             }
-            if (StringUtils.isEmpty(geneB.getHugoSymbol()) && geneB.getEntrezGeneId() == null && query.getGeneB() != null) {
-                geneB.setHugoSymbol(query.getGeneB().getHugoSymbol() == null ? "" : query.getGeneB().getHugoSymbol());
-                geneB.setEntrezGeneId(query.getGeneB().getEntrezGeneId());
-            }
+        }
+        if (StringUtils.isEmpty(geneB.getHugoSymbol()) && geneB.getEntrezGeneId() == null && query.getGeneB() != null) {
+            geneB.setHugoSymbol(query.getGeneB().getHugoSymbol() == null ? "" : query.getGeneB().getHugoSymbol());
+            geneB.setEntrezGeneId(query.getGeneB().getEntrezGeneId());
+        }
 
-            String fusionName = FusionUtils.getFusionName(geneA, geneB);
+        String fusionName = FusionUtils.getFusionName(geneA, geneB);
 
-            IndicatorQueryResp resp = this.cacheFetcher.processQuery(
+        return new Query(
+            null,
+            query.getReferenceGenome(),
+            null,
+            fusionName,
+            null,
+            AlterationType.STRUCTURAL_VARIANT.name(),
+            query.getStructuralVariantType(),
+            query.getTumorType(),
+            query.getFunctionalFusion() ? "fusion" : "",
+            null,
+            null,
+            null
+        );
+    }
+
+    private List<IndicatorQueryResp> annotateCopyNumberAlterations(List<AnnotateCopyNumberAlterationQuery> copyNumberAlterations) {
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.BATCH);
+        List<IndicatorQueryResp> result = annotateDistinctQueries(
+            copyNumberAlterations,
+            query -> Arrays.asList(
                 query.getReferenceGenome(),
-                null,
-                fusionName,
-                null,
-                AlterationType.STRUCTURAL_VARIANT.name(),
+                query.getGene() == null ? null : query.getGene().getEntrezGeneId(),
+                query.getGene() == null ? null : query.getGene().getHugoSymbol(),
+                query.getCopyNameAlterationType(),
                 query.getTumorType(),
-                query.getFunctionalFusion() ? "fusion" : "",
-                null,
-                null,
-                query.getStructuralVariantType(),
-                null,
-                null,
-                false, 
-                query.getEvidenceTypes(), 
-                false
-            );
-            resp.getQuery().setId(query.getId());
-            result.add(resp);
-        }
+                query.getEvidenceTypes()
+            ),
+            queries -> this.cacheFetcher.processQueries(
+                BatchExecutionUtils.map(queries, this::getCopyNumberAlterationQuery),
+                getEvidenceTypes(queries)
+            ),
+            AnnotationQuery::getId
+        );
+        timer.mark(AnnotationMetrics.ANNOTATION_STAGE);
+        timer.finish("copyNumberAlterations");
         return result;
     }
 
-    private List<IndicatorQueryResp> annotateCopyNumberAlterations(List<AnnotateCopyNumberAlterationQuery> copyNumberAlterations) {
-        List<IndicatorQueryResp> result = new ArrayList<>();
-        for (AnnotateCopyNumberAlterationQuery query : copyNumberAlterations) {
-            Gene gene = new Gene();
-            if (query.getGene() != null) {
-                try {
-                    gene = this.cacheFetcher.findGeneBySymbol(
-                        query.getGene().getEntrezGeneId() != null ?
-                            query.getGene().getEntrezGeneId().toString() :
-                            query.getGene().getHugoSymbol()
-                    );
-                    if (gene == null) {
-                        gene = new Gene();
-                        gene.setEntrezGeneId(query.getGene().getEntrezGeneId());
-                        gene.setHugoSymbol(query.getGene().getHugoSymbol());
-                    }
-                } catch (ApiException e) {
+    private Query getCopyNumberAlterationQuery(AnnotateCopyNumberAlterationQuery query) {
+        Gene gene = new Gene();
+        if (query.getGene() != null) {
+            try {
+                gene = this.cacheFetcher.findGeneBySymbol(
+                    query.getGene().getEntrezGeneId() != null ?
+                        query.getGene().getEntrezGeneId().toString() :
+                        query.getGene().getHugoSymbol()
+                );
+                if (gene == null) {
+                    gene = new Gene();
+                    gene.setEntrezGeneId(query.getGene().getEntrezGeneId());
+                    gene.setHugoSymbol(query.getGene().getHugoSymbol());
                 }
+            } catch (ApiException e) {
             }
-            IndicatorQueryResp resp = this.cacheFetcher.processQuery(
-                query.getReferenceGenome(),
-                gene.getEntrezGeneId(),
-                gene.getHugoSymbol(),
-                StringUtils.capitalize(query.getCopyNameAlterationType().name().toLowerCase()),
-                null,
-                query.getTumorType(),
-                null, 
-                null, 
-                null, 
-                null,
-                null, 
-                null, 
-                false, 
-                query.getEvidenceTypes(),
-                false
-            );
-            resp.getQuery().setId(query.getId());
-            result.add(resp);
         }
-        return result;
+        return new Query(
+            null,
+            query.getReferenceGenome(),
+            gene.getEntrezGeneId(),
+            gene.getHugoSymbol(),
+            StringUtils.capitalize(query.getCopyNameAlterationType().name().toLowerCase()),
+            null,
+            null,
+            query.getTumorType(),
+            null,
+            null,
+            null,
+            null
+        );
     }
 
     private List<IndicatorQueryResp> annotateMutationsByGenomicChange(List<AnnotateMutationByGenomicChangeQuery> mutations) throws ApiException, org.genome_nexus.ApiException {
-        List<IndicatorQueryResp> result = new ArrayList<>();
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.BATCH);
         List<GenomicLocation> grch37Queries = new ArrayList<>();
         List<GenomicLocation> grch38Queries = new ArrayList<>();
         Map<Integer, Integer> grch37Map = new HashMap<>();
@@ -742,45 +915,79 @@ public class AnnotationsApiController {
 
         List<TranscriptSummaryAlterationResult> grch37Alts = getAlterationsFromGenomeNexusByGenomicLocation(ReferenceGenome.GRCh37, grch37Queries);
         List<TranscriptSummaryAlterationResult> grch38Alts = getAlterationsFromGenomeNexusByGenomicLocation(ReferenceGenome.GRCh38, grch38Queries);
+        timer.mark(AnnotationMetrics.GENOME_NEXUS_STAGE);
 
-        for (int i = 0; i < mutations.size(); i++) {
-            AnnotateMutationByGenomicChangeQuery query = mutations.get(i);
-            TranscriptSummaryAlterationResult alteration = query.getReferenceGenome() == ReferenceGenome.GRCh37 ? grch37Alts.get(grch37Map.get(i)) : grch38Alts.get(grch38Map.get(i));
-            IndicatorQueryResp resp = this.getIndicatorQueryFromGenomicLocation(query.getReferenceGenome(), alteration, query.getGenomicLocation(), query.getTumorType(), query.getEvidenceTypes());
-            resp.getQuery().setId(query.getId());
-            result.add(resp);
-        }
+        List<IndicatorQueryResp> result = annotateDistinctQueries(
+            getQueryIndexes(mutations),
+            i -> Arrays.asList(
+                mutations.get(i).getReferenceGenome(),
+                mutations.get(i).getGenomicLocation(),
+                mutations.get(i).getTumorType(),
+                mutations.get(i).getEvidenceTypes()
+            ),
+            indexes -> {
+                List<TranscriptSummaryAlterationResult> alterations = indexes.stream()
+                    .map(i -> mutations.get(i).getReferenceGenome() == ReferenceGenome.GRCh37 ? grch37Alts.get(grch37Map.get(i)) : grch38Alts.get(grch38Map.get(i)))
+                    .collect(Collectors.toList());
+                List<Query> queries = new ArrayList<>();
+                for (int j = 0; j < indexes.size(); j++) {
+                    AnnotateMutationByGenomicChangeQuery query = mutations.get(indexes.get(j));
+                    queries.add(QueryUtils.getQueryFromAlteration(query.getReferenceGenome(), query.getTumorType(), alterations.get(j), query.getGenomicLocation()));
+                }
+                List<IndicatorQueryResp> resps = this.cacheFetcher.processQueries(queries, getEvidenceTypes(indexes.stream().map(mutations::get).collect(Collectors.toList())));
+                for (int j = 0; j < resps.size(); j++) {
+                    setTranscriptInfo(resps.get(j), alterations.get(j));
+                }
+                return resps;
+            },
+            i -> mutations.get(i).getId()
+        );
+        timer.mark(AnnotationMetrics.ANNOTATION_STAGE);
+        timer.finish("byGenomicChange");
         return result;
     }
 
     private List<IndicatorQueryResp> annotateMutationsByProteinChange(List<AnnotateMutationByProteinChangeQuery> mutations) {
-        List<IndicatorQueryResp> result = new ArrayList<>();
-        for (AnnotateMutationByProteinChangeQuery query : mutations) {
-            IndicatorQueryResp resp = this.cacheFetcher.processQuery(
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.BATCH);
+        List<IndicatorQueryResp> result = annotateDistinctQueries(
+            mutations,
+            query -> Arrays.asList(
                 query.getReferenceGenome(),
                 query.getGene() == null ? null : query.getGene().getEntrezGeneId(),
                 query.getGene() == null ? null : query.getGene().getHugoSymbol(),
                 query.getAlteration(),
-                null,
-                query.getTumorType(),
                 query.getConsequence(),
                 query.getProteinStart(),
                 query.getProteinEnd(),
-                null,
-                null,
-                null,
-                false,
-                query.getEvidenceTypes(),
-                false
-            );
-            resp.getQuery().setId(query.getId());
-            result.add(resp);
-        }
+                query.getTumorType(),
+                query.getEvidenceTypes()
+            ),
+            queries -> this.cacheFetcher.processQueries(
+                queries.stream().map(query -> new Query(
+                    null,
+                    query.getReferenceGenome(),
+                    query.getGene() == null ? null : query.getGene().getEntrezGeneId(),
+                    query.getGene() == null ? null : query.getGene().getHugoSymbol(),
+                    query.getAlteration(),
+                    null,
+                    null,
+                    query.getTumorType(),
+                    query.getConsequence(),
+                    query.getProteinStart(),
+                    query.getProteinEnd(),
+                    null
+                )).collect(Collectors.toList()),
+                getEvidenceTypes(queries)
+            ),
+            AnnotationQuery::getId
+        );
+        timer.mark(AnnotationMetrics.ANNOTATION_STAGE);
+        timer.finish("byProteinChange");
         return result;
     }
 
     private List<IndicatorQueryResp> annotateMutationsByHGVSg(List<AnnotateMutationByHGVSgQuery> mutations) throws ApiException, org.genome_nexus.ApiException {
-        List<IndicatorQueryResp> result = new ArrayList<>();
+        AnnotationMetrics.StageTimer timer = AnnotationMetrics.startTimer(AnnotationMetrics.BATCH);
         List<String> grch37Queries = new ArrayList<>();
         List<String> grch38Queries = new ArrayList<>();
         Map<Integer, Integer> grch37Map = new HashMap<>();
@@ -804,22 +1011,76 @@ public class AnnotationsApiController {
 
         List<TranscriptSummaryAlterationResult> grch37Alts = getAlterationsFromGenomeNexusByHgvs(ReferenceGenome.GRCh37, grch37Queries);
         List<TranscriptSummaryAlterationResult> grch38Alts = getAlterationsFromGenomeNexusByHgvs(ReferenceGenome.GRCh38, grch38Queries);
+        timer.mark(AnnotationMetrics.GENOME_NEXUS_STAGE);
 
-        for (int i = 0; i < mutations.size(); i++) {
-            AnnotateMutationByHGVSgQuery query = mutations.get(i);
-            TranscriptSummaryAlterationResult alterationInfo = query.getReferenceGenome() == ReferenceGenome.GRCh37 ? grch37Alts.get(grch37Map.get(i)) : grch38Alts.get(grch38Map.get(i));
+        List<IndicatorQueryResp> result = annotateDistinctQueries(
+            getQueryIndexes(mutations),
+            i -> Arrays.asList(
+                mutations.get(i).getReferenceGenome(),
+                mutations.get(i).getHgvsg(),
+                mutations.get(i).getTumorType(),
+                mutations.get(i).getEvidenceTypes()
+            ),
+            indexes -> {
+                List<TranscriptSummaryAlterationResult> alterations = indexes.stream()
+                    .map(i -> mutations.get(i).getReferenceGenome() == ReferenceGenome.GRCh37 ? grch37Alts.get(grch37Map.get(i)) : grch38Alts.get(grch38Map.get(i)))
+                    .collect(Collectors.toList());
+                List<Query> queries = new ArrayList<>();
+                for (int j = 0; j < indexes.size(); j++) {
+                    AnnotateMutationByHGVSgQuery query = mutations.get(indexes.get(j));
+                    queries.add(QueryUtils.getQueryFromAlteration(query.getReferenceGenome(), query.getTumorType(), alterations.get(j), query.getHgvsg()));
+                }
+                List<IndicatorQueryResp> resps = this.cacheFetcher.processQueries(queries, getEvidenceTypes(indexes.stream().map(mutations::get).collect(Collectors.toList())));
+                for (int j = 0; j < resps.size(); j++) {
+                    setTranscriptInfo(resps.get(j), alterations.get(j));
+                }
+                return resps;
+            },
+            i -> mutations.get(i).getId()
+        );
+        timer.mark(AnnotationMetrics.ANNOTATION_STAGE);
+        timer.finish("byHGVSg");
+        return result;
+    }
 
-            IndicatorQueryResp resp = this.getIndicatorQueryFromHGVS(
-                query.getReferenceGenome(),
-                alterationInfo,
-                query.getHgvsg(),
-                query.getTumorType(),
-                query.getEvidenceTypes()
-            );
-            resp.getQuery().setId(query.getId());
-            resp.getQuery().setHgvsInfo(alterationInfo.getMessage());
+    /**
+     * Annotate each distinct query once and fan the annotations back out in the order of the queries.
+     * The queries sharing the same key get a copy of the same annotation with their own id.
+     *
+     * @param queries     the queries of the request
+     * @param keyFunction the fields which make the annotation of a query, the id excluded
+     * @param annotate    annotates the distinct queries, in the same order
+     * @param idFunction  the id of a query
+     */
+    private <T> List<IndicatorQueryResp> annotateDistinctQueries(List<T> queries, Function<T, Object> keyFunction, Function<List<T>, List<IndicatorQueryResp>> annotate, Function<T, String> idFunction) {
+        Map<Object, Integer> distinctQueryIndexes = new HashMap<>();
+        List<T> distinctQueries = new ArrayList<>();
+        for (T query : queries) {
+            Object key = keyFunction.apply(query);
+            if (!distinctQueryIndexes.containsKey(key)) {
+                distinctQueryIndexes.put(key, distinctQueries.size());
+                distinctQueries.add(query);
+            }
+        }
+
+        List<IndicatorQueryResp> distinctResult = annotate.apply(distinctQueries);
+        boolean[] used = new boolean[distinctResult.size()];
+        List<IndicatorQueryResp> result = new ArrayList<>(queries.size());
+        for (T query : queries) {
+            int index = distinctQueryIndexes.get(keyFunction.apply(query));
+            IndicatorQueryResp resp = used[index] ? distinctResult.get(index).copy() : distinctResult.get(index);
+            used[index] = true;
+            resp.getQuery().setId(idFunction.apply(query));
             result.add(resp);
         }
         return result;
     }
+
+    private static List<Set<EvidenceType>> getEvidenceTypes(List<? extends AnnotationQuery> queries) {
+        return queries.stream().map(AnnotationQuery::getEvidenceTypes).collect(Collectors.toList());
+    }
+
+    private static List<Integer> getQueryIndexes(List<?> queries) {
+        return IntStream.range(0, queries.size()).boxed().collect(Collectors.toList());
+    }
 }
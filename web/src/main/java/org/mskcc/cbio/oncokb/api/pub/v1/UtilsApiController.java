@@ -1,10 +1,12 @@
 package org.mskcc.cbio.oncokb.api.pub.v1;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.ApiParam;
 import org.mskcc.cbio.oncokb.apiModels.ActionableGene;
 import org.mskcc.cbio.oncokb.apiModels.AnnotatedVariant;
 import org.mskcc.cbio.oncokb.apiModels.CuratedGene;
 import org.mskcc.cbio.oncokb.apiModels.VariantOfUnknownSignificance;
+import org.mskcc.cbio.oncokb.apiModels.download.DownloadArtifact;
 import org.mskcc.cbio.oncokb.apiModels.download.FileName;
 import org.mskcc.cbio.oncokb.apiModels.download.FileExtension;
 import org.mskcc.cbio.oncokb.cache.CacheFetcher;
@@ -12,35 +14,48 @@ import org.mskcc.cbio.oncokb.model.*;
 import org.mskcc.cbio.oncokb.util.*;
 import org.oncokb.oncokb_transcript.ApiException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.mskcc.cbio.oncokb.api.pub.v1.Constants.INCLUDE_EVIDENCE;
 import static org.mskcc.cbio.oncokb.api.pub.v1.Constants.VERSION;
+import static org.mskcc.cbio.oncokb.util.HttpUtils.getDataDownloadResourceResponseEntity;
 import static org.mskcc.cbio.oncokb.util.HttpUtils.getDataDownloadResponseEntity;
+import static org.mskcc.cbio.oncokb.util.HttpUtils.getDownloadArtifactResponseEntity;
 
 /**
  * Created by Hongxin on 10/28/16.
  */
 @Controller
 public class UtilsApiController implements UtilsApi {
+    private static final ObjectMapper DOWNLOAD_OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
     @Autowired
     CacheFetcher cacheFetcher;
 
+    @Autowired
+    HttpServletRequest request;
+
     @Override
     public ResponseEntity<List<AnnotatedVariant>> utilsAllAnnotatedVariantsGet(
         @ApiParam(value = VERSION) @RequestParam(value = "version", required = false) String version
     ) {
         if (version != null) {
-            return getDataDownloadResponseEntity(version, FileName.ALL_ANNOTATED_VARIANTS, FileExtension.JSON);
+            return getDataDownloadResourceResponseEntity(version, FileName.ALL_ANNOTATED_VARIANTS, FileExtension.JSON, MediaType.APPLICATION_JSON_UTF8);
         }
-        return new ResponseEntity<>(getAllAnnotatedVariants(), HttpStatus.OK);
+        return getDownloadResponseEntity(MediaType.APPLICATION_JSON_UTF8, () -> getAnnotatedVariantsArtifact(FileExtension.JSON));
     }
 
     @Override
@@ -48,12 +63,29 @@ public class UtilsApiController implements UtilsApi {
         @ApiParam(value = VERSION) @RequestParam(value = "version", required = false) String version
     ) {
         if (version != null) {
-            return getDataDownloadResponseEntity(version, FileName.ALL_ANNOTATED_VARIANTS, FileExtension.TEXT);
+            return getDataDownloadResourceResponseEntity(version, FileName.ALL_ANNOTATED_VARIANTS, FileExtension.TEXT, TEXT_PLAIN_UTF8);
         }
+        return getDownloadResponseEntity(TEXT_PLAIN_UTF8, () -> getAnnotatedVariantsArtifact(FileExtension.TEXT));
+    }
+
+    // The json and the text file are written from the same list, the actionable variants are prepared meanwhile
+    private DownloadArtifact getAnnotatedVariantsArtifact(FileExtension fileExtension) throws IOException {
+        DownloadArtifactUtils.prepareArtifacts(FileName.ALL_ACTIONABLE_VARIANTS.getName(), this::getAllActionableVariants, getActionableVariantsWriters());
+        return DownloadArtifactUtils.getArtifact(FileName.ALL_ANNOTATED_VARIANTS.getName(), FileName.ALL_ANNOTATED_VARIANTS.getName() + fileExtension.getExtension(), this::getAllAnnotatedVariants, getAnnotatedVariantsWriters());
+    }
+
+    private Map<String, DownloadArtifactUtils.SourceWriter<List<AnnotatedVariant>>> getAnnotatedVariantsWriters() {
+        Map<String, DownloadArtifactUtils.SourceWriter<List<AnnotatedVariant>>> writers = new HashMap<>();
+        writers.put(FileName.ALL_ANNOTATED_VARIANTS.getName() + FileExtension.JSON.getExtension(), DOWNLOAD_OBJECT_MAPPER::writeValue);
+        writers.put(FileName.ALL_ANNOTATED_VARIANTS.getName() + FileExtension.TEXT.getExtension(), this::writeAllAnnotatedVariantsTxt);
+        return writers;
+    }
+
+    private void writeAllAnnotatedVariantsTxt(OutputStream outputStream, List<AnnotatedVariant> annotatedVariants) throws IOException {
         String separator = "\t";
         String newLine = "\n";
 
-        StringBuilder sb = new StringBuilder();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
         List<String> header = new ArrayList<>();
         header.add("GRCh37 Isoform");
         header.add("GRCh37 RefSeq");
@@ -69,10 +101,10 @@ public class UtilsApiController implements UtilsApi {
         header.add("PMIDs");
         header.add("Abstracts");
         header.add("Description");
-        sb.append(MainUtils.listToString(header, separator));
-        sb.append(newLine);
+        writer.write(MainUtils.listToString(header, separator));
+        writer.write(newLine);
 
-        for (AnnotatedVariant annotatedVariant : getAllAnnotatedVariants()) {
+        for (AnnotatedVariant annotatedVariant : annotatedVariants) {
             List<String> row = new ArrayList<>();
             row.add(annotatedVariant.getGrch37Isoform());
             row.add(annotatedVariant.getGrch37RefSeq());
@@ -88,10 +120,10 @@ public class UtilsApiController implements UtilsApi {
             row.add(annotatedVariant.getMutationEffectPmids());
             row.add(annotatedVariant.getMutationEffectAbstracts());
             row.add(annotatedVariant.getDescription());
-            sb.append(MainUtils.listToString(row, separator));
-            sb.append(newLine);
+            writer.write(MainUtils.listToString(row, separator));
+            writer.write(newLine);
         }
-        return new ResponseEntity<>(sb.toString(), HttpStatus.OK);
+        writer.flush();
     }
 
     @Override
@@ -201,9 +233,9 @@ public class UtilsApiController implements UtilsApi {
         @ApiParam(value = VERSION) @RequestParam(value = "version", required = false) String version
     ) {
         if (version != null) {
-            return getDataDownloadResponseEntity(version, FileName.ALL_ACTIONABLE_VARIANTS, FileExtension.JSON);
+            return getDataDownloadResourceResponseEntity(version, FileName.ALL_ACTIONABLE_VARIANTS, FileExtension.JSON, MediaType.APPLICATION_JSON_UTF8);
         }
-        return new ResponseEntity<>(getAllActionableVariants(), HttpStatus.OK);
+        return getDownloadResponseEntity(MediaType.APPLICATION_JSON_UTF8, () -> getActionableVariantsArtifact(FileExtension.JSON));
     }
 
     @Override
@@ -211,11 +243,29 @@ public class UtilsApiController implements UtilsApi {
         @ApiParam(value = VERSION) @RequestParam(value = "version", required = false) String version
     ) {
         if (version != null) {
-            return getDataDownloadResponseEntity(version, FileName.ALL_ACTIONABLE_VARIANTS, FileExtension.TEXT);
+            return getDataDownloadResourceResponseEntity(version, FileName.ALL_ACTIONABLE_VARIANTS, FileExtension.TEXT, TEXT_PLAIN_UTF8);
         }
+        return getDownloadResponseEntity(TEXT_PLAIN_UTF8, () -> getActionableVariantsArtifact(FileExtension.TEXT));
+    }
+
+    // The annotated variants are prepared meanwhile
+    private DownloadArtifact getActionableVariantsArtifact(FileExtension fileExtension) throws IOException {
+        DownloadArtifactUtils.prepareArtifacts(FileName.ALL_ANNOTATED_VARIANTS.getName(), this::getAllAnnotatedVariants, getAnnotatedVariantsWriters());
+        return DownloadArtifactUtils.getArtifact(FileName.ALL_ACTIONABLE_VARIANTS.getName(), FileName.ALL_ACTIONABLE_VARIANTS.getName() + fileExtension.getExtension(), this::getAllActionableVariants, getActionableVariantsWriters());
+    }
+
+    private Map<String, DownloadArtifactUtils.SourceWriter<List<ActionableGene>>> getActionableVariantsWriters() {
+        Map<String, DownloadArtifactUtils.SourceWriter<List<ActionableGene>>> writers = new HashMap<>();
+        writers.put(FileName.ALL_ACTIONABLE_VARIANTS.getName() + FileExtension.JSON.getExtension(), DOWNLOAD_OBJECT_MAPPER::writeValue);
+        writers.put(FileName.ALL_ACTIONABLE_VARIANTS.getName() + FileExtension.TEXT.getExtension(), this::writeAllActionableVariantsTxt);
+        return writers;
+    }
+
+    private void writeAllActionableVariantsTxt(OutputStream outputStream, List<ActionableGene> actionableGenes) throws IOException {
         String separator = "\t";
         String newLine = "\n";
-        StringBuilder sb = new StringBuilder();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
         List<String> header = new ArrayList<>();
         header.add("GRCh37 Isoform");
         header.add("GRCh37 RefSeq");
@@ -232,10 +282,10 @@ public class UtilsApiController implements UtilsApi {
         header.add("PMIDs");
         header.add("Abstracts");
         header.add("Description");
-        sb.append(MainUtils.listToString(header, separator));
-        sb.append(newLine);
+        writer.write(MainUtils.listToString(header, separator));
+        writer.write(newLine);
 
-        for (ActionableGene actionableGene : getAllActionableVariants()) {
+        for (ActionableGene actionableGene : actionableGenes) {
             List<String> row = new ArrayList<>();
             row.add(actionableGene.getGrch37Isoform());
             row.add(actionableGene.getGrch37RefSeq());
@@ -252,10 +302,10 @@ public class UtilsApiController implements UtilsApi {
             row.add(actionableGene.getPmids());
             row.add(actionableGene.getAbstracts());
             row.add(actionableGene.getDescription());
-            sb.append(MainUtils.listToString(row, separator));
-            sb.append(newLine);
+            writer.write(MainUtils.listToString(row, separator));
+            writer.write(newLine);
         }
-        return new ResponseEntity<>(sb.toString(), HttpStatus.OK);
+        writer.flush();
     }
 
     private List<ActionableGene> getAllActionableVariants() {
@@ -366,9 +416,10 @@ public class UtilsApiController implements UtilsApi {
         , @ApiParam(value = INCLUDE_EVIDENCE, defaultValue = "TRUE") @RequestParam(value = "includeEvidence", required = false, defaultValue = "TRUE") Boolean includeEvidence
     ) {
         if (version != null) {
-            return getDataDownloadResponseEntity(version, FileName.ALL_CURATED_GENES, FileExtension.JSON);
+            return getDataDownloadResourceResponseEntity(version, FileName.ALL_CURATED_GENES, FileExtension.JSON, MediaType.APPLICATION_JSON_UTF8);
         }
-        return new ResponseEntity<>(this.cacheFetcher.getCuratedGenes(includeEvidence), HttpStatus.OK);
+        return getDownloadResponseEntity(MediaType.APPLICATION_JSON_UTF8, () -> DownloadArtifactUtils.getArtifact(getCuratedGenesArtifactName(FileExtension.JSON, includeEvidence),
+            outputStream -> DOWNLOAD_OBJECT_MAPPER.writeValue(outputStream, this.cacheFetcher.getCuratedGenes(includeEvidence))));
     }
 
     @Override
@@ -377,9 +428,36 @@ public class UtilsApiController implements UtilsApi {
         , @ApiParam(value = INCLUDE_EVIDENCE, defaultValue = "TRUE") @RequestParam(value = "includeEvidence", required = false, defaultValue = "TRUE") Boolean includeEvidence
     ) {
         if (version != null) {
-            return getDataDownloadResponseEntity(version, FileName.ALL_CURATED_GENES, FileExtension.TEXT);
+            return getDataDownloadResourceResponseEntity(version, FileName.ALL_CURATED_GENES, FileExtension.TEXT, TEXT_PLAIN_UTF8);
+        }
+        return getDownloadResponseEntity(TEXT_PLAIN_UTF8, () -> DownloadArtifactUtils.getArtifact(getCuratedGenesArtifactName(FileExtension.TEXT, includeEvidence),
+            outputStream -> outputStream.write(this.cacheFetcher.getCuratedGenesTxt(includeEvidence).getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private String getCuratedGenesArtifactName(FileExtension fileExtension, Boolean includeEvidence) {
+        return FileName.ALL_CURATED_GENES.getName() + (Boolean.FALSE.equals(includeEvidence) ? "WithoutEvidence" : "") + fileExtension.getExtension();
+    }
+
+    @FunctionalInterface
+    private interface ArtifactLoader {
+        DownloadArtifact load() throws IOException;
+    }
+
+    /**
+     * The files are generated on the first request of a data version. The tag of the data version is checked first,
+     * so a client with an up to date file does not wait for the file to be generated. The body is the generated file
+     * whatever the declared type of the endpoint.
+     */
+    private <T> ResponseEntity<T> getDownloadResponseEntity(MediaType mediaType, ArtifactLoader loader) {
+        String etag = DownloadArtifactUtils.getEtag();
+        if (HttpUtils.matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return HttpUtils.getNotModifiedResponseEntity(etag);
+        }
+        try {
+            return getDownloadArtifactResponseEntity(loader.load(), mediaType, request.getHeader(HttpHeaders.IF_NONE_MATCH), request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        } catch (IOException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
-        return new ResponseEntity<>(this.cacheFetcher.getCuratedGenesTxt(includeEvidence), HttpStatus.OK);
     }
 
 }
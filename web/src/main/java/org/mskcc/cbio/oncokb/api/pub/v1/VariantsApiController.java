@@ -140,7 +140,7 @@ public class VariantsApiController implements VariantsApi {
                         alterationSet.addAll(AlterationUtils.getAlterationsByKnownEffectInGene(gene, AlterationUtils.getInferredAlterationsKnownEffect(query.getVariant()), false));
                     }
                 } else {
-                    alterationList = AlterationUtils.lookupVariant(query.getVariant(), false, false, AlterationUtils.getAllAlterations());
+                    alterationList = CacheUtils.getTypeaheadIndex().lookupVariant(query.getVariant());
                 }
             }
         }
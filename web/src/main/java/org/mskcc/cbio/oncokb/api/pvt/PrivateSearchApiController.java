@@ -28,6 +28,7 @@ import java.util.stream.Collectors;
 import static org.mskcc.cbio.oncokb.Constants.DEFAULT_REFERENCE_GENOME;
 import static org.mskcc.cbio.oncokb.util.AlterationUtils.GENOMIC_CHANGE_FORMAT;
 import static org.mskcc.cbio.oncokb.util.AlterationUtils.HGVSG_FORMAT;
+import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.annotateTypeaheadVariants;
 import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.newTypeaheadAnnotation;
 import static org.mskcc.cbio.oncokb.util.AnnotationSearchUtils.searchNonHgvsAnnotation;
 import static org.mskcc.cbio.oncokb.util.LevelUtils.*;
@@ -154,7 +155,7 @@ public class PrivateSearchApiController implements PrivateSearchApi {
             typeaheadSearchResp.setQueryType(TypeaheadQueryType.TEXT);
             result.add(typeaheadSearchResp);
         }
-        return new ResponseEntity<>(MainUtils.getLimit(result, limit), HttpStatus.OK);
+        return new ResponseEntity<>(annotateTypeaheadVariants(MainUtils.getLimit(result, limit)), HttpStatus.OK);
     }
 
     @Override
@@ -8,8 +8,10 @@ import org.mskcc.cbio.oncokb.apiModels.download.DownloadAvailability;
 import org.mskcc.cbio.oncokb.apiModels.ensembl.EnsemblGene;
 import org.mskcc.cbio.oncokb.controller.advice.ApiHttpError;
 import org.mskcc.cbio.oncokb.controller.advice.ApiHttpErrorException;
+import org.mskcc.cbio.oncokb.genomenexus.GenomeNexusFetchPipeline;
 import org.mskcc.cbio.oncokb.model.*;
 import org.mskcc.cbio.oncokb.model.TumorType;
+import org.mskcc.cbio.oncokb.util.LatencyHistogram;
 import org.oncokb.oncokb_transcript.ApiException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -46,6 +48,17 @@ public interface PrivateUtilsApi {
         , @ApiParam(value = "Variant name") @RequestParam(value = "variant") String variant
     );
 
+    @ApiOperation(value = "", notes = "Determine whether variants are hotspot mutations. The result is in the same order as the queries.", response = Boolean.class, responseContainer = "List")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK", response = Boolean.class, responseContainer = "List")})
+    @RequestMapping(value = "/utils/isHotspot",
+        consumes = {"application/json"},
+        produces = {"application/json"},
+        method = RequestMethod.POST)
+    ResponseEntity<List<Boolean>> utilsHotspotMutationPost(
+        @ApiParam(value = "List of queries.", required = true) @RequestBody List<MatchVariant> body
+    );
+
     @ApiOperation(value = "", notes = "Get gene related numbers", response = GeneNumber.class)
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK")})
@@ -294,5 +307,45 @@ public interface PrivateUtilsApi {
         @ApiParam(value = "List of queries.", required = true) @RequestBody List<AnnotateMutationByGenomicChangeQuery> body
     ) throws ApiException, org.genome_nexus.ApiException, ApiHttpErrorException;
 
+    @ApiOperation(value = "", notes = "Get the latency in milliseconds of the annotation stages by alteration type, or by endpoint for the batches. The latencies are only recorded when annotation.metrics.enabled is set to true.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK")})
+    @RequestMapping(value = "/utils/metrics/annotation",
+        produces = {"application/json"},
+        method = RequestMethod.GET)
+    ResponseEntity<Map<String, Map<String, LatencyHistogram.Snapshot>>> utilAnnotationMetricsGet();
+
+    @ApiOperation(value = "", notes = "Clear the latencies of the annotation stages. The latencies recorded until then are returned.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK")})
+    @RequestMapping(value = "/utils/metrics/annotation",
+        produces = {"application/json"},
+        method = RequestMethod.DELETE)
+    ResponseEntity<Map<String, Map<String, LatencyHistogram.Snapshot>>> utilAnnotationMetricsDelete();
+
+    @ApiOperation(value = "", notes = "Get the number of requests, retries and failures of the Genome Nexus fetch pipeline, and the latency in milliseconds of its requests.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK")})
+    @RequestMapping(value = "/utils/metrics/genomeNexus",
+        produces = {"application/json"},
+        method = RequestMethod.GET)
+    ResponseEntity<GenomeNexusFetchPipeline.Metrics> utilGenomeNexusMetricsGet();
+
+    @ApiOperation(value = "", notes = "Clear the counters and the latencies of the Genome Nexus fetch pipeline. The metrics recorded until then are returned.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK")})
+    @RequestMapping(value = "/utils/metrics/genomeNexus",
+        produces = {"application/json"},
+        method = RequestMethod.DELETE)
+    ResponseEntity<GenomeNexusFetchPipeline.Metrics> utilGenomeNexusMetricsDelete();
+
+    @ApiOperation(value = "", notes = "Get the duration and the number of objects of each phase of the cache bootstrap.", response = StartupReport.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK", response = StartupReport.class)})
+    @RequestMapping(value = "/utils/metrics/startup",
+        produces = {"application/json"},
+        method = RequestMethod.GET)
+    ResponseEntity<StartupReport> utilStartupMetricsGet();
+
 }
 
@@ -16,6 +16,7 @@ import org.mskcc.cbio.oncokb.bo.PortalAlterationBo;
 import org.mskcc.cbio.oncokb.cache.CacheFetcher;
 import org.mskcc.cbio.oncokb.controller.advice.ApiHttpErrorException;
 import org.mskcc.cbio.oncokb.genomenexus.GNVariantAnnotationType;
+import org.mskcc.cbio.oncokb.genomenexus.GenomeNexusFetchPipeline;
 import org.mskcc.cbio.oncokb.model.*;
 import org.mskcc.cbio.oncokb.model.TumorType;
 import org.mskcc.cbio.oncokb.model.genomeNexus.TranscriptSummaryAlterationResult;
@@ -73,6 +74,21 @@ public class PrivateUtilsApiController implements PrivateUtilsApi {
         return new ResponseEntity<>(isHotspot, status);
     }
 
+    @Override
+    public ResponseEntity<List<Boolean>> utilsHotspotMutationPost(
+        @ApiParam(value = "List of queries.", required = true) @RequestBody List<MatchVariant> body
+    ) {
+        List<Boolean> result = new ArrayList<>();
+        if (body != null) {
+            List<Alteration> alterations = new ArrayList<>();
+            for (MatchVariant query : body) {
+                alterations.add(AlterationUtils.getAlteration(query.getHugoSymbol(), query.getAlteration(), null, null, null, null, null));
+            }
+            result = HotspotUtils.isHotspot(alterations);
+        }
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<GeneNumber> utilsNumbersGeneGet(
         @ApiParam(value = "The gene symbol used in Human Genome Organisation.", required = true) @PathVariable("hugoSymbol") String hugoSymbol
@@ -630,4 +646,34 @@ public class PrivateUtilsApiController implements PrivateUtilsApi {
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @Override
+    public ResponseEntity<Map<String, Map<String, LatencyHistogram.Snapshot>>> utilAnnotationMetricsGet() {
+        return new ResponseEntity<>(AnnotationMetrics.getSnapshot(), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Map<String, LatencyHistogram.Snapshot>>> utilAnnotationMetricsDelete() {
+        Map<String, Map<String, LatencyHistogram.Snapshot>> metrics = AnnotationMetrics.getSnapshot();
+        AnnotationMetrics.reset();
+        return new ResponseEntity<>(metrics, HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<GenomeNexusFetchPipeline.Metrics> utilGenomeNexusMetricsGet() {
+        return new ResponseEntity<>(GenomeNexusUtils.getFetchPipeline().getMetrics(), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<GenomeNexusFetchPipeline.Metrics> utilGenomeNexusMetricsDelete() {
+        GenomeNexusFetchPipeline pipeline = GenomeNexusUtils.getFetchPipeline();
+        GenomeNexusFetchPipeline.Metrics metrics = pipeline.getMetrics();
+        pipeline.resetMetrics();
+        return new ResponseEntity<>(metrics, HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<StartupReport> utilStartupMetricsGet() {
+        return new ResponseEntity<>(CacheUtils.getStartupReport(), HttpStatus.OK);
+    }
+
 }
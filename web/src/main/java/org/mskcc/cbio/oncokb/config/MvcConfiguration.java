@@ -1,5 +1,6 @@
 package org.mskcc.cbio.oncokb.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.monitorjbl.json.JsonViewSupportFactoryBean;
 import org.apache.commons.lang3.StringUtils;
 import io.sentry.spring.SentryExceptionResolver;
@@ -91,9 +92,15 @@ public class MvcConfiguration extends WebMvcConfigurerAdapter {
         return multipartResolver;
     }
 
+    // The mapper of the JSON responses, also used by the endpoints which write their response themselves
     @Bean
-    public JsonViewSupportFactoryBean views() {
-        return new JsonViewSupportFactoryBean();
+    public ObjectMapper objectMapper() {
+        return new ObjectMapper();
+    }
+
+    @Bean
+    public JsonViewSupportFactoryBean views(ObjectMapper objectMapper) {
+        return new JsonViewSupportFactoryBean(objectMapper);
     }
 
 
@@ -0,0 +1,62 @@
+package org.mskcc.cbio.oncokb.api.pub.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.TestCase;
+import org.mskcc.cbio.oncokb.config.MvcConfiguration;
+import org.mskcc.cbio.oncokb.model.AlterationType;
+import org.mskcc.cbio.oncokb.model.IndicatorQueryResp;
+import org.mskcc.cbio.oncokb.model.LevelOfEvidence;
+import org.mskcc.cbio.oncokb.model.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.mskcc.cbio.oncokb.api.pub.v1.AnnotationsApiController.NDJSON_CATEGORY_FIELD;
+
+public class AnnotationsApiControllerTest extends TestCase {
+    private final ObjectMapper objectMapper = new MvcConfiguration().objectMapper();
+
+    public void testWriteNdjsonLineWithCategory() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AnnotationsApiController.writeNdjsonLine(objectMapper, outputStream, getResp("BRAF", "V600E"), AlterationType.MUTATION);
+        AnnotationsApiController.writeNdjsonLine(objectMapper, outputStream, getResp("ERBB2", "Amplification"), AlterationType.COPY_NUMBER_ALTERATION);
+        AnnotationsApiController.writeNdjsonLine(objectMapper, outputStream, getResp("EML4", "EML4-ALK Fusion"), AlterationType.STRUCTURAL_VARIANT);
+
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+
+        JsonNode mutation = objectMapper.readTree(lines[0]);
+        assertEquals("MUTATION", mutation.get(NDJSON_CATEGORY_FIELD).asText());
+        assertEquals(NDJSON_CATEGORY_FIELD, mutation.fieldNames().next());
+        assertEquals("BRAF", mutation.get("query").get("hugoSymbol").asText());
+        assertEquals("V600E", mutation.get("query").get("alteration").asText());
+        assertEquals("Oncogenic", mutation.get("oncogenic").asText());
+        assertEquals("LEVEL_1", mutation.get("highestSensitiveLevel").asText());
+
+        assertEquals("COPY_NUMBER_ALTERATION", objectMapper.readTree(lines[1]).get(NDJSON_CATEGORY_FIELD).asText());
+        assertEquals("STRUCTURAL_VARIANT", objectMapper.readTree(lines[2]).get(NDJSON_CATEGORY_FIELD).asText());
+    }
+
+    public void testWriteNdjsonLineWithoutCategory() throws Exception {
+        IndicatorQueryResp resp = getResp("BRAF", "V600E");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AnnotationsApiController.writeNdjsonLine(objectMapper, outputStream, resp, null);
+
+        // the line of a batch endpoint is the same as the element of the JSON array
+        String line = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.writeValueAsString(resp) + "\n", line);
+        assertNull(objectMapper.readTree(line).get(NDJSON_CATEGORY_FIELD));
+    }
+
+    private IndicatorQueryResp getResp(String hugoSymbol, String alteration) {
+        Query query = new Query();
+        query.setHugoSymbol(hugoSymbol);
+        query.setAlteration(alteration);
+        IndicatorQueryResp resp = new IndicatorQueryResp();
+        resp.setQuery(query);
+        resp.setOncogenic("Oncogenic");
+        resp.setHighestSensitiveLevel(LevelOfEvidence.LEVEL_1);
+        return resp;
+    }
+}